@@ -0,0 +1,32 @@
+package com.kanlon.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * 基准测试的入口：参数与 jmh 的命令行相同，总是加上 gc 分析器，输出每次操作分配的内存（gc.alloc.rate.norm）
+ * <p>
+ * 例如：java -jar target/elasticsearch-sql-1.0.1-benchmarks.jar SqlTranslateBenchmark -p corpus=simple,in_10000 -rf json
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 22:50
+ **/
+public class BenchmarkMain {
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.kanlon.benchmark;
+
+import com.alibaba.druid.DbType;
+import com.kanlon.utils.SelfDruidSqlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sql 解析及改写（{@link SelfDruidSqlUtils}）的基准测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 22:50
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DruidSqlBenchmark {
+
+    /**
+     * 追加的 where 条件
+     */
+    private static final String CONDITION = "appid = '15013' and dt_time >= '202105091817+0800'";
+
+    /**
+     * 语料的名称，见 {@link SqlCorpus#NAMES}
+     */
+    @Param({"simple", "count", "union", "in_100", "in_10000", "and_50", "and_500", "union_10", "union_100"})
+    public String corpus;
+
+    private String sql;
+
+    /**
+     * 带模板变量的sql
+     */
+    private String templateSql;
+
+    @Setup
+    public void setUp() {
+        sql = SqlCorpus.get(corpus);
+        templateSql = SqlCorpus.withTemplateVars(sql);
+    }
+
+    @Benchmark
+    public Map<String, String> getColumnExpressMap() {
+        return SelfDruidSqlUtils.getColumnExpressMap(sql, DbType.mysql);
+    }
+
+    @Benchmark
+    public List<String> getTableNamesBySql() {
+        return SelfDruidSqlUtils.getTableNamesBySql(sql, DbType.mysql);
+    }
+
+    @Benchmark
+    public String addWhereForAllSql() {
+        return SelfDruidSqlUtils.addWhereForAllSql(sql, CONDITION, DbType.mysql);
+    }
+
+    @Benchmark
+    public String getTotalNumSqlFromSql() {
+        return SelfDruidSqlUtils.getTotalNumSqlFromSql(sql, DbType.mysql);
+    }
+
+    @Benchmark
+    public String removeVarSubRangeStr() {
+        return SelfDruidSqlUtils.removeVarSubRangeStr(templateSql);
+    }
+}
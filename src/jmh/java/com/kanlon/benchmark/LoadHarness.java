@@ -0,0 +1,294 @@
+package com.kanlon.benchmark;
+
+import com.kanlon.utils.EsSqlExecutor;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlTranslateOptions;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.http.HttpHost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NStringEntity;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 端到端的压测：按线程数逐级回放sql（翻译、序列化、发送 http 请求、解析结果）到本地模拟的 es（{@link StubEsServer}），
+ * 输出每级的吞吐量、延迟分布（HdrHistogram，每级一个 .hgrm 文件）、每次请求分配的内存及 gc 次数和耗时；
+ * 失败的请求不计入吞吐量及成功的延迟分布，其延迟单独记录（失败次数、失败的 p99，有失败时另外输出 -errors.hgrm 文件），避免失败（例如超时）的耗时被忽略
+ * <p>
+ * 参数（--key=value）：
+ * <ul>
+ *     <li>workload：sql 文件，每行一个sql（空行及 # 开头的行忽略），默认为 {@link SqlCorpus} 中的全部语料</li>
+ *     <li>threads：逐级的线程数，默认为 1,2,4,8,16,32</li>
+ *     <li>warmup：每级的预热秒数，默认为 5</li>
+ *     <li>duration：每级的统计秒数，默认为 15</li>
+ *     <li>mode：executor 为使用 {@link EsSqlExecutor}（查询模板缓存）执行，translate 为每次都完整翻译 sql 后发送 dsl 的json，默认为 executor</li>
+ *     <li>out：结果目录，默认为 target/load</li>
+ * </ul>
+ * 例如：java -cp target/elasticsearch-sql-1.0.1-benchmarks.jar com.kanlon.benchmark.LoadHarness --workload=src/jmh/workload.sql --threads=1,4,16
+ * <p>
+ * 分配的内存只统计压测线程（包括在压测线程中的翻译、序列化及同步解析），不包括 http 客户端的 io 线程
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:10
+ **/
+public class LoadHarness implements Closeable {
+
+    private final List<String> workload;
+
+    private final String mode;
+
+    private final RestClient restClient;
+
+    private final EsSqlExecutor executor;
+
+    private LoadHarness(List<String> workload, String mode, RestClient restClient, int maxThreads) {
+        this.workload = workload;
+        this.mode = mode;
+        this.restClient = restClient;
+        this.executor = new EsSqlExecutor(restClient, maxThreads, TimeUnit.SECONDS.toMillis(30), ForkJoinPool.commonPool(), SqlTranslateOptions.DEFAULT);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        List<String> workload = loadWorkload(options.get("workload"));
+        int[] threadCounts = Arrays.stream(options.getOrDefault("threads", "1,2,4,8,16,32").split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "5")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "15")));
+        String mode = options.getOrDefault("mode", "executor");
+        if (!"executor".equals(mode) && !"translate".equals(mode)) {
+            throw new IllegalArgumentException("mode 只能为 executor 或 translate：" + mode);
+        }
+        File outDir = new File(options.getOrDefault("out", "target/load"));
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("创建结果目录失败：" + outDir);
+        }
+        int maxThreads = Arrays.stream(threadCounts).max().orElse(1);
+
+        try (StubEsServer server = new StubEsServer(Math.max(4, maxThreads));
+             RestClient restClient = RestClient.builder(new HttpHost("127.0.0.1", server.getPort()))
+                     .setHttpClientConfigCallback(builder -> builder.setMaxConnTotal(maxThreads * 2).setMaxConnPerRoute(maxThreads * 2))
+                     .build();
+             LoadHarness harness = new LoadHarness(workload, mode, restClient, maxThreads);
+             PrintStream summary = new PrintStream(new File(outDir, "summary-" + mode + ".csv"), StandardCharsets.UTF_8.name())) {
+            System.out.printf("workload: %d sql, mode: %s%n", workload.size(), mode);
+            System.out.printf("%8s %12s %10s %10s %10s %10s %10s %14s %8s %10s %8s %14s%n",
+                    "threads", "ops/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "alloc(B/op)", "gc", "gc(ms)", "errors", "error p99(ms)");
+            summary.println("threads,ops_per_sec,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,alloc_bytes_per_op,gc_count,gc_ms,errors,error_p99_ms");
+            for (int threads : threadCounts) {
+                StepResult result = harness.runStep(threads, warmupNanos, durationNanos);
+                Histogram histogram = result.histogram;
+                Histogram errorHistogram = result.errorHistogram;
+                long errors = errorHistogram.getTotalCount();
+                double opsPerSec = histogram.getTotalCount() / (durationNanos / 1e9);
+                // 分配的内存包括失败的请求
+                long requests = histogram.getTotalCount() + errors;
+                double allocPerOp = requests == 0 ? 0 : (double) result.allocatedBytes / requests;
+                System.out.printf("%8d %12.1f %10.3f %10.3f %10.3f %10.3f %10.3f %14.0f %8d %10d %8d %14.3f%n", threads, opsPerSec,
+                        toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(90)), toMillis(histogram.getValueAtPercentile(99)),
+                        toMillis(histogram.getValueAtPercentile(99.9)), toMillis(histogram.getMaxValue()), allocPerOp, result.gcCount, result.gcMillis,
+                        errors, toMillis(errorHistogram.getValueAtPercentile(99)));
+                summary.printf("%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%.0f,%d,%d,%d,%.3f%n", threads, opsPerSec,
+                        toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(90)), toMillis(histogram.getValueAtPercentile(99)),
+                        toMillis(histogram.getValueAtPercentile(99.9)), toMillis(histogram.getMaxValue()), allocPerOp, result.gcCount, result.gcMillis,
+                        errors, toMillis(errorHistogram.getValueAtPercentile(99)));
+                writeHistogram(histogram, new File(outDir, "latency-" + mode + "-" + threads + "t.hgrm"));
+                if (errors > 0) {
+                    writeHistogram(errorHistogram, new File(outDir, "latency-" + mode + "-" + threads + "t-errors.hgrm"));
+                }
+            }
+        }
+        System.out.println("结果目录：" + outDir.getAbsolutePath());
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.close();
+    }
+
+    /**
+     * 输出延迟分布（.hgrm 文件）
+     *
+     * @param histogram 延迟分布
+     * @param file      文件
+     * @throws IOException 写入失败
+     */
+    private static void writeHistogram(Histogram histogram, File file) throws IOException {
+        try (PrintStream hgrm = new PrintStream(file, StandardCharsets.UTF_8.name())) {
+            // 记录的单位为微秒，输出为毫秒
+            histogram.outputPercentileDistribution(hgrm, 1000.0);
+        }
+    }
+
+    /**
+     * 执行一级压测
+     *
+     * @param threads       线程数
+     * @param warmupNanos   预热时间
+     * @param durationNanos 统计时间
+     * @return 这一级的结果
+     * @throws Exception 压测线程异常
+     */
+    private StepResult runStep(int threads, long warmupNanos, long durationNanos) throws Exception {
+        Recorder recorder = new Recorder(3);
+        Recorder errorRecorder = new Recorder(3);
+        LongAdder allocatedBytes = new LongAdder();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long measureStart = start + warmupNanos;
+        long measureEnd = measureStart + durationNanos;
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; ++i) {
+            int offset = i * 7919;
+            futures.add(workers.submit(() -> runWorker(offset, measureStart, measureEnd, recorder, errorRecorder, allocatedBytes, errors)));
+        }
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, measureStart - System.nanoTime()));
+        long[] gcBefore = gcStats();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long[] gcAfter = gcStats();
+        workers.shutdown();
+        return new StepResult(recorder.getIntervalHistogram(), errorRecorder.getIntervalHistogram(), allocatedBytes.sum(), gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    /**
+     * 压测线程：预热后统计每次请求的延迟（微秒），成功及失败的请求分别记录
+     */
+    private void runWorker(int offset, long measureStart, long measureEnd, Recorder recorder, Recorder errorRecorder, LongAdder allocatedBytes, AtomicLong errors) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int index = offset;
+        long now;
+        while ((now = System.nanoTime()) < measureStart) {
+            invokeQuietly(workload.get(Math.floorMod(index++, workload.size())), errors, false);
+        }
+        long allocatedStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        while (now < measureEnd) {
+            String sql = workload.get(Math.floorMod(index++, workload.size()));
+            boolean success = invokeQuietly(sql, errors, true);
+            long end = System.nanoTime();
+            (success ? recorder : errorRecorder).recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(end - now)));
+            now = end;
+        }
+        allocatedBytes.add(threadMXBean.getThreadAllocatedBytes(threadId) - allocatedStart);
+    }
+
+    /**
+     * 执行一次请求
+     *
+     * @return 是否成功
+     */
+    private boolean invokeQuietly(String sql, AtomicLong errors, boolean countError) {
+        try {
+            if ("executor".equals(mode)) {
+                executor.query(sql);
+            } else {
+                SearchRequest searchRequest = SQLToEsDSLUtils.sqlToEsSearchRequest(sql);
+                Request request = new Request("POST", "/" + String.join(",", searchRequest.indices()) + "/_search");
+                request.setEntity(new NStringEntity(searchRequest.source().toString(), ContentType.APPLICATION_JSON));
+                Response response = restClient.performRequest(request);
+                EntityUtils.toByteArray(response.getEntity());
+            }
+            return true;
+        } catch (Exception e) {
+            if (countError && errors.getAndIncrement() == 0) {
+                e.printStackTrace();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 全部垃圾回收器的回收次数及耗时（毫秒）
+     */
+    private static long[] gcStats() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gcBean.getCollectionCount());
+            millis += Math.max(0, gcBean.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>(16);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("参数的格式为 --key=value：" + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static List<String> loadWorkload(String path) throws IOException {
+        List<String> workload = new ArrayList<>();
+        if (path == null) {
+            for (String name : SqlCorpus.NAMES) {
+                workload.add(SqlCorpus.get(name));
+            }
+            return workload;
+        }
+        for (String line : Files.readAllLines(new File(path).toPath(), StandardCharsets.UTF_8)) {
+            String sql = line.trim();
+            if (!sql.isEmpty() && !sql.startsWith("#")) {
+                workload.add(sql);
+            }
+        }
+        if (workload.isEmpty()) {
+            throw new IllegalArgumentException("sql 文件中没有sql：" + path);
+        }
+        return workload;
+    }
+
+    /**
+     * 一级压测的结果
+     */
+    private static class StepResult {
+        private final Histogram histogram;
+        private final Histogram errorHistogram;
+        private final long allocatedBytes;
+        private final long gcCount;
+        private final long gcMillis;
+
+        StepResult(Histogram histogram, Histogram errorHistogram, long allocatedBytes, long gcCount, long gcMillis) {
+            this.histogram = histogram;
+            this.errorHistogram = errorHistogram;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+    }
+}
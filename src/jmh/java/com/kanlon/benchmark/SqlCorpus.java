@@ -0,0 +1,138 @@
+package com.kanlon.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准测试的sql语料：从单元测试中的sql开始，逐步增大到超大的 in 列表、很长的 and 条件及很多的 union all 分支
+ * <p>
+ * 语料的名称为 类型_规模，例如 in_10000 为一个有 10000 个值的 in 条件；生成的sql是确定的（固定的随机种子），保证每次测试的输入相同
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 22:50
+ **/
+public class SqlCorpus {
+
+    /**
+     * 单元测试中的普通查询
+     */
+    public static final String SIMPLE = "select appid,uid,`dt`,dt_time,time from default.test_t1 where dt_time>='202105081313+0800' and dt_time <='202105081413+0800' "
+            + "and appid = '15013' and uid in ('2524712316','2706555022') order by dt_time desc,time desc limit 0,5";
+
+    /**
+     * 单元测试中的计数sql
+     */
+    public static final String COUNT = "select count(1) from default.test_t2 where dt='12' and country like '%张三%'";
+
+    /**
+     * 单元测试中的 union all
+     */
+    public static final String UNION = "SELECT * FROM `default.test_t6` WHERE dt_time >= '202105091817+0800' AND dt_time <= '202105111817+0800' AND country LIKE '%中国黑龙江绥化%' "
+            + "UNION ALL SELECT * FROM `default.test_t7` WHERE dt_time >= '202105091817+0800' AND dt_time <= '202105111817+0800' AND country LIKE '%中国黑龙江绥化%' "
+            + "UNION ALL SELECT * FROM `default.test_t123` WHERE dt_time >= '202105091817+0800' AND dt_time <= '202105111817+0800' AND country LIKE '%中国黑龙江绥化%' LIMIT 10";
+
+    /**
+     * 全部语料的名称，作为基准测试的参数
+     */
+    public static final String[] NAMES = {"simple", "count", "union", "in_100", "in_10000", "and_50", "and_500", "union_10", "union_100"};
+
+    private static final long SEED = 20261018L;
+
+    private SqlCorpus() {}
+
+    /**
+     * 获取语料
+     *
+     * @param name 语料的名称，见 {@link #NAMES}
+     * @return sql
+     * @throws IllegalArgumentException 没有该语料
+     */
+    public static String get(String name) throws IllegalArgumentException {
+        switch (name) {
+            case "simple":
+                return SIMPLE;
+            case "count":
+                return COUNT;
+            case "union":
+                return UNION;
+            default:
+                break;
+        }
+        int separator = name.lastIndexOf('_');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("没有该语料：" + name);
+        }
+        int size = Integer.parseInt(name.substring(separator + 1));
+        Random random = new Random(SEED);
+        switch (name.substring(0, separator)) {
+            case "in":
+                return inSql(random, size);
+            case "and":
+                return andSql(random, size);
+            case "union":
+                return unionSql(random, size);
+            default:
+                throw new IllegalArgumentException("没有该语料：" + name);
+        }
+    }
+
+    /**
+     * 在where中插入模板变量的范围（${start_tpl_var_*} ... ${end_tpl_var_*}），用于测试删除变量表达式
+     *
+     * @param sql sql
+     * @return 带模板变量的sql
+     */
+    public static String withTemplateVars(String sql) {
+        return sql.replaceAll("(?i) where ", " where \\${start_tpl_var_appid} appid = '\\${appid}' and \\${end_tpl_var_appid} ");
+    }
+
+    /**
+     * 超大的 in 列表
+     */
+    private static String inSql(Random random, int size) {
+        StringBuilder sql = new StringBuilder("select uid,appid,dt_time from default.test_t1 where dt = '20221010' and uid in (");
+        for (int i = 0; i < size; ++i) {
+            sql.append(i == 0 ? "'" : ",'").append(1000000000L + random.nextInt(Integer.MAX_VALUE)).append('\'');
+        }
+        return sql.append(") order by dt_time desc limit 0,100").toString();
+    }
+
+    /**
+     * 很长的 and 条件，字段不同、条件类型交替
+     */
+    private static String andSql(Random random, int size) {
+        StringBuilder sql = new StringBuilder("select uid,appid from default.test_t1 where dt = '20221010'");
+        for (int i = 0; i < size; ++i) {
+            sql.append(" and ");
+            switch (i % 4) {
+                case 0:
+                    sql.append("c").append(i).append(" = '").append(random.nextInt(100000)).append('\'');
+                    break;
+                case 1:
+                    sql.append("c").append(i).append(" >= ").append(random.nextInt(1000));
+                    break;
+                case 2:
+                    sql.append("c").append(i).append(" in (").append(random.nextInt(10)).append(',').append(random.nextInt(10)).append(')');
+                    break;
+                default:
+                    sql.append("c").append(i).append(" != 'v").append(random.nextInt(100)).append('\'');
+                    break;
+            }
+        }
+        return sql.append(" limit 10").toString();
+    }
+
+    /**
+     * 很多的 union all 分支，每个分支的索引及条件不同
+     */
+    private static String unionSql(Random random, int size) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < size; ++i) {
+            if (i > 0) {
+                sql.append(" union all ");
+            }
+            sql.append("select uid,appid,dt_time from default.test_t").append(i)
+                    .append(" where dt_time >= '202105091817+0800' and dt_time <= '202105111817+0800' and act = '").append(random.nextInt(10000)).append('\'');
+        }
+        return sql.append(" order by dt_time desc limit 10").toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.kanlon.benchmark;
+
+import com.kanlon.utils.SQLToEsDSLUtils;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sql 翻译为 es dsl 的基准测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 22:50
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlTranslateBenchmark {
+
+    /**
+     * 语料的名称，见 {@link SqlCorpus#NAMES}
+     */
+    @Param({"simple", "count", "union", "in_100", "in_10000", "and_50", "and_500", "union_10", "union_100"})
+    public String corpus;
+
+    private String sql;
+
+    @Setup
+    public void setUp() {
+        sql = SqlCorpus.get(corpus);
+    }
+
+    @Benchmark
+    public SearchSourceBuilder sqlToEsDslQueryBody() {
+        return SQLToEsDSLUtils.sqlToEsDslQueryBody(sql);
+    }
+
+    /**
+     * 通过 SearchSourceBuilder 生成json
+     */
+    @Benchmark
+    public byte[] sqlToEsDslJsonBytes() {
+        return SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 通过不依赖 es 的 dsl 模型生成json
+     */
+    @Benchmark
+    public byte[] sqlToDslJsonBytes() {
+        return SQLToEsDSLUtils.sqlToDslSearchBody(sql).toJsonBytes();
+    }
+
+    @Benchmark
+    public SearchRequest sqlToEsSearchRequest() {
+        return SQLToEsDSLUtils.sqlToEsSearchRequest(sql);
+    }
+
+    @Benchmark
+    public boolean isCountSql() {
+        return SQLToEsDSLUtils.isCountSql(sql);
+    }
+}
@@ -0,0 +1,119 @@
+package com.kanlon.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 模拟 es 的本地 http 服务，按请求返回固定的结果，不做任何查询，用于压测客户端（翻译、序列化、发送请求、解析结果）的开销
+ * <p>
+ * 批量查询（_msearch）按请求中的查询数返回，聚合查询返回两个分组，计数查询只返回总数，其他查询返回固定的10个文档
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:10
+ **/
+public class StubEsServer implements Closeable {
+
+    private static final byte[] SEARCH_RESPONSE;
+
+    private static final byte[] COUNT_RESPONSE = ("{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+            + "\"hits\":{\"total\":{\"value\":12345,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[]}}").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] AGGREGATION_RESPONSE = ("{\"took\":3,\"timed_out\":false,\"hits\":{\"total\":{\"value\":5,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[]},"
+            + "\"aggregations\":{\"group_by\":{\"buckets\":[{\"key\":\"a\",\"doc_count\":3},{\"key\":\"b\",\"doc_count\":2}]}}}").getBytes(StandardCharsets.UTF_8);
+
+    static {
+        StringBuilder hits = new StringBuilder();
+        for (int i = 0; i < 10; ++i) {
+            hits.append(i == 0 ? "" : ",").append("{\"_index\":\"default.test_t1\",\"_type\":\"_doc\",\"_id\":\"").append(i).append("\",\"_score\":null,")
+                    .append("\"_source\":{\"uid\":\"").append(2524712316L + i).append("\",\"appid\":\"15013\",\"dt\":\"20221010\",\"dt_time\":\"202105081313+0800\",")
+                    .append("\"time\":").append(1620450780000L + i).append(",\"country\":\"中国\",\"act\":\"7609\"},\"sort\":[").append(1620450780000L - i).append("]}");
+        }
+        SEARCH_RESPONSE = ("{\"took\":2,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":10,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[" + hits + "]}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    /**
+     * 启动服务（随机端口）
+     *
+     * @param threads 处理请求的线程数
+     * @throws IOException 启动失败
+     */
+    public StubEsServer(int threads) throws IOException {
+        // 不开启时响应头和响应体分开发送会触发 nagle 与延迟确认，每个请求多等待约40毫秒
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * 服务的端口
+     *
+     * @return 端口
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = readAll(exchange.getRequestBody());
+        byte[] response;
+        if (exchange.getRequestURI().getPath().endsWith("/_msearch")) {
+            // 每个查询两行
+            int searches = Math.max(1, (int) body.chars().filter(c -> c == '\n').count() / 2);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(SEARCH_RESPONSE.length * searches + 32);
+            outputStream.write("{\"took\":2,\"responses\":[".getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < searches; ++i) {
+                if (i > 0) {
+                    outputStream.write(',');
+                }
+                outputStream.write(SEARCH_RESPONSE);
+            }
+            outputStream.write("]}".getBytes(StandardCharsets.UTF_8));
+            response = outputStream.toByteArray();
+        } else if (body.contains("\"aggregations\"")) {
+            response = AGGREGATION_RESPONSE;
+        } else if (body.contains("\"track_total_hits\"")) {
+            response = COUNT_RESPONSE;
+        } else {
+            response = SEARCH_RESPONSE;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(response);
+        }
+    }
+
+    private static String readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int len;
+        while ((len = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, len);
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,9 @@
+# 压测的sql，每行一个（空行及 # 开头的行忽略），见 com.kanlon.benchmark.LoadHarness
+select appid,uid,`dt`,dt_time,time from default.test_t1 where dt_time>='202105081313+0800' and dt_time <='202105081413+0800' and appid = '15013' and uid in ('2524712316','2706555022') order by dt_time desc,time desc limit 0,5
+select uid,appid from default.test_t1 where dt = '20221010' and appid = '15013' limit 10
+select uid as user_id,appid,dt_time from default.test_t1 where dt = '20221011' and act in ('7609','7610') order by dt_time desc limit 20,10
+select count(1) from default.test_t2 where dt='12' and country like '%张三%'
+select count(1) as num from default.test_t1 where dt_time >= '202105092057+0800' and dt_time <= '202105112057+0800' and act = '7609'
+select appid, count(1) as cnt from default.test_t1 where dt = '20221010' group by appid
+SELECT * FROM `default.test_t8` WHERE dt_time >= '202105092057+0800' AND dt_time <= '202105112057+0800' AND act = '7609' UNION ALL SELECT * FROM `default.test_t11` WHERE dt_time >= '202105092057+0800' AND dt_time <= '202105112057+0800' AND act = '7609' LIMIT 10
+select uid from default.test_t5 where dt='1' union all select uid from default.test_t6 where dt='2' order by dt_time desc limit 0,10
@@ -0,0 +1,523 @@
+package com.kanlon.utils;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 按列存储的查询结果（非线程安全），用于大量数值结果的分析场景，避免每行一个 map 及装箱的数字
+ * <p>
+ * 每个 select 中的列一个列存储，按块（默认 4096 行）增长：整数为 long 数组，小数为 double 数组，字符串为字典编码（每行存储字典中的序号），
+ * 其他类型（布尔、数组、对象）按对象存储；每块有一个空值位图。列的类型由第一个非空的值确定，之后出现小数时整数列转为小数列，出现不兼容的值时转为对象列
+ * <p>
+ * 可以使用堆外内存（direct buffer）存储数值及字典序号，堆外内存在对象被回收时释放
+ * <p>
+ * 作为 {@link ProjectedRow} 的回调逐行追加（见 {@link EsSqlExecutor#queryColumnar(String, boolean, Object...)}），select * 没有固定的列，不支持
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 22:10
+ **/
+public class EsColumnarResult implements Consumer<ProjectedRow> {
+
+    /**
+     * 默认每块的行数
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    /**
+     * 列名
+     */
+    private final List<String> columns;
+
+    /**
+     * 列名及其位置
+     */
+    private final Map<String, Integer> columnIndexMap;
+
+    private final Column[] columnData;
+
+    /**
+     * 每块的行数的位数（每块的行数为2的幂）
+     */
+    private final int chunkShift;
+
+    private final int chunkMask;
+
+    /**
+     * 是否使用堆外内存
+     */
+    private final boolean offHeap;
+
+    /**
+     * 列与之一一对应的解码器，其解码的行按位置取值，没有则为 null
+     */
+    private SqlRowDecoder decoder;
+
+    /**
+     * 行数
+     */
+    private int rowCount;
+
+    /**
+     * 构造方法
+     *
+     * @param columns   列名
+     * @param chunkSize 每块的行数，必须为2的幂并且是64的倍数
+     * @param offHeap   数值及字典序号是否使用堆外内存
+     */
+    public EsColumnarResult(List<String> columns, int chunkSize, boolean offHeap) {
+        if (CollectionUtils.isEmpty(columns)) {
+            throw new IllegalArgumentException("列不能为空！");
+        }
+        if (chunkSize < Long.SIZE || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("每块的行数必须为2的幂并且不小于64！");
+        }
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+        this.columnIndexMap = new HashMap<>(columns.size() * 2);
+        this.columnData = new Column[columns.size()];
+        for (int i = 0; i < columns.size(); ++i) {
+            columnIndexMap.put(columns.get(i), i);
+            columnData[i] = new Column();
+        }
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunkMask = chunkSize - 1;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * 按解码器的列创建
+     *
+     * @param decoder 查询结果的解码器
+     * @param offHeap 数值及字典序号是否使用堆外内存
+     * @return {@link EsColumnarResult}
+     * @throws RuntimeException select * 没有固定的列
+     */
+    public static EsColumnarResult of(SqlRowDecoder decoder, boolean offHeap) throws RuntimeException {
+        if (decoder.isAllFields()) {
+            throw new RuntimeException("select * 没有固定的列，不支持按列存储！");
+        }
+        EsColumnarResult result = new EsColumnarResult(decoder.getColumns(), DEFAULT_CHUNK_SIZE, offHeap);
+        result.decoder = decoder;
+        return result;
+    }
+
+    /**
+     * 追加一行，按列名取值，行中没有的列为空
+     *
+     * @param row 解码出的行
+     */
+    @Override
+    public void accept(ProjectedRow row) {
+        int chunkIndex = rowCount >>> chunkShift;
+        int offset = rowCount & chunkMask;
+        boolean sameColumns = decoder != null && row.getDecoder() == decoder;
+        for (int i = 0; i < columnData.length; ++i) {
+            columnData[i].append(chunkIndex, offset, sameColumns ? row.get(i) : row.get(columns.get(i)));
+        }
+        ++rowCount;
+    }
+
+    /**
+     * 行数
+     *
+     * @return 行数
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 列数
+     *
+     * @return 列数
+     */
+    public int columnCount() {
+        return columns.size();
+    }
+
+    /**
+     * 获取列名（只读）
+     *
+     * @return 列名
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 获取列的位置
+     *
+     * @param column 列名
+     * @return 位置，没有该列则为 -1
+     */
+    public int indexOf(String column) {
+        Integer index = columnIndexMap.get(column);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 获取列的类型
+     *
+     * @param column 列的位置
+     * @return {@link ColumnType}
+     */
+    public ColumnType getColumnType(int column) {
+        return columnData[column].type;
+    }
+
+    /**
+     * 是否为空值
+     *
+     * @param row    行的位置
+     * @param column 列的位置
+     * @return boolean
+     */
+    public boolean isNull(int row, int column) {
+        checkRow(row);
+        long[] nulls = columnData[column].nullChunks.get(row >>> chunkShift);
+        int offset = row & chunkMask;
+        return (nulls[offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    /**
+     * 获取 long 类型的值
+     *
+     * @param row    行的位置
+     * @param column 列的位置
+     * @return 值，空值为 0（使用 {@link #isNull(int, int)} 判断）
+     * @throws NumberFormatException 不是数字
+     */
+    public long getLong(int row, int column) throws NumberFormatException {
+        if (isNull(row, column)) {
+            return 0;
+        }
+        Column data = columnData[column];
+        int chunkIndex = row >>> chunkShift;
+        int offset = row & chunkMask;
+        switch (data.type) {
+            case LONG:
+                return data.longChunks.get(chunkIndex).get(offset);
+            case DOUBLE:
+                return (long) data.doubleChunks.get(chunkIndex).get(offset);
+            default:
+                return EsRow.toLong(getObject(row, column));
+        }
+    }
+
+    /**
+     * 获取 double 类型的值
+     *
+     * @param row    行的位置
+     * @param column 列的位置
+     * @return 值，空值为 0（使用 {@link #isNull(int, int)} 判断）
+     * @throws NumberFormatException 不是数字
+     */
+    public double getDouble(int row, int column) throws NumberFormatException {
+        if (isNull(row, column)) {
+            return 0;
+        }
+        Column data = columnData[column];
+        int chunkIndex = row >>> chunkShift;
+        int offset = row & chunkMask;
+        switch (data.type) {
+            case LONG:
+                return data.longChunks.get(chunkIndex).get(offset);
+            case DOUBLE:
+                return data.doubleChunks.get(chunkIndex).get(offset);
+            default:
+                return EsRow.toDouble(getObject(row, column));
+        }
+    }
+
+    /**
+     * 获取字符串类型的值
+     *
+     * @param row    行的位置
+     * @param column 列的位置
+     * @return 值，空值为 null
+     */
+    public String getString(int row, int column) {
+        Object value = getObject(row, column);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * 获取字符串列的值在字典中的序号（见 {@link #getDictionary(int)}）
+     *
+     * @param row    行的位置
+     * @param column 列的位置
+     * @return 序号，空值为 -1
+     * @throws IllegalStateException 不是字符串列
+     */
+    public int getStringCode(int row, int column) throws IllegalStateException {
+        Column data = columnData[column];
+        if (isNull(row, column)) {
+            return -1;
+        }
+        if (data.type != ColumnType.STRING) {
+            throw new IllegalStateException("列【" + columns.get(column) + "】不是字符串列！");
+        }
+        return data.codeChunks.get(row >>> chunkShift).get(row & chunkMask);
+    }
+
+    /**
+     * 获取字符串列的字典（只读），按第一次出现的顺序
+     *
+     * @param column 列的位置
+     * @return 字典，不是字符串列则为空
+     */
+    public List<String> getDictionary(int column) {
+        Column data = columnData[column];
+        return data.dictionary == null ? Collections.emptyList() : Collections.unmodifiableList(data.dictionary);
+    }
+
+    /**
+     * 获取值（装箱）
+     *
+     * @param row    行的位置
+     * @param column 列的位置
+     * @return 值，空值为 null
+     */
+    public Object getObject(int row, int column) {
+        if (isNull(row, column)) {
+            return null;
+        }
+        return columnData[column].get(row >>> chunkShift, row & chunkMask);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("行的位置超出范围：" + row);
+        }
+    }
+
+    /**
+     * 列的类型
+     */
+    public enum ColumnType {
+        /**
+         * 还没有非空的值
+         */
+        NULL,
+        /**
+         * 整数，long 存储
+         */
+        LONG,
+        /**
+         * 小数，double 存储
+         */
+        DOUBLE,
+        /**
+         * 字符串，字典编码
+         */
+        STRING,
+        /**
+         * 其他类型或类型不一致，按对象存储
+         */
+        OBJECT
+    }
+
+    /**
+     * 值对应的列的类型
+     *
+     * @param value 非空的值
+     * @return {@link ColumnType}
+     */
+    private static ColumnType typeOf(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ColumnType.LONG;
+        }
+        if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+            return ColumnType.DOUBLE;
+        }
+        return value instanceof String ? ColumnType.STRING : ColumnType.OBJECT;
+    }
+
+    /**
+     * 一列的数据，每块一个数组，只有当前类型的数组有数据
+     */
+    private class Column {
+
+        private ColumnType type = ColumnType.NULL;
+
+        /**
+         * 空值位图，1 表示空值
+         */
+        private final List<long[]> nullChunks = new ArrayList<>();
+
+        private List<LongBuffer> longChunks;
+
+        private List<DoubleBuffer> doubleChunks;
+
+        /**
+         * 字符串在字典中的序号
+         */
+        private List<IntBuffer> codeChunks;
+
+        private List<Object[]> objectChunks;
+
+        private List<String> dictionary;
+
+        private Map<String, Integer> dictionaryIndex;
+
+        void append(int chunkIndex, int offset, Object value) {
+            if (chunkIndex == nullChunks.size()) {
+                nullChunks.add(new long[(chunkMask + 1) >>> 6]);
+                if (type != ColumnType.NULL) {
+                    addChunk();
+                }
+            }
+            if (value == null) {
+                nullChunks.get(chunkIndex)[offset >>> 6] |= 1L << offset;
+                return;
+            }
+            ColumnType valueType = typeOf(value);
+            if (valueType != type) {
+                convert(valueType);
+            }
+            switch (type) {
+                case LONG:
+                    longChunks.get(chunkIndex).put(offset, ((Number) value).longValue());
+                    break;
+                case DOUBLE:
+                    doubleChunks.get(chunkIndex).put(offset, ((Number) value).doubleValue());
+                    break;
+                case STRING:
+                    codeChunks.get(chunkIndex).put(offset, encode((String) value));
+                    break;
+                default:
+                    objectChunks.get(chunkIndex)[offset] = value;
+                    break;
+            }
+        }
+
+        Object get(int chunkIndex, int offset) {
+            switch (type) {
+                case LONG:
+                    return longChunks.get(chunkIndex).get(offset);
+                case DOUBLE:
+                    return doubleChunks.get(chunkIndex).get(offset);
+                case STRING:
+                    return dictionary.get(codeChunks.get(chunkIndex).get(offset));
+                case OBJECT:
+                    return objectChunks.get(chunkIndex)[offset];
+                default:
+                    return null;
+            }
+        }
+
+        private int encode(String value) {
+            Integer code = dictionaryIndex.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                dictionaryIndex.put(value, code);
+            }
+            return code;
+        }
+
+        /**
+         * 按当前类型给已有的每一块分配数组
+         */
+        private void initChunks() {
+            switch (type) {
+                case LONG:
+                    longChunks = new ArrayList<>(nullChunks.size());
+                    break;
+                case DOUBLE:
+                    doubleChunks = new ArrayList<>(nullChunks.size());
+                    break;
+                case STRING:
+                    codeChunks = new ArrayList<>(nullChunks.size());
+                    dictionary = new ArrayList<>();
+                    dictionaryIndex = new HashMap<>(64);
+                    break;
+                default:
+                    objectChunks = new ArrayList<>(nullChunks.size());
+                    break;
+            }
+            for (int i = 0; i < nullChunks.size(); ++i) {
+                addChunk();
+            }
+        }
+
+        private void addChunk() {
+            int chunkSize = chunkMask + 1;
+            switch (type) {
+                case LONG:
+                    longChunks.add(offHeap ? allocateDirect(chunkSize * Long.BYTES).asLongBuffer() : LongBuffer.wrap(new long[chunkSize]));
+                    break;
+                case DOUBLE:
+                    doubleChunks.add(offHeap ? allocateDirect(chunkSize * Double.BYTES).asDoubleBuffer() : DoubleBuffer.wrap(new double[chunkSize]));
+                    break;
+                case STRING:
+                    codeChunks.add(offHeap ? allocateDirect(chunkSize * Integer.BYTES).asIntBuffer() : IntBuffer.wrap(new int[chunkSize]));
+                    break;
+                default:
+                    objectChunks.add(new Object[chunkSize]);
+                    break;
+            }
+        }
+
+        /**
+         * 出现其他类型的值时转换列的类型：没有值时直接使用该类型，整数列出现小数时转为小数列，其他情况转为对象列
+         *
+         * @param valueType 值的类型
+         */
+        private void convert(ColumnType valueType) {
+            if (type == ColumnType.NULL) {
+                type = valueType;
+                initChunks();
+                return;
+            }
+            if (type == ColumnType.OBJECT || (type == ColumnType.DOUBLE && valueType == ColumnType.LONG)) {
+                return;
+            }
+            int chunkCount = nullChunks.size();
+            List<Object[]> oldValues = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; ++i) {
+                Object[] chunk = new Object[chunkMask + 1];
+                for (int offset = 0; offset <= chunkMask; ++offset) {
+                    if ((nullChunks.get(i)[offset >>> 6] & (1L << offset)) == 0) {
+                        chunk[offset] = get(i, offset);
+                    }
+                }
+                oldValues.add(chunk);
+            }
+            longChunks = null;
+            doubleChunks = null;
+            codeChunks = null;
+            dictionary = null;
+            dictionaryIndex = null;
+            if (type == ColumnType.LONG && valueType == ColumnType.DOUBLE) {
+                type = ColumnType.DOUBLE;
+                initChunks();
+                for (int i = 0; i < chunkCount; ++i) {
+                    Object[] chunk = oldValues.get(i);
+                    DoubleBuffer doubles = doubleChunks.get(i);
+                    for (int offset = 0; offset < chunk.length; ++offset) {
+                        if (chunk[offset] != null) {
+                            doubles.put(offset, ((Number) chunk[offset]).doubleValue());
+                        }
+                    }
+                }
+            } else {
+                type = ColumnType.OBJECT;
+                objectChunks = oldValues;
+            }
+        }
+    }
+
+    private static ByteBuffer allocateDirect(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+}
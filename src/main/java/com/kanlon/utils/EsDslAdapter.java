@@ -0,0 +1,272 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.dsl.DslAggregation;
+import com.kanlon.utils.dsl.DslBoolQuery;
+import com.kanlon.utils.dsl.DslConstantScoreQuery;
+import com.kanlon.utils.dsl.DslMatchPhraseQuery;
+import com.kanlon.utils.dsl.DslPrefixQuery;
+import com.kanlon.utils.dsl.DslQuery;
+import com.kanlon.utils.dsl.DslRangeQuery;
+import com.kanlon.utils.dsl.DslScript;
+import com.kanlon.utils.dsl.DslJsonWriter;
+import com.kanlon.utils.dsl.DslScriptQuery;
+import com.kanlon.utils.dsl.DslSearchBody;
+import com.kanlon.utils.dsl.DslTermQuery;
+import com.kanlon.utils.dsl.DslTermsQuery;
+import com.kanlon.utils.dsl.DslWildcardQuery;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.PipelineAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * dsl 模型（{@link com.kanlon.utils.dsl}）转为 es 的 SearchSourceBuilder，用于需要 SearchSourceBuilder 的调用方，生成的json与 dsl 模型相同
+ * <p>
+ * 查询参数只在 dsl 模型中生成，SearchSourceBuilder 都由这里转换；聚合按其json由 es 解析，新增的聚合参数不需要在这里适配
+ * <p>
+ * 查询模板（{@link PreparedSqlQuery}）绑定参数生成 SearchSourceBuilder、SearchRequest 及 MultiSearchRequest 也在这里，
+ * 翻译的核心（{@link SqlTranslateContext}、{@link PreparedSqlQuery}、{@link SqlAggregation} 及 dsl 模型）不依赖 es 的类
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+public class EsDslAdapter {
+
+    /**
+     * 解析聚合使用的 es 的命名对象
+     */
+    private static final NamedXContentRegistry AGGREGATION_REGISTRY = new NamedXContentRegistry(
+            new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedXContents());
+
+    /**
+     * 有分区的索引的查询的索引选项：忽略不存在的索引，并且允许没有索引（见 {@link EsIndexResolver}）
+     */
+    static final IndicesOptions PARTITIONED_INDICES_OPTIONS = IndicesOptions.fromOptions(true, true, true, false, SearchRequest.DEFAULT_INDICES_OPTIONS);
+
+    private EsDslAdapter() {}
+
+    /**
+     * 查询模板绑定参数，生成 es 查询的dsl中的查询参数（由 {@link PreparedSqlQuery#bindDsl(Object...)} 的模型转换）
+     *
+     * @param query  查询模板
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return {@link SearchSourceBuilder}
+     * @throws IllegalArgumentException 参数个数不足，或者需要多个查询（{@link PreparedSqlQuery#isMultiSearch()}）或合并全部的聚合桶（{@link SqlAggregation#isMergeRequired()}）
+     */
+    public static SearchSourceBuilder bind(PreparedSqlQuery query, Object... params) throws IllegalArgumentException {
+        return toSearchSourceBuilder(query.bindDsl(params));
+    }
+
+    /**
+     * 查询模板绑定参数，生成 es 的查询对象
+     *
+     * @param query  查询模板
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return {@link SearchRequest}
+     * @throws IllegalArgumentException 参数个数不足，或者 union all 中各个查询的条件不同（需要使用 {@link #bindMultiSearchRequest(PreparedSqlQuery, Object...)}）
+     */
+    public static SearchRequest bindSearchRequest(PreparedSqlQuery query, Object... params) throws IllegalArgumentException {
+        return toSearchRequest(query.resolveIndices(params), query.isPartitioned(), query.isRequestCache(params), bind(query, params));
+    }
+
+    /**
+     * 查询模板绑定参数，生成 es 的批量查询对象：union all 中条件不同的查询各生成一个查询，一次请求发送
+     * <p>
+     * 有 limit 时每个查询只返回前 偏移量+条数 条，查询结果需要使用 {@link SqlUnionMerger} 合并后再分页；不需要多个查询时只有一个查询
+     *
+     * @param query  查询模板
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return {@link MultiSearchRequest}
+     */
+    public static MultiSearchRequest bindMultiSearchRequest(PreparedSqlQuery query, Object... params) throws IllegalArgumentException {
+        MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        if (!query.isMultiSearch()) {
+            multiSearchRequest.add(bindSearchRequest(query, params));
+            return multiSearchRequest;
+        }
+        for (PreparedSqlQuery.UnionBranch branch : query.getUnionBranches()) {
+            multiSearchRequest.add(toSearchRequest(query.resolveIndices(branch, params), query.isPartitioned(), query.isRequestCache(params),
+                    toSearchSourceBuilder(query.bindUnionBranchDsl(branch, params))));
+        }
+        return multiSearchRequest;
+    }
+
+    /**
+     * 生成 es 的查询对象
+     *
+     * @param indices       索引
+     * @param partitioned   是否有按时间分区的索引（忽略不存在的索引）
+     * @param requestCache  是否使用分片的请求缓存
+     * @param sourceBuilder 查询参数
+     * @return {@link SearchRequest}
+     */
+    static SearchRequest toSearchRequest(String[] indices, boolean partitioned, boolean requestCache, SearchSourceBuilder sourceBuilder) {
+        SearchRequest rq = new SearchRequest();
+        rq.indices(indices);
+        if (partitioned) {
+            rq.indicesOptions(PARTITIONED_INDICES_OPTIONS);
+        }
+        if (requestCache) {
+            rq.requestCache(true);
+        }
+        rq.source(sourceBuilder);
+        return rq;
+    }
+
+    /**
+     * dsl 查询参数的模型转为 es 的查询参数
+     *
+     * @param body dsl 查询参数的模型
+     * @return {@link SearchSourceBuilder}
+     * @throws IllegalArgumentException 不支持的查询
+     */
+    public static SearchSourceBuilder toSearchSourceBuilder(DslSearchBody body) throws IllegalArgumentException {
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
+        if (body.getFrom() != null) {
+            sourceBuilder.from(body.getFrom());
+        }
+        if (body.getSize() != null) {
+            sourceBuilder.size(body.getSize());
+        }
+        if (body.getTerminateAfter() != null) {
+            sourceBuilder.terminateAfter(body.getTerminateAfter());
+        }
+        if (body.getQuery() != null) {
+            sourceBuilder.query(toQueryBuilder(body.getQuery()));
+        }
+        if (body.getFetchSource() != null) {
+            if (body.getIncludes() == null && body.getExcludes() == null) {
+                sourceBuilder.fetchSource(body.getFetchSource());
+            } else {
+                sourceBuilder.fetchSource(body.getIncludes(), body.getExcludes());
+            }
+        }
+        body.getStoredFields().forEach(sourceBuilder::storedField);
+        body.getDocValueFields().forEach(sourceBuilder::docValueField);
+        for (Map.Entry<String, DslScript> scriptField : body.getScriptFields().entrySet()) {
+            sourceBuilder.scriptField(scriptField.getKey(), toScript(scriptField.getValue()));
+        }
+        for (Map.Entry<String, String> sort : body.getSorts()) {
+            sourceBuilder.sort(sort.getKey(), SortOrder.fromString(sort.getValue()));
+        }
+        if (body.getTrackTotalHits() != null) {
+            sourceBuilder.trackTotalHits(body.getTrackTotalHits());
+        }
+        if (body.getSearchAfter() != null) {
+            sourceBuilder.searchAfter(body.getSearchAfter());
+        }
+        if (!body.getAggregations().isEmpty()) {
+            AggregatorFactories.Builder aggregations = toAggregations(body);
+            for (AggregationBuilder aggregation : aggregations.getAggregatorFactories()) {
+                sourceBuilder.aggregation(aggregation);
+            }
+            for (PipelineAggregationBuilder aggregation : aggregations.getPipelineAggregatorFactories()) {
+                sourceBuilder.aggregation(aggregation);
+            }
+        }
+        return sourceBuilder;
+    }
+
+    /**
+     * dsl 聚合按其json由 es 解析为聚合
+     *
+     * @param body dsl 查询参数的模型
+     * @return {@link AggregatorFactories.Builder}
+     */
+    private static AggregatorFactories.Builder toAggregations(DslSearchBody body) {
+        DslJsonWriter writer = new DslJsonWriter();
+        writer.startObject();
+        for (DslAggregation aggregation : body.getAggregations()) {
+            aggregation.writeTo(writer);
+        }
+        writer.endObject();
+        try (XContentParser parser = JsonXContent.jsonXContent.createParser(AGGREGATION_REGISTRY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, writer.toByteArray())) {
+            parser.nextToken();
+            return AggregatorFactories.parseAggregators(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("聚合转换失败！" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * dsl 查询转为 es 的查询
+     *
+     * @param query dsl 查询
+     * @return {@link QueryBuilder}
+     * @throws IllegalArgumentException 不支持的查询
+     */
+    public static QueryBuilder toQueryBuilder(DslQuery query) throws IllegalArgumentException {
+        if (query instanceof DslTermQuery) {
+            DslTermQuery termQuery = (DslTermQuery) query;
+            return QueryBuilders.termQuery(termQuery.getField(), termQuery.getValue());
+        } else if (query instanceof DslTermsQuery) {
+            DslTermsQuery termsQuery = (DslTermsQuery) query;
+            return QueryBuilders.termsQuery(termsQuery.getField(), termsQuery.getValues());
+        } else if (query instanceof DslRangeQuery) {
+            DslRangeQuery rangeQuery = (DslRangeQuery) query;
+            RangeQueryBuilder rangeQueryBuilder = QueryBuilders.rangeQuery(rangeQuery.getField())
+                    .from(rangeQuery.getFrom(), rangeQuery.isIncludeLower())
+                    .to(rangeQuery.getTo(), rangeQuery.isIncludeUpper());
+            if (rangeQuery.getFormat() != null) {
+                rangeQueryBuilder.format(rangeQuery.getFormat());
+            }
+            return rangeQueryBuilder;
+        } else if (query instanceof DslWildcardQuery) {
+            DslWildcardQuery wildcardQuery = (DslWildcardQuery) query;
+            return QueryBuilders.wildcardQuery(wildcardQuery.getField(), wildcardQuery.getPattern());
+        } else if (query instanceof DslPrefixQuery) {
+            DslPrefixQuery prefixQuery = (DslPrefixQuery) query;
+            return QueryBuilders.prefixQuery(prefixQuery.getField(), prefixQuery.getValue());
+        } else if (query instanceof DslMatchPhraseQuery) {
+            DslMatchPhraseQuery matchPhraseQuery = (DslMatchPhraseQuery) query;
+            return QueryBuilders.matchPhraseQuery(matchPhraseQuery.getField(), matchPhraseQuery.getQuery());
+        } else if (query instanceof DslScriptQuery) {
+            return QueryBuilders.scriptQuery(toScript(((DslScriptQuery) query).getScript()));
+        } else if (query instanceof DslBoolQuery) {
+            DslBoolQuery boolQuery = (DslBoolQuery) query;
+            BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
+            boolQuery.getMust().forEach(clause -> boolQueryBuilder.must(toQueryBuilder(clause)));
+            boolQuery.getFilter().forEach(clause -> boolQueryBuilder.filter(toQueryBuilder(clause)));
+            boolQuery.getMustNot().forEach(clause -> boolQueryBuilder.mustNot(toQueryBuilder(clause)));
+            boolQuery.getShould().forEach(clause -> boolQueryBuilder.should(toQueryBuilder(clause)));
+            if (boolQuery.getMinimumShouldMatch() != null) {
+                boolQueryBuilder.minimumShouldMatch(boolQuery.getMinimumShouldMatch());
+            }
+            return boolQueryBuilder;
+        } else if (query instanceof DslConstantScoreQuery) {
+            return QueryBuilders.constantScoreQuery(toQueryBuilder(((DslConstantScoreQuery) query).getFilter()));
+        }
+        throw new IllegalArgumentException("不支持的dsl查询：" + (query == null ? null : query.getName()));
+    }
+
+    /**
+     * dsl 脚本转为 es 的内联脚本
+     *
+     * @param script dsl 脚本
+     * @return {@link Script}
+     */
+    public static Script toScript(DslScript script) {
+        return new Script(ScriptType.INLINE, script.getLang(), script.getSource(), script.getParams());
+    }
+}
@@ -0,0 +1,44 @@
+package com.kanlon.utils;
+
+import lombok.Getter;
+
+/**
+ * 根据sql的结构及调用方对命中总数的需要（{@link TotalHitsIntent}）决定的命中总数统计及提前结束的设置（不可变）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:00
+ **/
+@Getter
+public final class EsHitControl {
+
+    /**
+     * 不做任何设置
+     */
+    public static final EsHitControl DEFAULT = new EsHitControl(null, 0, false);
+
+    /**
+     * track_total_hits：true 为统计准确的总数，false 为不统计，null 为不设置（es 7 默认最多统计到 10000）
+     */
+    private final Boolean trackTotalHits;
+
+    /**
+     * terminate_after：每个分片最多收集的文档数，0 为不设置
+     */
+    private final int terminateAfter;
+
+    /**
+     * order by 是否为索引排序的前缀，不统计总数时 es 在每个分片收集到 偏移量+条数 个文档后即可提前结束
+     */
+    private final boolean indexSortEarlyTermination;
+
+    EsHitControl(Boolean trackTotalHits, int terminateAfter, boolean indexSortEarlyTermination) {
+        this.trackTotalHits = trackTotalHits;
+        this.terminateAfter = terminateAfter;
+        this.indexSortEarlyTermination = indexSortEarlyTermination;
+    }
+
+    @Override
+    public String toString() {
+        return "EsHitControl{trackTotalHits=" + trackTotalHits + ", terminateAfter=" + terminateAfter + ", indexSortEarlyTermination=" + indexSortEarlyTermination + '}';
+    }
+}
@@ -0,0 +1,154 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.schema.EsDateFormats;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按时间分区的索引（例如每天一个索引 test_t_20210508）的分区规则（不可变）：索引名为 前缀 + 分区开始时间按格式格式化
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 02:10
+ **/
+@Getter
+public final class EsIndexPartition {
+
+    /**
+     * 默认最多展开的索引数，范围内的分区超过该数量时不裁剪（使用sql中的索引）
+     */
+    public static final int DEFAULT_MAX_INDICES = 512;
+
+    /**
+     * 分区的时间字段
+     */
+    private final String timeField;
+
+    /**
+     * 索引名的前缀，例如 test_t_
+     */
+    private final String indexPrefix;
+
+    /**
+     * 索引名中时间的格式，例如 yyyyMMdd
+     */
+    private final String datePattern;
+
+    /**
+     * 每个分区的时间长度
+     */
+    private final ChronoUnit unit;
+
+    /**
+     * 索引名中时间的时区（只用于索引名，没有时区的时间条件与 es 一致按 UTC 解析）
+     */
+    private final ZoneId zone;
+
+    /**
+     * 最多展开的索引数
+     */
+    private final int maxIndices;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final DateTimeFormatter formatter;
+
+    /**
+     * 构造方法
+     *
+     * @param timeField   分区的时间字段
+     * @param indexPrefix 索引名的前缀
+     * @param datePattern 索引名中时间的格式
+     * @param unit        每个分区的时间长度：小时、天、月或年
+     * @param zone        索引名中时间的时区
+     * @param maxIndices  最多展开的索引数
+     */
+    public EsIndexPartition(String timeField, String indexPrefix, String datePattern, ChronoUnit unit, ZoneId zone, int maxIndices) {
+        if (unit != ChronoUnit.HOURS && unit != ChronoUnit.DAYS && unit != ChronoUnit.MONTHS && unit != ChronoUnit.YEARS) {
+            throw new IllegalArgumentException("分区的时间长度只能为小时、天、月或年！" + unit);
+        }
+        this.timeField = timeField;
+        this.indexPrefix = indexPrefix;
+        this.datePattern = datePattern;
+        this.unit = unit;
+        this.zone = zone;
+        this.maxIndices = maxIndices;
+        this.formatter = DateTimeFormatter.ofPattern(datePattern).withZone(zone);
+    }
+
+    /**
+     * 每天一个索引，索引名为 前缀 + yyyyMMdd，使用系统的时区
+     *
+     * @param indexPrefix 索引名的前缀，例如 test_t_
+     * @param timeField   分区的时间字段
+     * @return {@link EsIndexPartition}
+     */
+    public static EsIndexPartition daily(String indexPrefix, String timeField) {
+        return new EsIndexPartition(timeField, indexPrefix, "yyyyMMdd", ChronoUnit.DAYS, ZoneId.systemDefault(), DEFAULT_MAX_INDICES);
+    }
+
+    /**
+     * 每月一个索引，索引名为 前缀 + yyyyMM，使用系统的时区
+     *
+     * @param indexPrefix 索引名的前缀，例如 test_t_
+     * @param timeField   分区的时间字段
+     * @return {@link EsIndexPartition}
+     */
+    public static EsIndexPartition monthly(String indexPrefix, String timeField) {
+        return new EsIndexPartition(timeField, indexPrefix, "yyyyMM", ChronoUnit.MONTHS, ZoneId.systemDefault(), DEFAULT_MAX_INDICES);
+    }
+
+    /**
+     * 与时间范围有交集的分区的索引
+     *
+     * @param from 时间的下限（包含）
+     * @param to   时间的上限（包含）
+     * @return 索引，按时间升序；分区数超过 {@link #maxIndices} 则返回 null
+     */
+    public List<String> indicesBetween(Instant from, Instant to) {
+        List<String> indices = new ArrayList<>();
+        ZonedDateTime end = to.atZone(zone);
+        for (ZonedDateTime start = truncate(from.atZone(zone)); !start.isAfter(end); start = start.plus(1, unit)) {
+            if (indices.size() >= maxIndices) {
+                return null;
+            }
+            indices.add(indexPrefix + formatter.format(start));
+        }
+        return indices;
+    }
+
+    /**
+     * 解析时间条件的值：生成的范围查询没有 time_zone，es 按 UTC 解析没有时区的时间，这里也按 UTC 解析，否则裁剪的索引与查询的范围不一致
+     *
+     * @param value 时间条件的值
+     * @return {@link Instant}，不能解析则为 null
+     */
+    Instant parseTime(Object value) {
+        return EsDateFormats.parse(value, ZoneOffset.UTC);
+    }
+
+    /**
+     * 时间截断到所在分区的开始
+     *
+     * @param time 时间
+     * @return 分区的开始时间
+     */
+    private ZonedDateTime truncate(ZonedDateTime time) {
+        switch (unit) {
+            case HOURS:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            case DAYS:
+                return time.truncatedTo(ChronoUnit.DAYS);
+            case MONTHS:
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            default:
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+        }
+    }
+}
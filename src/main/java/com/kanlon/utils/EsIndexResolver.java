@@ -0,0 +1,112 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.predicate.EsPredicate;
+import com.kanlon.utils.predicate.EsRangePredicate;
+import com.kanlon.utils.predicate.EsTermPredicate;
+import com.kanlon.utils.predicate.EsValue;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 解析查询的索引：按时间分区的索引（见 {@link EsIndexPartition}）根据 where 条件中分区时间字段的范围，裁剪为与范围有交集的分区的索引，
+ * 其他索引原样返回
+ * <p>
+ * 只使用最外层 and 的条件（等于、范围），没有上下限、不能解析时间或者分区数太多时不裁剪；
+ * 裁剪出的分区的索引可能不存在，查询时需要忽略不存在的索引（见 {@link EsDslAdapter#PARTITIONED_INDICES_OPTIONS}，{@link EsSqlExecutor} 使用 ignore_unavailable 等请求参数）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 02:10
+ **/
+class EsIndexResolver {
+
+    private EsIndexResolver() {}
+
+    /**
+     * 是否有按时间分区的索引
+     *
+     * @param indices    索引
+     * @param partitions 索引及其分区规则
+     * @return boolean
+     */
+    static boolean isPartitioned(String[] indices, Map<String, EsIndexPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return false;
+        }
+        for (String index : indices) {
+            if (partitions.containsKey(index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析查询的索引
+     *
+     * @param indices    sql 中的索引
+     * @param predicates where 条件
+     * @param params     绑定的参数
+     * @param partitions 索引及其分区规则
+     * @return 裁剪后的索引
+     */
+    static String[] resolve(String[] indices, List<EsPredicate> predicates, Object[] params, Map<String, EsIndexPartition> partitions) {
+        Set<String> resolved = new LinkedHashSet<>();
+        for (String index : indices) {
+            EsIndexPartition partition = partitions.get(index);
+            List<String> partitionIndices = partition == null ? null : resolvePartition(partition, predicates, params);
+            if (partitionIndices == null) {
+                resolved.add(index);
+            } else {
+                resolved.addAll(partitionIndices);
+            }
+        }
+        return resolved.toArray(new String[0]);
+    }
+
+    /**
+     * 根据分区时间字段的范围获取分区的索引
+     *
+     * @param partition  分区规则
+     * @param predicates where 条件
+     * @param params     绑定的参数
+     * @return 分区的索引，不能裁剪则为 null
+     */
+    private static List<String> resolvePartition(EsIndexPartition partition, List<EsPredicate> predicates, Object[] params) {
+        Instant from = null;
+        Instant to = null;
+        for (EsPredicate predicate : predicates) {
+            if (!partition.getTimeField().equals(predicate.getField())) {
+                continue;
+            }
+            EsValue lower;
+            EsValue upper;
+            if (predicate instanceof EsTermPredicate) {
+                lower = ((EsTermPredicate) predicate).getValue();
+                upper = lower;
+            } else if (predicate instanceof EsRangePredicate) {
+                lower = ((EsRangePredicate) predicate).getFrom();
+                upper = ((EsRangePredicate) predicate).getTo();
+            } else {
+                continue;
+            }
+            // 多个条件取交集
+            Instant lowerTime = lower == null ? null : partition.parseTime(lower.resolve(params));
+            Instant upperTime = upper == null ? null : partition.parseTime(upper.resolve(params));
+            if (lowerTime != null && (from == null || lowerTime.isAfter(from))) {
+                from = lowerTime;
+            }
+            if (upperTime != null && (to == null || upperTime.isBefore(to))) {
+                to = upperTime;
+            }
+        }
+        // 没有上下限，或者范围为空（查询结果为空，不需要裁剪）
+        if (from == null || to == null || from.isAfter(to)) {
+            return null;
+        }
+        return partition.indicesBetween(from, to);
+    }
+}
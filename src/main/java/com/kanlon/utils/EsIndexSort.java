@@ -0,0 +1,78 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.dsl.DslSortOrder;
+import lombok.Getter;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 索引的排序（index.sort.field 及 index.sort.order，不可变）：查询的 order by 为索引排序的前缀并且不统计命中总数时，
+ * es 在每个分片收集到足够的文档后即可提前结束
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:00
+ **/
+@Getter
+public final class EsIndexSort {
+
+    /**
+     * 排序字段及其顺序
+     */
+    private final List<Map.Entry<String, DslSortOrder>> sorts;
+
+    /**
+     * 构造方法
+     *
+     * @param sorts 排序字段及其顺序
+     */
+    public EsIndexSort(List<Map.Entry<String, DslSortOrder>> sorts) {
+        this.sorts = Collections.unmodifiableList(new ArrayList<>(sorts));
+    }
+
+    /**
+     * 根据 字段 [asc|desc] 的列表创建，没有顺序的为升序（与 es 的默认顺序相同），例如 of("dt_time desc", "uid")
+     *
+     * @param fieldOrders 字段及其顺序
+     * @return {@link EsIndexSort}
+     * @throws IllegalArgumentException 顺序不是 asc 或 desc
+     */
+    public static EsIndexSort of(String... fieldOrders) throws IllegalArgumentException {
+        List<Map.Entry<String, DslSortOrder>> sortList = new ArrayList<>(fieldOrders.length);
+        for (String fieldOrder : fieldOrders) {
+            String[] parts = fieldOrder.trim().split("\\s+");
+            if (parts.length > 2) {
+                throw new IllegalArgumentException("索引排序的格式不正确！" + fieldOrder);
+            }
+            DslSortOrder order = parts.length == 1 ? DslSortOrder.ASC : DslSortOrder.fromString(parts[1]);
+            sortList.add(new AbstractMap.SimpleImmutableEntry<>(parts[0], order));
+        }
+        return new EsIndexSort(sortList);
+    }
+
+    /**
+     * 查询的排序是否为索引排序的前缀（字段及顺序都相同）
+     *
+     * @param querySorts 查询的排序字段及其顺序
+     * @return boolean，查询没有排序则为 false
+     */
+    public boolean isPrefix(List<Map.Entry<String, DslSortOrder>> querySorts) {
+        if (querySorts.isEmpty() || querySorts.size() > sorts.size()) {
+            return false;
+        }
+        for (int i = 0; i < querySorts.size(); ++i) {
+            if (!querySorts.get(i).equals(sorts.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return sorts.toString();
+    }
+}
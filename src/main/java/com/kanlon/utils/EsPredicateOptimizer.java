@@ -0,0 +1,254 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.predicate.EsBoolPredicate;
+import com.kanlon.utils.predicate.EsPredicate;
+import com.kanlon.utils.predicate.EsRangePredicate;
+import com.kanlon.utils.predicate.EsTermPredicate;
+import com.kanlon.utils.predicate.EsTermsPredicate;
+import com.kanlon.utils.predicate.EsValue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * es查询条件的优化（在生成 BoolQueryBuilder 之前），得到更小、层级更少的查询，减少es每个分片解析、重写及执行查询的开销：
+ * <ul>
+ *     <li>同一字段的多个范围条件合并为一个，例如：dt_time &gt;= 'x' and dt_time &lt;= 'y'</li>
+ *     <li>同一字段的多个等于条件的 or 合并为一个 terms，例如：a = 1 or a = 2 or a in (3, 4)</li>
+ *     <li>去掉重复的条件及恒为真的条件</li>
+ *     <li>嵌套的 and/or 展开为层级最少的 bool</li>
+ * </ul>
+ * 优化不改变条件的语义，无法确定能否合并的（例如两个下限都为参数或不是数字）则保持原样；
+ * 加了引号的常量（例如 '10'）在 keyword 字段上按字符串比较（'9' &gt; '10'），不按数字合并
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 16:50
+ **/
+public class EsPredicateOptimizer {
+
+    private EsPredicateOptimizer() {}
+
+    /**
+     * 优化条件
+     *
+     * @param predicates 条件（之间为 and 关系）
+     * @return 优化后的条件（之间为 and 关系）
+     */
+    public static List<EsPredicate> optimize(List<EsPredicate> predicates) {
+        return optimizeAnd(predicates);
+    }
+
+    /**
+     * 优化单个条件
+     *
+     * @param predicate 条件
+     * @return 优化后的条件
+     */
+    private static EsPredicate optimizeNode(EsPredicate predicate) {
+        if (!(predicate instanceof EsBoolPredicate)) {
+            return predicate;
+        }
+        EsBoolPredicate boolPredicate = (EsBoolPredicate) predicate;
+        if (boolPredicate.isOr()) {
+            return optimizeOr(boolPredicate.getChildren());
+        }
+        List<EsPredicate> children = optimizeAnd(boolPredicate.getChildren());
+        return children.size() == 1 ? children.get(0) : EsBoolPredicate.and(children);
+    }
+
+    /**
+     * 优化 and 的子条件
+     *
+     * @param predicates 子条件
+     * @return 优化后的子条件，为空则表示恒为真
+     */
+    private static List<EsPredicate> optimizeAnd(List<EsPredicate> predicates) {
+        // 展开嵌套的 and，恒为真的条件为没有子条件的 and，展开后即被去掉；LinkedHashSet 去重并保持顺序
+        LinkedHashSet<EsPredicate> flatPredicates = new LinkedHashSet<>();
+        for (EsPredicate predicate : predicates) {
+            EsPredicate optimized = optimizeNode(predicate);
+            if (optimized instanceof EsBoolPredicate && !((EsBoolPredicate) optimized).isOr()) {
+                flatPredicates.addAll(((EsBoolPredicate) optimized).getChildren());
+            } else {
+                flatPredicates.add(optimized);
+            }
+        }
+        // 合并同一字段的范围条件，合并后的条件放在该字段第一个范围条件的位置
+        List<EsPredicate> result = new ArrayList<>(flatPredicates.size());
+        Map<String, Integer> rangeIndexMap = new LinkedHashMap<>();
+        for (EsPredicate predicate : flatPredicates) {
+            if (predicate instanceof EsRangePredicate) {
+                Integer rangeIndex = rangeIndexMap.get(predicate.getField());
+                if (rangeIndex != null) {
+                    EsRangePredicate merged = mergeRange((EsRangePredicate) result.get(rangeIndex), (EsRangePredicate) predicate);
+                    if (merged != null) {
+                        result.set(rangeIndex, merged);
+                        continue;
+                    }
+                } else {
+                    rangeIndexMap.put(predicate.getField(), result.size());
+                }
+            }
+            result.add(predicate);
+        }
+        return result;
+    }
+
+    /**
+     * 优化 or 的子条件
+     *
+     * @param predicates 子条件
+     * @return 优化后的条件
+     */
+    private static EsPredicate optimizeOr(List<EsPredicate> predicates) {
+        LinkedHashSet<EsPredicate> flatPredicates = new LinkedHashSet<>();
+        for (EsPredicate predicate : predicates) {
+            EsPredicate optimized = optimizeNode(predicate);
+            if (optimized instanceof EsBoolPredicate) {
+                EsBoolPredicate boolPredicate = (EsBoolPredicate) optimized;
+                // 有一个子条件恒为真，则整个 or 恒为真
+                if (boolPredicate.isMatchAll()) {
+                    return boolPredicate;
+                }
+                if (boolPredicate.isOr()) {
+                    flatPredicates.addAll(boolPredicate.getChildren());
+                    continue;
+                }
+            }
+            flatPredicates.add(optimized);
+        }
+        // 同一字段的等于及 in 条件合并为一个 terms，放在该字段第一个条件的位置
+        Map<String, List<EsValue>> fieldValuesMap = new LinkedHashMap<>();
+        for (EsPredicate predicate : flatPredicates) {
+            List<EsValue> values = getEqualValues(predicate);
+            if (values != null) {
+                fieldValuesMap.computeIfAbsent(predicate.getField(), k -> new ArrayList<>()).addAll(values);
+            }
+        }
+        List<EsPredicate> result = new ArrayList<>(flatPredicates.size());
+        for (EsPredicate predicate : flatPredicates) {
+            if (getEqualValues(predicate) == null) {
+                result.add(predicate);
+                continue;
+            }
+            // 为 null 则该字段已合并到第一个条件中
+            List<EsValue> values = fieldValuesMap.remove(predicate.getField());
+            if (values == null) {
+                continue;
+            }
+            List<EsValue> distinctValues = new ArrayList<>(new LinkedHashSet<>(values));
+            if (distinctValues.size() == 1 && predicate instanceof EsTermPredicate) {
+                result.add(predicate);
+            } else {
+                result.add(new EsTermsPredicate(predicate.getField(), distinctValues, false));
+            }
+        }
+        return result.size() == 1 ? result.get(0) : EsBoolPredicate.or(result);
+    }
+
+    /**
+     * 获取等于条件（term 或 in）的值
+     *
+     * @param predicate 条件
+     * @return 值，不是等于条件则返回 null
+     */
+    private static List<EsValue> getEqualValues(EsPredicate predicate) {
+        if (predicate instanceof EsTermPredicate) {
+            List<EsValue> values = new ArrayList<>(1);
+            values.add(((EsTermPredicate) predicate).getValue());
+            return values;
+        }
+        if (predicate instanceof EsTermsPredicate && !((EsTermsPredicate) predicate).isNot()) {
+            return ((EsTermsPredicate) predicate).getValues();
+        }
+        return null;
+    }
+
+    /**
+     * 合并同一字段的两个范围条件（and 关系），取更严格的上下限
+     *
+     * @param first  第一个范围条件
+     * @param second 第二个范围条件
+     * @return 合并后的范围条件，无法合并则返回 null
+     */
+    private static EsRangePredicate mergeRange(EsRangePredicate first, EsRangePredicate second) {
+        Bound lower = mergeBound(first.getFrom(), first.isIncludeLower(), second.getFrom(), second.isIncludeLower(), true);
+        Bound upper = mergeBound(first.getTo(), first.isIncludeUpper(), second.getTo(), second.isIncludeUpper(), false);
+        if (lower == null || upper == null) {
+            return null;
+        }
+        return new EsRangePredicate(first.getField(), lower.value, upper.value, lower.include, upper.include);
+    }
+
+    /**
+     * 合并上限或下限
+     *
+     * @param first         第一个值，没有则为 null
+     * @param firstInclude  是否包含第一个值
+     * @param second        第二个值，没有则为 null
+     * @param secondInclude 是否包含第二个值
+     * @param lower         是否为下限
+     * @return 合并后的上限或下限，无法合并则返回 null
+     */
+    private static Bound mergeBound(EsValue first, boolean firstInclude, EsValue second, boolean secondInclude, boolean lower) {
+        if (first == null) {
+            // 没有上下限时 es 默认包含（include_lower/include_upper 为 true）
+            return second == null ? new Bound(null, true) : new Bound(second, secondInclude);
+        }
+        if (second == null) {
+            return new Bound(first, firstInclude);
+        }
+        int compare;
+        if (Objects.equals(first, second)) {
+            compare = 0;
+        } else {
+            BigDecimal firstNumber = toNumber(first);
+            BigDecimal secondNumber = toNumber(second);
+            if (firstNumber == null || secondNumber == null) {
+                return null;
+            }
+            compare = firstNumber.compareTo(secondNumber);
+        }
+        if (compare == 0) {
+            return new Bound(first, firstInclude && secondInclude);
+        }
+        // 下限取大的，上限取小的
+        boolean useFirst = lower ? compare > 0 : compare < 0;
+        return useFirst ? new Bound(first, firstInclude) : new Bound(second, secondInclude);
+    }
+
+    /**
+     * sql中的数字常量转为数字
+     *
+     * @param value 值
+     * @return 数字，参数、加了引号的常量或不是数字则返回 null
+     */
+    private static BigDecimal toNumber(EsValue value) {
+        if (!value.isNumeric() || value.getValue() == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(String.valueOf(value.getValue()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 范围的上限或下限
+     */
+    private static class Bound {
+        private final EsValue value;
+        private final boolean include;
+
+        Bound(EsValue value, boolean include) {
+            this.value = value;
+            this.include = include;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.kanlon.utils;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * es 查询结果的工具类
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 18:10
+ **/
+public class EsResponseUtils {
+
+    private EsResponseUtils() {}
+
+    /**
+     * 命中结果的字段
+     */
+    private static final String HITS_FIELD = "hits";
+
+    /**
+     * 命中总数的字段
+     */
+    private static final String TOTAL_FIELD = "total";
+
+    /**
+     * 命中总数的值的字段（es 7 的格式为 {"value":1,"relation":"eq"}）
+     */
+    private static final String VALUE_FIELD = "value";
+
+    /**
+     * 获取计数sql的结果（命中的总数）
+     *
+     * @param searchResponse 计数sql的查询结果
+     * @return 命中的总数
+     * @throws RuntimeException 结果中没有命中总数
+     */
+    public static long getCount(SearchResponse searchResponse) throws RuntimeException {
+        TotalHits totalHits = searchResponse.getHits().getTotalHits();
+        if (totalHits == null) {
+            throw new RuntimeException("查询结果中没有命中总数！请确认查询参数中 track_total_hits 不为 false");
+        }
+        return totalHits.value;
+    }
+
+    /**
+     * 从es查询结果的json中获取计数sql的结果（命中的总数），只解析到 hits.total 为止，不读取文档
+     * <p>
+     * 用于通过 RestClient 直接请求 es 的场景
+     *
+     * @param responseBody 查询结果的json（utf-8）
+     * @return 命中的总数
+     * @throws RuntimeException 结果中没有命中总数或解析失败
+     */
+    public static long getCount(InputStream responseBody) throws RuntimeException {
+        try (XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, responseBody)) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                throw new RuntimeException("查询结果不是json对象！");
+            }
+            Long count = null;
+            while (count == null && parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                XContentParser.Token token = parser.nextToken();
+                if (HITS_FIELD.equals(fieldName) && token == XContentParser.Token.START_OBJECT) {
+                    count = readTotal(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (count == null) {
+                throw new RuntimeException("查询结果中没有命中总数！请确认查询参数中 track_total_hits 不为 false");
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("解析查询结果失败！" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取 hits 对象中的 total
+     *
+     * @param parser 位于 hits 对象的开始
+     * @return 命中的总数，没有则返回 null
+     * @throws IOException 解析失败
+     */
+    private static Long readTotal(XContentParser parser) throws IOException {
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            XContentParser.Token token = parser.nextToken();
+            if (!TOTAL_FIELD.equals(fieldName)) {
+                parser.skipChildren();
+                continue;
+            }
+            // es 6 的格式直接为数字
+            if (token == XContentParser.Token.VALUE_NUMBER) {
+                return parser.longValue();
+            }
+            if (token == XContentParser.Token.START_OBJECT) {
+                Long count = null;
+                while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+                    String totalFieldName = parser.currentName();
+                    parser.nextToken();
+                    if (VALUE_FIELD.equals(totalFieldName)) {
+                        count = parser.longValue();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                return count;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,138 @@
+package com.kanlon.utils;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * sql 查询结果的一行，按列名获取值，并提供常用类型的转换
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 20:25
+ **/
+@ToString
+@EqualsAndHashCode
+public class EsRow {
+
+    /**
+     * 列名及其值
+     */
+    private final Map<String, Object> values;
+
+    EsRow(Map<String, Object> values) {
+        this.values = values;
+    }
+
+    /**
+     * 获取列的原始值
+     *
+     * @param column 列名
+     * @return 值，没有该列则为 null
+     */
+    public Object get(String column) {
+        return values.get(column);
+    }
+
+    /**
+     * 是否有该列
+     *
+     * @param column 列名
+     * @return boolean
+     */
+    public boolean containsColumn(String column) {
+        return values.containsKey(column);
+    }
+
+    /**
+     * 获取字符串类型的值
+     *
+     * @param column 列名
+     * @return 值，为空则返回 null
+     */
+    public String getString(String column) {
+        Object value = values.get(column);
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * 获取 long 类型的值
+     *
+     * @param column 列名
+     * @return 值，为空则返回 null
+     * @throws NumberFormatException 不是数字
+     */
+    public Long getLong(String column) throws NumberFormatException {
+        return toLong(values.get(column));
+    }
+
+    /**
+     * 获取 int 类型的值
+     *
+     * @param column 列名
+     * @return 值，为空则返回 null
+     * @throws NumberFormatException 不是数字
+     */
+    public Integer getInteger(String column) throws NumberFormatException {
+        return toInteger(values.get(column));
+    }
+
+    /**
+     * 获取 double 类型的值
+     *
+     * @param column 列名
+     * @return 值，为空则返回 null
+     * @throws NumberFormatException 不是数字
+     */
+    public Double getDouble(String column) throws NumberFormatException {
+        return toDouble(values.get(column));
+    }
+
+    /**
+     * 获取 boolean 类型的值
+     *
+     * @param column 列名
+     * @return 值，为空则返回 null
+     */
+    public Boolean getBoolean(String column) {
+        return toBoolean(values.get(column));
+    }
+
+    /**
+     * 转为map（只读）
+     *
+     * @return 列名及其值
+     */
+    public Map<String, Object> asMap() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    static Long toLong(Object value) throws NumberFormatException {
+        if (value == null || value instanceof Long) {
+            return (Long) value;
+        }
+        return value instanceof Number ? ((Number) value).longValue() : Long.valueOf(value.toString());
+    }
+
+    static Integer toInteger(Object value) throws NumberFormatException {
+        if (value == null || value instanceof Integer) {
+            return (Integer) value;
+        }
+        return value instanceof Number ? ((Number) value).intValue() : Integer.valueOf(value.toString());
+    }
+
+    static Double toDouble(Object value) throws NumberFormatException {
+        if (value == null || value instanceof Double) {
+            return (Double) value;
+        }
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.valueOf(value.toString());
+    }
+
+    static Boolean toBoolean(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return Boolean.valueOf(value.toString());
+    }
+}
@@ -0,0 +1,79 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.schema.EsIndexSchema;
+import com.kanlon.utils.schema.EsSchemaLoader;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 常用的索引字段类型的加载器
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 01:10
+ **/
+public class EsSchemaLoaders {
+
+    private EsSchemaLoaders() {}
+
+    /**
+     * 从 json 文件加载，每次加载都重新读取文件（修改文件后刷新即可生效）
+     * <p>
+     * 文件的内容为 GET _mapping 的返回（key 为索引，按查询的索引选取，支持 * 通配符），或者只有一个 mapping（{"mappings":...} 或 {"properties":...}，所有索引都使用该 mapping）
+     *
+     * @param path json 文件
+     * @return {@link EsSchemaLoader}
+     */
+    public static EsSchemaLoader fromFile(Path path) {
+        return index -> {
+            Map<String, Object> mappings;
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                mappings = XContentHelper.convertToMap(XContentType.JSON.xContent(), inputStream, true);
+            }
+            if (mappings.containsKey("mappings") || mappings.containsKey("properties")) {
+                return EsIndexSchema.fromMappings(mappings);
+            }
+            EsIndexSchema schema = EsIndexSchema.EMPTY;
+            for (String name : index.split(",")) {
+                Pattern pattern = Pattern.compile(Pattern.quote(name.trim()).replace("*", "\\E.*\\Q"));
+                for (Map.Entry<String, Object> entry : mappings.entrySet()) {
+                    if (entry.getValue() instanceof Map && pattern.matcher(entry.getKey()).matches()) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> indexMapping = (Map<String, Object>) entry.getValue();
+                        schema = schema.merge(EsIndexSchema.fromMappings(indexMapping));
+                    }
+                }
+            }
+            return schema;
+        };
+    }
+
+    /**
+     * 从 es 集群的 _mapping 接口加载（别名及通配符由 es 解析，不存在的索引忽略）
+     *
+     * @param restClient es 的客户端
+     * @return {@link EsSchemaLoader}
+     */
+    public static EsSchemaLoader fromCluster(RestClient restClient) {
+        return index -> {
+            Request request = new Request("GET", "/" + index + "/_mapping");
+            request.addParameter("ignore_unavailable", "true");
+            request.addParameter("allow_no_indices", "true");
+            Response response = restClient.performRequest(request);
+            try (InputStream inputStream = response.getEntity().getContent()) {
+                return EsIndexSchema.fromMappings(XContentHelper.convertToMap(XContentType.JSON.xContent(), inputStream, true));
+            } catch (IOException e) {
+                throw new IOException("解析索引【" + index + "】的 mapping 失败！" + e.getMessage(), e);
+            }
+        };
+    }
+}
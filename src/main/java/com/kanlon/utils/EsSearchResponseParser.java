@@ -0,0 +1,269 @@
+package com.kanlon.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * es 查询结果（_search、_search/scroll、_msearch）的流式json解析，只读取需要的字段：_scroll_id、took、hits.total 及 aggregations，
+ * hits.hits 中的 _source、fields（docvalue_fields 的值）和 sort 由 {@link SqlRowDecoder} 解码到复用的行对象中，逐行回调，不生成每个文档的 map
+ * <p>
+ * 使用 jackson 的流式解析（es 的 XContentParser 的json实现也是 jackson），不依赖 es 的类
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 20:10
+ **/
+class EsSearchResponseParser {
+
+    /**
+     * json解析器的工厂（线程安全）
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private EsSearchResponseParser() {}
+
+    /**
+     * 解析查询结果
+     *
+     * @param inputStream 查询结果的json
+     * @param decoder     命中的文档的解码器
+     * @param consumer    每个命中的文档的回调，行对象是复用的
+     * @return {@link ParsedSearchResponse}
+     * @throws IOException 解析失败
+     */
+    static ParsedSearchResponse parse(InputStream inputStream, SqlRowDecoder decoder, Consumer<ProjectedRow> consumer) throws IOException {
+        ParsedSearchResponse response = new ParsedSearchResponse();
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            parser.nextToken();
+            parseResponse(parser, response, decoder, decoder.newRow(), consumer);
+        }
+        return response;
+    }
+
+    /**
+     * 解析批量查询（_msearch）的结果
+     *
+     * @param inputStream 批量查询结果的json
+     * @param decoder     命中的文档的解码器
+     * @param consumer    每个命中的文档的回调，第二个参数为第几个查询（从0开始）
+     * @return 各个查询的结果，按请求中的顺序
+     * @throws IOException 解析失败
+     */
+    static List<ParsedSearchResponse> parseMulti(InputStream inputStream, SqlRowDecoder decoder, ObjIntConsumer<ProjectedRow> consumer) throws IOException {
+        List<ParsedSearchResponse> responses = new ArrayList<>();
+        ProjectedRow row = decoder.newRow();
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("responses".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        ParsedSearchResponse response = new ParsedSearchResponse();
+                        int responseIndex = responses.size();
+                        parseResponse(parser, response, decoder, row, hitRow -> consumer.accept(hitRow, responseIndex));
+                        responses.add(response);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * 解析一个查询结果对象
+     *
+     * @param parser   位于查询结果对象的开始
+     * @param response 解析结果
+     * @param decoder  命中的文档的解码器
+     * @param row      复用的行对象
+     * @param consumer 每个命中的文档的回调
+     * @throws IOException 解析失败
+     */
+    private static void parseResponse(JsonParser parser, ParsedSearchResponse response, SqlRowDecoder decoder, ProjectedRow row,
+                                      Consumer<ProjectedRow> consumer) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("_scroll_id".equals(fieldName)) {
+                response.scrollId = parser.getText();
+            } else if ("took".equals(fieldName)) {
+                response.took = parser.getValueAsLong();
+            } else if ("hits".equals(fieldName) && token == JsonToken.START_OBJECT) {
+                parseHits(parser, response, decoder, row, consumer);
+            } else if ("aggregations".equals(fieldName) && token == JsonToken.START_OBJECT) {
+                response.aggregations = readObject(parser);
+            } else if ("error".equals(fieldName)) {
+                // _msearch 中失败的查询
+                response.error = readValue(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 解析 hits 对象
+     *
+     * @param parser   位于 hits 对象的开始
+     * @param response 解析结果
+     * @param decoder  命中的文档的解码器
+     * @param row      复用的行对象
+     * @param consumer 每个命中的文档的回调
+     * @throws IOException 解析失败
+     */
+    private static void parseHits(JsonParser parser, ParsedSearchResponse response, SqlRowDecoder decoder, ProjectedRow row,
+                                  Consumer<ProjectedRow> consumer) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("total".equals(fieldName) && token == JsonToken.VALUE_NUMBER_INT) {
+                // es 6 的格式直接为数字
+                response.totalHits = parser.getLongValue();
+            } else if ("total".equals(fieldName) && token == JsonToken.START_OBJECT) {
+                Object value = readObject(parser).get("value");
+                if (value instanceof Number) {
+                    response.totalHits = ((Number) value).longValue();
+                }
+            } else if ("hits".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    row.reset();
+                    parseHit(parser, decoder, row);
+                    ++response.hitCount;
+                    consumer.accept(row);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 解析一个命中的文档的 _source、fields 及排序值
+     *
+     * @param parser  位于文档对象的开始
+     * @param decoder 命中的文档的解码器
+     * @param row     行对象（已清空）
+     * @throws IOException 解析失败
+     */
+    private static void parseHit(JsonParser parser, SqlRowDecoder decoder, ProjectedRow row) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("_source".equals(fieldName) && token == JsonToken.START_OBJECT) {
+                decoder.readSource(parser, row);
+            } else if ("fields".equals(fieldName) && token == JsonToken.START_OBJECT) {
+                decoder.readFields(parser, row);
+            } else if ("sort".equals(fieldName) && token == JsonToken.START_ARRAY) {
+                row.setSortValues(readList(parser).toArray());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 读取当前的值，数组及对象读取为 list 及 map（按json中的顺序）
+     *
+     * @param parser 位于值的开始
+     * @return 值
+     * @throws IOException 解析失败
+     */
+    static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            case START_ARRAY:
+                return readList(parser);
+            case START_OBJECT:
+                return readObject(parser);
+            default:
+                return parser.getText();
+        }
+    }
+
+    /**
+     * 读取当前的对象
+     *
+     * @param parser 位于对象的开始
+     * @return 对象的字段及其值
+     * @throws IOException 解析失败
+     */
+    private static Map<String, Object> readObject(JsonParser parser) throws IOException {
+        Map<String, Object> map = new LinkedHashMap<>(16);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            map.put(fieldName, readValue(parser));
+        }
+        return map;
+    }
+
+    /**
+     * 读取当前的数组
+     *
+     * @param parser 位于数组的开始
+     * @return 数组的值
+     * @throws IOException 解析失败
+     */
+    private static List<Object> readList(JsonParser parser) throws IOException {
+        List<Object> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(readValue(parser));
+        }
+        return list;
+    }
+
+    /**
+     * 解析后的查询结果（命中的文档已逐行回调，不保留）
+     */
+    @Getter
+    static class ParsedSearchResponse {
+        /**
+         * scroll id，不是 scroll 查询则为 null
+         */
+        private String scrollId;
+        /**
+         * 查询耗时（毫秒）
+         */
+        private long took = -1;
+        /**
+         * 命中的总数，没有则为 -1
+         */
+        private long totalHits = -1;
+        /**
+         * 返回的文档数
+         */
+        private long hitCount;
+        /**
+         * 聚合结果，没有则为空
+         */
+        private Map<String, Object> aggregations = Collections.emptyMap();
+        /**
+         * 批量查询中该查询的错误，没有则为 null
+         */
+        private Object error;
+    }
+}
@@ -0,0 +1,797 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.dsl.DslJsonWriter;
+import com.kanlon.utils.dsl.DslSearchBody;
+import com.kanlon.utils.dsl.DslSortOrder;
+import com.kanlon.utils.trace.SqlStage;
+import org.apache.http.HttpHost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 执行sql的 es 查询（线程安全），使用共享的 {@link RestClient}（自带连接池）发送翻译后的查询，返回按行解析的结果
+ * <p>
+ * sql 按归一化后的sql缓存预编译的查询模板；dsl 直接序列化到请求体中，不生成中间的字符串；
+ * 同时执行的请求数有上限，超过上限时等待，等待超时则抛出 {@link RejectedExecutionException}
+ * <p>
+ * 结果的行：普通查询为 select 中的列（由 {@link SqlRowDecoder} 从返回的json中流式解码，有别名的列为别名），计数sql为一行（列名为 select 中的列名，值为命中的总数），聚合sql为每个分组一行（分组字段及 select 中的聚合函数）
+ * <p>
+ * union all 中各个查询的条件不同时，使用一次批量查询（_msearch）请求，结果按 order by 多路归并后再按 limit 分页（见 {@link SqlUnionMerger}）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 20:30
+ **/
+public class EsSqlExecutor implements Closeable {
+
+    /**
+     * 默认最多同时执行的请求数
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    /**
+     * 默认同步执行时等待执行的超时时间（毫秒）
+     */
+    public static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * 默认最大缓存的查询模板数
+     */
+    public static final int DEFAULT_MAX_TEMPLATES = 1024;
+
+    /**
+     * 默认连接池的最大连接数
+     */
+    public static final int DEFAULT_MAX_CONN_TOTAL = 100;
+
+    /**
+     * 默认连接池每个节点的最大连接数
+     */
+    public static final int DEFAULT_MAX_CONN_PER_ROUTE = 30;
+
+    /**
+     * 批量查询的接口
+     */
+    private static final String MULTI_SEARCH_ENDPOINT = "/_msearch";
+
+    /**
+     * 批量查询的请求体的类型
+     */
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson");
+
+    /**
+     * 忽略不存在的索引的参数
+     */
+    private static final String IGNORE_UNAVAILABLE = "ignore_unavailable";
+
+    /**
+     * 允许没有索引的参数
+     */
+    private static final String ALLOW_NO_INDICES = "allow_no_indices";
+
+    /**
+     * 使用分片的请求缓存的参数
+     */
+    private static final String REQUEST_CACHE = "request_cache";
+
+    /**
+     * 聚合结果中桶的字段
+     */
+    private static final String BUCKETS_FIELD = "buckets";
+
+    /**
+     * 聚合结果中桶的 key 的字段
+     */
+    private static final String KEY_FIELD = "key";
+
+    /**
+     * 聚合结果中桶的文档数的字段
+     */
+    private static final String DOC_COUNT_FIELD = "doc_count";
+
+    /**
+     * 指标聚合结果中值的字段
+     */
+    private static final String VALUE_FIELD = "value";
+
+    /**
+     * composite 聚合结果中下一页的起始 key 的字段
+     */
+    private static final String AFTER_KEY_FIELD = "after_key";
+
+    /**
+     * terms 聚合结果中没有返回的桶的文档数的字段
+     */
+    private static final String SUM_OTHER_DOC_COUNT_FIELD = "sum_other_doc_count";
+
+    /**
+     * 聚合sql不返回文档，不需要处理命中的文档
+     */
+    private static final Consumer<ProjectedRow> IGNORE_ROW = row -> {};
+
+    private final RestClient restClient;
+
+    /**
+     * 是否由本对象创建的客户端，是则关闭时一起关闭
+     */
+    private final boolean ownsClient;
+
+    /**
+     * 同时执行的请求数的许可
+     */
+    private final Semaphore inFlight;
+
+    private final int maxInFlight;
+
+    private final long acquireTimeoutMillis;
+
+    /**
+     * 异步查询时解析结果的线程池，避免在 http 客户端的 io 线程中解析
+     */
+    private final Executor decodeExecutor;
+
+    private final SqlTranslateOptions options;
+
+    /**
+     * 查询模板的缓存，key 为归一化后的sql
+     */
+    private final SqlTemplateCache templateCache;
+
+    /**
+     * 构造方法，使用已有的客户端，关闭时不关闭客户端
+     *
+     * @param restClient es 客户端
+     */
+    public EsSqlExecutor(RestClient restClient) {
+        this(restClient, DEFAULT_MAX_IN_FLIGHT, DEFAULT_ACQUIRE_TIMEOUT_MILLIS, ForkJoinPool.commonPool(), SqlTranslateOptions.DEFAULT);
+    }
+
+    /**
+     * 构造方法，使用已有的客户端，关闭时不关闭客户端
+     *
+     * @param restClient           es 客户端
+     * @param maxInFlight          最多同时执行的请求数
+     * @param acquireTimeoutMillis 同步执行时等待执行的超时时间（毫秒），异步执行时不等待
+     * @param decodeExecutor       异步查询时解析结果的线程池
+     * @param options              翻译选项
+     */
+    public EsSqlExecutor(RestClient restClient, int maxInFlight, long acquireTimeoutMillis, Executor decodeExecutor, SqlTranslateOptions options) {
+        this(restClient, false, maxInFlight, acquireTimeoutMillis, decodeExecutor, options);
+    }
+
+    private EsSqlExecutor(RestClient restClient, boolean ownsClient, int maxInFlight, long acquireTimeoutMillis, Executor decodeExecutor, SqlTranslateOptions options) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("最多同时执行的请求数必须大于0！");
+        }
+        this.restClient = restClient;
+        this.ownsClient = ownsClient;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.decodeExecutor = decodeExecutor;
+        this.options = options;
+        this.templateCache = new SqlTemplateCache(DEFAULT_MAX_TEMPLATES, options);
+    }
+
+    /**
+     * 创建带连接池的客户端及执行器，关闭执行器时关闭客户端
+     *
+     * @param hosts es 节点
+     * @return {@link EsSqlExecutor}
+     */
+    public static EsSqlExecutor create(HttpHost... hosts) {
+        RestClient restClient = RestClient.builder(hosts)
+                .setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder
+                        .setMaxConnTotal(DEFAULT_MAX_CONN_TOTAL)
+                        .setMaxConnPerRoute(DEFAULT_MAX_CONN_PER_ROUTE))
+                .build();
+        return new EsSqlExecutor(restClient, true, DEFAULT_MAX_IN_FLIGHT, DEFAULT_ACQUIRE_TIMEOUT_MILLIS, ForkJoinPool.commonPool(), SqlTranslateOptions.DEFAULT);
+    }
+
+    /**
+     * 执行sql
+     *
+     * @param sql    sql，可以带 ? 参数占位符
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return {@link EsSqlResult}
+     * @throws RejectedExecutionException 等待执行超时
+     * @throws UncheckedIOException       查询失败
+     */
+    public EsSqlResult query(String sql, Object... params) throws RuntimeException {
+        PreparedSqlQuery query = getTemplate(sql);
+        SqlTrace trace = SqlTrace.execute(query);
+        Request request = newRequest(query, params, null, trace);
+        Response response = trace.stage(SqlStage.EXECUTE, () -> perform(request));
+        if (isCompositeAggregation(query)) {
+            CompositeBuckets compositeBuckets = new CompositeBuckets(query.getAggregation(), params);
+            Map<String, Object> afterKey = trace.stage(SqlStage.DECODE, () -> compositeBuckets.add(parse(query, response, IGNORE_ROW)));
+            while (afterKey != null) {
+                Request nextRequest = newRequest(query, params, afterKey, trace);
+                Response nextResponse = trace.stage(SqlStage.EXECUTE, () -> perform(nextRequest));
+                afterKey = trace.stage(SqlStage.DECODE, () -> compositeBuckets.add(parse(query, nextResponse, IGNORE_ROW)));
+            }
+            return trace.finish(SqlStage.DECODE, compositeBuckets::toResult);
+        }
+        return trace.finish(SqlStage.DECODE, () -> decode(query, params, response));
+    }
+
+    /**
+     * 执行sql，命中的文档逐行流式解码后回调，不在内存中保留全部的行
+     * <p>
+     * 回调的行对象是复用的，只在回调中有效；只支持普通查询，计数sql、聚合sql及需要合并的 union all 使用 {@link #query(String, Object...)}
+     *
+     * @param sql      sql，可以带 ? 参数占位符
+     * @param consumer 每一行的回调
+     * @param params   参数，按照sql中 ? 出现的顺序
+     * @return 查询结果（不包括行），包括命中的总数及耗时
+     * @throws RejectedExecutionException 等待执行超时
+     * @throws UncheckedIOException       查询失败
+     * @throws RuntimeException           不支持的sql
+     */
+    public EsSqlResult queryForEach(String sql, Consumer<ProjectedRow> consumer, Object... params) throws RuntimeException {
+        PreparedSqlQuery query = getTemplate(sql);
+        if (query.isCountSql() || query.getAggregation() != null || query.isMultiSearch()) {
+            throw new RuntimeException("计数sql、聚合sql及条件不同的union all不支持逐行回调！");
+        }
+        SqlTrace trace = SqlTrace.execute(query);
+        Request request = newRequest(query, params, null, trace);
+        Response response = trace.stage(SqlStage.EXECUTE, () -> perform(request));
+        EsSearchResponseParser.ParsedSearchResponse parsedResponse = trace.finish(SqlStage.DECODE, () -> parse(query, response, consumer));
+        return new EsSqlResult(Collections.emptyList(), parsedResponse.getTotalHits(), parsedResponse.getTook());
+    }
+
+    /**
+     * 执行sql，结果按列存储（见 {@link EsColumnarResult}），用于返回大量数值的分析查询
+     *
+     * @param sql     sql，可以带 ? 参数占位符
+     * @param offHeap 数值及字典序号是否使用堆外内存
+     * @param params  参数，按照sql中 ? 出现的顺序
+     * @return {@link EsColumnarResult}
+     * @throws RejectedExecutionException 等待执行超时
+     * @throws UncheckedIOException       查询失败
+     * @throws RuntimeException           不支持的sql（同 {@link #queryForEach(String, Consumer, Object...)}，以及 select *）
+     */
+    public EsColumnarResult queryColumnar(String sql, boolean offHeap, Object... params) throws RuntimeException {
+        EsColumnarResult result = EsColumnarResult.of(getTemplate(sql).getRowDecoder(), offHeap);
+        queryForEach(sql, result, params);
+        return result;
+    }
+
+    /**
+     * 异步执行sql，结果在 decodeExecutor 中解析
+     * <p>
+     * 同时执行的请求数已达上限时不等待（不阻塞调用的线程），返回的结果以 {@link RejectedExecutionException} 异常结束，由调用方重试或限流
+     *
+     * @param sql    sql，可以带 ? 参数占位符
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return 查询结果，同时执行的请求数已达上限、翻译失败或查询失败时异常结束
+     */
+    public CompletableFuture<EsSqlResult> queryAsync(String sql, Object... params) {
+        PreparedSqlQuery query;
+        SqlTrace trace;
+        Request request;
+        try {
+            query = getTemplate(sql);
+            trace = SqlTrace.execute(query);
+            request = newRequest(query, params, null, trace);
+        } catch (RuntimeException e) {
+            CompletableFuture<EsSqlResult> failedFuture = new CompletableFuture<>();
+            failedFuture.completeExceptionally(e);
+            return failedFuture;
+        }
+        CompletableFuture<Response> responseFuture = performAsync(request, trace);
+        if (isCompositeAggregation(query)) {
+            CompositeBuckets compositeBuckets = new CompositeBuckets(query.getAggregation(), params);
+            return responseFuture.thenComposeAsync(response -> queryCompositeAsync(query, params, compositeBuckets, response, trace), decodeExecutor);
+        }
+        return responseFuture.thenApplyAsync(response -> trace.finish(SqlStage.DECODE, () -> decode(query, params, response)), decodeExecutor);
+    }
+
+    /**
+     * 异步获取 composite 聚合的下一页，直到获取全部的桶
+     *
+     * @param query            查询模板
+     * @param params           绑定的参数
+     * @param compositeBuckets 已经获取的桶
+     * @param response         当前页的查询结果
+     * @param trace            本次执行的统计
+     * @return 查询结果
+     */
+    private CompletableFuture<EsSqlResult> queryCompositeAsync(PreparedSqlQuery query, Object[] params, CompositeBuckets compositeBuckets, Response response, SqlTrace trace) {
+        Map<String, Object> afterKey = trace.stage(SqlStage.DECODE, () -> compositeBuckets.add(parse(query, response, IGNORE_ROW)));
+        if (afterKey == null) {
+            return CompletableFuture.completedFuture(trace.finish(SqlStage.DECODE, compositeBuckets::toResult));
+        }
+        Request nextRequest = newRequest(query, params, afterKey, trace);
+        return performAsync(nextRequest, trace).thenComposeAsync(nextResponse -> queryCompositeAsync(query, params, compositeBuckets, nextResponse, trace), decodeExecutor);
+    }
+
+    /**
+     * 异步发送请求
+     *
+     * @param request 请求
+     * @param trace   本次执行的统计
+     * @return 查询结果，同时执行的请求数已达上限或查询失败时异常结束
+     */
+    private CompletableFuture<Response> performAsync(Request request, SqlTrace trace) {
+        CompletableFuture<Response> responseFuture = new CompletableFuture<>();
+        try {
+            trace.stage(SqlStage.EXECUTE, () -> {
+                tryAcquire();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            responseFuture.completeExceptionally(e);
+            return responseFuture;
+        }
+        long executeStart = System.nanoTime();
+        try {
+            restClient.performRequestAsync(request, new ResponseListener() {
+                @Override
+                public void onSuccess(Response response) {
+                    inFlight.release();
+                    responseFuture.complete(response);
+                }
+
+                @Override
+                public void onFailure(Exception exception) {
+                    inFlight.release();
+                    responseFuture.completeExceptionally(exception);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            responseFuture.completeExceptionally(e);
+        }
+        return responseFuture.whenComplete((response, failure) -> {
+            trace.addStageNanos(SqlStage.EXECUTE, System.nanoTime() - executeStart);
+            if (failure != null) {
+                trace.fail(SqlStage.EXECUTE, failure);
+            }
+        });
+    }
+
+    /**
+     * 当前正在执行的请求数
+     *
+     * @return 请求数
+     */
+    public int inFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * 关闭，使用已有的客户端时不关闭客户端
+     *
+     * @throws IOException 关闭客户端失败
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsClient) {
+            restClient.close();
+        }
+    }
+
+    /**
+     * 获取sql的查询模板
+     *
+     * @param sql sql
+     * @return {@link PreparedSqlQuery}
+     */
+    private PreparedSqlQuery getTemplate(String sql) {
+        // 模板由规范化后的sql编译，关键字保持原样（关键字统一为大写会改变作为标识符使用的关键字，例如 user.name 会读取 USER.name），只是空白不同的sql使用同一个模板
+        return templateCache.getTemplate(SqlNormalizeUtils.normalize(sql, false));
+    }
+
+    /**
+     * 生成查询请求
+     *
+     * @param query    查询模板
+     * @param params   参数
+     * @param afterKey composite 聚合的下一页的起始 key，第一页为 null
+     * @param trace    本次执行的统计
+     * @return {@link Request}
+     */
+    private static Request newRequest(PreparedSqlQuery query, Object[] params, Map<String, Object> afterKey, SqlTrace trace) {
+        Request request = trace.stage(SqlStage.BUILD, () -> newRequest(query, params, afterKey));
+        trace.dslBytes((int) request.getEntity().getContentLength());
+        return request;
+    }
+
+    /**
+     * 生成查询请求
+     *
+     * @param query    查询模板
+     * @param params   参数
+     * @param afterKey composite 聚合的下一页的起始 key，第一页为 null
+     * @return {@link Request}
+     */
+    private static Request newRequest(PreparedSqlQuery query, Object[] params, Map<String, Object> afterKey) {
+        DslJsonWriter writer = new DslJsonWriter();
+        if (query.isMultiSearch()) {
+            // 批量查询的请求体为每行一个json（ndjson）：每个查询为一行索引及一行查询参数
+            for (PreparedSqlQuery.UnionBranch branch : query.getUnionBranches()) {
+                writer.startObject().field("index", query.resolveIndices(branch, params));
+                if (query.isPartitioned()) {
+                    writer.field(IGNORE_UNAVAILABLE, true).field(ALLOW_NO_INDICES, true);
+                }
+                if (query.isRequestCache(params)) {
+                    writer.field(REQUEST_CACHE, true);
+                }
+                writer.endObject().newLine();
+                query.bindUnionBranchDsl(branch, params).writeTo(writer);
+                writer.newLine();
+            }
+            Request request = new Request("POST", MULTI_SEARCH_ENDPOINT);
+            request.setEntity(toEntity(writer, NDJSON));
+            return request;
+        }
+        Request request = new Request("POST", "/" + String.join(",", query.resolveIndices(params)) + "/_search");
+        addIndicesOptions(request, query);
+        if (query.isRequestCache(params)) {
+            request.addParameter(REQUEST_CACHE, "true");
+        }
+        // composite 聚合逐页获取全部的桶，合并后再排序及分页
+        DslSearchBody body = isCompositeAggregation(query) ? query.bindCompositePageDsl(params) : query.bindDsl(params);
+        if (afterKey != null) {
+            query.getAggregation().appendAfterKey(body, afterKey);
+        }
+        body.writeTo(writer);
+        request.setEntity(toEntity(writer, ContentType.APPLICATION_JSON));
+        return request;
+    }
+
+    /**
+     * 有按时间分区的索引时，忽略裁剪出的不存在的分区的索引
+     *
+     * @param request 请求
+     * @param query   查询模板
+     */
+    static void addIndicesOptions(Request request, PreparedSqlQuery query) {
+        if (query.isPartitioned()) {
+            request.addParameter(IGNORE_UNAVAILABLE, "true");
+            request.addParameter(ALLOW_NO_INDICES, "true");
+        }
+    }
+
+    /**
+     * 写入器中的json转为请求体（直接使用写入器的字节数组，不复制）
+     *
+     * @param writer      json 写入器
+     * @param contentType 请求体的类型
+     * @return {@link NByteArrayEntity}
+     */
+    private static NByteArrayEntity toEntity(DslJsonWriter writer, ContentType contentType) {
+        ByteBuffer buffer = writer.toByteBuffer();
+        return new NByteArrayEntity(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), contentType);
+    }
+
+    /**
+     * 同步发送请求
+     *
+     * @param request 请求
+     * @return 查询结果
+     * @throws RejectedExecutionException 等待执行超时
+     * @throws UncheckedIOException       查询失败
+     */
+    private Response perform(Request request) throws RuntimeException {
+        acquire();
+        try {
+            return restClient.performRequest(request);
+        } catch (IOException e) {
+            throw new UncheckedIOException("查询失败！" + e.getMessage(), e);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * 不等待地获取执行的许可，用于异步执行
+     *
+     * @throws RejectedExecutionException 同时执行的请求数已达上限
+     */
+    private void tryAcquire() throws RejectedExecutionException {
+        if (!inFlight.tryAcquire()) {
+            throw new RejectedExecutionException("同时执行的请求数已达上限（" + maxInFlight + "）！");
+        }
+    }
+
+    /**
+     * 获取执行的许可
+     *
+     * @throws RejectedExecutionException 等待超时或被中断
+     */
+    private void acquire() throws RejectedExecutionException {
+        try {
+            if (!inFlight.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("同时执行的请求数已达上限，等待" + acquireTimeoutMillis + "毫秒后超时！");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("等待执行时被中断！", e);
+        }
+    }
+
+    /**
+     * 解析查询结果
+     *
+     * @param query    查询模板
+     * @param params   绑定的参数
+     * @param response 查询结果
+     * @return {@link EsSqlResult}
+     * @throws UncheckedIOException 解析失败
+     */
+    private static EsSqlResult decode(PreparedSqlQuery query, Object[] params, Response response) throws RuntimeException {
+        if (query.isMultiSearch()) {
+            return decodeMultiSearch(query, params, response);
+        }
+        List<EsRow> rows = new ArrayList<>();
+        EsSearchResponseParser.ParsedSearchResponse parsedResponse = parse(query, response, row -> rows.add(row.toEsRow()));
+        if (query.isCountSql()) {
+            Map<String, Object> row = new LinkedHashMap<>(2);
+            row.put(query.getCountColumn(), parsedResponse.getTotalHits());
+            return new EsSqlResult(Collections.singletonList(new EsRow(row)), parsedResponse.getTotalHits(), parsedResponse.getTook());
+        }
+        if (query.getAggregation() != null) {
+            return new EsSqlResult(toAggregationRows(query.getAggregation(), parsedResponse), parsedResponse.getTotalHits(), parsedResponse.getTook());
+        }
+        return new EsSqlResult(rows, parsedResponse.getTotalHits(), parsedResponse.getTook());
+    }
+
+    /**
+     * 流式解析查询结果，命中的文档逐行回调
+     *
+     * @param query    查询模板
+     * @param response 查询结果
+     * @param consumer 每一行的回调
+     * @return 解析后的查询结果
+     * @throws UncheckedIOException 解析失败
+     */
+    private static EsSearchResponseParser.ParsedSearchResponse parse(PreparedSqlQuery query, Response response, Consumer<ProjectedRow> consumer) throws UncheckedIOException {
+        try (InputStream inputStream = response.getEntity().getContent()) {
+            return EsSearchResponseParser.parse(inputStream, query.getRowDecoder(), consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("解析查询结果失败！" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解析 union all 的批量查询结果，各个查询的结果合并后再分页
+     *
+     * @param query    查询模板
+     * @param params   绑定的参数
+     * @param response 批量查询结果
+     * @return {@link EsSqlResult}
+     * @throws RuntimeException 解析失败或其中一个查询失败
+     */
+    private static EsSqlResult decodeMultiSearch(PreparedSqlQuery query, Object[] params, Response response) throws RuntimeException {
+        List<List<Map.Entry<EsRow, Object[]>>> hitsList = new ArrayList<>();
+        List<EsSearchResponseParser.ParsedSearchResponse> parsedResponses;
+        try (InputStream inputStream = response.getEntity().getContent()) {
+            parsedResponses = EsSearchResponseParser.parseMulti(inputStream, query.getRowDecoder(), (row, responseIndex) -> {
+                while (hitsList.size() <= responseIndex) {
+                    hitsList.add(new ArrayList<>());
+                }
+                hitsList.get(responseIndex).add(new AbstractMap.SimpleImmutableEntry<>(row.toEsRow(), row.getSortValues()));
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("解析查询结果失败！" + e.getMessage(), e);
+        }
+        while (hitsList.size() < parsedResponses.size()) {
+            hitsList.add(Collections.emptyList());
+        }
+        long totalHits = 0;
+        long took = -1;
+        for (EsSearchResponseParser.ParsedSearchResponse parsedResponse : parsedResponses) {
+            if (parsedResponse.getError() != null) {
+                throw new RuntimeException("查询失败！" + parsedResponse.getError());
+            }
+            totalHits += Math.max(0, parsedResponse.getTotalHits());
+            took = Math.max(took, parsedResponse.getTook());
+        }
+        List<Map.Entry<EsRow, Object[]>> mergedHits = SqlUnionMerger.merge(query, hitsList, Map.Entry::getValue, params);
+        List<EsRow> rows = new ArrayList<>(mergedHits.size());
+        for (Map.Entry<EsRow, Object[]> hit : mergedHits) {
+            rows.add(hit.getKey());
+        }
+        return new EsSqlResult(rows, totalHits, took);
+    }
+
+    /**
+     * 聚合结果转为行，每个分组一行，没有分组则只有一行
+     *
+     * @param aggregation    聚合
+     * @param parsedResponse 查询结果
+     * @return 行
+     */
+    private static List<EsRow> toAggregationRows(SqlAggregation aggregation, EsSearchResponseParser.ParsedSearchResponse parsedResponse) {
+        Map<String, Object> aggregations = parsedResponse.getAggregations();
+        if (aggregation.getGroupFields().isEmpty()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (SqlAggregation.Metric metric : aggregation.getMetrics()) {
+                if (metric.isVisible()) {
+                    row.put(metric.getName(), metric.getType() == SqlAggregation.MetricType.COUNT ? parsedResponse.getTotalHits() : getMetricValue(aggregations.get(metric.getName())));
+                }
+            }
+            return Collections.singletonList(new EsRow(row));
+        }
+        Object groupAggregation = aggregations.get(SqlAggregation.GROUP_BY_AGGREGATION_NAME);
+        if (!(groupAggregation instanceof Map)) {
+            return Collections.emptyList();
+        }
+        Object sumOtherDocCount = ((Map<?, ?>) groupAggregation).get(SUM_OTHER_DOC_COUNT_FIELD);
+        if (!aggregation.isTermsTopN() && sumOtherDocCount instanceof Number && ((Number) sumOtherDocCount).longValue() > 0) {
+            // 没有全部返回的桶，having、bucket_sort 及返回的行都不完整
+            throw new RuntimeException("分组数超过了聚合的最大桶数" + aggregation.getMaxBuckets() + "，结果不完整！请增加 aggregationBucketSize 或使用 composite 聚合");
+        }
+        return toBucketRows(aggregation, getBuckets(groupAggregation));
+    }
+
+    /**
+     * 获取分组聚合结果中的桶
+     *
+     * @param groupAggregation 分组聚合结果
+     * @return 桶，没有则为空
+     */
+    private static List<?> getBuckets(Object groupAggregation) {
+        Object buckets = groupAggregation instanceof Map ? ((Map<?, ?>) groupAggregation).get(BUCKETS_FIELD) : null;
+        return buckets instanceof List ? (List<?>) buckets : Collections.emptyList();
+    }
+
+    /**
+     * 分组聚合的桶转为行，每个桶一行
+     *
+     * @param aggregation 聚合
+     * @param buckets     桶
+     * @return 行
+     */
+    private static List<EsRow> toBucketRows(SqlAggregation aggregation, List<?> buckets) {
+        List<EsRow> rows = new ArrayList<>(buckets.size());
+        for (Object bucketObject : buckets) {
+            Map<?, ?> bucket = (Map<?, ?>) bucketObject;
+            Map<String, Object> row = new LinkedHashMap<>();
+            Object key = bucket.get(KEY_FIELD);
+            if (key instanceof Map) {
+                // composite 聚合的 key 为各个分组字段的值
+                for (String field : aggregation.getGroupFields()) {
+                    row.put(field, ((Map<?, ?>) key).get(field));
+                }
+            } else {
+                row.put(aggregation.getGroupFields().get(0), key);
+            }
+            for (SqlAggregation.Metric metric : aggregation.getMetrics()) {
+                if (metric.isVisible()) {
+                    row.put(metric.getName(), metric.getType() == SqlAggregation.MetricType.COUNT ? bucket.get(DOC_COUNT_FIELD) : getMetricValue(bucket.get(metric.getName())));
+                }
+            }
+            rows.add(new EsRow(row));
+        }
+        return rows;
+    }
+
+    /**
+     * 获取指标聚合结果的值
+     *
+     * @param metricAggregation 指标聚合结果
+     * @return 值，没有则为 null
+     */
+    private static Object getMetricValue(Object metricAggregation) {
+        return metricAggregation instanceof Map ? ((Map<?, ?>) metricAggregation).get(VALUE_FIELD) : null;
+    }
+
+    /**
+     * 是否为 composite 聚合的sql，需要按 after_key 逐页获取全部的桶
+     *
+     * @param query 查询模板
+     * @return boolean
+     */
+    private static boolean isCompositeAggregation(PreparedSqlQuery query) {
+        return query.getAggregation() != null && query.getAggregation().isComposite();
+    }
+
+    /**
+     * composite 聚合逐页获取的桶，全部获取后按聚合函数排序并分页
+     */
+    private static final class CompositeBuckets {
+
+        private final SqlAggregation aggregation;
+
+        private final Object[] params;
+
+        private final List<Map<?, ?>> buckets = new ArrayList<>();
+
+        private long totalHits = -1;
+
+        private long took;
+
+        CompositeBuckets(SqlAggregation aggregation, Object[] params) {
+            this.aggregation = aggregation;
+            this.params = params;
+        }
+
+        /**
+         * 添加一页的结果
+         *
+         * @param parsedResponse 一页的查询结果
+         * @return 下一页的起始 key，没有下一页或者已经获取到足够的桶则为 null
+         */
+        @SuppressWarnings("unchecked")
+        Map<String, Object> add(EsSearchResponseParser.ParsedSearchResponse parsedResponse) {
+            if (totalHits < 0) {
+                totalHits = parsedResponse.getTotalHits();
+            }
+            took += Math.max(0, parsedResponse.getTook());
+            Object groupAggregation = parsedResponse.getAggregations().get(SqlAggregation.GROUP_BY_AGGREGATION_NAME);
+            List<?> page = getBuckets(groupAggregation);
+            for (Object bucket : page) {
+                buckets.add((Map<?, ?>) bucket);
+            }
+            if (page.isEmpty() || !(((Map<?, ?>) groupAggregation).get(AFTER_KEY_FIELD) instanceof Map)) {
+                return null;
+            }
+            // 桶已经按分组字段的顺序返回，不按聚合函数排序时获取到 偏移量+条数 个即可
+            if (aggregation.getBucketSorts().isEmpty() && aggregation.getBucketFrom() != null && buckets.size() >= limitEnd()) {
+                return null;
+            }
+            return (Map<String, Object>) ((Map<?, ?>) groupAggregation).get(AFTER_KEY_FIELD);
+        }
+
+        /**
+         * 全部的桶按聚合函数排序并分页后转为行
+         *
+         * @return {@link EsSqlResult}
+         */
+        EsSqlResult toResult() {
+            List<Map<?, ?>> result = buckets;
+            List<Map.Entry<String, DslSortOrder>> bucketSorts = aggregation.getBucketSorts();
+            if (!bucketSorts.isEmpty()) {
+                // 稳定排序，聚合函数相同的桶保持分组字段的顺序
+                Comparator<Object[]> comparator = SqlUnionMerger.sortValuesComparator(bucketSorts);
+                result = new ArrayList<>(buckets);
+                result.sort((left, right) -> comparator.compare(sortValues(left), sortValues(right)));
+            }
+            if (aggregation.getBucketFrom() != null) {
+                int from = (int) Math.min(PreparedSqlQuery.toInt(aggregation.getBucketFrom().resolve(params)), result.size());
+                result = result.subList(from, (int) Math.min(limitEnd(), result.size()));
+            }
+            return new EsSqlResult(toBucketRows(aggregation, result), totalHits, took);
+        }
+
+        private long limitEnd() {
+            return (long) PreparedSqlQuery.toInt(aggregation.getBucketFrom().resolve(params)) + PreparedSqlQuery.toInt(aggregation.getBucketLimit().resolve(params));
+        }
+
+        private Object[] sortValues(Map<?, ?> bucket) {
+            List<Map.Entry<String, DslSortOrder>> bucketSorts = aggregation.getBucketSorts();
+            Object[] values = new Object[bucketSorts.size()];
+            for (int i = 0; i < values.length; ++i) {
+                String path = bucketSorts.get(i).getKey();
+                values[i] = SqlAggregation.COUNT_PATH.equals(path) ? bucket.get(DOC_COUNT_FIELD) : getMetricValue(bucket.get(path));
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.kanlon.utils;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * sql 在 es 中的查询结果
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 20:25
+ **/
+@Getter
+@ToString
+public class EsSqlResult {
+
+    /**
+     * 结果的行：普通查询为 select 中的列，计数sql为一行计数，聚合sql为每个分组一行
+     */
+    private final List<EsRow> rows;
+
+    /**
+     * 命中的总数，es 没有返回则为 -1
+     */
+    private final long totalHits;
+
+    /**
+     * es 的查询耗时（毫秒），没有返回则为 -1
+     */
+    private final long took;
+
+    EsSqlResult(List<EsRow> rows, long totalHits, long took) {
+        this.rows = Collections.unmodifiableList(rows);
+        this.totalHits = totalHits;
+        this.took = took;
+    }
+}
@@ -0,0 +1,213 @@
+package com.kanlon.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 线程安全的缓存，按最近最少使用淘汰，并且可以设置过期时间，同时统计命中、未命中和淘汰次数
+ *
+ * @param <K> key 的类型
+ * @param <V> value 的类型
+ * @author zhangcanlong
+ * @since 2026/10/18 14:40
+ **/
+public class LruCache<K, V> {
+
+    /**
+     * 最大缓存条数
+     */
+    private final int maxSize;
+
+    /**
+     * 过期时间（毫秒），小于等于0表示不过期
+     */
+    private final long ttlMillis;
+
+    /**
+     * 缓存，按访问顺序排序，访问此对象时需要加锁
+     */
+    private final LinkedHashMap<K, CacheEntry<V>> cacheMap;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * 构造方法
+     *
+     * @param maxSize   最大缓存条数
+     * @param ttlMillis 过期时间（毫秒），小于等于0表示不过期
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("最大缓存条数必须大于0！");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.cacheMap = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存，没有或已过期则返回 null
+     *
+     * @param key key
+     * @return 缓存的值
+     */
+    public V get(K key) {
+        long now = System.currentTimeMillis();
+        synchronized (cacheMap) {
+            CacheEntry<V> entry = cacheMap.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(now)) {
+                    hitCount.increment();
+                    return entry.value;
+                }
+                cacheMap.remove(key);
+                evictionCount.increment();
+            }
+        }
+        missCount.increment();
+        return null;
+    }
+
+    /**
+     * 获取缓存，没有或已过期则调用 loader 加载并放入缓存
+     * <p>
+     * 加载放在锁外面，并发时同一个key可能会被加载多次，但不会阻塞其他key；加载失败抛出异常则不缓存
+     *
+     * @param key    key
+     * @param loader 加载方法
+     * @return 缓存的值
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 放入缓存
+     *
+     * @param key   key
+     * @param value 值，为 null 则不缓存
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            return;
+        }
+        long expireAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        synchronized (cacheMap) {
+            cacheMap.put(key, new CacheEntry<>(value, expireAt));
+        }
+    }
+
+    /**
+     * 删除缓存（不计入淘汰次数）
+     *
+     * @param key key
+     */
+    public void remove(K key) {
+        synchronized (cacheMap) {
+            cacheMap.remove(key);
+        }
+    }
+
+    /**
+     * 清除已过期的缓存
+     */
+    public void cleanUp() {
+        long now = System.currentTimeMillis();
+        synchronized (cacheMap) {
+            Iterator<CacheEntry<V>> iterator = cacheMap.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isExpired(now)) {
+                    iterator.remove();
+                    evictionCount.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 清空缓存（不计入淘汰次数）
+     */
+    public void invalidateAll() {
+        synchronized (cacheMap) {
+            cacheMap.clear();
+        }
+    }
+
+    /**
+     * 当前缓存的条数
+     *
+     * @return 条数
+     */
+    public int size() {
+        synchronized (cacheMap) {
+            return cacheMap.size();
+        }
+    }
+
+    /**
+     * 命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 淘汰次数（包括超出最大条数被淘汰的和过期被清除的）
+     *
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * 缓存项
+     *
+     * @param <V> 值的类型
+     */
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long expireAt;
+
+        CacheEntry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expireAt;
+        }
+    }
+}
@@ -0,0 +1,791 @@
+package com.kanlon.utils;
+
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLLimit;
+import com.alibaba.druid.sql.ast.SQLOrderBy;
+import com.alibaba.druid.sql.ast.SQLOrderingSpecification;
+import com.alibaba.druid.sql.ast.statement.SQLSelectItem;
+import com.alibaba.druid.sql.ast.statement.SQLSelectOrderByItem;
+import com.alibaba.druid.sql.ast.statement.SQLSelectQueryBlock;
+import com.kanlon.utils.dsl.DslBoolQuery;
+import com.kanlon.utils.dsl.DslCanonicalizer;
+import com.kanlon.utils.dsl.DslLikeTranslator;
+import com.kanlon.utils.dsl.DslPredicateTranslator;
+import com.kanlon.utils.dsl.DslQueries;
+import com.kanlon.utils.dsl.DslQuery;
+import com.kanlon.utils.dsl.DslScript;
+import com.kanlon.utils.dsl.DslSearchBody;
+import com.kanlon.utils.dsl.DslSortOrder;
+import com.kanlon.utils.predicate.EsBoolPredicate;
+import com.kanlon.utils.predicate.EsPredicate;
+import com.kanlon.utils.predicate.EsRangePredicate;
+import com.kanlon.utils.predicate.EsScript;
+import com.kanlon.utils.predicate.EsTermPredicate;
+import com.kanlon.utils.predicate.EsValue;
+import com.kanlon.utils.schema.EsIndexSchema;
+import com.kanlon.utils.schema.EsSchemaCatalog;
+import com.kanlon.utils.trace.SqlStage;
+import com.kanlon.utils.trace.SqlTraceListener;
+import lombok.Getter;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static com.kanlon.utils.SQLToEsDSLUtils.toEsQueryString;
+
+/**
+ * 预编译的sql查询模板，sql只解析、翻译一次，之后每次绑定参数生成 es 的查询参数时不再经过 druid
+ * <p>
+ * 参数按照sql中 ? 出现的顺序绑定，in (?) 绑定的参数可以为集合或数组，会展开为多个值
+ * <p>
+ * 绑定只生成 dsl 模型（{@link DslSearchBody}），不依赖 es 的类；需要 es 的 SearchSourceBuilder、SearchRequest 时由 {@link EsDslAdapter} 转换
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 14:05
+ **/
+@Getter
+public class PreparedSqlQuery {
+
+    /**
+     * 相关度评分的字段
+     */
+    private static final String SCORE_FIELD = "_score";
+
+    /**
+     * 返回的字段，为 null 则表示不过滤
+     */
+    private final String[] includes;
+
+    /**
+     * select 中的列从命中的文档中读取的方式
+     */
+    private final ProjectionMode projectionMode;
+
+    /**
+     * select 中计算的列（例如 price * qty as total）及其脚本，在 es 中计算后从 fields 返回
+     */
+    private final Map<String, EsScript> scriptFields;
+
+    /**
+     * 分页的偏移量，没有分页则为 null
+     */
+    private final EsValue from;
+
+    /**
+     * 分页的条数，没有分页则为 null
+     */
+    private final EsValue size;
+
+    /**
+     * 排序字段及其顺序
+     */
+    private final List<Map.Entry<String, DslSortOrder>> sorts;
+
+    /**
+     * where 条件
+     */
+    private final List<EsPredicate> predicates;
+
+    /**
+     * es 的索引，只生成查询参数的时候为空数组
+     */
+    private final String[] indices;
+
+    /**
+     * 是否为计数sql
+     */
+    private final boolean countSql;
+
+    /**
+     * 计数sql的列名（select 中的别名或表达式），不是计数sql则为 null
+     */
+    private final String countColumn;
+
+    /**
+     * 参数个数
+     */
+    private final int paramCount;
+
+    /**
+     * 是否在过滤上下文中生成条件（不计算评分）
+     */
+    private final boolean filterContext;
+
+    /**
+     * 调用方对命中总数的需要
+     */
+    private final TotalHitsIntent totalHitsIntent;
+
+    /**
+     * order by 是否为全部索引的索引排序的前缀
+     */
+    private final boolean indexSorted;
+
+    /**
+     * 聚合，不是聚合sql则为 null
+     */
+    private final SqlAggregation aggregation;
+
+    /**
+     * union all 中条件不同的各个查询（条件相同的查询合并为一个多索引的查询），为空表示只需要一个查询
+     */
+    private final List<UnionBranch> unionBranches;
+
+    /**
+     * 查询结果的解码器，按 select 中的列读取 _source 或 fields
+     */
+    private final SqlRowDecoder rowDecoder;
+
+    /**
+     * like 的翻译器
+     */
+    private final DslLikeTranslator likeTranslator;
+
+    /**
+     * 索引字段类型的目录，没有配置则为 null
+     */
+    private final EsSchemaCatalog schemaCatalog;
+
+    /**
+     * 获取字段类型的索引（多个索引用逗号分隔），没有配置字段类型的目录则为 null
+     */
+    private final String schemaIndex;
+
+    /**
+     * 按时间分区的索引的分区规则
+     */
+    private final Map<String, EsIndexPartition> indexPartitions;
+
+    /**
+     * 是否有按时间分区的索引（查询时根据时间条件裁剪索引，并忽略不存在的索引）
+     */
+    private final boolean partitioned;
+
+    /**
+     * 查询的规范化，没有开启规范化则为 null
+     */
+    private final DslCanonicalizer canonicalizer;
+
+    /**
+     * 翻译及执行的统计的监听器
+     */
+    private final SqlTraceListener traceListener;
+
+    /**
+     * sql 的指纹，没有配置统计的监听器则为 null
+     */
+    private final String fingerprint;
+
+    private PreparedSqlQuery(SqlTranslateContext context, boolean resolveIndices) throws RuntimeException {
+        this.aggregation = SqlAggregation.compile(context);
+        // 聚合sql的分页、排序都在聚合中，并且不返回文档
+        boolean aggregationSql = aggregation != null;
+        this.countSql = !aggregationSql && context.isCountSql();
+        Map<String, String> columnMap = context.getColumnMap();
+        this.countColumn = countSql ? columnMap.keySet().iterator().next() : null;
+        this.rowDecoder = new SqlRowDecoder(columnMap, context.getTableQualifiers());
+        // 不是获取全部列 并且不是 计算sql 才需要过滤，有别名的列过滤的是其字段
+        if (!aggregationSql && !countSql && !rowDecoder.isAllFields()) {
+            this.includes = rowDecoder.getFields().toArray(new String[0]);
+            if (context.getOptions().isCanonical()) {
+                Arrays.sort(includes);
+            }
+        } else {
+            this.includes = null;
+        }
+        this.projectionMode = context.getOptions().getProjectionMode();
+        this.scriptFields = !aggregationSql && !countSql && !rowDecoder.isAllFields() ? compileScriptFields(context, columnMap) : Collections.emptyMap();
+        SQLLimit sqlLimit = context.getLimit();
+        // 计数sql不需要分页
+        if (sqlLimit != null && !countSql && !aggregationSql) {
+            this.from = sqlLimit.getOffset() == null ? EsValue.constant(0) : SqlWherePredicateParser.toEsValue(sqlLimit.getOffset());
+            this.size = sqlLimit.getRowCount() == null ? EsValue.constant(0) : SqlWherePredicateParser.toEsValue(sqlLimit.getRowCount());
+        } else {
+            this.from = null;
+            this.size = null;
+        }
+        SQLOrderBy sqlOrderBy = context.getOrderBy();
+        List<Map.Entry<String, DslSortOrder>> sortList = new ArrayList<>();
+        if (sqlOrderBy != null && !aggregationSql) {
+            for (SQLSelectOrderByItem orderByItem : sqlOrderBy.getItems()) {
+                String orderByColumn = toEsQueryString(orderByItem.getExpr());
+                SQLOrderingSpecification orderingSpecification = orderByItem.getType();
+                sortList.add(new AbstractMap.SimpleImmutableEntry<>(orderByColumn, Objects.equals(orderingSpecification, SQLOrderingSpecification.ASC) ? DslSortOrder.ASC : DslSortOrder.DESC));
+            }
+        }
+        this.sorts = Collections.unmodifiableList(sortList);
+        this.filterContext = isFilterContext(context.getOptions().getQueryContextMode(), sortList);
+        this.totalHitsIntent = context.getOptions().getTotalHitsIntent();
+        this.indexSorted = !aggregationSql && !countSql && isIndexSorted(context, sortList);
+        this.likeTranslator = new DslLikeTranslator(context.getOptions().getLikeStrategies(), context.getOptions().getLeadingWildcardHandler());
+        SqlTrace trace = context.getTrace();
+        this.predicates = trace.stage(SqlStage.WHERE, () -> {
+            List<EsPredicate> predicateList = SqlWherePredicateParser.parse(context.getWhere());
+            if (context.getOptions().isOptimizePredicates()) {
+                predicateList = EsPredicateOptimizer.optimize(predicateList);
+            }
+            return Collections.unmodifiableList(predicateList);
+        });
+        trace.predicates(predicates.size());
+        this.traceListener = context.getOptions().getTraceListener();
+        this.fingerprint = trace.getFingerprint();
+
+        List<String> tableNames = resolveIndices ? context.getTableNames() : Collections.emptyList();
+        this.indices = new String[tableNames.size()];
+        for (int i = 0; i < indices.length; ++i) {
+            indices[i] = tableNames.get(i).toLowerCase();
+        }
+        this.schemaCatalog = context.getOptions().getSchemaCatalog();
+        this.schemaIndex = schemaCatalog == null ? null : (resolveIndices ? String.join(",", indices) : context.getTableNames().stream().map(String::toLowerCase).collect(Collectors.joining(",")));
+        // 只生成查询参数时也需要编译，以便检查 union all 中的查询能否合并为一个查询
+        this.unionBranches = trace.stage(SqlStage.WHERE, () -> compileUnionBranches(context));
+        this.indexPartitions = context.getOptions().getIndexPartitions();
+        boolean hasPartition = EsIndexResolver.isPartitioned(indices, indexPartitions);
+        for (UnionBranch branch : unionBranches) {
+            hasPartition |= EsIndexResolver.isPartitioned(branch.indices, indexPartitions);
+        }
+        this.partitioned = hasPartition;
+        this.canonicalizer = context.getOptions().isCanonical() ? new DslCanonicalizer(context.getOptions().getTimeRounding(), context.getOptions().getClock()) : null;
+        int maxParamIndex = Math.max(from == null ? -1 : from.getParamIndex(), size == null ? -1 : size.getParamIndex());
+        for (EsPredicate predicate : predicates) {
+            maxParamIndex = Math.max(maxParamIndex, predicate.maxParamIndex());
+        }
+        for (UnionBranch branch : unionBranches) {
+            for (EsPredicate predicate : branch.predicates) {
+                maxParamIndex = Math.max(maxParamIndex, predicate.maxParamIndex());
+            }
+        }
+        if (aggregation != null) {
+            maxParamIndex = Math.max(maxParamIndex, aggregation.maxParamIndex());
+        }
+        for (EsScript script : scriptFields.values()) {
+            maxParamIndex = Math.max(maxParamIndex, script.maxParamIndex());
+        }
+        this.paramCount = maxParamIndex + 1;
+    }
+
+    /**
+     * 编译 select 中计算的列（不是字段的列）的脚本，不支持的表达式不计算（值为 null）
+     *
+     * @param context   翻译上下文
+     * @param columnMap 列别名及其表达式
+     * @return 列别名及其脚本
+     */
+    private static Map<String, EsScript> compileScriptFields(SqlTranslateContext context, Map<String, String> columnMap) {
+        Map<String, EsScript> scripts = new LinkedHashMap<>(4);
+        for (Map.Entry<String, String> column : columnMap.entrySet()) {
+            if (SqlRowDecoder.toField(column.getKey(), column.getValue(), context.getTableQualifiers()) != null) {
+                continue;
+            }
+            for (SQLSelectItem selectItem : context.getSelectList()) {
+                SQLExpr expr = selectItem.getExpr();
+                if (SqlScriptCompiler.isComputed(expr) && SQLUtils.toSQLString(expr).equals(column.getValue())) {
+                    EsScript script = SqlScriptCompiler.compileValue(expr);
+                    if (script != null) {
+                        scripts.put(column.getKey(), script);
+                    }
+                    break;
+                }
+            }
+        }
+        return scripts.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(scripts);
+    }
+
+    /**
+     * 根据已解析的翻译上下文编译查询模板
+     *
+     * @param context 翻译上下文
+     * @return {@link PreparedSqlQuery}
+     */
+    public static PreparedSqlQuery compile(SqlTranslateContext context) throws RuntimeException {
+        return context.getTrace().stage(SqlStage.BUILD, () -> new PreparedSqlQuery(context, true));
+    }
+
+    /**
+     * 根据已解析的翻译上下文编译查询模板，只用于生成查询参数，不解析索引
+     *
+     * @param context 翻译上下文
+     * @return {@link PreparedSqlQuery}
+     */
+    static PreparedSqlQuery compileQueryBody(SqlTranslateContext context) throws RuntimeException {
+        return context.getTrace().stage(SqlStage.BUILD, () -> new PreparedSqlQuery(context, false));
+    }
+
+    /**
+     * 绑定参数，生成 es 查询的dsl中的查询参数的模型（es 的 SearchSourceBuilder 由 {@link EsDslAdapter#bind(PreparedSqlQuery, Object...)} 转换）
+     *
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return {@link DslSearchBody}
+     * @throws IllegalArgumentException 参数个数不足，或者需要多个查询（{@link #isMultiSearch()}）或合并全部的聚合桶（{@link SqlAggregation#isMergeRequired()}）
+     */
+    public DslSearchBody bindDsl(Object... params) throws IllegalArgumentException {
+        return bindDsl(params, true);
+    }
+
+    /**
+     * 绑定参数，生成 es 查询的dsl中的查询参数的模型
+     *
+     * @param params   参数，按照sql中 ? 出现的顺序
+     * @param withFrom 是否设置分页的偏移量（使用 search_after 分页时不能设置）
+     * @return {@link DslSearchBody}
+     * @throws IllegalArgumentException 参数个数不足，或者需要多个查询（{@link #isMultiSearch()}）或合并全部的聚合桶（{@link SqlAggregation#isMergeRequired()}）
+     */
+    DslSearchBody bindDsl(Object[] params, boolean withFrom) throws IllegalArgumentException {
+        checkSingleSearch();
+        if (aggregation != null && aggregation.isMergeRequired()) {
+            // 生成的查询只是没有排序及分页的第一页，与sql的含义不同
+            throw new IllegalArgumentException("多个 group by 字段（composite 聚合）按聚合函数排序或有 limit 时，需要按 after_key 获取全部的桶合并后再排序及分页，"
+                    + "不能生成一个查询，请使用 EsSqlExecutor 执行，或者自行使用 PreparedSqlQuery#bindCompositePageDsl 逐页查询后合并");
+        }
+        return bindPageDsl(params, withFrom);
+    }
+
+    /**
+     * 绑定参数，生成 composite 聚合的一页的查询参数的模型：不包括按聚合函数的排序及 limit，由调用方按 after_key（{@link SqlAggregation#appendAfterKey(DslSearchBody, Map)}）
+     * 获取全部的桶，合并后再排序及分页
+     *
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return {@link DslSearchBody}
+     * @throws IllegalArgumentException 参数个数不足，或者需要多个查询（{@link #isMultiSearch()}）
+     */
+    public DslSearchBody bindCompositePageDsl(Object... params) throws IllegalArgumentException {
+        checkSingleSearch();
+        return bindPageDsl(params, true);
+    }
+
+    /**
+     * 检查能否生成一个查询
+     *
+     * @throws IllegalArgumentException union all 中各个查询的条件不同
+     */
+    private void checkSingleSearch() throws IllegalArgumentException {
+        if (isMultiSearch()) {
+            // 只使用第一个查询的条件会静默地丢失其他查询的结果
+            throw new IllegalArgumentException("union all 中各个查询的条件不同，不能生成一个查询，请使用 SQLToEsDSLUtils#sqlToEsMultiSearchRequest 或 EsDslAdapter#bindMultiSearchRequest");
+        }
+    }
+
+    /**
+     * 绑定参数，生成 es 查询的dsl中的查询参数的模型（不检查能否由一个查询完成）
+     *
+     * @param params   参数，按照sql中 ? 出现的顺序
+     * @param withFrom 是否设置分页的偏移量
+     * @return {@link DslSearchBody}
+     * @throws IllegalArgumentException 参数个数不足
+     */
+    private DslSearchBody bindPageDsl(Object[] params, boolean withFrom) throws IllegalArgumentException {
+        DslSearchBody body = bindDsl(params, withFrom, predicates, getSchema(schemaIndex));
+        // 分页查询（search_after、scroll）需要逐页获取，不提前结束
+        if (withFrom) {
+            applyHitControl(body, hitControl(params));
+        }
+        return body;
+    }
+
+    /**
+     * 绑定参数，生成 es 查询的dsl中的查询参数的模型
+     *
+     * @param params         参数，按照sql中 ? 出现的顺序
+     * @param withFrom       是否设置分页的偏移量
+     * @param whereCondition where 条件
+     * @param schema         索引的字段类型
+     * @return {@link DslSearchBody}
+     * @throws IllegalArgumentException 参数个数不足
+     */
+    private DslSearchBody bindDsl(Object[] params, boolean withFrom, List<EsPredicate> whereCondition, EsIndexSchema schema) throws IllegalArgumentException {
+        checkParams(params);
+        DslSearchBody body = new DslSearchBody();
+        if (countSql) {
+            // 计数sql只需要命中的总数：不返回文档，并且统计准确的总数（es 7 默认最多只统计到 10000）
+            body.size(0);
+            body.fetchSource(false);
+            body.trackTotalHits(true);
+        }
+        if (includes != null && isDocValueProjection(schema)) {
+            // 不返回 _source 及 stored 字段，只从 doc_values 中读取 select 的列
+            body.fetchSource(false);
+            body.storedField(DslSearchBody.STORED_FIELDS_NONE);
+            for (String include : includes) {
+                body.docValueField(include);
+            }
+        } else if (includes != null && includes.length == 0 && !scriptFields.isEmpty()) {
+            // 只有计算的列，不需要 _source
+            body.fetchSource(false);
+        } else if (includes != null) {
+            // 第一个参数表示结果集返回哪些字段，第二表示不返回哪些参数
+            body.fetchSource(includes.clone(), new String[]{});
+        }
+        for (Map.Entry<String, EsScript> scriptField : scriptFields.entrySet()) {
+            // 不能从 doc_values 读取的字段不计算，与不支持的表达式相同，该列为 null
+            if (scriptField.getValue().isDocValueReadable(schema)) {
+                body.scriptField(scriptField.getKey(), toDslScript(scriptField.getValue(), params, schema));
+            }
+        }
+        // 设置查询分页
+        if (from != null) {
+            if (withFrom) {
+                body.from(toInt(from.resolve(params)));
+            }
+            body.size(toInt(size.resolve(params)));
+        }
+        // 设置排序
+        for (Map.Entry<String, DslSortOrder> sort : sorts) {
+            body.sort(schema.termField(sort.getKey()), sort.getValue().toString());
+        }
+        //组建查询条件
+        body.query(toQuery(params, whereCondition, schema));
+        if (aggregation != null) {
+            aggregation.appendTo(body, params, schema);
+        }
+        return body;
+    }
+
+    private static DslScript toDslScript(EsScript script, Object[] params, EsIndexSchema schema) {
+        return new DslScript(script.resolveSource(schema), EsScript.LANG, script.resolveParams(params));
+    }
+
+    /**
+     * 是否从 doc_values 中读取 select 的列：配置为 {@link ProjectionMode#DOC_VALUES} 并且返回的字段都可以从 doc_values 读取
+     *
+     * @param schema 索引的字段类型
+     * @return boolean
+     */
+    private boolean isDocValueProjection(EsIndexSchema schema) {
+        return projectionMode == ProjectionMode.DOC_VALUES && schema.isDocValueReadable(includes);
+    }
+
+    /**
+     * 绑定参数，根据sql的结构及调用方对命中总数的需要决定命中总数统计及提前结束的设置：
+     * <ul>
+     *     <li>计数sql、没有分组的 count(1) 或者需要准确的总数时统计准确的总数</li>
+     *     <li>不需要总数时不统计，没有 order by 的 limit n（不是聚合）设置 terminate_after 为 偏移量+条数，order by 为索引排序的前缀时由 es 提前结束</li>
+     *     <li>其他情况不设置</li>
+     * </ul>
+     *
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return {@link EsHitControl}
+     * @throws IllegalArgumentException 参数个数不足
+     */
+    public EsHitControl hitControl(Object... params) throws IllegalArgumentException {
+        if (countSql || (aggregation != null && aggregation.isTotalHitsRequired()) || totalHitsIntent == TotalHitsIntent.ACCURATE) {
+            return new EsHitControl(Boolean.TRUE, 0, false);
+        }
+        if (totalHitsIntent != TotalHitsIntent.NONE) {
+            return EsHitControl.DEFAULT;
+        }
+        checkParams(params);
+        int terminateAfter = 0;
+        if (aggregation == null && sorts.isEmpty() && from != null) {
+            // 没有排序时任意 偏移量+条数 个文档都满足，每个分片收集到这么多即可结束；超过 int 的范围时不提前结束
+            long end = resolveEnd(params);
+            terminateAfter = end > Integer.MAX_VALUE ? 0 : (int) end;
+        }
+        return new EsHitControl(Boolean.FALSE, terminateAfter, indexSorted);
+    }
+
+    /**
+     * 绑定参数，计算 偏移量+条数（使用 long 计算，避免超过 int 的范围时溢出为负数）
+     *
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return 偏移量+条数
+     */
+    private long resolveEnd(Object[] params) {
+        return (long) toInt(from.resolve(params)) + toInt(size.resolve(params));
+    }
+
+    private static void applyHitControl(DslSearchBody body, EsHitControl hitControl) {
+        if (hitControl.getTrackTotalHits() != null) {
+            body.trackTotalHits(hitControl.getTrackTotalHits());
+        }
+        if (hitControl.getTerminateAfter() > 0) {
+            body.terminateAfter(hitControl.getTerminateAfter());
+        }
+    }
+
+    /**
+     * 检查参数个数
+     *
+     * @param params 参数
+     * @throws IllegalArgumentException 参数个数不足
+     */
+    private void checkParams(Object[] params) throws IllegalArgumentException {
+        if (paramCount > 0 && (params == null || params.length < paramCount)) {
+            throw new IllegalArgumentException("参数个数不足！需要" + paramCount + "个参数，实际为" + (params == null ? 0 : params.length) + "个");
+        }
+    }
+
+    /**
+     * 根据 where 条件生成查询：过滤上下文不需要评分，使用 constant_score 包装
+     *
+     * @param params         参数
+     * @param whereCondition where 条件
+     * @param schema         索引的字段类型
+     * @return {@link DslQuery}
+     */
+    private DslQuery toQuery(Object[] params, List<EsPredicate> whereCondition, EsIndexSchema schema) {
+        DslBoolQuery boolQuery = DslPredicateTranslator.toBoolQuery(whereCondition, params, filterContext, likeTranslator, schema);
+        DslQuery query = filterContext ? DslQueries.constantScoreQuery(boolQuery) : boolQuery;
+        return canonicalizer == null ? query : canonicalizer.canonicalize(query);
+    }
+
+    /**
+     * 规范化的查询的条件中是否有相对时间的常量（now-1h 等）：相对时间在绑定时解析为时间戳，绑定的结果随时间变化，不能缓存
+     *
+     * @return boolean
+     */
+    boolean isTimeDependent() {
+        return canonicalizer != null && hasRelativeTime(predicates);
+    }
+
+    private static boolean hasRelativeTime(List<EsPredicate> predicateList) {
+        for (EsPredicate predicate : predicateList) {
+            if (predicate instanceof EsBoolPredicate && hasRelativeTime(((EsBoolPredicate) predicate).getChildren())) {
+                return true;
+            }
+            if (predicate instanceof EsRangePredicate) {
+                EsRangePredicate rangePredicate = (EsRangePredicate) predicate;
+                if (isRelativeTime(rangePredicate.getFrom()) || isRelativeTime(rangePredicate.getTo())) {
+                    return true;
+                }
+            } else if (predicate instanceof EsTermPredicate && isRelativeTime(((EsTermPredicate) predicate).getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRelativeTime(EsValue value) {
+        return value != null && !value.isParam() && DslCanonicalizer.isRelativeTime(value.getValue());
+    }
+
+    /**
+     * 绑定参数，判断查询是否使用 es 分片的请求缓存：开启规范化并且不返回文档（计数、聚合或者 limit 0）
+     *
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return boolean
+     */
+    public boolean isRequestCache(Object... params) throws IllegalArgumentException {
+        if (canonicalizer == null) {
+            return false;
+        }
+        return countSql || aggregation != null || (size != null && toInt(size.resolve(params)) == 0);
+    }
+
+    /**
+     * 绑定参数，解析查询的索引：按时间分区的索引根据 where 条件中分区时间字段的范围裁剪为有交集的分区的索引
+     *
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return 索引
+     */
+    public String[] resolveIndices(Object... params) throws IllegalArgumentException {
+        return partitioned ? EsIndexResolver.resolve(indices, predicates, params, indexPartitions) : indices.clone();
+    }
+
+    /**
+     * 绑定参数，解析 union all 中一个查询的索引
+     *
+     * @param branch union all 中的查询
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return 索引
+     */
+    public String[] resolveIndices(UnionBranch branch, Object[] params) throws IllegalArgumentException {
+        return partitioned ? EsIndexResolver.resolve(branch.indices, branch.predicates, params, indexPartitions) : branch.getIndices();
+    }
+
+    /**
+     * 绑定参数，生成 dsl 的json字节数组
+     *
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return dsl 的json字节数组
+     */
+    public byte[] bindDslBytes(Object... params) throws IllegalArgumentException {
+        return bindDsl(params).toJsonBytes();
+    }
+
+    /**
+     * 是否需要多个查询（union all 中各个查询的条件不同）
+     *
+     * @return boolean
+     */
+    public boolean isMultiSearch() {
+        return !unionBranches.isEmpty();
+    }
+
+    /**
+     * 绑定参数，生成 union all 中一个查询的查询参数的模型
+     *
+     * @param branch union all 中的查询
+     * @param params 参数，按照sql中 ? 出现的顺序
+     * @return {@link DslSearchBody}
+     */
+    DslSearchBody bindUnionBranchDsl(UnionBranch branch, Object[] params) throws IllegalArgumentException {
+        DslSearchBody body = bindDsl(params, false, branch.predicates, getSchema(branch.schemaIndex));
+        if (from != null) {
+            // 每个查询只需要返回前 偏移量+条数 条，合并后再分页
+            body.size((int) Math.min(resolveEnd(params), Integer.MAX_VALUE));
+        }
+        applyHitControl(body, hitControl(params));
+        return body;
+    }
+
+    /**
+     * 获取索引的字段类型，没有配置字段类型的目录则为 {@link EsIndexSchema#EMPTY}
+     *
+     * @param index 索引，多个索引用逗号分隔
+     * @return {@link EsIndexSchema}
+     */
+    private EsIndexSchema getSchema(String index) {
+        return schemaCatalog == null ? EsIndexSchema.EMPTY : schemaCatalog.getSchema(index);
+    }
+
+    /**
+     * 获取返回的字段的副本
+     *
+     * @return 返回的字段，为 null 则表示不过滤
+     */
+    public String[] getIncludes() {
+        return includes == null ? null : includes.clone();
+    }
+
+    /**
+     * 获取索引的副本
+     *
+     * @return 索引
+     */
+    public String[] getIndices() {
+        return indices.clone();
+    }
+
+    /**
+     * 编译 union all 中的各个查询，条件相同的查询合并为一个多索引的查询
+     *
+     * @param context 翻译上下文
+     * @return 条件不同的各个查询，只有一种条件时为空
+     */
+    private static List<UnionBranch> compileUnionBranches(SqlTranslateContext context) {
+        Map<List<EsPredicate>, List<String>> branchIndicesMap = new LinkedHashMap<>();
+        for (SQLSelectQueryBlock queryBlock : context.getUnionBranches()) {
+            List<EsPredicate> branchPredicates = SqlWherePredicateParser.parse(queryBlock.getWhere());
+            if (context.getOptions().isOptimizePredicates()) {
+                branchPredicates = EsPredicateOptimizer.optimize(branchPredicates);
+            }
+            List<String> branchIndices = branchIndicesMap.computeIfAbsent(branchPredicates, key -> new ArrayList<>());
+            for (String tableName : SelfDruidSqlUtils.getTableNamesBySqlObject(queryBlock)) {
+                String index = tableName.toLowerCase();
+                if (!branchIndices.contains(index)) {
+                    branchIndices.add(index);
+                }
+            }
+        }
+        if (branchIndicesMap.size() <= 1) {
+            return Collections.emptyList();
+        }
+        List<UnionBranch> branches = new ArrayList<>(branchIndicesMap.size());
+        for (Map.Entry<List<EsPredicate>, List<String>> entry : branchIndicesMap.entrySet()) {
+            branches.add(new UnionBranch(entry.getValue().toArray(new String[0]), Collections.unmodifiableList(entry.getKey())));
+        }
+        return Collections.unmodifiableList(branches);
+    }
+
+    /**
+     * order by 是否为全部索引的索引排序的前缀
+     *
+     * @param context 翻译上下文
+     * @param sorts   order by 的字段及其顺序
+     * @return boolean
+     */
+    private static boolean isIndexSorted(SqlTranslateContext context, List<Map.Entry<String, DslSortOrder>> sorts) {
+        Map<String, EsIndexSort> indexSorts = context.getOptions().getIndexSorts();
+        if (sorts.isEmpty() || indexSorts.isEmpty() || context.getTableNames().isEmpty()) {
+            return false;
+        }
+        for (String tableName : context.getTableNames()) {
+            EsIndexSort indexSort = indexSorts.get(tableName.toLowerCase());
+            if (indexSort == null || !indexSort.isPrefix(sorts)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 是否在过滤上下文中生成条件
+     *
+     * @param queryContextMode 上下文模式
+     * @param sorts            排序字段
+     * @return boolean
+     */
+    private static boolean isFilterContext(QueryContextMode queryContextMode, List<Map.Entry<String, DslSortOrder>> sorts) {
+        if (queryContextMode == QueryContextMode.FILTER) {
+            return true;
+        }
+        if (queryContextMode == QueryContextMode.SCORE) {
+            return false;
+        }
+        // 自动模式下，按相关度评分排序才需要计算评分
+        for (Map.Entry<String, DslSortOrder> sort : sorts) {
+            if (SCORE_FIELD.equals(sort.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 参数转为整数
+     *
+     * @param value 参数
+     * @return 整数
+     */
+    static int toInt(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return Integer.parseInt(String.valueOf(value));
+    }
+
+    /**
+     * union all 中的一个查询（条件相同的查询合并为一个）
+     */
+    public static class UnionBranch {
+        /**
+         * es 的索引
+         */
+        private final String[] indices;
+        /**
+         * where 条件
+         */
+        private final List<EsPredicate> predicates;
+        /**
+         * 获取字段类型的索引（多个索引用逗号分隔）
+         */
+        private final String schemaIndex;
+
+        UnionBranch(String[] indices, List<EsPredicate> predicates) {
+            this.indices = indices;
+            this.predicates = predicates;
+            this.schemaIndex = String.join(",", indices);
+        }
+
+        /**
+         * 获取索引的副本
+         *
+         * @return 索引
+         */
+        public String[] getIndices() {
+            return indices.clone();
+        }
+
+        public List<EsPredicate> getPredicates() {
+            return predicates;
+        }
+    }
+}
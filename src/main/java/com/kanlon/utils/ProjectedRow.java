@@ -0,0 +1,187 @@
+package com.kanlon.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SqlRowDecoder} 解码出的一行（非线程安全），按 select 中的列（别名）获取值
+ * <p>
+ * 解码时同一个对象会被复用，只在回调中有效，需要保留时调用 {@link #toMap()} 或 {@link #toEsRow()} 复制
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 21:40
+ **/
+public class ProjectedRow {
+
+    private final SqlRowDecoder decoder;
+
+    /**
+     * 列名：固定的列为解码器的列，获取全部字段时为这一行的 _source 中的字段
+     */
+    private final List<String> columns;
+
+    private Object[] values;
+
+    /**
+     * 列数
+     */
+    private int size;
+
+    /**
+     * 排序值，没有则为 null
+     */
+    private Object[] sortValues;
+
+    ProjectedRow(SqlRowDecoder decoder) {
+        this.decoder = decoder;
+        if (decoder.isAllFields()) {
+            this.columns = new ArrayList<>();
+            this.values = new Object[16];
+        } else {
+            this.columns = decoder.getColumns();
+            this.values = new Object[columns.size()];
+            this.size = columns.size();
+        }
+    }
+
+    /**
+     * 清空这一行的值，开始解码下一行
+     */
+    void reset() {
+        Arrays.fill(values, 0, size, null);
+        if (decoder.isAllFields()) {
+            columns.clear();
+            size = 0;
+        }
+        sortValues = null;
+    }
+
+    void set(int index, Object value) {
+        values[index] = value;
+    }
+
+    /**
+     * 获取全部字段时添加一列
+     *
+     * @param column 列名
+     * @param value  值
+     */
+    void add(String column, Object value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        columns.add(column);
+        values[size++] = value;
+    }
+
+    void setSortValues(Object[] sortValues) {
+        this.sortValues = sortValues;
+    }
+
+    SqlRowDecoder getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * 列数
+     *
+     * @return 列数
+     */
+    public int columnCount() {
+        return size;
+    }
+
+    /**
+     * 获取列名（只读）
+     *
+     * @return 列名
+     */
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * 按位置获取列的值
+     *
+     * @param index 列的位置，从0开始
+     * @return 值
+     */
+    public Object get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("列的位置超出范围：" + index);
+        }
+        return values[index];
+    }
+
+    /**
+     * 按列名获取值
+     *
+     * @param column 列名（select 中的别名）
+     * @return 值，没有该列则为 null
+     */
+    public Object get(String column) {
+        int index = decoder.isAllFields() ? columns.indexOf(column) : decoder.indexOf(column);
+        return index < 0 ? null : values[index];
+    }
+
+    public String getString(String column) {
+        Object value = get(column);
+        return value == null ? null : value.toString();
+    }
+
+    public Long getLong(String column) throws NumberFormatException {
+        return EsRow.toLong(get(column));
+    }
+
+    public Integer getInteger(String column) throws NumberFormatException {
+        return EsRow.toInteger(get(column));
+    }
+
+    public Double getDouble(String column) throws NumberFormatException {
+        return EsRow.toDouble(get(column));
+    }
+
+    public Boolean getBoolean(String column) {
+        return EsRow.toBoolean(get(column));
+    }
+
+    /**
+     * 获取排序值（search_after 及合并多个查询时使用）
+     *
+     * @return 排序值，没有排序则为 null
+     */
+    public Object[] getSortValues() {
+        return sortValues;
+    }
+
+    /**
+     * 复制为map，按列的顺序
+     *
+     * @return 列名及其值
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; ++i) {
+            map.put(columns.get(i), values[i]);
+        }
+        return map;
+    }
+
+    /**
+     * 复制为 {@link EsRow}
+     *
+     * @return {@link EsRow}
+     */
+    public EsRow toEsRow() {
+        return new EsRow(toMap());
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectedRow" + toMap();
+    }
+}
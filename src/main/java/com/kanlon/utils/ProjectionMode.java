@@ -0,0 +1,22 @@
+package com.kanlon.utils;
+
+/**
+ * select 中的列从命中的文档中读取的方式
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 04:30
+ **/
+public enum ProjectionMode {
+    /**
+     * 从 _source 中读取：es 需要加载并解析每个命中的文档的整个 _source 再过滤字段
+     */
+    SOURCE,
+    /**
+     * 从 doc_values 中读取：select 的列都是有 doc_values 的字段（keyword、数字、日期、布尔）时，不返回 _source，
+     * 使用 docvalue_fields 按列读取，适合从很宽的文档中只查询少数几列；需要配置索引字段类型的目录，
+     * 不认识的字段或者有不能使用 doc_values 的字段（例如 text）时仍从 _source 中读取
+     * <p>
+     * doc_values 中的值与 _source 中的原值可能不同：多值字段为排序去重后的值，日期为按 mapping 的格式格式化后的值，float 为 double
+     */
+    DOC_VALUES
+}
@@ -0,0 +1,22 @@
+package com.kanlon.utils;
+
+/**
+ * where 条件生成es查询时的上下文模式
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 16:05
+ **/
+public enum QueryContextMode {
+    /**
+     * 自动：排序中包含 _score 时使用 {@link #SCORE}，否则使用 {@link #FILTER}
+     */
+    AUTO,
+    /**
+     * 过滤上下文：条件放入 constant_score 中 bool 的 filter 及 must_not 中，不计算相关度评分，并且可以使用es节点的过滤缓存
+     */
+    FILTER,
+    /**
+     * 评分上下文：条件放入 bool 的 must 及 must_not 中，会计算相关度评分
+     */
+    SCORE
+}
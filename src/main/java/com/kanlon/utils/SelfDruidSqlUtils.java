@@ -4,6 +4,7 @@ import com.alibaba.druid.DbType;
 import com.alibaba.druid.sql.PagerUtils;
 import com.alibaba.druid.sql.SQLUtils;
 import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLObject;
 import com.alibaba.druid.sql.ast.SQLOrderBy;
 import com.alibaba.druid.sql.ast.SQLStatement;
 import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
@@ -11,6 +12,7 @@ import com.alibaba.druid.sql.ast.expr.SQLIdentifierExpr;
 import com.alibaba.druid.sql.ast.expr.SQLInListExpr;
 import com.alibaba.druid.sql.ast.expr.SQLPropertyExpr;
 import com.alibaba.druid.sql.ast.statement.*;
+import com.alibaba.druid.sql.visitor.SQLASTVisitorAdapter;
 import com.alibaba.druid.sql.visitor.SchemaStatVisitor;
 import com.alibaba.druid.stat.TableStat;
 import lombok.AllArgsConstructor;
@@ -19,8 +21,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -210,55 +212,65 @@ public class SelfDruidSqlUtils {
      * @throws RuntimeException 运行时异常
      */
     public static Map<String, String> getColumnExpressMap(String sql, com.alibaba.druid.DbType dbType) throws RuntimeException {
-        Map<String, String> columnExpressMap = new HashMap<>(16);
-        List<SQLStatement> sqlStatements;
         try {
-            SQLSelectQueryBlock sqlSelectQueryBlock;
-            sqlStatements = parseStatements(sql, dbType);
+            List<SQLStatement> sqlStatements = parseStatements(sql, dbType);
             SQLSelectQuery sqlSelectQuery = (((SQLSelectStatement) sqlStatements.get(sqlStatements.size() - 1)).getSelect()).getQuery();
-            if (sqlSelectQuery instanceof SQLSelectQueryBlock) {
-                sqlSelectQueryBlock = (SQLSelectQueryBlock) sqlSelectQuery;
-            } else if (sqlSelectQuery instanceof SQLUnionQuery) {
-                // union all
-                SQLUnionQuery sqlUnionQuery = (SQLUnionQuery) sqlSelectQuery;
-                return getColumnExpressMap(SQLUtils.toSQLString(sqlUnionQuery.getLeft(), dbType), dbType);
+            return getColumnExpressMap(sqlSelectQuery);
+        } catch (Exception e) {
+            log.error("解析SQL错误！要解析的sql为【{}】", sql);
+            throw new RuntimeException("解析SQL错误！请确认SQL中字段关键字使用``和''合理括起来了！" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 根据已解析的查询获取sql中列的字段别名及其对应的表达式之前的关系，支持 单个select sql 和 union all sql（union all 直接取左边的查询，不再重新解析sql）
+     *
+     * @param sqlSelectQuery 已解析的查询
+     * @return 字段别名及其对应的表达式的map，如果包含别名才放入该集合
+     * @throws RuntimeException 运行时异常
+     */
+    public static Map<String, String> getColumnExpressMap(SQLSelectQuery sqlSelectQuery) throws RuntimeException {
+        Map<String, String> columnExpressMap = new LinkedHashMap<>(16);
+        SQLSelectQueryBlock sqlSelectQueryBlock;
+        if (sqlSelectQuery instanceof SQLSelectQueryBlock) {
+            sqlSelectQueryBlock = (SQLSelectQueryBlock) sqlSelectQuery;
+        } else if (sqlSelectQuery instanceof SQLUnionQuery) {
+            // union all
+            SQLUnionQuery sqlUnionQuery = (SQLUnionQuery) sqlSelectQuery;
+            return getColumnExpressMap(sqlUnionQuery.getLeft());
+        } else {
+            throw new RuntimeException("无法解析sql！请更换sql或者联系系统管理员咨询支持的sql类型！");
+        }
+        List<SQLSelectItem> selectItems = sqlSelectQueryBlock.getSelectList();
+        // 查询全部列的查询项的个数，例如：t.*，则算一个
+        int allColumnSelectCnt = 0;
+        // 遍历条件项及获取表达式及其对应的字段别名
+        for (SQLSelectItem selectItem : selectItems) {
+            String columnAlias = selectItem.getAlias();
+            if (StringUtils.isNotEmpty(columnAlias)) {
+                columnAlias = columnAlias.replaceAll("['`]", EMPTY);
+                // 如果开头和结尾是 " 也去掉
+                if (Objects.equals(columnAlias.charAt(0), DOUBLE_QUOTE) && Objects.equals(columnAlias.charAt(columnAlias.length() - 1), DOUBLE_QUOTE)) {
+                    columnAlias = columnAlias.replace(String.valueOf(DOUBLE_QUOTE), EMPTY);
+                }
+                columnExpressMap.put(columnAlias, SQLUtils.toSQLString(selectItem.getExpr()));
             } else {
-                throw new RuntimeException("无法解析sql！请更换sql或者联系系统管理员咨询支持的sql类型！");
-            }
-            List<SQLSelectItem> selectItems = sqlSelectQueryBlock.getSelectList();
-            // 查询全部列的查询项的个数，例如：t.*，则算一个
-            int allColumnSelectCnt = 0;
-            // 遍历条件项及获取表达式及其对应的字段别名
-            for (SQLSelectItem selectItem : selectItems) {
-                String columnAlias = selectItem.getAlias();
-                if (StringUtils.isNotEmpty(columnAlias)) {
-                    columnAlias = columnAlias.replaceAll("['`]", EMPTY);
-                    // 如果开头和结尾是 " 也去掉
-                    if (Objects.equals(columnAlias.charAt(0), DOUBLE_QUOTE) && Objects.equals(columnAlias.charAt(columnAlias.length() - 1), DOUBLE_QUOTE)) {
-                        columnAlias = columnAlias.replace(String.valueOf(DOUBLE_QUOTE), EMPTY);
-                    }
-                    columnExpressMap.put(columnAlias, SQLUtils.toSQLString(selectItem.getExpr()));
-                } else {
-                    if (selectItem.getExpr() instanceof SQLPropertyExpr) {
-                        SQLPropertyExpr sqlPropertyExpr = (SQLPropertyExpr) selectItem.getExpr();
-                        if (Objects.equals(sqlPropertyExpr.getName(), ASTERISK)) {
-                            allColumnSelectCnt++;
-                            columnExpressMap.put(SQL_PARSE_ALL_TABLE_NAME, sqlPropertyExpr.getOwnerName());
-                        } else {
-                            columnExpressMap.put(((SQLPropertyExpr) selectItem.getExpr()).getName().replaceAll("['`]", EMPTY), SQLUtils.toSQLString(selectItem.getExpr()));
-                        }
+                if (selectItem.getExpr() instanceof SQLPropertyExpr) {
+                    SQLPropertyExpr sqlPropertyExpr = (SQLPropertyExpr) selectItem.getExpr();
+                    if (Objects.equals(sqlPropertyExpr.getName(), ASTERISK)) {
+                        allColumnSelectCnt++;
+                        columnExpressMap.put(SQL_PARSE_ALL_TABLE_NAME, sqlPropertyExpr.getOwnerName());
                     } else {
-                        columnExpressMap.put(SQLUtils.toSQLString(selectItem.getExpr()), SQLUtils.toSQLString(selectItem.getExpr()));
+                        columnExpressMap.put(((SQLPropertyExpr) selectItem.getExpr()).getName().replaceAll("['`]", EMPTY), SQLUtils.toSQLString(selectItem.getExpr()));
                     }
+                } else {
+                    columnExpressMap.put(SQLUtils.toSQLString(selectItem.getExpr()), SQLUtils.toSQLString(selectItem.getExpr()));
                 }
             }
-            // 如果查询全部列的查询项大于1，则去掉，查询全部列表的 key
-            if (allColumnSelectCnt > 1) {
-                columnExpressMap.remove(SQL_PARSE_ALL_TABLE_NAME);
-            }
-        } catch (Exception e) {
-            log.error("解析SQL错误！要解析的sql为【{}】", sql);
-            throw new RuntimeException("解析SQL错误！请确认SQL中字段关键字使用``和''合理括起来了！" + e.getMessage(), e);
+        }
+        // 如果查询全部列的查询项大于1，则去掉，查询全部列表的 key
+        if (allColumnSelectCnt > 1) {
+            columnExpressMap.remove(SQL_PARSE_ALL_TABLE_NAME);
         }
         return columnExpressMap;
     }
@@ -280,13 +292,7 @@ public class SelfDruidSqlUtils {
             sql = replaceGlobalInSql(sql);
             List<SQLStatement> stmtList = SQLUtils.parseStatements(sql, dbType);
             for (SQLStatement stmt : stmtList) {
-                SchemaStatVisitor schemaStatVisitor = new SchemaStatVisitor();
-                stmt.accept(schemaStatVisitor);
-                //获取表名称
-                Map<TableStat.Name, TableStat> nameTableStatMap = schemaStatVisitor.getTables();
-                for (TableStat.Name name : nameTableStatMap.keySet()) {
-                    tableNameList.add(name.toString());
-                }
+                tableNameList.addAll(getTableNamesByStatement(stmt));
             }
         } catch (Exception e) {
             log.error("解析SQL错误！要解析的sql为【{}】", sql);
@@ -295,6 +301,76 @@ public class SelfDruidSqlUtils {
         return tableNameList;
     }
 
+    /**
+     * 获取已解析的sql语句中的表名
+     *
+     * @param stmt 已解析的sql语句
+     * @return 表名集合
+     **/
+    public static List<String> getTableNamesByStatement(SQLStatement stmt) {
+        return getTableNamesBySqlObject(stmt);
+    }
+
+    /**
+     * 获取已解析的sql片段（例如 union all 中的一个查询）中的表名
+     *
+     * @param sqlObject 已解析的sql片段
+     * @return 表名集合
+     **/
+    public static List<String> getTableNamesBySqlObject(SQLObject sqlObject) {
+        List<String> tableNameList = new ArrayList<>(10);
+        SchemaStatVisitor schemaStatVisitor = new SchemaStatVisitor();
+        sqlObject.accept(schemaStatVisitor);
+        //获取表名称
+        Map<TableStat.Name, TableStat> nameTableStatMap = schemaStatVisitor.getTables();
+        for (TableStat.Name name : nameTableStatMap.keySet()) {
+            tableNameList.add(name.toString());
+        }
+        return tableNameList;
+    }
+
+    /**
+     * 获取已解析的sql片段中 from 的表的限定名：表别名、子查询别名及表名（去掉``，例如 default.test_t1 t 为 t、default.test_t1 和 test_t1，关键字的库名可能为大写，比较时忽略大小写），
+     * 用于区分 select 中 t.name 的表限定名与 user.name 的对象字段
+     *
+     * @param sqlObject 已解析的sql片段
+     * @return 表的限定名集合
+     **/
+    public static Set<String> getTableQualifiersBySqlObject(SQLObject sqlObject) {
+        Set<String> qualifiers = new LinkedHashSet<>();
+        sqlObject.accept(new SQLASTVisitorAdapter() {
+            @Override
+            public boolean visit(SQLExprTableSource x) {
+                addTableQualifier(qualifiers, x.getAlias());
+                if (x.getExpr() != null) {
+                    String tableName = SQLUtils.normalize(toSQLString(x.getExpr()).replace("`", ""));
+                    addTableQualifier(qualifiers, tableName);
+                    addTableQualifier(qualifiers, tableName.substring(tableName.lastIndexOf('.') + 1));
+                }
+                return true;
+            }
+
+            @Override
+            public boolean visit(SQLSubqueryTableSource x) {
+                addTableQualifier(qualifiers, x.getAlias());
+                return true;
+            }
+
+            @Override
+            public boolean visit(SQLUnionQueryTableSource x) {
+                addTableQualifier(qualifiers, x.getAlias());
+                return true;
+            }
+        });
+        return qualifiers;
+    }
+
+    private static void addTableQualifier(Set<String> qualifiers, String qualifier) {
+        if (StringUtils.isNotBlank(qualifier)) {
+            qualifiers.add(SQLUtils.normalize(qualifier));
+        }
+    }
+
     /**
      * 替换sql中的查询项(仅支持，单个select的sql，如果为union all，则直接 在外面再嵌套一层 select *)
      *
@@ -0,0 +1,783 @@
+package com.kanlon.utils;
+
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLLimit;
+import com.alibaba.druid.sql.ast.SQLOrderBy;
+import com.alibaba.druid.sql.ast.SQLOrderingSpecification;
+import com.alibaba.druid.sql.ast.expr.SQLAggregateExpr;
+import com.alibaba.druid.sql.ast.expr.SQLAggregateOption;
+import com.alibaba.druid.sql.ast.expr.SQLAllColumnExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOperator;
+import com.alibaba.druid.sql.ast.expr.SQLIdentifierExpr;
+import com.alibaba.druid.sql.ast.expr.SQLNumericLiteralExpr;
+import com.alibaba.druid.sql.ast.expr.SQLPropertyExpr;
+import com.alibaba.druid.sql.ast.expr.SQLVariantRefExpr;
+import com.alibaba.druid.sql.ast.statement.SQLSelectGroupByClause;
+import com.alibaba.druid.sql.ast.statement.SQLSelectItem;
+import com.alibaba.druid.sql.ast.statement.SQLSelectOrderByItem;
+import com.alibaba.druid.sql.ast.statement.SQLSelectQuery;
+import com.alibaba.druid.sql.ast.statement.SQLSelectQueryBlock;
+import com.alibaba.druid.sql.visitor.SQLASTVisitorAdapter;
+import com.kanlon.utils.dsl.DslAggregation;
+import com.kanlon.utils.dsl.DslSearchBody;
+import com.kanlon.utils.dsl.DslSortOrder;
+import com.kanlon.utils.predicate.EsValue;
+import com.kanlon.utils.schema.EsIndexSchema;
+import lombok.Getter;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.kanlon.utils.SQLToEsDSLUtils.toEsQueryString;
+
+/**
+ * sql 的 group by 及聚合函数转为 es 的聚合（编译后不可变，绑定参数时才生成聚合）
+ * <ul>
+ *     <li>一个 group by 字段为 terms 聚合，多个字段（或指定使用 composite）为 composite 聚合，聚合名称都为 {@value #GROUP_BY_AGGREGATION_NAME}</li>
+ *     <li>sum/avg/min/max 为对应的指标聚合，count(字段) 为 value_count，count(distinct 字段) 为 cardinality，count(1)/count(*) 使用桶的文档数</li>
+ *     <li>having 为 bucket_selector，order by 聚合函数及 limit 为 bucket_sort，order by group by 字段为桶按 key 排序</li>
+ *     <li>terms 聚合有 limit 并且没有 having 时按 order by 排序并且只取前 偏移量+条数 个桶（见 {@link #isTermsTopN()}），
+ *     否则最多取 aggregationBucketSize 个桶，超过时结果不完整（执行时检查 sum_other_doc_count）</li>
+ *     <li>composite 聚合需要按 after_key 逐页获取全部的桶（见 {@link #appendAfterKey(DslSearchBody, Map)}），按聚合函数的排序及 limit 由执行方在合并后处理，不生成 bucket_sort</li>
+ * </ul>
+ * 聚合sql的查询不返回文档（size 为 0）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 17:20
+ **/
+@Getter
+public class SqlAggregation {
+
+    /**
+     * 分组聚合的名称
+     */
+    public static final String GROUP_BY_AGGREGATION_NAME = "group_by";
+
+    /**
+     * having 条件的聚合名称
+     */
+    public static final String HAVING_AGGREGATION_NAME = "having";
+
+    /**
+     * 桶排序及分页的聚合名称
+     */
+    public static final String BUCKET_SORT_AGGREGATION_NAME = "bucket_sort";
+
+    /**
+     * 桶的文档数的路径
+     */
+    static final String COUNT_PATH = "_count";
+
+    /**
+     * painless 脚本语言
+     */
+    private static final String PAINLESS = "painless";
+
+    /**
+     * having 条件中支持的运算符及其对应的 painless 运算符
+     */
+    private static final Map<SQLBinaryOperator, String> SCRIPT_OPERATORS = new EnumMap<>(SQLBinaryOperator.class);
+
+    static {
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.BooleanAnd, "&&");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.BooleanOr, "||");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.Equality, "==");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.NotEqual, "!=");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.LessThanOrGreater, "!=");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.GreaterThan, ">");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.GreaterThanOrEqual, ">=");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.LessThan, "<");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.LessThanOrEqual, "<=");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.Add, "+");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.Subtract, "-");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.Multiply, "*");
+        SCRIPT_OPERATORS.put(SQLBinaryOperator.Divide, "/");
+    }
+
+    /**
+     * 分组的字段，按照 group by 中的顺序
+     */
+    private final List<String> groupFields;
+
+    /**
+     * 分组字段的排序，没有排序的字段不在其中
+     */
+    private final Map<String, DslSortOrder> groupOrders;
+
+    /**
+     * 指标聚合（包括 having、order by 中使用而 select 中没有的）
+     */
+    private final List<Metric> metrics;
+
+    /**
+     * 是否使用 composite 聚合
+     */
+    private final boolean composite;
+
+    /**
+     * 分组聚合返回的最大桶数
+     */
+    private final int maxBuckets;
+
+    /**
+     * having 条件的 painless 脚本，没有则为 null
+     */
+    private final String havingScript;
+
+    /**
+     * having 条件中使用的桶路径，key 为脚本中的变量名
+     */
+    private final Map<String, String> havingBucketsPath;
+
+    /**
+     * having 条件中的常量及参数，key 为脚本中的变量名
+     */
+    private final Map<String, EsValue> havingParams;
+
+    /**
+     * 按聚合函数排序的桶路径及其顺序
+     */
+    private final List<Map.Entry<String, DslSortOrder>> bucketSorts;
+
+    /**
+     * 桶分页的偏移量，没有分页则为 null
+     */
+    private final EsValue bucketFrom;
+
+    /**
+     * 桶分页的条数，没有分页则为 null
+     */
+    private final EsValue bucketLimit;
+
+    private SqlAggregation(SQLSelectQueryBlock queryBlock, SQLLimit limit, SQLOrderBy orderBy, SqlTranslateOptions options) throws RuntimeException {
+        this.groupFields = new ArrayList<>();
+        this.groupOrders = new HashMap<>(4);
+        this.metrics = new ArrayList<>();
+        this.havingBucketsPath = new LinkedHashMap<>();
+        this.havingParams = new LinkedHashMap<>();
+        this.bucketSorts = new ArrayList<>();
+        this.maxBuckets = options.getAggregationBucketSize();
+
+        // 别名对应的指标聚合及字段
+        Map<String, Metric> metricAliasMap = new HashMap<>(16);
+        Map<String, String> columnAliasMap = new HashMap<>(16);
+        for (SQLSelectItem selectItem : queryBlock.getSelectList()) {
+            SQLExpr expr = selectItem.getExpr();
+            String alias = selectItem.getAlias() == null ? null : toFieldName(selectItem.getAlias());
+            if (expr instanceof SQLAggregateExpr) {
+                Metric metric = addMetric((SQLAggregateExpr) expr, alias, true);
+                metricAliasMap.put(alias == null ? toEsQueryString(expr) : alias, metric);
+            } else if (alias != null && isColumn(expr)) {
+                columnAliasMap.put(alias, toFieldName(toEsQueryString(expr)));
+            }
+        }
+        SQLSelectGroupByClause groupBy = queryBlock.getGroupBy();
+        if (groupBy != null) {
+            for (SQLExpr item : groupBy.getItems()) {
+                if (!isColumn(item)) {
+                    throw new RuntimeException("group by 中只支持字段！不支持：" + toEsQueryString(item));
+                }
+                String field = toFieldName(toEsQueryString(item));
+                groupFields.add(columnAliasMap.getOrDefault(field, field));
+            }
+        }
+        this.composite = groupFields.size() > 1 || (!groupFields.isEmpty() && options.isCompositeAggregation());
+
+        // having 转为 bucket_selector 的脚本
+        SQLExpr having = groupBy == null ? null : groupBy.getHaving();
+        if (having != null) {
+            if (groupFields.isEmpty()) {
+                throw new RuntimeException("没有 group by 的sql不支持 having 条件！");
+            }
+            this.havingScript = toScript(having, metricAliasMap);
+        } else {
+            this.havingScript = null;
+        }
+
+        // 按聚合函数排序的为 bucket_sort，按分组字段排序的为桶按 key 排序
+        if (orderBy != null && !groupFields.isEmpty()) {
+            for (SQLSelectOrderByItem orderByItem : orderBy.getItems()) {
+                // 没有指定顺序时与 sql 一致为升序
+                DslSortOrder sortOrder = orderByItem.getType() == SQLOrderingSpecification.DESC ? DslSortOrder.DESC : DslSortOrder.ASC;
+                Metric metric = resolveMetric(orderByItem.getExpr(), metricAliasMap);
+                if (metric != null) {
+                    bucketSorts.add(new AbstractMap.SimpleImmutableEntry<>(metric.getBucketsPath(), sortOrder));
+                    continue;
+                }
+                String field = isColumn(orderByItem.getExpr()) ? toFieldName(toEsQueryString(orderByItem.getExpr())) : null;
+                field = field == null ? null : columnAliasMap.getOrDefault(field, field);
+                if (field == null || !groupFields.contains(field)) {
+                    throw new RuntimeException("聚合sql只支持按 group by 的字段或聚合函数排序！不支持：" + toEsQueryString(orderByItem.getExpr()));
+                }
+                groupOrders.put(field, sortOrder);
+            }
+        }
+        // limit 为桶的分页
+        if (limit != null && !groupFields.isEmpty()) {
+            this.bucketFrom = limit.getOffset() == null ? EsValue.constant(0) : SqlWherePredicateParser.toEsValue(limit.getOffset());
+            this.bucketLimit = limit.getRowCount() == null ? EsValue.constant(0) : SqlWherePredicateParser.toEsValue(limit.getRowCount());
+        } else {
+            this.bucketFrom = null;
+            this.bucketLimit = null;
+        }
+    }
+
+    /**
+     * 编译sql中的聚合
+     *
+     * @param context 翻译上下文
+     * @return {@link SqlAggregation}，不是聚合sql（没有 group by，并且除了 count(1)/count(*) 外没有其他聚合函数）则返回 null
+     * @throws RuntimeException 不支持的聚合（包括参与计算的聚合函数，例如 sum(b)/count(1)）
+     */
+    public static SqlAggregation compile(SqlTranslateContext context) throws RuntimeException {
+        SQLSelectQuery sqlSelectQuery = context.getSelectStatement().getSelect().getQuery();
+        if (!(sqlSelectQuery instanceof SQLSelectQueryBlock)) {
+            return null;
+        }
+        SQLSelectQueryBlock queryBlock = (SQLSelectQueryBlock) sqlSelectQuery;
+        for (SQLSelectItem selectItem : queryBlock.getSelectList()) {
+            SQLExpr expr = selectItem.getExpr();
+            // 聚合函数的计算需要在聚合之后进行，不能下推，否则会被当作计数sql返回命中的总数
+            if (!(expr instanceof SQLAggregateExpr) && containsAggregate(expr)) {
+                throw new RuntimeException("不支持聚合函数参与计算，聚合函数只能单独作为 select 的列！不支持：" + toEsQueryString(expr));
+            }
+        }
+        if (!isAggregationQuery(queryBlock)) {
+            return null;
+        }
+        return new SqlAggregation(queryBlock, context.getLimit(), context.getOrderBy(), context.getOptions());
+    }
+
+    /**
+     * 将聚合添加到查询参数的模型中
+     *
+     * @param body   查询参数的模型
+     * @param params 绑定的参数
+     */
+    public void appendTo(DslSearchBody body, Object[] params) {
+        appendTo(body, params, EsIndexSchema.EMPTY);
+    }
+
+    /**
+     * 将聚合添加到查询参数的模型中，分组及指标的 text 字段使用其 keyword 子字段（需要 SearchSourceBuilder 时由 {@link EsDslAdapter} 转换）
+     *
+     * @param body   查询参数的模型
+     * @param params 绑定的参数
+     * @param schema 索引的字段类型
+     */
+    public void appendTo(DslSearchBody body, Object[] params, EsIndexSchema schema) {
+        body.size(0);
+        if (groupFields.isEmpty()) {
+            for (Metric metric : metrics) {
+                if (metric.getType() == MetricType.COUNT) {
+                    // 没有分组的 count(1) 即为命中的总数
+                    body.trackTotalHits(true);
+                } else {
+                    body.aggregation(metric.toDslAggregation(schema));
+                }
+            }
+            return;
+        }
+        DslAggregation groupAggregation;
+        if (composite) {
+            List<Map<String, Object>> sources = new ArrayList<>(groupFields.size());
+            for (String field : groupFields) {
+                Map<String, Object> terms = new LinkedHashMap<>(4);
+                terms.put("field", schema.termField(field));
+                terms.put("missing_bucket", false);
+                terms.put("order", groupOrders.getOrDefault(field, DslSortOrder.ASC).toString());
+                sources.add(Collections.singletonMap(field, Collections.singletonMap("terms", terms)));
+            }
+            groupAggregation = new DslAggregation(GROUP_BY_AGGREGATION_NAME, "composite").param("size", maxBuckets).param("sources", sources);
+        } else {
+            String field = groupFields.get(0);
+            groupAggregation = new DslAggregation(GROUP_BY_AGGREGATION_NAME, "terms").param("field", schema.termField(field))
+                    .param("size", isTermsTopN() ? topN(params) : maxBuckets)
+                    .param("min_doc_count", 1).param("shard_min_doc_count", 0).param("show_term_doc_count_error", false).param("order", termsOrder(field));
+        }
+        for (Metric metric : metrics) {
+            if (metric.getType() != MetricType.COUNT) {
+                groupAggregation.subAggregation(metric.toDslAggregation(schema));
+            }
+        }
+        if (havingScript != null) {
+            Map<String, Object> scriptParams = new HashMap<>(havingParams.size());
+            for (Map.Entry<String, EsValue> entry : havingParams.entrySet()) {
+                scriptParams.put(entry.getKey(), entry.getValue().resolve(params));
+            }
+            Map<String, Object> script = new LinkedHashMap<>(4);
+            script.put("source", havingScript);
+            script.put("lang", PAINLESS);
+            if (!scriptParams.isEmpty()) {
+                script.put("params", scriptParams);
+            }
+            groupAggregation.subAggregation(new DslAggregation(HAVING_AGGREGATION_NAME, "bucket_selector")
+                    .param("buckets_path", havingBucketsPath).param("script", script).param("gap_policy", "skip"));
+        }
+        if (isTermsTopN()) {
+            // 桶已经按 order by 排序并且只有 偏移量+条数 个，只需要跳过偏移量
+            int from = PreparedSqlQuery.toInt(bucketFrom.resolve(params));
+            if (from > 0) {
+                groupAggregation.subAggregation(new DslAggregation(BUCKET_SORT_AGGREGATION_NAME, "bucket_sort").param("sort", Collections.emptyList())
+                        .param("from", from).param("size", PreparedSqlQuery.toInt(bucketLimit.resolve(params))).param("gap_policy", "SKIP"));
+            }
+        } else if (!composite && (!bucketSorts.isEmpty() || bucketFrom != null)) {
+            List<Map<String, Object>> sorts = new ArrayList<>(bucketSorts.size());
+            for (Map.Entry<String, DslSortOrder> bucketSort : bucketSorts) {
+                sorts.add(Collections.singletonMap(bucketSort.getKey(), Collections.singletonMap("order", bucketSort.getValue().toString())));
+            }
+            DslAggregation bucketSortAggregation = new DslAggregation(BUCKET_SORT_AGGREGATION_NAME, "bucket_sort").param("sort", sorts);
+            if (bucketFrom != null) {
+                bucketSortAggregation.param("from", PreparedSqlQuery.toInt(bucketFrom.resolve(params)));
+                bucketSortAggregation.param("size", PreparedSqlQuery.toInt(bucketLimit.resolve(params)));
+            } else {
+                bucketSortAggregation.param("from", 0);
+            }
+            groupAggregation.subAggregation(bucketSortAggregation.param("gap_policy", "SKIP"));
+        }
+        body.aggregation(groupAggregation);
+    }
+
+    /**
+     * composite 聚合从上一页的 after_key 之后的桶开始获取
+     *
+     * @param body     {@link #appendTo(DslSearchBody, Object[], EsIndexSchema)} 生成的查询参数的模型
+     * @param afterKey 上一页结果中的 after_key
+     */
+    public void appendAfterKey(DslSearchBody body, Map<String, Object> afterKey) {
+        // 按分组字段的顺序输出
+        Map<String, Object> after = new LinkedHashMap<>(afterKey.size());
+        for (String field : groupFields) {
+            after.put(field, afterKey.get(field));
+        }
+        for (DslAggregation aggregation : body.getAggregations()) {
+            if (GROUP_BY_AGGREGATION_NAME.equals(aggregation.getName())) {
+                aggregation.param("after", after);
+            }
+        }
+    }
+
+    /**
+     * terms 聚合是否只取排序后的前 偏移量+条数 个桶：有 limit 并且没有 having（having 过滤的桶可能在前 n 个中）
+     *
+     * @return boolean
+     */
+    public boolean isTermsTopN() {
+        return !groupFields.isEmpty() && !composite && havingScript == null && bucketFrom != null;
+    }
+
+    /**
+     * 是否需要合并全部的桶后再排序及分页：composite 聚合按聚合函数排序或有 limit（composite 聚合只能按 after_key 逐页获取，
+     * 生成的查询只是没有排序及分页的第一页，需要由执行方处理，见 {@link #appendAfterKey(DslSearchBody, Map)}）
+     *
+     * @return boolean
+     */
+    public boolean isMergeRequired() {
+        return composite && (!bucketSorts.isEmpty() || bucketFrom != null);
+    }
+
+    /**
+     * terms 聚合的排序：按聚合函数排序时先按聚合函数再按 key 排序，否则按分组字段排序，默认按文档数降序、key 升序
+     *
+     * @param field 分组字段
+     * @return 排序
+     */
+    private Object termsOrder(String field) {
+        DslSortOrder sortOrder = groupOrders.get(field);
+        if (isTermsTopN() && !bucketSorts.isEmpty()) {
+            List<Map<String, String>> order = new ArrayList<>(bucketSorts.size() + 1);
+            for (Map.Entry<String, DslSortOrder> bucketSort : bucketSorts) {
+                order.add(Collections.singletonMap(bucketSort.getKey(), bucketSort.getValue().toString()));
+            }
+            order.add(Collections.singletonMap("_key", sortOrder == null ? DslSearchBody.ASC : sortOrder.toString()));
+            return order;
+        }
+        return sortOrder == null ? Arrays.asList(Collections.singletonMap(COUNT_PATH, DslSearchBody.DESC), Collections.singletonMap("_key", DslSearchBody.ASC))
+                : Collections.singletonMap("_key", sortOrder.toString());
+    }
+
+    /**
+     * 只取前 n 个桶时 terms 聚合的桶数：偏移量+条数
+     *
+     * @param params 绑定的参数
+     * @return 桶数
+     */
+    private int topN(Object[] params) {
+        long size = (long) PreparedSqlQuery.toInt(bucketFrom.resolve(params)) + PreparedSqlQuery.toInt(bucketLimit.resolve(params));
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 获取聚合中最大的参数下标，没有参数则为 -1
+     *
+     * @return 最大的参数下标
+     */
+    public int maxParamIndex() {
+        int maxParamIndex = Math.max(bucketFrom == null ? -1 : bucketFrom.getParamIndex(), bucketLimit == null ? -1 : bucketLimit.getParamIndex());
+        for (EsValue value : havingParams.values()) {
+            maxParamIndex = Math.max(maxParamIndex, value.getParamIndex());
+        }
+        return maxParamIndex;
+    }
+
+    /**
+     * 是否需要准确的命中总数：没有分组的 count(1) 即为命中的总数
+     *
+     * @return boolean
+     */
+    public boolean isTotalHitsRequired() {
+        if (!groupFields.isEmpty()) {
+            return false;
+        }
+        for (Metric metric : metrics) {
+            if (metric.getType() == MetricType.COUNT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取分组的字段
+     *
+     * @return 分组的字段（不可修改）
+     */
+    public List<String> getGroupFields() {
+        return Collections.unmodifiableList(groupFields);
+    }
+
+    /**
+     * 获取分组字段的排序
+     *
+     * @return 分组字段的排序（不可修改）
+     */
+    public Map<String, DslSortOrder> getGroupOrders() {
+        return Collections.unmodifiableMap(groupOrders);
+    }
+
+    /**
+     * 获取指标聚合
+     *
+     * @return 指标聚合（不可修改）
+     */
+    public List<Metric> getMetrics() {
+        return Collections.unmodifiableList(metrics);
+    }
+
+    /**
+     * 获取 having 条件中使用的桶路径
+     *
+     * @return 桶路径（不可修改）
+     */
+    public Map<String, String> getHavingBucketsPath() {
+        return Collections.unmodifiableMap(havingBucketsPath);
+    }
+
+    /**
+     * 获取 having 条件中的常量及参数
+     *
+     * @return 常量及参数（不可修改）
+     */
+    public Map<String, EsValue> getHavingParams() {
+        return Collections.unmodifiableMap(havingParams);
+    }
+
+    /**
+     * 获取按聚合函数排序的桶路径及其顺序
+     *
+     * @return 桶路径及其顺序（不可修改）
+     */
+    public List<Map.Entry<String, DslSortOrder>> getBucketSorts() {
+        return Collections.unmodifiableList(bucketSorts);
+    }
+
+    /**
+     * 是否为聚合sql：有 group by，或者有除了 count(1)/count(*) 外的聚合函数
+     *
+     * @param queryBlock 查询语句
+     * @return boolean
+     */
+    private static boolean isAggregationQuery(SQLSelectQueryBlock queryBlock) {
+        SQLSelectGroupByClause groupBy = queryBlock.getGroupBy();
+        if (groupBy != null && !groupBy.getItems().isEmpty()) {
+            return true;
+        }
+        for (SQLSelectItem selectItem : queryBlock.getSelectList()) {
+            SQLExpr expr = selectItem.getExpr();
+            if (expr instanceof SQLAggregateExpr && toMetricType((SQLAggregateExpr) expr) != MetricType.COUNT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 表达式中是否有聚合函数
+     *
+     * @param expr 表达式
+     * @return boolean
+     */
+    private static boolean containsAggregate(SQLExpr expr) {
+        boolean[] found = new boolean[1];
+        expr.accept(new SQLASTVisitorAdapter() {
+            @Override
+            public boolean visit(SQLAggregateExpr x) {
+                found[0] = true;
+                return false;
+            }
+        });
+        return found[0];
+    }
+
+    /**
+     * having 条件转为 painless 脚本，聚合函数转为桶路径变量，常量及参数转为脚本参数
+     *
+     * @param expr           having 条件
+     * @param metricAliasMap 别名对应的指标聚合
+     * @return 脚本
+     */
+    private String toScript(SQLExpr expr, Map<String, Metric> metricAliasMap) {
+        if (expr instanceof SQLBinaryOpExpr) {
+            SQLBinaryOpExpr binaryOpExpr = (SQLBinaryOpExpr) expr;
+            String operator = SCRIPT_OPERATORS.get(binaryOpExpr.getOperator());
+            if (operator == null) {
+                throw new RuntimeException("having 中不支持该运算符：" + binaryOpExpr.getOperator().getName());
+            }
+            return "(" + toScript(binaryOpExpr.getLeft(), metricAliasMap) + " " + operator + " " + toScript(binaryOpExpr.getRight(), metricAliasMap) + ")";
+        }
+        if (expr instanceof SQLNumericLiteralExpr || expr instanceof SQLVariantRefExpr) {
+            String name = "p" + havingParams.size();
+            havingParams.put(name, expr instanceof SQLNumericLiteralExpr ? EsValue.constant(((SQLNumericLiteralExpr) expr).getNumber()) : SqlWherePredicateParser.toEsValue(expr));
+            return "params." + name;
+        }
+        Metric metric = resolveMetric(expr, metricAliasMap);
+        if (metric == null) {
+            throw new RuntimeException("having 中只支持聚合函数、数字及参数！不支持：" + toEsQueryString(expr));
+        }
+        for (Map.Entry<String, String> entry : havingBucketsPath.entrySet()) {
+            if (entry.getValue().equals(metric.getBucketsPath())) {
+                return "params." + entry.getKey();
+            }
+        }
+        String name = "v" + havingBucketsPath.size();
+        havingBucketsPath.put(name, metric.getBucketsPath());
+        return "params." + name;
+    }
+
+    /**
+     * 获取表达式对应的指标聚合：聚合函数（select 中没有的则新增一个不返回的指标聚合）或聚合函数的别名
+     *
+     * @param expr           表达式
+     * @param metricAliasMap 别名对应的指标聚合
+     * @return 指标聚合，不是聚合函数则返回 null
+     */
+    private Metric resolveMetric(SQLExpr expr, Map<String, Metric> metricAliasMap) {
+        if (expr instanceof SQLAggregateExpr) {
+            SQLAggregateExpr aggregateExpr = (SQLAggregateExpr) expr;
+            MetricType type = toMetricType(aggregateExpr);
+            String field = getMetricField(aggregateExpr, type);
+            for (Metric metric : metrics) {
+                if (metric.getType() == type && Objects.equals(metric.getField(), field)) {
+                    return metric;
+                }
+            }
+            return addMetric(aggregateExpr, null, false);
+        }
+        if (isColumn(expr)) {
+            return metricAliasMap.get(toFieldName(toEsQueryString(expr)));
+        }
+        return null;
+    }
+
+    /**
+     * 新增指标聚合
+     *
+     * @param aggregateExpr 聚合函数
+     * @param alias         别名，没有则自动生成
+     * @param visible       select 中是否有该聚合函数
+     * @return 指标聚合
+     */
+    private Metric addMetric(SQLAggregateExpr aggregateExpr, String alias, boolean visible) {
+        MetricType type = toMetricType(aggregateExpr);
+        String field = getMetricField(aggregateExpr, type);
+        String name = alias;
+        if (name == null) {
+            name = type.name().toLowerCase(Locale.ROOT) + (field == null ? "" : "_" + field.replaceAll("\\W", "_"));
+        }
+        // 名称重复则加上序号
+        String uniqueName = name;
+        for (int i = 1; containsMetric(uniqueName); ++i) {
+            uniqueName = name + "_" + i;
+        }
+        Metric metric = new Metric(uniqueName, type, field, visible);
+        metrics.add(metric);
+        return metric;
+    }
+
+    /**
+     * 是否已有该名称的指标聚合
+     *
+     * @param name 名称
+     * @return boolean
+     */
+    private boolean containsMetric(String name) {
+        for (Metric metric : metrics) {
+            if (metric.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 聚合函数对应的指标聚合类型
+     *
+     * @param aggregateExpr 聚合函数
+     * @return 指标聚合类型
+     */
+    private static MetricType toMetricType(SQLAggregateExpr aggregateExpr) {
+        String methodName = aggregateExpr.getMethodName().toLowerCase(Locale.ROOT);
+        switch (methodName) {
+            case "sum":
+                return MetricType.SUM;
+            case "avg":
+                return MetricType.AVG;
+            case "min":
+                return MetricType.MIN;
+            case "max":
+                return MetricType.MAX;
+            case "count":
+                if (aggregateExpr.getOption() == SQLAggregateOption.DISTINCT) {
+                    return MetricType.CARDINALITY;
+                }
+                List<SQLExpr> arguments = aggregateExpr.getArguments();
+                // count(1)、count(*) 为桶的文档数，count(字段) 为字段有值的文档数
+                boolean countAll = arguments.isEmpty() || arguments.get(0) instanceof SQLAllColumnExpr || arguments.get(0) instanceof SQLNumericLiteralExpr;
+                return countAll ? MetricType.COUNT : MetricType.VALUE_COUNT;
+            default:
+                throw new RuntimeException("不支持的聚合函数：" + aggregateExpr.getMethodName());
+        }
+    }
+
+    /**
+     * 获取聚合函数的字段
+     *
+     * @param aggregateExpr 聚合函数
+     * @param type          指标聚合类型
+     * @return 字段，count(1)/count(*) 为 null
+     */
+    private static String getMetricField(SQLAggregateExpr aggregateExpr, MetricType type) {
+        if (type == MetricType.COUNT) {
+            return null;
+        }
+        List<SQLExpr> arguments = aggregateExpr.getArguments();
+        if (arguments.size() != 1 || !isColumn(arguments.get(0))) {
+            throw new RuntimeException("聚合函数的参数只支持一个字段！不支持：" + toEsQueryString(aggregateExpr));
+        }
+        return toFieldName(toEsQueryString(arguments.get(0)));
+    }
+
+    /**
+     * 是否为字段
+     *
+     * @param expr 表达式
+     * @return boolean
+     */
+    private static boolean isColumn(SQLExpr expr) {
+        return expr instanceof SQLIdentifierExpr || expr instanceof SQLPropertyExpr;
+    }
+
+    /**
+     * 去掉字段的 ``
+     *
+     * @param name 字段
+     * @return es 的字段名
+     */
+    private static String toFieldName(String name) {
+        return name.replace("`", "");
+    }
+
+    /**
+     * 指标聚合的类型
+     */
+    public enum MetricType {
+        /**
+         * count(1)/count(*)，使用桶的文档数，不生成聚合
+         */
+        COUNT,
+        SUM,
+        AVG,
+        MIN,
+        MAX,
+        /**
+         * count(字段)
+         */
+        VALUE_COUNT,
+        /**
+         * count(distinct 字段)，近似值
+         */
+        CARDINALITY
+    }
+
+    /**
+     * 指标聚合
+     */
+    @Getter
+    public static class Metric {
+        /**
+         * 聚合名称（select 中的别名）
+         */
+        private final String name;
+        /**
+         * 类型
+         */
+        private final MetricType type;
+        /**
+         * 字段，count(1)/count(*) 为 null
+         */
+        private final String field;
+        /**
+         * select 中是否有该聚合函数（否则只在 having 或 order by 中使用）
+         */
+        private final boolean visible;
+
+        Metric(String name, MetricType type, String field, boolean visible) {
+            this.name = name;
+            this.type = type;
+            this.field = field;
+            this.visible = visible;
+        }
+
+        /**
+         * 在 pipeline 聚合中引用该指标的桶路径
+         *
+         * @return 桶路径
+         */
+        public String getBucketsPath() {
+            return type == MetricType.COUNT ? COUNT_PATH : name;
+        }
+
+        /**
+         * 生成指标聚合的 dsl 模型
+         *
+         * @param schema 索引的字段类型，text 字段使用其 keyword 子字段
+         * @return {@link DslAggregation}，count(1)/count(*) 返回 null
+         */
+        DslAggregation toDslAggregation(EsIndexSchema schema) {
+            if (type == MetricType.COUNT) {
+                return null;
+            }
+            return new DslAggregation(name, type.name().toLowerCase(Locale.ROOT)).param("field", schema.termField(field));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.kanlon.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * 批量并行翻译sql（例如仪表盘一次加载的几十条sql）：批量中相同的sql只翻译一次，各条sql在线程池中并行翻译，
+ * 总耗时接近最慢的一条而不是全部之和
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 04:00
+ **/
+final class SqlBatchTranslator {
+
+    private SqlBatchTranslator() {}
+
+    /**
+     * 并行翻译sql
+     *
+     * @param sqls       sql
+     * @param translator 翻译一条sql的方法
+     * @param executor   执行翻译的线程池
+     * @return 翻译结果，与输入的顺序相同，一条sql失败不影响其他sql
+     */
+    static List<SqlTranslateItem> translateAll(Collection<String> sqls, Function<String, SqlTranslateResult> translator, Executor executor) {
+        // 相同的sql只翻译一次
+        Set<String> uniqueSqls = new LinkedHashSet<>(sqls);
+        // 只有一条sql时直接在当前线程翻译
+        boolean inline = uniqueSqls.size() <= 1;
+        Map<String, CompletableFuture<SqlTranslateItem>> futures = new HashMap<>(uniqueSqls.size() * 2);
+        for (String sql : uniqueSqls) {
+            futures.put(sql, inline ? CompletableFuture.completedFuture(translate(sql, translator)) : submit(sql, translator, executor));
+        }
+        List<SqlTranslateItem> items = new ArrayList<>(sqls.size());
+        for (String sql : sqls) {
+            items.add(join(sql, futures.get(sql)));
+        }
+        return items;
+    }
+
+    /**
+     * 提交到线程池翻译，线程池拒绝执行（饱和或已关闭）时在当前线程翻译，不影响批量中的其他sql
+     *
+     * @param sql        sql
+     * @param translator 翻译一条sql的方法
+     * @param executor   执行翻译的线程池
+     * @return 翻译
+     */
+    private static CompletableFuture<SqlTranslateItem> submit(String sql, Function<String, SqlTranslateResult> translator, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(() -> translate(sql, translator), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(translate(sql, translator));
+        }
+    }
+
+    private static SqlTranslateItem translate(String sql, Function<String, SqlTranslateResult> translator) {
+        try {
+            return new SqlTranslateItem(sql, translator.apply(sql), null);
+        } catch (RuntimeException e) {
+            return new SqlTranslateItem(sql, null, e);
+        }
+    }
+
+    /**
+     * 等待翻译结束，翻译以外的异常也作为该条sql的失败
+     *
+     * @param sql    sql
+     * @param future 翻译
+     * @return {@link SqlTranslateItem}
+     */
+    private static SqlTranslateItem join(String sql, CompletableFuture<SqlTranslateItem> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            return new SqlTranslateItem(sql, null, cause instanceof RuntimeException ? (RuntimeException) cause : e);
+        } catch (RuntimeException e) {
+            return new SqlTranslateItem(sql, null, e);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.kanlon.utils;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 search_after 的游标分页（线程安全），避免深分页时每个分片都要收集、排序 from + size 条文档，也不受 max_result_window 的限制
+ * <p>
+ * sql 的 order by 转为排序，并且在最后加上唯一的排序字段（默认为 _id，见 {@link SqlTranslateOptions#getCursorTiebreaker()}），
+ * 每一页返回一个不透明的游标（保存最后一条文档的排序值），下一页带上游标查询，每一页的开销与第一页相同
+ * <p>
+ * 已返回过的游标按偏移量缓存，跳页（例如 limit 100000,20）时如果缓存中有该偏移量的游标则直接使用，否则使用 from/size 查询
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 18:40
+ **/
+@Slf4j
+public class SqlCursorPaginator {
+
+    /**
+     * 默认最大缓存的游标数
+     */
+    public static final int DEFAULT_MAX_CURSORS = 1024;
+
+    /**
+     * 默认游标的缓存时间（毫秒）
+     */
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * es 默认的每页条数
+     */
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    /**
+     * 游标中查询指纹的字段
+     */
+    private static final String CURSOR_QUERY_FIELD = "q";
+
+    /**
+     * 游标中偏移量的字段
+     */
+    private static final String CURSOR_OFFSET_FIELD = "o";
+
+    /**
+     * 游标中排序值的字段
+     */
+    private static final String CURSOR_SORT_VALUES_FIELD = "s";
+
+    /**
+     * 文档 id 字段，没有 doc_values，排序时需要加载 fielddata
+     */
+    private static final String ID_FIELD = "_id";
+
+    /**
+     * 翻译选项
+     */
+    private final SqlTranslateOptions options;
+
+    /**
+     * 游标的缓存，key 为查询指纹#偏移量，value 为该偏移量之前最后一条文档的排序值
+     */
+    private final LruCache<String, Object[]> cursorCache;
+
+    public SqlCursorPaginator() {
+        this(DEFAULT_MAX_CURSORS, DEFAULT_TTL_MILLIS, SqlTranslateOptions.DEFAULT);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param maxCursors 最大缓存的游标数
+     * @param ttlMillis  游标的缓存时间（毫秒），小于等于0表示不过期
+     * @param options    翻译选项
+     */
+    public SqlCursorPaginator(int maxCursors, long ttlMillis, SqlTranslateOptions options) {
+        this.options = options;
+        this.cursorCache = new LruCache<>(maxCursors, ttlMillis);
+        if (ID_FIELD.equals(options.getCursorTiebreaker())) {
+            log.warn("游标分页使用 _id 作为唯一的排序字段，排序时每个分片都要加载 _id 的 fielddata（占用大量堆内存），"
+                    + "建议通过 SqlTranslateOptions.cursorTiebreaker 指定唯一并且有 doc_values 的字段！");
+        }
+    }
+
+    /**
+     * 生成一页的查询
+     *
+     * @param sql    sql，limit 的偏移量只在没有游标时使用（跳页），条数为每页的条数
+     * @param cursor 上一页返回的游标，第一页或跳页时为 null
+     * @return {@link SqlCursorPage}
+     * @throws RuntimeException         计数sql或聚合sql不支持游标分页
+     * @throws IllegalArgumentException 游标无效或与sql不匹配
+     */
+    public SqlCursorPage page(String sql, String cursor) throws RuntimeException {
+        SqlTranslateContext context = SqlTranslateContext.parse(sql, options);
+        PreparedSqlQuery query = PreparedSqlQuery.compile(context);
+        context.getTrace().finish();
+        if (query.isCountSql() || query.getAggregation() != null) {
+            throw new RuntimeException("计数sql及聚合sql不支持游标分页！");
+        }
+        if (query.getParamCount() > 0) {
+            throw new RuntimeException("游标分页不支持带参数占位符的sql！");
+        }
+        SearchSourceBuilder sourceBuilder = EsDslAdapter.toSearchSourceBuilder(query.bindDsl(null, false));
+        addTiebreaker(sourceBuilder);
+        int size = sourceBuilder.size() < 0 ? DEFAULT_PAGE_SIZE : sourceBuilder.size();
+        // 查询指纹不包括分页，跳页及不同的每页条数可以共用游标
+        String queryKey = String.join(",", query.getIndices()) + '\n' + sourceBuilder.size(0).toString();
+        sourceBuilder.size(size);
+        String fingerprint = fingerprint(queryKey);
+
+        long offset;
+        if (cursor != null) {
+            Map<String, Object> cursorMap = decode(cursor);
+            if (!fingerprint.equals(cursorMap.get(CURSOR_QUERY_FIELD))) {
+                throw new IllegalArgumentException("游标与sql不匹配！");
+            }
+            offset = ((Number) cursorMap.get(CURSOR_OFFSET_FIELD)).longValue();
+            sourceBuilder.searchAfter(((List<?>) cursorMap.get(CURSOR_SORT_VALUES_FIELD)).toArray());
+        } else {
+            offset = query.getFrom() == null ? 0 : PreparedSqlQuery.toInt(query.getFrom().resolve(null));
+            if (offset > 0) {
+                Object[] sortValues = cursorCache.get(cacheKey(fingerprint, offset));
+                if (sortValues != null) {
+                    sourceBuilder.searchAfter(sortValues);
+                } else {
+                    log.debug("没有偏移量为{}的游标，使用 from/size 分页！", offset);
+                    sourceBuilder.from((int) offset);
+                }
+            }
+        }
+        return new SqlCursorPage(query.resolveIndices((Object[]) null), query.isPartitioned(), sourceBuilder, fingerprint, offset, size);
+    }
+
+    /**
+     * 根据这一页最后一条文档的排序值生成下一页的游标，并缓存下一页偏移量的游标
+     *
+     * @param page           这一页
+     * @param lastSortValues 这一页最后一条文档的排序值（{@link SearchHit#getSortValues()}）
+     * @return 下一页的游标
+     */
+    public String nextCursor(SqlCursorPage page, Object[] lastSortValues) {
+        long nextOffset = page.getOffset() + page.getSize();
+        cursorCache.put(cacheKey(page.getFingerprint(), nextOffset), lastSortValues.clone());
+        return encode(page.getFingerprint(), nextOffset, lastSortValues);
+    }
+
+    /**
+     * 根据这一页的查询结果生成下一页的游标
+     *
+     * @param page           这一页
+     * @param searchResponse 这一页的查询结果
+     * @return 下一页的游标，已经是最后一页则返回 null
+     */
+    public String nextCursor(SqlCursorPage page, SearchResponse searchResponse) {
+        SearchHit[] hits = searchResponse.getHits().getHits();
+        if (hits.length < page.getSize() || hits.length == 0) {
+            return null;
+        }
+        return nextCursor(page, hits[hits.length - 1].getSortValues());
+    }
+
+    /**
+     * 当前缓存的游标数
+     *
+     * @return 游标数
+     */
+    public int cachedCursorSize() {
+        return cursorCache.size();
+    }
+
+    /**
+     * 在排序的最后加上唯一的排序字段，保证排序值唯一，sql 中已有该字段的排序则不加
+     *
+     * @param sourceBuilder 查询参数
+     */
+    private void addTiebreaker(SearchSourceBuilder sourceBuilder) {
+        String tiebreaker = options.getCursorTiebreaker();
+        List<SortBuilder<?>> sorts = sourceBuilder.sorts();
+        if (sorts != null) {
+            for (SortBuilder<?> sort : sorts) {
+                if (sort instanceof FieldSortBuilder && tiebreaker.equals(((FieldSortBuilder) sort).getFieldName())) {
+                    return;
+                }
+            }
+        }
+        sourceBuilder.sort(tiebreaker, SortOrder.ASC);
+    }
+
+    /**
+     * 游标缓存的 key
+     *
+     * @param fingerprint 查询指纹
+     * @param offset      偏移量
+     * @return key
+     */
+    private static String cacheKey(String fingerprint, long offset) {
+        return fingerprint + '#' + offset;
+    }
+
+    /**
+     * 查询的指纹（sha-256）
+     *
+     * @param queryKey 查询
+     * @return 指纹
+     */
+    private static String fingerprint(String queryKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(queryKey.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持 SHA-256！", e);
+        }
+    }
+
+    /**
+     * 生成游标：json 的 base64（url安全）
+     *
+     * @param fingerprint 查询指纹
+     * @param offset      偏移量
+     * @param sortValues  排序值
+     * @return 游标
+     */
+    private static String encode(String fingerprint, long offset, Object[] sortValues) {
+        try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+            builder.startObject()
+                    .field(CURSOR_QUERY_FIELD, fingerprint)
+                    .field(CURSOR_OFFSET_FIELD, offset)
+                    .array(CURSOR_SORT_VALUES_FIELD, sortValues)
+                    .endObject();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(BytesReference.toBytes(BytesReference.bytes(builder)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("生成游标失败！" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param cursor 游标
+     * @return 游标的内容
+     * @throws IllegalArgumentException 游标无效
+     */
+    private static Map<String, Object> decode(String cursor) throws IllegalArgumentException {
+        byte[] json;
+        try {
+            json = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的游标！", e);
+        }
+        try (XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, json)) {
+            Map<String, Object> cursorMap = parser.map();
+            if (!(cursorMap.get(CURSOR_OFFSET_FIELD) instanceof Number) || !(cursorMap.get(CURSOR_SORT_VALUES_FIELD) instanceof List)) {
+                throw new IllegalArgumentException("无效的游标！");
+            }
+            return cursorMap;
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("无效的游标！", e);
+        }
+    }
+
+    /**
+     * 游标分页的一页
+     */
+    @Getter
+    public static class SqlCursorPage {
+        /**
+         * es 的索引
+         */
+        private final String[] indices;
+        /**
+         * 是否有按时间分区的索引
+         */
+        private final boolean partitioned;
+        /**
+         * 这一页的查询参数
+         */
+        private final SearchSourceBuilder searchSourceBuilder;
+        /**
+         * 查询指纹
+         */
+        private final String fingerprint;
+        /**
+         * 这一页的偏移量
+         */
+        private final long offset;
+        /**
+         * 每页的条数
+         */
+        private final int size;
+
+        SqlCursorPage(String[] indices, boolean partitioned, SearchSourceBuilder searchSourceBuilder, String fingerprint, long offset, int size) {
+            this.indices = indices;
+            this.partitioned = partitioned;
+            this.searchSourceBuilder = searchSourceBuilder;
+            this.fingerprint = fingerprint;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        /**
+         * 这一页的 es 查询对象
+         *
+         * @return {@link SearchRequest}
+         */
+        public SearchRequest toSearchRequest() {
+            return EsDslAdapter.toSearchRequest(indices.clone(), partitioned, false, searchSourceBuilder);
+        }
+
+        /**
+         * 这一页是否使用了 search_after（否则为第一页或使用 from/size 跳页）
+         *
+         * @return boolean
+         */
+        public boolean isSearchAfter() {
+            return searchSourceBuilder.searchAfter() != null;
+        }
+    }
+}
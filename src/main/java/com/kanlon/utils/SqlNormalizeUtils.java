@@ -0,0 +1,351 @@
+package com.kanlon.utils;
+
+import com.alibaba.druid.sql.dialect.mysql.parser.MySqlLexer;
+import com.alibaba.druid.sql.parser.Lexer;
+import com.alibaba.druid.sql.parser.Token;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * sql 规范化工具类，只做词法分析（不生成语法树），用于生成缓存的key等
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 11:03
+ **/
+@Slf4j
+public class SqlNormalizeUtils {
+
+    private SqlNormalizeUtils() {}
+
+    /**
+     * 单引号
+     */
+    private static final char SINGLE_QUOTE = '\'';
+
+    /**
+     * 参数占位符
+     */
+    private static final String PARAM_PLACEHOLDER = "?";
+
+    /**
+     * 后面跟着的常量需要提取为参数的比较运算符
+     */
+    private static final Set<Token> COMPARE_TOKENS = EnumSet.of(Token.EQ, Token.GT, Token.GTEQ, Token.LT, Token.LTEQ, Token.LTGT, Token.BANGEQ, Token.LIKE, Token.BETWEEN);
+
+    /**
+     * 结束 where 条件的关键字
+     */
+    private static final Set<Token> END_WHERE_TOKENS = EnumSet.of(Token.ORDER, Token.GROUP, Token.HAVING, Token.LIMIT, Token.UNION);
+
+    /**
+     * sql 的指纹的字节数
+     */
+    private static final int FINGERPRINT_BYTES = 8;
+
+    /**
+     * 常量
+     */
+    private static final Set<Token> LITERAL_TOKENS = EnumSet.of(Token.LITERAL_CHARS, Token.LITERAL_NCHARS, Token.LITERAL_INT, Token.LITERAL_FLOAT);
+
+    /**
+     * 规范化sql：多个空白合并为一个空格，关键字统一为大写，标识符（包括函数名，例如计数sql的判断依赖 count 的大小写）和字符串常量保持原样
+     * <p>
+     * 例如：select  a from t where b='X' 和 SELECT a FROM t WHERE b = 'X' 规范化后相同
+     *
+     * @param sql sql
+     * @return 规范化后的sql，如果词法分析失败，则返回去掉首尾空白的原sql
+     */
+    public static String normalize(String sql) {
+        return normalize(sql, true);
+    }
+
+    /**
+     * 规范化sql：多个空白合并为一个空格，标识符和字符串常量保持原样
+     * <p>
+     * 关键字保持原样时，规范化后的sql可以重新解析并与原sql的含义相同（作为标识符使用的关键字，例如 user.name、default.test_t1，大小写不会被改变）
+     *
+     * @param sql           sql
+     * @param upperKeywords 关键字是否统一为大写
+     * @return 规范化后的sql，如果词法分析失败，则返回去掉首尾空白的原sql
+     */
+    public static String normalize(String sql, boolean upperKeywords) {
+        if (StringUtils.isBlank(sql)) {
+            return StringUtils.EMPTY;
+        }
+        StringBuilder builder = new StringBuilder(sql.length());
+        try {
+            Lexer lexer = new MySqlLexer(sql);
+            lexer.nextToken();
+            while (lexer.token() != Token.EOF) {
+                Token token = lexer.token();
+                appendToken(builder, tokenText(lexer, token, upperKeywords));
+                lexer.nextToken();
+            }
+        } catch (Exception e) {
+            log.debug("sql词法分析失败，使用原sql作为规范化结果！sql为【{}】", sql, e);
+            return sql.trim();
+        }
+        return builder.toString();
+    }
+
+    /**
+     * sql 的指纹：常量提取为参数并规范化后的sql模板的 sha-256 的前 8 个字节（16 位十六进制），常量不同但结构相同的sql指纹相同，
+     * 用于日志、指标中代替原始sql（不包含常量）
+     * <p>
+     * 例如：select a from t where b = '1' 与 SELECT a FROM t WHERE b=? 的指纹相同
+     *
+     * @param sql sql
+     * @return 指纹
+     */
+    public static String fingerprint(String sql) {
+        ParameterizedSql parameterizedSql = parameterize(sql);
+        String template = normalize(parameterizedSql == null ? sql : parameterizedSql.getSql());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(template.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(FINGERPRINT_BYTES * 2);
+            for (int i = 0; i < FINGERPRINT_BYTES; ++i) {
+                builder.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持 SHA-256！", e);
+        }
+    }
+
+    /**
+     * 提取sql中 where 条件和 limit 中的常量作为参数，得到规范化后的sql模板，常量不同但结构相同的sql得到的模板相同
+     * <p>
+     * 例如：select * from t where a = '1' and b in ('x','y') limit 0,10 得到的模板为：
+     * select * from t where a = ? and b in ( ? ) limit ? , ?，参数为：1,[x, y],0,10 （in 列表整体作为一个参数）
+     * <p>
+     * 提取出来的常量都为字符串，与直接翻译sql时的值一致
+     *
+     * @param sql sql
+     * @return 参数化后的sql，如果sql中已包含参数占位符 ? 或词法分析失败，则返回 null
+     */
+    public static ParameterizedSql parameterize(String sql) {
+        if (StringUtils.isBlank(sql)) {
+            return null;
+        }
+        List<SqlToken> tokens = new ArrayList<>();
+        try {
+            Lexer lexer = new MySqlLexer(sql);
+            lexer.nextToken();
+            while (lexer.token() != Token.EOF) {
+                Token token = lexer.token();
+                if (token == Token.QUES) {
+                    return null;
+                }
+                // 参数化后的sql模板会重新解析，关键字保持原样，避免作为标识符使用的关键字大小写被改变
+                String text = tokenText(lexer, token, false);
+                Object value = null;
+                if (token == Token.LITERAL_CHARS || token == Token.LITERAL_NCHARS) {
+                    value = lexer.stringVal();
+                } else if (token == Token.LITERAL_INT || token == Token.LITERAL_FLOAT) {
+                    value = lexer.numberString();
+                }
+                tokens.add(new SqlToken(token, text, value));
+                lexer.nextToken();
+            }
+        } catch (Exception e) {
+            log.debug("sql词法分析失败，不提取参数！sql为【{}】", sql, e);
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(sql.length());
+        List<Object> params = new ArrayList<>();
+        // 每一层括号中是否处于 where 条件中
+        Deque<Boolean> whereStack = new ArrayDeque<>();
+        boolean inWhere = false;
+        boolean inLimit = false;
+        boolean betweenPending = false;
+        for (int i = 0; i < tokens.size(); ++i) {
+            SqlToken sqlToken = tokens.get(i);
+            Token token = sqlToken.getToken();
+            Token prevToken = i > 0 ? tokens.get(i - 1).getToken() : null;
+            String text = sqlToken.getText();
+            if (token == Token.LPAREN) {
+                whereStack.push(inWhere);
+            } else if (token == Token.RPAREN) {
+                inWhere = whereStack.isEmpty() ? inWhere : whereStack.pop();
+                inLimit = false;
+            } else if (token == Token.SELECT) {
+                inWhere = false;
+                inLimit = false;
+            } else if (token == Token.WHERE) {
+                inWhere = true;
+            } else if (END_WHERE_TOKENS.contains(token)) {
+                inWhere = false;
+                inLimit = token == Token.LIMIT;
+            } else if (inLimit && !LITERAL_TOKENS.contains(token) && token != Token.COMMA && token != Token.OFFSET) {
+                inLimit = false;
+            }
+            if (inWhere && token == Token.IN) {
+                // in 列表全部都为常量，则整体作为一个参数
+                List<Object> inValues = readLiteralList(tokens, i + 1);
+                if (inValues != null) {
+                    appendToken(builder, text);
+                    appendToken(builder, "(");
+                    appendToken(builder, PARAM_PLACEHOLDER);
+                    appendToken(builder, ")");
+                    params.add(inValues);
+                    i += inValues.size() * 2 + 1;
+                    continue;
+                }
+            }
+            boolean isParam = false;
+            if (LITERAL_TOKENS.contains(token)) {
+                if (inLimit) {
+                    isParam = true;
+                } else if (inWhere && prevToken != null) {
+                    // between x and y 中的 y
+                    boolean betweenEnd = betweenPending && prevToken == Token.AND;
+                    // 比较运算符左边也为常量的（例如 1 = 1）不提取，保留恒为真的条件
+                    boolean compareLiteral = COMPARE_TOKENS.contains(prevToken) && !(i > 1 && LITERAL_TOKENS.contains(tokens.get(i - 2).getToken()));
+                    isParam = compareLiteral || betweenEnd;
+                    if (betweenEnd) {
+                        betweenPending = false;
+                    }
+                }
+            }
+            if (token == Token.BETWEEN) {
+                betweenPending = true;
+            }
+            if (isParam) {
+                appendToken(builder, PARAM_PLACEHOLDER);
+                params.add(sqlToken.getValue());
+            } else {
+                appendToken(builder, text);
+            }
+        }
+        return new ParameterizedSql(builder.toString(), params);
+    }
+
+    /**
+     * 读取 in 后面的全部为常量的列表，例如：('a','b')
+     *
+     * @param tokens     词法单元
+     * @param startIndex 左括号的位置
+     * @return 常量列表，如果不是全部为常量，则返回 null
+     */
+    private static List<Object> readLiteralList(List<SqlToken> tokens, int startIndex) {
+        if (startIndex >= tokens.size() || tokens.get(startIndex).getToken() != Token.LPAREN) {
+            return null;
+        }
+        List<Object> values = new ArrayList<>();
+        for (int i = startIndex + 1; i < tokens.size(); i += 2) {
+            SqlToken literal = tokens.get(i);
+            if (!LITERAL_TOKENS.contains(literal.getToken()) || i + 1 >= tokens.size()) {
+                return null;
+            }
+            values.add(literal.getValue());
+            Token next = tokens.get(i + 1).getToken();
+            if (next == Token.RPAREN) {
+                return values;
+            }
+            if (next != Token.COMMA) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 添加词法单元的文本，以空格分隔
+     *
+     * @param builder 规范化后的sql
+     * @param text    文本
+     */
+    private static void appendToken(StringBuilder builder, String text) {
+        if (builder.length() > 0) {
+            builder.append(' ');
+        }
+        builder.append(text);
+    }
+
+    /**
+     * 获取词法单元的规范化文本
+     *
+     * @param lexer         词法分析器
+     * @param token         当前词法单元
+     * @param upperKeywords 关键字是否统一为大写，否则保持原样
+     * @return 规范化文本
+     */
+    static String tokenText(Lexer lexer, Token token, boolean upperKeywords) {
+        switch (token) {
+            case LITERAL_CHARS:
+            case LITERAL_NCHARS:
+                return quote(lexer.stringVal());
+            case LITERAL_INT:
+            case LITERAL_FLOAT:
+                return lexer.numberString();
+            case IDENTIFIER:
+            case LITERAL_ALIAS:
+                return lexer.stringVal();
+            default:
+                if (token.name == null) {
+                    return lexer.stringVal();
+                }
+                // 字母组成的为关键字，其他的为符号
+                boolean isKeyword = Character.isLetter(token.name.charAt(0));
+                return isKeyword && !upperKeywords ? lexer.stringVal() : token.name;
+        }
+    }
+
+    /**
+     * 给字符串常量加上单引号，并转义其中的单引号
+     *
+     * @param value 字符串常量
+     * @return 加上单引号后的字符串
+     */
+    static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2);
+        builder.append(SINGLE_QUOTE);
+        for (int i = 0; i < value.length(); ++i) {
+            char ch = value.charAt(i);
+            if (ch == SINGLE_QUOTE) {
+                builder.append(SINGLE_QUOTE);
+            }
+            builder.append(ch);
+        }
+        return builder.append(SINGLE_QUOTE).toString();
+    }
+
+    /**
+     * 参数化后的sql
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ParameterizedSql {
+        /**
+         * 参数化后的sql模板（已规范化）
+         */
+        private final String sql;
+        /**
+         * 提取出来的参数，按照sql模板中 ? 出现的顺序
+         */
+        private final List<Object> params;
+    }
+
+    /**
+     * 词法单元
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class SqlToken {
+        private final Token token;
+        private final String text;
+        private final Object value;
+    }
+}
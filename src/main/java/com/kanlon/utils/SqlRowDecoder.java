@@ -0,0 +1,295 @@
+package com.kanlon.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import static com.kanlon.utils.SQLToEsDSLUtils.ALL_COLUMN;
+import static com.kanlon.utils.SelfDruidSqlUtils.SQL_PARSE_ALL_TABLE_NAME;
+
+/**
+ * 查询结果的流式解码器（线程安全）：直接在返回的json字节流上解析，只读取 select 中的列对应的 _source 字段（或 docvalue_fields 返回的 fields），按别名写入复用的行对象并逐行回调，
+ * 不生成每个文档的 _source map
+ * <p>
+ * 列及其字段来自 {@link SQLToEsDSLUtils#getEsColumnExpressMap(String)}：没有别名的列即为字段，有别名的列（例如 uid as user_id）读取表达式中的字段；
+ * 字段可以为对象中的字段（例如 user.name as user_name），只有 from 中的表别名或表名的前缀（例如 from test_t1 t 时的 t.name）才会去掉，其他的前缀为对象字段的路径（user.name 读取的是 user 对象中的 name）；不是字段的表达式（例如函数）由 script_fields 在 es 中计算后从 fields 读取，不能计算的值为 null；select * 时读取 _source 中的全部字段
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 21:40
+ **/
+public class SqlRowDecoder {
+
+    /**
+     * 可以直接读取的字段
+     */
+    private static final Pattern FIELD_PATTERN = Pattern.compile("[A-Za-z_@][\\w@.\\-]*");
+
+    /**
+     * 列名，获取全部字段时为空
+     */
+    private final List<String> columns;
+
+    /**
+     * 列名及其位置
+     */
+    private final Map<String, Integer> columnIndexMap;
+
+    /**
+     * 字段及其对应的列的位置（一个字段可以对应多个列）
+     */
+    private final Map<String, int[]> fieldColumnsMap;
+
+    /**
+     * 不是字段的列（script_fields 计算的列）及其位置，script_fields 的名称为列名
+     */
+    private final Map<String, int[]> expressionColumnsMap;
+
+    /**
+     * 需要读取的字段（按列的顺序，去重）
+     */
+    private final List<String> fields;
+
+    /**
+     * 对象字段的路径，例如 user.name 的 user，解码时只进入这些对象
+     */
+    private final Set<String> objectPaths;
+
+    /**
+     * 是否获取全部字段
+     */
+    private final boolean allFields;
+
+    /**
+     * 构造方法
+     *
+     * @param columnMap 列别名及其表达式，即 {@link SQLToEsDSLUtils#getEsColumnExpressMap(String)} 的结果，为空或包含 * 时获取全部字段
+     */
+    public SqlRowDecoder(Map<String, String> columnMap) {
+        this(columnMap, Collections.emptySet());
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param columnMap       列别名及其表达式，即 {@link SQLToEsDSLUtils#getEsColumnExpressMap(String)} 的结果，为空或包含 * 时获取全部字段
+     * @param tableQualifiers from 中表的限定名（表别名、表名），即 {@link SqlTranslateContext#getTableQualifiers()}，列中这些前缀会去掉
+     */
+    public SqlRowDecoder(Map<String, String> columnMap, Set<String> tableQualifiers) {
+        this.allFields = CollectionUtils.isEmpty(columnMap) || columnMap.containsKey(ALL_COLUMN) || columnMap.containsKey(SQL_PARSE_ALL_TABLE_NAME);
+        List<String> columnList = new ArrayList<>();
+        Map<String, Integer> indexMap = new HashMap<>(16);
+        Map<String, List<Integer>> fieldColumns = new HashMap<>(16);
+        Map<String, int[]> expressionColumns = new HashMap<>(4);
+        Set<String> fieldSet = new LinkedHashSet<>();
+        Set<String> paths = new HashSet<>();
+        if (!allFields) {
+            for (Map.Entry<String, String> entry : columnMap.entrySet()) {
+                int index = columnList.size();
+                columnList.add(entry.getKey());
+                indexMap.put(entry.getKey(), index);
+                String field = toField(entry.getKey(), entry.getValue(), tableQualifiers);
+                if (field == null) {
+                    expressionColumns.put(entry.getKey(), new int[]{index});
+                    continue;
+                }
+                fieldSet.add(field);
+                fieldColumns.computeIfAbsent(field, key -> new ArrayList<>(1)).add(index);
+                for (int dot = field.indexOf('.'); dot > 0; dot = field.indexOf('.', dot + 1)) {
+                    paths.add(field.substring(0, dot));
+                }
+            }
+        }
+        this.columns = Collections.unmodifiableList(columnList);
+        this.columnIndexMap = indexMap;
+        this.fieldColumnsMap = new HashMap<>(fieldColumns.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : fieldColumns.entrySet()) {
+            fieldColumnsMap.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        this.expressionColumnsMap = expressionColumns;
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fieldSet));
+        this.objectPaths = paths;
+    }
+
+    /**
+     * 根据sql的列创建解码器
+     *
+     * @param sql sql
+     * @return {@link SqlRowDecoder}
+     */
+    public static SqlRowDecoder of(String sql) throws RuntimeException {
+        SqlTranslateContext context = SqlTranslateContext.parse(sql);
+        return new SqlRowDecoder(context.getColumnMap(), context.getTableQualifiers());
+    }
+
+    /**
+     * 解码查询结果（_search 或 _search/scroll 返回的json），每个命中的文档回调一次，回调的行对象是复用的
+     *
+     * @param responseBody 查询结果的json
+     * @param consumer     每一行的回调
+     * @return 解码的行数
+     * @throws UncheckedIOException 解析失败
+     */
+    public long decode(InputStream responseBody, Consumer<ProjectedRow> consumer) throws UncheckedIOException {
+        try {
+            return EsSearchResponseParser.parse(responseBody, this, consumer).getHitCount();
+        } catch (IOException e) {
+            throw new UncheckedIOException("解析查询结果失败！" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 创建一个用于解码的行对象
+     *
+     * @return {@link ProjectedRow}
+     */
+    public ProjectedRow newRow() {
+        return new ProjectedRow(this);
+    }
+
+    /**
+     * 是否获取全部字段
+     *
+     * @return boolean
+     */
+    public boolean isAllFields() {
+        return allFields;
+    }
+
+    /**
+     * 获取列名，获取全部字段时为空
+     *
+     * @return 列名
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 获取需要读取的 _source 字段，获取全部字段时为空
+     *
+     * @return 字段
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * 获取列的位置
+     *
+     * @param column 列名
+     * @return 位置，没有该列则为 -1
+     */
+    int indexOf(String column) {
+        Integer index = columnIndexMap.get(column);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 解码一个文档的 _source 到行对象中
+     *
+     * @param parser 位于 _source 对象的开始
+     * @param row    行对象（已清空）
+     * @throws IOException 解析失败
+     */
+    void readSource(JsonParser parser, ProjectedRow row) throws IOException {
+        if (allFields) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                row.add(fieldName, EsSearchResponseParser.readValue(parser));
+            }
+            return;
+        }
+        readObject(parser, null, row);
+    }
+
+    /**
+     * 解码一个文档的 fields（docvalue_fields 及 script_fields 的值）到行对象中：es 返回的每个字段的值都是数组，只有一个值时取该值，没有值时为 null
+     *
+     * @param parser 位于 fields 对象的开始
+     * @param row    行对象
+     * @throws IOException 解析失败
+     */
+    void readFields(JsonParser parser, ProjectedRow row) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            int[] columnIndexes = allFields ? null : fieldColumnsMap.getOrDefault(field, expressionColumnsMap.get(field));
+            if (!allFields && columnIndexes == null) {
+                parser.skipChildren();
+                continue;
+            }
+            Object value = EsSearchResponseParser.readValue(parser);
+            if (value instanceof List) {
+                List<?> values = (List<?>) value;
+                value = values.isEmpty() ? null : values.size() == 1 ? values.get(0) : values;
+            }
+            if (allFields) {
+                row.add(field, value);
+            } else {
+                for (int columnIndex : columnIndexes) {
+                    row.set(columnIndex, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * 解码一个对象中需要的字段，其他字段直接跳过
+     *
+     * @param parser 位于对象的开始
+     * @param path   对象的路径，_source 为 null
+     * @param row    行对象
+     * @throws IOException 解析失败
+     */
+    private void readObject(JsonParser parser, String path, ProjectedRow row) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = path == null ? parser.getCurrentName() : path + '.' + parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            int[] columnIndexes = fieldColumnsMap.get(field);
+            if (columnIndexes != null) {
+                Object value = EsSearchResponseParser.readValue(parser);
+                for (int columnIndex : columnIndexes) {
+                    row.set(columnIndex, value);
+                }
+            } else if (token == JsonToken.START_OBJECT && objectPaths.contains(field)) {
+                readObject(parser, field, row);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * 获取列对应的 _source 字段
+     *
+     * @param column          列名（别名）
+     * @param expression      列的表达式
+     * @param tableQualifiers from 中表的限定名（表别名、表名）
+     * @return 字段，不是字段则为 null
+     */
+    static String toField(String column, String expression, Set<String> tableQualifiers) {
+        String field = expression == null ? column : expression.replace("`", "");
+        // 表的限定名.字段（例如 t.name、default.test_t1.name），其他的前缀为对象字段的路径
+        for (String qualifier : tableQualifiers) {
+            if (field.length() > qualifier.length() + 1 && field.regionMatches(true, 0, qualifier, 0, qualifier.length()) && field.charAt(qualifier.length()) == '.') {
+                field = field.substring(qualifier.length() + 1);
+                break;
+            }
+        }
+        return FIELD_PATTERN.matcher(field).matches() ? field : null;
+    }
+}
@@ -0,0 +1,391 @@
+package com.kanlon.utils;
+
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBetweenExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOperator;
+import com.alibaba.druid.sql.ast.expr.SQLBooleanExpr;
+import com.alibaba.druid.sql.ast.expr.SQLCharExpr;
+import com.alibaba.druid.sql.ast.expr.SQLIdentifierExpr;
+import com.alibaba.druid.sql.ast.expr.SQLIntegerExpr;
+import com.alibaba.druid.sql.ast.expr.SQLMethodInvokeExpr;
+import com.alibaba.druid.sql.ast.expr.SQLNullExpr;
+import com.alibaba.druid.sql.ast.expr.SQLNumericLiteralExpr;
+import com.alibaba.druid.sql.ast.expr.SQLPropertyExpr;
+import com.alibaba.druid.sql.ast.expr.SQLUnaryExpr;
+import com.alibaba.druid.sql.ast.expr.SQLUnaryOperator;
+import com.alibaba.druid.sql.ast.expr.SQLVariantRefExpr;
+import com.kanlon.utils.predicate.EsScript;
+import com.kanlon.utils.predicate.EsValue;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.kanlon.utils.SQLToEsDSLUtils.toEsQueryString;
+
+/**
+ * 将sql中的计算表达式（四则运算、常用的标量函数）编译为 painless 脚本，用于 script 查询及 script_fields，在分片上计算而不是取回文档后在客户端计算
+ * <p>
+ * 字段从 doc_values 读取（doc['字段'].value，绑定时 text 字段替换为其 keyword 子字段），字段没有值时过滤条件为假、计算的列为 null；常量及参数占位符都作为脚本的参数，
+ * 常量不同的sql生成的脚本相同。不支持的表达式返回 null，由调用方按原来的方式处理
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:30
+ **/
+final class SqlScriptCompiler {
+
+    /**
+     * 四则运算的运算符
+     */
+    private static final Map<SQLBinaryOperator, String> ARITHMETIC_OPERATORS = new EnumMap<>(SQLBinaryOperator.class);
+
+    /**
+     * 比较运算符
+     */
+    private static final Map<SQLBinaryOperator, String> COMPARISON_OPERATORS = new EnumMap<>(SQLBinaryOperator.class);
+
+    /**
+     * 与 mysql 的 substring(str, pos, len) 相同（pos 从1开始，负数从末尾开始）的脚本函数
+     */
+    private static final String SUBSTRING_FUNCTION = "String sqlSubstring(def value, def pos, def len) { "
+            + "String s = value.toString(); int n = s.length(); int p = (int) pos; "
+            + "int b = p > 0 ? p - 1 : (p < 0 ? n + p : n); if (b < 0 || b >= n) { return ''; } "
+            + "int e = len == null ? n : b + (int) len; e = e > n ? n : e; return e <= b ? '' : s.substring(b, e); } ";
+
+    static {
+        ARITHMETIC_OPERATORS.put(SQLBinaryOperator.Add, "+");
+        ARITHMETIC_OPERATORS.put(SQLBinaryOperator.Subtract, "-");
+        ARITHMETIC_OPERATORS.put(SQLBinaryOperator.Multiply, "*");
+        ARITHMETIC_OPERATORS.put(SQLBinaryOperator.Divide, "/");
+        ARITHMETIC_OPERATORS.put(SQLBinaryOperator.Modulus, "%");
+        COMPARISON_OPERATORS.put(SQLBinaryOperator.Equality, "==");
+        COMPARISON_OPERATORS.put(SQLBinaryOperator.NotEqual, "!=");
+        COMPARISON_OPERATORS.put(SQLBinaryOperator.LessThanOrGreater, "!=");
+        COMPARISON_OPERATORS.put(SQLBinaryOperator.GreaterThan, ">");
+        COMPARISON_OPERATORS.put(SQLBinaryOperator.GreaterThanOrEqual, ">=");
+        COMPARISON_OPERATORS.put(SQLBinaryOperator.LessThan, "<");
+        COMPARISON_OPERATORS.put(SQLBinaryOperator.LessThanOrEqual, "<=");
+    }
+
+    private SqlScriptCompiler() {}
+
+    /**
+     * 是否为需要计算的表达式（四则运算、函数调用、取负），不能直接用字段查询
+     *
+     * @param sqlExpr sql expr
+     * @return boolean
+     */
+    static boolean isComputed(SQLExpr sqlExpr) {
+        if (sqlExpr instanceof SQLBinaryOpExpr) {
+            return ARITHMETIC_OPERATORS.containsKey(((SQLBinaryOpExpr) sqlExpr).getOperator());
+        }
+        if (sqlExpr instanceof SQLUnaryExpr) {
+            return ((SQLUnaryExpr) sqlExpr).getOperator() == SQLUnaryOperator.Negative;
+        }
+        return sqlExpr instanceof SQLMethodInvokeExpr;
+    }
+
+    /**
+     * 是否为比较运算符
+     *
+     * @param operator 运算符
+     * @return boolean
+     */
+    static boolean isComparison(SQLBinaryOperator operator) {
+        return COMPARISON_OPERATORS.containsKey(operator);
+    }
+
+    /**
+     * 比较或 between 条件编译为过滤的脚本（返回 boolean）
+     *
+     * @param condition 比较（SQLBinaryOpExpr）或 between 条件
+     * @return 脚本，不支持则返回 null
+     */
+    static EsScript compileFilter(SQLExpr condition) {
+        Compiler compiler = new Compiler();
+        String code;
+        if (condition instanceof SQLBetweenExpr) {
+            SQLBetweenExpr betweenExpr = (SQLBetweenExpr) condition;
+            code = compiler.between(betweenExpr.getTestExpr(), betweenExpr.getBeginExpr(), betweenExpr.getEndExpr(), betweenExpr.isNot());
+        } else if (condition instanceof SQLBinaryOpExpr) {
+            SQLBinaryOpExpr binaryOpExpr = (SQLBinaryOpExpr) condition;
+            code = compiler.compare(binaryOpExpr.getOperator(), binaryOpExpr.getLeft(), binaryOpExpr.getRight());
+        } else {
+            return null;
+        }
+        return code == null ? null : compiler.toScript(code, "false");
+    }
+
+    /**
+     * 计算表达式编译为计算列的脚本（返回计算的值）
+     *
+     * @param sqlExpr 计算表达式
+     * @return 脚本，不支持则返回 null
+     */
+    static EsScript compileValue(SQLExpr sqlExpr) {
+        Compiler compiler = new Compiler();
+        Expr expr = compiler.compile(sqlExpr);
+        return expr == null ? null : compiler.toScript(expr.code, "null");
+    }
+
+    /**
+     * 表达式的类型，用于判断参数是否需要转为数字
+     */
+    private enum Type {
+        NUMBER, STRING, OTHER
+    }
+
+    /**
+     * 编译后的表达式
+     */
+    private static final class Expr {
+
+        private final String code;
+
+        private final Type type;
+
+        /**
+         * 表达式为单个参数时的参数名
+         */
+        private final String param;
+
+        private Expr(String code, Type type, String param) {
+            this.code = code;
+            this.type = type;
+            this.param = param;
+        }
+    }
+
+    /**
+     * 一个脚本的编译状态
+     */
+    private static final class Compiler {
+
+        private final Map<String, EsValue> params = new LinkedHashMap<>();
+
+        private final Set<String> numericParams = new HashSet<>();
+
+        /**
+         * 脚本中读取的字段，需要判断是否有值
+         */
+        private final Set<String> fields = new LinkedHashSet<>();
+
+        private boolean substring;
+
+        private EsScript toScript(String code, String missingValue) {
+            StringBuilder source = new StringBuilder();
+            if (substring) {
+                source.append(SUBSTRING_FUNCTION);
+            }
+            if (!fields.isEmpty()) {
+                source.append("if (");
+                boolean first = true;
+                for (String field : fields) {
+                    if (!first) {
+                        source.append(" || ");
+                    }
+                    source.append(EsScript.docField(field)).append(".size() == 0");
+                    first = false;
+                }
+                source.append(") { return ").append(missingValue).append("; } ");
+            }
+            source.append("return ").append(code).append(';');
+            return new EsScript(source.toString(), params, numericParams, fields);
+        }
+
+        private String compare(SQLBinaryOperator operator, SQLExpr left, SQLExpr right) {
+            String painlessOperator = COMPARISON_OPERATORS.get(operator);
+            if (painlessOperator == null) {
+                return null;
+            }
+            Expr leftExpr = compile(left);
+            Expr rightExpr = leftExpr == null ? null : compile(right);
+            if (rightExpr == null) {
+                return null;
+            }
+            // 与数字比较的参数转为数字
+            if (leftExpr.type == Type.NUMBER) {
+                numeric(rightExpr);
+            }
+            if (rightExpr.type == Type.NUMBER) {
+                numeric(leftExpr);
+            }
+            return leftExpr.code + " " + painlessOperator + " " + rightExpr.code;
+        }
+
+        private String between(SQLExpr testExpr, SQLExpr beginExpr, SQLExpr endExpr, boolean not) {
+            String lower = compare(SQLBinaryOperator.GreaterThanOrEqual, testExpr, beginExpr);
+            String upper = lower == null ? null : compare(SQLBinaryOperator.LessThanOrEqual, testExpr, endExpr);
+            if (upper == null) {
+                return null;
+            }
+            return (not ? "!" : "") + "(" + lower + " && " + upper + ")";
+        }
+
+        private Expr compile(SQLExpr sqlExpr) {
+            if (sqlExpr instanceof SQLIdentifierExpr || sqlExpr instanceof SQLPropertyExpr) {
+                String field = toEsQueryString(sqlExpr).replace("`", "");
+                fields.add(field);
+                return new Expr(EsScript.docField(field) + ".value", Type.OTHER, null);
+            } else if (sqlExpr instanceof SQLVariantRefExpr) {
+                SQLVariantRefExpr variantRefExpr = (SQLVariantRefExpr) sqlExpr;
+                return "?".equals(variantRefExpr.getName()) ? param(EsValue.param(variantRefExpr.getIndex()), Type.OTHER) : null;
+            } else if (sqlExpr instanceof SQLIntegerExpr) {
+                Number number = ((SQLIntegerExpr) sqlExpr).getNumber();
+                if (number instanceof Integer || number instanceof Long) {
+                    return param(EsValue.constant(number), Type.NUMBER);
+                }
+                return null;
+            } else if (sqlExpr instanceof SQLNumericLiteralExpr) {
+                return param(EsValue.constant(((SQLNumericLiteralExpr) sqlExpr).getNumber().doubleValue()), Type.NUMBER);
+            } else if (sqlExpr instanceof SQLCharExpr) {
+                return param(EsValue.constant(((SQLCharExpr) sqlExpr).getText()), Type.STRING);
+            } else if (sqlExpr instanceof SQLBooleanExpr) {
+                return new Expr(String.valueOf(((SQLBooleanExpr) sqlExpr).getBooleanValue()), Type.OTHER, null);
+            } else if (sqlExpr instanceof SQLNullExpr) {
+                return new Expr("null", Type.OTHER, null);
+            } else if (sqlExpr instanceof SQLUnaryExpr) {
+                SQLUnaryExpr unaryExpr = (SQLUnaryExpr) sqlExpr;
+                Expr expr = unaryExpr.getOperator() == SQLUnaryOperator.Negative ? compile(unaryExpr.getExpr()) : null;
+                return expr == null ? null : new Expr("(-" + numeric(expr).code + ")", Type.NUMBER, null);
+            } else if (sqlExpr instanceof SQLBinaryOpExpr) {
+                return arithmetic((SQLBinaryOpExpr) sqlExpr);
+            } else if (sqlExpr instanceof SQLMethodInvokeExpr) {
+                return function((SQLMethodInvokeExpr) sqlExpr);
+            }
+            return null;
+        }
+
+        private Expr arithmetic(SQLBinaryOpExpr binaryOpExpr) {
+            String operator = ARITHMETIC_OPERATORS.get(binaryOpExpr.getOperator());
+            if (operator == null) {
+                return null;
+            }
+            Expr left = compile(binaryOpExpr.getLeft());
+            Expr right = left == null ? null : compile(binaryOpExpr.getRight());
+            if (right == null) {
+                return null;
+            }
+            numeric(left);
+            numeric(right);
+            if (SQLBinaryOperator.Divide == binaryOpExpr.getOperator()) {
+                // 与 mysql 相同，整数相除的结果为小数
+                return new Expr("((double) " + left.code + " / " + right.code + ")", Type.NUMBER, null);
+            }
+            return new Expr("(" + left.code + " " + operator + " " + right.code + ")", Type.NUMBER, null);
+        }
+
+        private Expr function(SQLMethodInvokeExpr methodInvokeExpr) {
+            if (methodInvokeExpr.getOwner() != null) {
+                return null;
+            }
+            List<SQLExpr> arguments = methodInvokeExpr.getArguments();
+            String name = methodInvokeExpr.getMethodName().toLowerCase();
+            if (arguments.isEmpty()) {
+                return null;
+            }
+            Expr[] args = new Expr[arguments.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = compile(arguments.get(i));
+                if (args[i] == null) {
+                    return null;
+                }
+            }
+            switch (name) {
+                case "abs":
+                case "ceil":
+                case "floor":
+                case "sqrt":
+                    return args.length == 1 ? mathFunction(name, args) : null;
+                case "ceiling":
+                    return args.length == 1 ? mathFunction("ceil", args) : null;
+                case "round":
+                    return args.length == 1 ? new Expr("Math.round(" + numeric(args[0]).code + ")", Type.NUMBER, null) : null;
+                case "pow":
+                case "power":
+                    return args.length == 2 ? mathFunction("pow", args) : null;
+                case "mod":
+                    return args.length == 2 ? new Expr("(" + numeric(args[0]).code + " % " + numeric(args[1]).code + ")", Type.NUMBER, null) : null;
+                case "upper":
+                case "ucase":
+                    return args.length == 1 ? stringMethod(args[0], "toUpperCase()") : null;
+                case "lower":
+                case "lcase":
+                    return args.length == 1 ? stringMethod(args[0], "toLowerCase()") : null;
+                case "trim":
+                    return args.length == 1 ? stringMethod(args[0], "trim()") : null;
+                case "length":
+                case "char_length":
+                    return args.length == 1 ? new Expr(args[0].code + ".toString().length()", Type.NUMBER, null) : null;
+                case "concat":
+                    StringBuilder code = new StringBuilder("(''");
+                    for (Expr arg : args) {
+                        code.append(" + ").append(arg.code);
+                    }
+                    return new Expr(code.append(')').toString(), Type.STRING, null);
+                case "substring":
+                case "substr":
+                    if (args.length != 2 && args.length != 3) {
+                        return null;
+                    }
+                    substring = true;
+                    return new Expr("sqlSubstring(" + args[0].code + ", " + numeric(args[1]).code + ", "
+                            + (args.length == 3 ? numeric(args[2]).code : "null") + ")", Type.STRING, null);
+                case "left":
+                    if (args.length != 2) {
+                        return null;
+                    }
+                    substring = true;
+                    return new Expr("sqlSubstring(" + args[0].code + ", 1, " + numeric(args[1]).code + ")", Type.STRING, null);
+                default:
+                    return null;
+            }
+        }
+
+        private Expr mathFunction(String name, Expr[] args) {
+            StringBuilder code = new StringBuilder("Math.").append(name).append('(');
+            for (int i = 0; i < args.length; i++) {
+                if (i > 0) {
+                    code.append(", ");
+                }
+                code.append(numeric(args[i]).code);
+            }
+            return new Expr(code.append(')').toString(), Type.NUMBER, null);
+        }
+
+        private Expr stringMethod(Expr arg, String method) {
+            return new Expr(arg.code + ".toString()." + method, Type.STRING, null);
+        }
+
+        /**
+         * 添加脚本的参数
+         *
+         * @param value 参数的值
+         * @param type  参数的类型
+         * @return 读取参数的表达式
+         */
+        private Expr param(EsValue value, Type type) {
+            String name = "p" + params.size();
+            params.put(name, value);
+            return new Expr("params." + name, type, name);
+        }
+
+        /**
+         * 表达式在数值运算中使用，如果为参数则绑定的值转为数字
+         *
+         * @param expr 表达式
+         * @return expr
+         */
+        private Expr numeric(Expr expr) {
+            if (expr.param != null) {
+                numericParams.add(expr.param);
+            }
+            return expr;
+        }
+    }
+}
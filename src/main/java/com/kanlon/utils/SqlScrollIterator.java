@@ -0,0 +1,255 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.dsl.DslJsonWriter;
+import com.kanlon.utils.dsl.DslSearchBody;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 通过 scroll 逐批获取sql的全部结果的迭代器（非线程安全），用于导出等需要全部数据的场景
+ * <p>
+ * 每次只在内存中保留一批数据，迭代完或关闭时清除 es 中的 scroll 上下文，使用完必须关闭（或使用 try-with-resources）
+ * <p>
+ * 每一行为文档中 select 的列（有别名的列为别名，按 sql 中列的顺序），select * 时为文档的 _source；sql 中有 limit 时只返回 limit 的行数，没有排序时按 _doc 排序（scroll 最快的方式）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 19:30
+ **/
+@Slf4j
+public class SqlScrollIterator implements Iterator<Map<String, Object>>, Closeable {
+
+    /**
+     * 默认的每批条数
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * 默认的 scroll 上下文保留时间
+     */
+    public static final String DEFAULT_KEEP_ALIVE = "1m";
+
+    /**
+     * scroll 的接口
+     */
+    private static final String SCROLL_ENDPOINT = "/_search/scroll";
+
+    /**
+     * 按 _doc 排序
+     */
+    private static final String DOC_SORT = "_doc";
+
+    private final RestClient restClient;
+
+    private final String keepAlive;
+
+    /**
+     * 查询结果的解码器
+     */
+    private final SqlRowDecoder rowDecoder;
+
+    /**
+     * 当前批的数据
+     */
+    private List<Map<String, Object>> rows = Collections.emptyList();
+
+    /**
+     * 当前批的下一行的位置
+     */
+    private int position;
+
+    /**
+     * 需要跳过的行数（limit 的偏移量）
+     */
+    private long skipRows;
+
+    /**
+     * 剩余需要返回的行数，没有 limit 则为 Long.MAX_VALUE
+     */
+    private long remainingRows;
+
+    private String scrollId;
+
+    /**
+     * 是否已经没有数据
+     */
+    private boolean finished;
+
+    private SqlScrollIterator(RestClient restClient, String keepAlive, SqlRowDecoder rowDecoder) {
+        this.restClient = restClient;
+        this.keepAlive = keepAlive;
+        this.rowDecoder = rowDecoder;
+    }
+
+    /**
+     * 执行sql，打开迭代器（执行第一批的查询）
+     *
+     * @param restClient es 客户端
+     * @param sql        查询sql
+     * @param batchSize  每批的条数
+     * @return {@link SqlScrollIterator}
+     * @throws RuntimeException 计数sql、聚合sql不支持或查询失败
+     */
+    public static SqlScrollIterator open(RestClient restClient, String sql, int batchSize) throws RuntimeException {
+        return open(restClient, sql, batchSize, DEFAULT_KEEP_ALIVE, SqlTranslateOptions.DEFAULT);
+    }
+
+    /**
+     * 执行sql，打开迭代器（执行第一批的查询）
+     *
+     * @param restClient es 客户端
+     * @param sql        查询sql
+     * @param batchSize  每批的条数
+     * @param keepAlive  scroll 上下文保留时间，例如：1m
+     * @param options    翻译选项
+     * @return {@link SqlScrollIterator}
+     * @throws RuntimeException 计数sql、聚合sql不支持或查询失败
+     */
+    public static SqlScrollIterator open(RestClient restClient, String sql, int batchSize, String keepAlive, SqlTranslateOptions options) throws RuntimeException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("每批的条数必须大于0！");
+        }
+        PreparedSqlQuery query = SQLToEsDSLUtils.prepare(sql, options);
+        if (query.isCountSql() || query.getAggregation() != null) {
+            throw new RuntimeException("计数sql及聚合sql不支持逐批获取全部结果！");
+        }
+        DslSearchBody body = query.bindDsl(null, false);
+        SqlScrollIterator iterator = new SqlScrollIterator(restClient, keepAlive, query.getRowDecoder());
+        if (query.getFrom() != null) {
+            iterator.skipRows = PreparedSqlQuery.toInt(query.getFrom().resolve(null));
+            iterator.remainingRows = PreparedSqlQuery.toInt(query.getSize().resolve(null));
+        } else {
+            iterator.remainingRows = Long.MAX_VALUE;
+        }
+        body.size(batchSize);
+        if (body.getSorts().isEmpty()) {
+            body.sort(DOC_SORT, DslSearchBody.ASC);
+        }
+        Request request = new Request("POST", "/" + String.join(",", query.resolveIndices((Object[]) null)) + "/_search");
+        EsSqlExecutor.addIndicesOptions(request, query);
+        request.addParameter("scroll", keepAlive);
+        request.setEntity(new NByteArrayEntity(body.toJsonBytes(), ContentType.APPLICATION_JSON));
+        iterator.fetch(request);
+        return iterator;
+    }
+
+    /**
+     * 转为流，关闭流时关闭迭代器
+     *
+     * @return {@link Stream}
+     */
+    public Stream<Map<String, Object>> stream() {
+        Spliterator<Map<String, Object>> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (remainingRows > 0) {
+            if (position < rows.size()) {
+                if (skipRows > 0) {
+                    // 跳过 limit 的偏移量
+                    long skip = Math.min(skipRows, rows.size() - position);
+                    position += (int) skip;
+                    skipRows -= skip;
+                    continue;
+                }
+                return true;
+            }
+            if (finished) {
+                break;
+            }
+            fetchNext();
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        --remainingRows;
+        return rows.get(position++);
+    }
+
+    /**
+     * 清除 es 中的 scroll 上下文，可以重复调用
+     */
+    @Override
+    public void close() {
+        finished = true;
+        rows = Collections.emptyList();
+        if (scrollId == null) {
+            return;
+        }
+        String clearScrollId = scrollId;
+        scrollId = null;
+        try {
+            DslJsonWriter writer = new DslJsonWriter();
+            writer.startObject().field("scroll_id", new String[]{clearScrollId}).endObject();
+            Request request = new Request("DELETE", SCROLL_ENDPOINT);
+            request.setEntity(new NByteArrayEntity(writer.toByteArray(), ContentType.APPLICATION_JSON));
+            restClient.performRequest(request);
+        } catch (IOException e) {
+            // scroll 上下文过期后 es 也会自动清除
+            log.warn("清除scroll上下文失败！scrollId为【{}】", clearScrollId, e);
+        }
+    }
+
+    /**
+     * 获取下一批数据
+     */
+    private void fetchNext() {
+        DslJsonWriter writer = new DslJsonWriter();
+        writer.startObject().field("scroll", keepAlive).field("scroll_id", scrollId).endObject();
+        Request request = new Request("POST", SCROLL_ENDPOINT);
+        request.setEntity(new NByteArrayEntity(writer.toByteArray(), ContentType.APPLICATION_JSON));
+        fetch(request);
+    }
+
+    /**
+     * 执行查询，解析出这一批的数据及 scroll id
+     *
+     * @param request 请求
+     */
+    private void fetch(Request request) {
+        try {
+            Response response = restClient.performRequest(request);
+            try (InputStream inputStream = response.getEntity().getContent()) {
+                List<Map<String, Object>> batch = new ArrayList<>();
+                EsSearchResponseParser.ParsedSearchResponse parsedResponse = EsSearchResponseParser.parse(inputStream, rowDecoder, row -> batch.add(row.toMap()));
+                if (parsedResponse.getScrollId() != null) {
+                    scrollId = parsedResponse.getScrollId();
+                }
+                rows = batch;
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("查询失败！" + e.getMessage(), e);
+        }
+        position = 0;
+        if (rows.isEmpty()) {
+            finished = true;
+        }
+    }
+}
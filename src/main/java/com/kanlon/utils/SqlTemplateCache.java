@@ -0,0 +1,135 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.trace.SqlTraceListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+/**
+ * 自动参数化的sql查询模板缓存，提取sql中 where 条件和 limit 中的常量作为参数，常量不同但结构相同的sql共用一个预编译的查询模板
+ * <p>
+ * 提取常量只做词法分析，命中缓存时不再经过 druid 语法解析
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 15:20
+ **/
+public class SqlTemplateCache {
+
+    /**
+     * 默认最大缓存的模板数
+     */
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    /**
+     * 缓存，key 为参数化后的sql模板
+     */
+    private final LruCache<String, PreparedSqlQuery> cache;
+
+    /**
+     * 翻译选项
+     */
+    private final SqlTranslateOptions options;
+
+    public SqlTemplateCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param maxSize 最大缓存的模板数
+     */
+    public SqlTemplateCache(int maxSize) {
+        this(maxSize, SqlTranslateOptions.DEFAULT);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param maxSize 最大缓存的模板数
+     * @param options 翻译选项，缓存中的所有模板都使用该选项编译
+     */
+    public SqlTemplateCache(int maxSize, SqlTranslateOptions options) {
+        this.cache = new LruCache<>(maxSize, 0);
+        this.options = options;
+    }
+
+    /**
+     * sql 转成 es的查询对象
+     *
+     * @param sql sql
+     * @return {@link SearchRequest}
+     */
+    public SearchRequest sqlToEsSearchRequest(String sql) throws RuntimeException {
+        SqlNormalizeUtils.ParameterizedSql parameterizedSql = SqlNormalizeUtils.parameterize(sql);
+        if (parameterizedSql == null) {
+            return SQLToEsDSLUtils.sqlToEsSearchRequest(sql, options);
+        }
+        return EsDslAdapter.bindSearchRequest(getTemplate(parameterizedSql.getSql()), parameterizedSql.getParams().toArray());
+    }
+
+    /**
+     * sql转成 es 查询的dsl中的查询参数
+     *
+     * @param sql sql
+     * @return {@link SearchSourceBuilder}
+     */
+    public SearchSourceBuilder sqlToEsDslQueryBody(String sql) throws RuntimeException {
+        SqlNormalizeUtils.ParameterizedSql parameterizedSql = SqlNormalizeUtils.parameterize(sql);
+        if (parameterizedSql == null) {
+            return SQLToEsDSLUtils.sqlToEsDslQueryBody(sql, options);
+        }
+        return EsDslAdapter.bind(getTemplate(parameterizedSql.getSql()), parameterizedSql.getParams().toArray());
+    }
+
+    /**
+     * 获取sql模板对应的预编译查询，没有则编译并放入缓存
+     *
+     * @param templateSql 参数化后的sql模板
+     * @return {@link PreparedSqlQuery}
+     */
+    public PreparedSqlQuery getTemplate(String templateSql) throws RuntimeException {
+        PreparedSqlQuery query = cache.get(templateSql);
+        SqlTrace.cacheAccess(options, SqlTraceListener.TEMPLATE_CACHE, query != null);
+        if (query == null) {
+            query = SQLToEsDSLUtils.prepare(templateSql, options);
+            cache.put(templateSql, query);
+        }
+        return query;
+    }
+
+    /**
+     * 当前缓存的模板数
+     *
+     * @return 模板数
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * 未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * 淘汰次数
+     *
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+}
@@ -0,0 +1,233 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.trace.SqlStage;
+import com.kanlon.utils.trace.SqlTraceEvent;
+import com.kanlon.utils.trace.SqlTraceListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Supplier;
+
+/**
+ * 一次sql翻译或执行的统计的记录（不是线程安全的，同一时间只在一个线程中使用），结束时回调 {@link SqlTraceListener}
+ * <p>
+ * 没有配置监听器时使用 {@link #DISABLED}，不计时也不计算sql的指纹
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 03:30
+ **/
+@Slf4j
+final class SqlTrace {
+
+    /**
+     * 不记录的统计
+     */
+    static final SqlTrace DISABLED = new SqlTrace(SqlTraceListener.NOOP, null, false);
+
+    private final SqlTraceListener listener;
+
+    /**
+     * sql 的指纹
+     */
+    private final String fingerprint;
+
+    /**
+     * 是否为执行（否则为翻译）
+     */
+    private final boolean execution;
+
+    private final long startNanos;
+
+    private final long[] stageNanos = new long[SqlStage.values().length];
+
+    /**
+     * 正在执行的阶段中嵌套的阶段的耗时，各阶段只累计不包括嵌套阶段的耗时
+     */
+    private long nestedNanos;
+
+    private int predicateCount = -1;
+
+    private int dslBytes = -1;
+
+    /**
+     * 是否已结束（只回调一次）
+     */
+    private boolean finished;
+
+    private SqlTrace(SqlTraceListener listener, String fingerprint, boolean execution) {
+        this.listener = listener;
+        this.fingerprint = fingerprint;
+        this.execution = execution;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 开始记录一次翻译
+     *
+     * @param sql     sql
+     * @param options 翻译选项
+     * @return {@link SqlTrace}，没有配置监听器则为 {@link #DISABLED}
+     */
+    static SqlTrace translate(String sql, SqlTranslateOptions options) {
+        SqlTraceListener listener = options.getTraceListener();
+        if (listener == null || listener == SqlTraceListener.NOOP) {
+            return DISABLED;
+        }
+        return new SqlTrace(listener, SqlNormalizeUtils.fingerprint(sql), false);
+    }
+
+    /**
+     * 开始记录一次预编译的sql的执行
+     *
+     * @param query 查询模板
+     * @return {@link SqlTrace}，没有配置监听器则为 {@link #DISABLED}
+     */
+    static SqlTrace execute(PreparedSqlQuery query) {
+        if (query.getFingerprint() == null) {
+            return DISABLED;
+        }
+        return new SqlTrace(query.getTraceListener(), query.getFingerprint(), true);
+    }
+
+    /**
+     * 是否记录
+     *
+     * @return boolean
+     */
+    boolean isEnabled() {
+        return this != DISABLED;
+    }
+
+    String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * 执行一个阶段并累计其耗时（不包括其中嵌套的阶段），失败则结束记录
+     *
+     * @param stage  阶段
+     * @param action 阶段的操作
+     * @param <T>    结果的类型
+     * @return 结果
+     */
+    <T> T stage(SqlStage stage, Supplier<T> action) {
+        if (!isEnabled()) {
+            return action.get();
+        }
+        long outerNestedNanos = nestedNanos;
+        nestedNanos = 0;
+        long begin = System.nanoTime();
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            record(stage, begin, outerNestedNanos);
+            fail(stage, e);
+            throw e;
+        }
+        record(stage, begin, outerNestedNanos);
+        return result;
+    }
+
+    private void record(SqlStage stage, long begin, long outerNestedNanos) {
+        long elapsed = System.nanoTime() - begin;
+        stageNanos[stage.ordinal()] += elapsed - nestedNanos;
+        nestedNanos = outerNestedNanos + elapsed;
+    }
+
+    /**
+     * 执行最后一个阶段，成功则结束记录
+     *
+     * @param stage  阶段
+     * @param action 阶段的操作
+     * @param <T>    结果的类型
+     * @return 结果
+     */
+    <T> T finish(SqlStage stage, Supplier<T> action) {
+        T result = stage(stage, action);
+        finish();
+        return result;
+    }
+
+    /**
+     * 累计阶段的耗时（用于异步执行等不能用 {@link #stage(SqlStage, Supplier)} 计时的阶段）
+     *
+     * @param stage 阶段
+     * @param nanos 耗时（纳秒）
+     */
+    void addStageNanos(SqlStage stage, long nanos) {
+        if (isEnabled()) {
+            stageNanos[stage.ordinal()] += nanos;
+        }
+    }
+
+    /**
+     * 记录 where 条件最外层的条件数
+     *
+     * @param predicateCount 条件数
+     */
+    void predicates(int predicateCount) {
+        this.predicateCount = predicateCount;
+    }
+
+    /**
+     * 记录 dsl 的字节数
+     *
+     * @param dslBytes 字节数
+     */
+    void dslBytes(int dslBytes) {
+        this.dslBytes = dslBytes;
+    }
+
+    /**
+     * 成功结束
+     */
+    void finish() {
+        end(null, null);
+    }
+
+    /**
+     * 失败结束
+     *
+     * @param stage 失败的阶段
+     * @param cause 失败的原因
+     */
+    void fail(SqlStage stage, Throwable cause) {
+        end(stage, cause);
+    }
+
+    private void end(SqlStage failedStage, Throwable failure) {
+        if (!isEnabled() || finished) {
+            return;
+        }
+        finished = true;
+        SqlTraceEvent event = new SqlTraceEvent(fingerprint, System.nanoTime() - startNanos, stageNanos, predicateCount, dslBytes, failure, failedStage);
+        try {
+            if (execution) {
+                listener.onExecute(event);
+            } else {
+                listener.onTranslate(event);
+            }
+        } catch (RuntimeException e) {
+            log.warn("sql统计的监听器回调失败！{}", event, e);
+        }
+    }
+
+    /**
+     * 回调缓存的访问
+     *
+     * @param options   翻译选项
+     * @param cacheName 缓存的名称
+     * @param hit       是否命中
+     */
+    static void cacheAccess(SqlTranslateOptions options, String cacheName, boolean hit) {
+        SqlTraceListener listener = options.getTraceListener();
+        if (listener == null || listener == SqlTraceListener.NOOP) {
+            return;
+        }
+        try {
+            listener.onCacheAccess(cacheName, hit);
+        } catch (RuntimeException e) {
+            log.warn("sql统计的监听器回调失败！缓存为【{}】", cacheName, e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.trace.SqlTraceListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sql 转 es dsl 翻译结果的缓存（线程安全，按最近最少使用淘汰，并且有过期时间）
+ * <p>
+ * 缓存的key为规范化后的sql（见 {@link SqlNormalizeUtils#normalize(String)}），空白及关键字的大小写不影响命中
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 11:35
+ **/
+public class SqlTranslateCache {
+
+    /**
+     * 默认最大缓存条数
+     */
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    /**
+     * 默认过期时间（毫秒）
+     */
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    /**
+     * 缓存，key 为规范化后的sql
+     */
+    private final LruCache<String, SqlTranslateResult> cache;
+
+    /**
+     * 翻译选项
+     */
+    private final SqlTranslateOptions options;
+
+    public SqlTranslateCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param maxSize   最大缓存条数
+     * @param ttlMillis 过期时间（毫秒），小于等于0表示不过期
+     */
+    public SqlTranslateCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, SqlTranslateOptions.DEFAULT);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param maxSize   最大缓存条数
+     * @param ttlMillis 过期时间（毫秒），小于等于0表示不过期
+     * @param options   翻译选项，缓存中的所有sql都使用该选项翻译
+     */
+    public SqlTranslateCache(int maxSize, long ttlMillis, SqlTranslateOptions options) {
+        this.cache = new LruCache<>(maxSize, ttlMillis);
+        this.options = options;
+    }
+
+    /**
+     * 获取sql的翻译结果，缓存中没有或已过期则重新翻译并放入缓存
+     *
+     * @param sql sql
+     * @return {@link SqlTranslateResult}
+     * @throws RuntimeException 解析失败则抛出异常（失败的结果不缓存）
+     */
+    public SqlTranslateResult get(String sql) throws RuntimeException {
+        String key = SqlNormalizeUtils.normalize(sql);
+        SqlTranslateResult result = cache.get(key);
+        SqlTrace.cacheAccess(options, SqlTraceListener.TRANSLATE_CACHE, result != null);
+        if (result == null) {
+            result = SqlTranslateResult.translate(sql, options);
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * 在公共的 ForkJoinPool 中并行获取多条sql的翻译结果，相同的sql只翻译一次
+     *
+     * @param sqls sql
+     * @return 翻译结果，与输入的顺序相同，一条sql失败不影响其他sql
+     */
+    public List<SqlTranslateItem> getAll(Collection<String> sqls) {
+        return getAll(sqls, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在指定的线程池中并行获取多条sql的翻译结果，相同的sql只翻译一次
+     *
+     * @param sqls     sql
+     * @param executor 执行翻译的线程池
+     * @return 翻译结果，与输入的顺序相同，一条sql失败不影响其他sql
+     */
+    public List<SqlTranslateItem> getAll(Collection<String> sqls, Executor executor) {
+        return SqlBatchTranslator.translateAll(sqls, this::get, executor);
+    }
+
+    /**
+     * 获取dsl的json字节数组（副本）
+     *
+     * @param sql sql
+     * @return dsl的json字节数组
+     */
+    public byte[] getDslBytes(String sql) throws RuntimeException {
+        return get(sql).getDslBytes();
+    }
+
+    /**
+     * 获取新的 SearchSourceBuilder，修改返回的对象不会影响缓存
+     *
+     * @param sql sql
+     * @return {@link SearchSourceBuilder}
+     */
+    public SearchSourceBuilder getSearchSourceBuilder(String sql) throws RuntimeException {
+        return get(sql).toSearchSourceBuilder();
+    }
+
+    /**
+     * 获取新的 SearchRequest，修改返回的对象不会影响缓存
+     *
+     * @param sql sql
+     * @return {@link SearchRequest}
+     */
+    public SearchRequest getSearchRequest(String sql) throws RuntimeException {
+        return get(sql).toSearchRequest();
+    }
+
+    /**
+     * 清除已过期的缓存
+     */
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * 清空缓存（不计入淘汰次数）
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 当前缓存的条数
+     *
+     * @return 条数
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * 未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * 淘汰次数（包括超出最大条数被淘汰的和过期被清除的）
+     *
+     * @return 淘汰次数
+     */
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+}
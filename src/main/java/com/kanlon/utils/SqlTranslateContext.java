@@ -0,0 +1,355 @@
+package com.kanlon.utils;
+
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.SQLLimit;
+import com.alibaba.druid.sql.ast.SQLOrderBy;
+import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.statement.SQLExprTableSource;
+import com.alibaba.druid.sql.ast.statement.SQLSelectItem;
+import com.alibaba.druid.sql.ast.statement.SQLSelectQuery;
+import com.alibaba.druid.sql.ast.statement.SQLSelectQueryBlock;
+import com.alibaba.druid.sql.ast.statement.SQLSelectStatement;
+import com.alibaba.druid.sql.ast.statement.SQLTableSource;
+import com.alibaba.druid.sql.ast.statement.SQLUnionOperator;
+import com.alibaba.druid.sql.ast.statement.SQLUnionQuery;
+import com.alibaba.druid.sql.ast.statement.SQLUnionQueryTableSource;
+import com.kanlon.utils.trace.SqlStage;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.alibaba.druid.sql.SQLUtils.parseStatements;
+
+/**
+ * sql 转 es dsl 的翻译上下文，sql 只解析一次，列映射、是否计数、表名、分页排序及 where 条件都从同一个语法树中获取
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 10:12
+ **/
+@Slf4j
+@Getter
+public class SqlTranslateContext {
+
+    /**
+     * 是否为计算的sql
+     */
+    private static final String COUNT_SELECT = "count(";
+
+    /**
+     * 原始sql
+     */
+    private final String sql;
+
+    /**
+     * 翻译选项
+     */
+    private final SqlTranslateOptions options;
+
+    /**
+     * 解析后的查询语句
+     */
+    private final SQLSelectStatement selectStatement;
+
+    /**
+     * es的列表达式，key 为列别名（已去掉 ``），value 为实际的列
+     */
+    private final Map<String, String> columnMap;
+
+    /**
+     * 是否为计数sql
+     */
+    private final boolean countSql;
+
+    /**
+     * 提供 where 条件的 queryBlock （如果为 union all，则取其中一个）
+     */
+    private final SQLSelectQueryBlock whereQueryBlock;
+
+    /**
+     * union all 的各个查询，不是 union all 或者不能拆分（有 union、子查询中有分页排序等）时为空
+     */
+    private final List<SQLSelectQueryBlock> unionBranches;
+
+    /**
+     * 分页条件
+     */
+    private final SQLLimit limit;
+
+    /**
+     * 排序条件
+     */
+    private final SQLOrderBy orderBy;
+
+    /**
+     * 表名，需要时才解析
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private List<String> tableNames;
+
+    /**
+     * from 中表的限定名（表别名、表名），需要时才解析
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private Set<String> tableQualifiers;
+
+    /**
+     * 本次翻译的统计
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private final SqlTrace trace;
+
+    private SqlTranslateContext(String sql, SQLSelectStatement selectStatement, SqlTranslateOptions options, SqlTrace trace) throws RuntimeException {
+        this.sql = sql;
+        this.options = options;
+        this.selectStatement = selectStatement;
+        this.trace = trace;
+        SQLSelectQuery sqlSelectQuery = selectStatement.getSelect().getQuery();
+        this.columnMap = trace.stage(SqlStage.COLUMN_MAP, () -> {
+            try {
+                return toEsColumnMap(SelfDruidSqlUtils.getColumnExpressMap(sqlSelectQuery));
+            } catch (Exception e) {
+                log.error("解析SQL错误！要解析的sql为【{}】", sql);
+                throw new RuntimeException("解析SQL错误！请确认SQL中字段关键字使用``和''合理括起来了！" + e.getMessage(), e);
+            }
+        });
+        this.countSql = isCountColumnMap(columnMap);
+
+        SQLSelectQueryBlock sqlSelectQueryBlock = new SQLSelectQueryBlock();
+        // 获取分页条件
+        SQLLimit sqlLimit = null;
+        // 排序的条件
+        SQLOrderBy sqlOrderBy = null;
+        if (sqlSelectQuery instanceof SQLSelectQueryBlock) {
+            sqlSelectQueryBlock = (SQLSelectQueryBlock) sqlSelectQuery;
+            SQLTableSource sqlTableSource = sqlSelectQueryBlock.getFrom();
+            SQLUnionQuery sqlUnionQuery = null;
+            if (countSql && sqlTableSource instanceof SQLUnionQueryTableSource) {
+                SQLUnionQueryTableSource sqlUnionQueryTableSource = (SQLUnionQueryTableSource) sqlTableSource;
+                sqlUnionQuery = sqlUnionQueryTableSource.getUnion();
+                SQLSelectQuery sqlSelectQueryRight = sqlUnionQuery.getRight();
+                if (sqlSelectQueryRight instanceof SQLSelectQueryBlock) {
+                    sqlSelectQueryBlock = (SQLSelectQueryBlock) sqlSelectQueryRight;
+                }
+            }
+            if (sqlUnionQuery == null) {
+                sqlLimit = sqlSelectQueryBlock.getLimit();
+                sqlOrderBy = sqlSelectQueryBlock.getOrderBy();
+            } else {
+                sqlLimit = sqlUnionQuery.getLimit();
+                sqlOrderBy = sqlUnionQuery.getOrderBy();
+            }
+        } else if (sqlSelectQuery instanceof SQLUnionQuery) {
+            // union all
+            SQLUnionQuery sqlUnionQuery = (SQLUnionQuery) sqlSelectQuery;
+            sqlLimit = sqlUnionQuery.getLimit();
+            sqlOrderBy = sqlUnionQuery.getOrderBy();
+            // 如果是是计算sql，并且右边还是union all，则再取一层
+            if (countSql && sqlUnionQuery.getRight() instanceof SQLUnionQuery) {
+                SQLUnionQuery sqlUnionQueryRight = (SQLUnionQuery) sqlUnionQuery.getRight();
+                if (sqlUnionQueryRight.getRight() instanceof SQLUnionQuery) {
+                    throw new RuntimeException("目前仅支持计数sql的一层union all！请确保sql中只有一层union all");
+                } else {
+                    sqlSelectQueryBlock = (SQLSelectQueryBlock) sqlUnionQueryRight.getRight();
+                }
+            } else {
+                sqlSelectQueryBlock = getSelectQueryBlockFromSqlSelectQuery(sqlUnionQuery);
+            }
+        }
+        this.whereQueryBlock = sqlSelectQueryBlock;
+        List<SQLSelectQueryBlock> branches = new ArrayList<>();
+        if (!countSql && sqlSelectQuery instanceof SQLUnionQuery && collectUnionAllBranches(sqlSelectQuery, branches, true)) {
+            this.unionBranches = Collections.unmodifiableList(branches);
+        } else {
+            this.unionBranches = Collections.emptyList();
+        }
+        this.limit = sqlLimit;
+        this.orderBy = sqlOrderBy;
+    }
+
+    /**
+     * 解析sql，生成翻译上下文
+     *
+     * @param sql sql
+     * @return {@link SqlTranslateContext}
+     * @throws RuntimeException 解析失败则抛出异常
+     */
+    public static SqlTranslateContext parse(String sql) throws RuntimeException {
+        return parse(sql, SqlTranslateOptions.DEFAULT);
+    }
+
+    /**
+     * 解析sql，生成翻译上下文
+     *
+     * @param sql     sql
+     * @param options 翻译选项
+     * @return {@link SqlTranslateContext}
+     * @throws RuntimeException 解析失败则抛出异常
+     */
+    public static SqlTranslateContext parse(String sql, SqlTranslateOptions options) throws RuntimeException {
+        SqlTranslateOptions translateOptions = options == null ? SqlTranslateOptions.DEFAULT : options;
+        SqlTrace trace = SqlTrace.translate(sql, translateOptions);
+        SQLStatement sqlStatement = trace.stage(SqlStage.PARSE, () -> {
+            List<SQLStatement> stmtLists;
+            try {
+                stmtLists = parseStatements(sql, DbType.mysql);
+            } catch (Exception e) {
+                log.error("解析SQL错误！要解析的sql为【{}】", sql);
+                throw new RuntimeException("解析SQL错误！请确认SQL中字段关键字使用``和''合理括起来了！" + e.getMessage(), e);
+            }
+            SQLStatement statement = stmtLists.iterator().next();
+            if (!(statement instanceof SQLSelectStatement)) {
+                throw new RuntimeException("无法解析sql！仅支持查询sql，解析出来的sql类型为：" + statement.getClass());
+            }
+            return statement;
+        });
+        try {
+            return new SqlTranslateContext(sql, (SQLSelectStatement) sqlStatement, translateOptions, trace);
+        } catch (RuntimeException e) {
+            trace.fail(SqlStage.PARSE, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取本次翻译的统计
+     *
+     * @return {@link SqlTrace}
+     */
+    SqlTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * 获取 where 条件
+     *
+     * @return {@link SQLExpr}
+     */
+    public SQLExpr getWhere() {
+        return whereQueryBlock.getWhere();
+    }
+
+    /**
+     * 获取 select 的列（union all 为第一个查询的列）
+     *
+     * @return select 的列
+     */
+    public List<SQLSelectItem> getSelectList() {
+        return whereQueryBlock.getSelectList();
+    }
+
+    /**
+     * 获取sql中的表名（只在第一次调用时遍历语法树）
+     *
+     * @return 表名集合
+     */
+    public List<String> getTableNames() throws RuntimeException {
+        if (tableNames == null) {
+            tableNames = SelfDruidSqlUtils.getTableNamesByStatement(selectStatement);
+        }
+        return tableNames;
+    }
+
+    /**
+     * 获取 from 中表的限定名（表别名、子查询别名及表名，只在第一次调用时遍历语法树），select 中只有这些限定名的前缀才是表的限定，其他的为对象字段的路径
+     *
+     * @return 表的限定名集合
+     */
+    public Set<String> getTableQualifiers() {
+        if (tableQualifiers == null) {
+            tableQualifiers = SelfDruidSqlUtils.getTableQualifiersBySqlObject(selectStatement);
+        }
+        return tableQualifiers;
+    }
+
+    /**
+     * 根据列映射判断是否为计数sql
+     *
+     * @param columnMap 列映射
+     * @return boolean
+     */
+    static boolean isCountColumnMap(Map<String, String> columnMap) {
+        if (!CollectionUtils.isEmpty(columnMap)) {
+            String columnKey = columnMap.keySet().iterator().next().replaceAll("\\s", "");
+            String columnValue = columnMap.values().iterator().next().replaceAll("\\s", "");
+            return columnKey.contains(COUNT_SELECT) || columnValue.contains(COUNT_SELECT);
+        }
+        return false;
+    }
+
+    /**
+     * 得到es的sql列的表达式， 去掉别名的 ``
+     *
+     * @param originColumnMap 解析出来的原始列映射
+     * @return {@link Map}  key 为列别名，value 为实际的列
+     */
+    static Map<String, String> toEsColumnMap(Map<String, String> originColumnMap) {
+        Map<String, String> esColumnMap = new LinkedHashMap<>(16);
+        for (Map.Entry<String, String> entry : originColumnMap.entrySet()) {
+            esColumnMap.put(entry.getKey().replace("`", ""), entry.getValue());
+        }
+        return esColumnMap;
+    }
+
+    /**
+     * 按顺序收集 union all 的各个查询
+     *
+     * @param sqlSelectQuery 查询
+     * @param branches       收集的查询
+     * @param outermost      是否为最外层的 union all（只有最外层可以有分页和排序）
+     * @return 是否都为 union all 并且各个查询都可以单独执行
+     */
+    private static boolean collectUnionAllBranches(SQLSelectQuery sqlSelectQuery, List<SQLSelectQueryBlock> branches, boolean outermost) {
+        if (sqlSelectQuery instanceof SQLSelectQueryBlock) {
+            SQLSelectQueryBlock queryBlock = (SQLSelectQueryBlock) sqlSelectQuery;
+            if (queryBlock.getLimit() != null || queryBlock.getOrderBy() != null || queryBlock.getGroupBy() != null || !(queryBlock.getFrom() instanceof SQLExprTableSource)) {
+                return false;
+            }
+            branches.add(queryBlock);
+            return true;
+        }
+        if (!(sqlSelectQuery instanceof SQLUnionQuery)) {
+            return false;
+        }
+        SQLUnionQuery sqlUnionQuery = (SQLUnionQuery) sqlSelectQuery;
+        if (sqlUnionQuery.getOperator() != SQLUnionOperator.UNION_ALL || (!outermost && (sqlUnionQuery.getLimit() != null || sqlUnionQuery.getOrderBy() != null))) {
+            return false;
+        }
+        for (SQLSelectQuery relation : sqlUnionQuery.getRelations()) {
+            if (!collectUnionAllBranches(relation, branches, false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从sql select查询 获取到随意个 SQLSelectQueryBlock sql 语句
+     *
+     * @param sqlSelectQuery sql select查询
+     * @return {@link SQLSelectQueryBlock}
+     */
+    private static SQLSelectQueryBlock getSelectQueryBlockFromSqlSelectQuery(SQLSelectQuery sqlSelectQuery) throws RuntimeException {
+        if (sqlSelectQuery instanceof SQLSelectQueryBlock) {
+            return (SQLSelectQueryBlock) sqlSelectQuery;
+        }
+        if (sqlSelectQuery instanceof SQLUnionQuery) {
+            SQLUnionQuery sqlUnionQuery = (SQLUnionQuery) sqlSelectQuery;
+            SQLSelectQuery sqlSelectQueryLeft = sqlUnionQuery.getLeft();
+            SQLSelectQuery sqlSelectQueryRight = sqlUnionQuery.getRight();
+            if (sqlSelectQueryLeft != null) {
+                return getSelectQueryBlockFromSqlSelectQuery(sqlSelectQueryLeft);
+            }
+            if (sqlSelectQueryRight != null) {
+                return getSelectQueryBlockFromSqlSelectQuery(sqlSelectQueryRight);
+            }
+        }
+        throw new RuntimeException("无法解析sql！解析出来的sql类型为：" + sqlSelectQuery.getClass());
+    }
+}
@@ -0,0 +1,56 @@
+package com.kanlon.utils;
+
+import lombok.Getter;
+
+/**
+ * 批量翻译中一条sql的翻译结果：成功则有翻译结果，失败则有异常，一条sql失败不影响其他sql
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 04:00
+ **/
+@Getter
+public class SqlTranslateItem {
+
+    /**
+     * sql
+     */
+    private final String sql;
+
+    /**
+     * 翻译结果，失败则为 null
+     */
+    private final SqlTranslateResult result;
+
+    /**
+     * 翻译失败的异常，成功则为 null
+     */
+    private final RuntimeException error;
+
+    SqlTranslateItem(String sql, SqlTranslateResult result, RuntimeException error) {
+        this.sql = sql;
+        this.result = result;
+        this.error = error;
+    }
+
+    /**
+     * 是否翻译成功
+     *
+     * @return boolean
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * 获取翻译结果，失败则抛出翻译时的异常
+     *
+     * @return {@link SqlTranslateResult}
+     * @throws RuntimeException 翻译失败
+     */
+    public SqlTranslateResult get() throws RuntimeException {
+        if (error != null) {
+            throw error;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.dsl.DslLikeStrategy;
+import com.kanlon.utils.dsl.DslLikeTranslator;
+import com.kanlon.utils.schema.EsSchemaCatalog;
+import com.kanlon.utils.trace.SqlTraceListener;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * sql 转 es dsl 的翻译选项，通过 {@link #builder()} 构建，不可变
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 16:05
+ **/
+@Getter
+@Builder(toBuilder = true)
+public class SqlTranslateOptions {
+
+    /**
+     * 默认的翻译选项
+     */
+    public static final SqlTranslateOptions DEFAULT = SqlTranslateOptions.builder().build();
+
+    /**
+     * where 条件生成es查询时的上下文模式，默认为自动（没有按 _score 排序时不计算评分）
+     */
+    @Builder.Default
+    private final QueryContextMode queryContextMode = QueryContextMode.AUTO;
+
+    /**
+     * 是否优化 where 条件（合并范围条件、合并等于条件的 or、去掉重复及恒为真的条件等，见 {@link EsPredicateOptimizer}），默认为是
+     */
+    @Builder.Default
+    private final boolean optimizePredicates = true;
+
+    /**
+     * group by 生成的分组聚合返回的最大桶数，默认为 10000
+     */
+    @Builder.Default
+    private final int aggregationBucketSize = 10000;
+
+    /**
+     * 只有一个 group by 字段时是否也使用 composite 聚合（分组字段基数很大时使用），默认为否（使用 terms 聚合），多个 group by 字段时总是使用 composite 聚合
+     */
+    @Builder.Default
+    private final boolean compositeAggregation = false;
+
+    /**
+     * 游标分页（search_after）时加在排序最后的唯一字段，保证排序值唯一，默认为 _id；
+     * _id 没有 doc_values，排序需要在每个分片加载 fielddata（占用大量堆内存），应指定文档中唯一并且有 doc_values 的字段（例如 keyword 或 long 类型的业务主键），
+     * 使用默认值时 {@link SqlCursorPaginator} 打印警告日志
+     */
+    @Builder.Default
+    private final String cursorTiebreaker = "_id";
+
+    /**
+     * 字段的 like 翻译策略（key 为字段），用于 %abc%、%abc 等以通配符开头的 like，见 {@link DslLikeStrategy}，默认没有配置（使用 wildcard 查询）；
+     * 没有通配符的 like 总是为 term 查询，abc% 总是为 prefix 查询
+     */
+    @Builder.Default
+    private final Map<String, DslLikeStrategy> likeStrategies = Collections.emptyMap();
+
+    /**
+     * like 只能使用以通配符开头的 wildcard 查询时的回调（参数为字段及 like 表达式），默认每个字段打印一次警告日志
+     */
+    @Builder.Default
+    private final BiConsumer<String, String> leadingWildcardHandler = DslLikeTranslator.LOG_LEADING_WILDCARD;
+
+    /**
+     * 索引字段类型的目录，配置后按字段类型翻译：常量转为字段类型的值，text 字段的 term 查询、排序及聚合使用其 keyword 子字段，
+     * 日期字段的非默认格式的字符串（例如 202105081313+0800）设置范围查询的 format；默认为 null（不按类型翻译）
+     */
+    private final EsSchemaCatalog schemaCatalog;
+
+    /**
+     * select 中的列从命中的文档中读取的方式，默认从 _source 中读取，见 {@link ProjectionMode}
+     */
+    @Builder.Default
+    private final ProjectionMode projectionMode = ProjectionMode.SOURCE;
+
+    /**
+     * 调用方对命中总数的需要，默认不设置 track_total_hits；为 {@link TotalHitsIntent#NONE} 时不统计总数，
+     * 并根据sql的结构提前结束查询（没有 order by 的 limit n 设置 terminate_after，order by 与 {@link #indexSorts} 一致时由 es 提前结束），
+     * 生成的设置见 {@link PreparedSqlQuery#hitControl(Object...)}
+     */
+    @Builder.Default
+    private final TotalHitsIntent totalHitsIntent = TotalHitsIntent.DEFAULT;
+
+    /**
+     * 索引的排序（key 为sql中的表名，小写），见 {@link EsIndexSort}；默认没有配置
+     */
+    @Builder.Default
+    private final Map<String, EsIndexSort> indexSorts = Collections.emptyMap();
+
+    /**
+     * 按时间分区的索引的分区规则（key 为sql中的表名，小写），配置后根据 where 条件中分区时间字段的范围只查询有交集的分区的索引，
+     * 见 {@link EsIndexPartition}；默认没有配置
+     */
+    @Builder.Default
+    private final Map<String, EsIndexPartition> indexPartitions = Collections.emptyMap();
+
+    /**
+     * 是否生成规范化的查询（见 {@link com.kanlon.utils.dsl.DslCanonicalizer}），以便逻辑相同的查询命中 es 分片的请求缓存：
+     * _source 的字段按名称排序，bool 的子句及 terms 的值排序，范围查询中的相对时间（now-1h 等）解析为时间戳并按 {@link #timeRounding} 取整，
+     * 不返回文档的查询（计数、聚合及 limit 0）设置 request_cache=true；默认为否
+     */
+    @Builder.Default
+    private final boolean canonical = false;
+
+    /**
+     * 规范化查询时时间的边界取整的粒度，默认为 1 分钟，为 null 或者 0 则不取整
+     */
+    @Builder.Default
+    private final Duration timeRounding = Duration.ofMinutes(1);
+
+    /**
+     * 规范化查询时解析相对时间（now-1h 等）使用的时钟，默认为系统时钟
+     */
+    @Builder.Default
+    private final Clock clock = Clock.systemUTC();
+
+    /**
+     * 翻译及执行的统计的监听器（各阶段的耗时、sql 的指纹、条件数、dsl 的字节数、缓存命中及失败原因），
+     * 例如 {@link com.kanlon.utils.trace.HistogramSqlTraceListener}、{@link com.kanlon.utils.trace.SlowSqlTraceLogger}；默认不统计
+     */
+    @Builder.Default
+    private final SqlTraceListener traceListener = SqlTraceListener.NOOP;
+}
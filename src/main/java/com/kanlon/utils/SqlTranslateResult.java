@@ -0,0 +1,233 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.dsl.DslJsonWriter;
+import com.kanlon.utils.dsl.DslSearchBody;
+import com.kanlon.utils.trace.SqlStage;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * sql 转为 es dsl 的翻译结果（不可变），缓存的就是该对象，对外只返回副本，避免调用方修改缓存的内容
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 11:20
+ **/
+public class SqlTranslateResult {
+
+    /**
+     * 每个线程复用的 json 写入器，避免批量翻译时每条sql都分配缓冲区
+     */
+    private static final ThreadLocal<DslJsonWriter> WRITER = ThreadLocal.withInitial(DslJsonWriter::new);
+
+    /**
+     * 复用的写入器的缓冲区上限，超过则丢弃，避免个别超大的dsl一直占用内存
+     */
+    private static final int MAX_REUSED_WRITER_BYTES = 64 * 1024;
+
+    /**
+     * es 的索引
+     */
+    private final String[] indices;
+
+    /**
+     * 是否有按时间分区的索引（查询时需要忽略不存在的索引）
+     */
+    private final boolean partitioned;
+
+    /**
+     * 是否使用 es 分片的请求缓存（开启规范化并且不返回文档）
+     */
+    private final boolean requestCache;
+
+    /**
+     * 命中总数统计及提前结束的设置
+     */
+    private final EsHitControl hitControl;
+
+    /**
+     * dsl 的json 字节数组（utf-8）
+     */
+    private final byte[] dsl;
+
+    /**
+     * 编译后的查询（不保留sql的语法树），生成 SearchSourceBuilder 时重新绑定，不再翻译sql
+     */
+    private final PreparedSqlQuery query;
+
+    /**
+     * 规范化时是否解析了相对时间（now-1h 等），是则每次读取dsl时重新绑定（否则缓存的dsl中的时间不会变化）
+     */
+    private final boolean timeDependent;
+
+    SqlTranslateResult(SqlTranslateContext context) throws RuntimeException {
+        this.query = PreparedSqlQuery.compileQueryBody(context);
+        List<String> tableNames = context.getTableNames();
+        String[] tableIndices = new String[tableNames.size()];
+        for (int i = 0; i < tableIndices.length; ++i) {
+            tableIndices[i] = tableNames.get(i).toLowerCase();
+        }
+        Map<String, EsIndexPartition> indexPartitions = context.getOptions().getIndexPartitions();
+        this.partitioned = EsIndexResolver.isPartitioned(tableIndices, indexPartitions);
+        this.indices = partitioned ? EsIndexResolver.resolve(tableIndices, query.getPredicates(), null, indexPartitions) : tableIndices;
+        this.requestCache = query.isRequestCache();
+        this.hitControl = query.hitControl();
+        SqlTrace trace = context.getTrace();
+        DslSearchBody body = trace.stage(SqlStage.BUILD, query::bindDsl);
+        this.dsl = trace.stage(SqlStage.SERIALIZE, () -> toJsonBytes(body));
+        trace.dslBytes(dsl.length);
+        trace.finish();
+        this.timeDependent = query.isTimeDependent();
+    }
+
+    /**
+     * 翻译sql
+     *
+     * @param sql sql
+     * @return {@link SqlTranslateResult}
+     * @throws RuntimeException 解析失败则抛出异常
+     */
+    public static SqlTranslateResult translate(String sql) throws RuntimeException {
+        return translate(sql, SqlTranslateOptions.DEFAULT);
+    }
+
+    /**
+     * 翻译sql
+     *
+     * @param sql     sql
+     * @param options 翻译选项
+     * @return {@link SqlTranslateResult}
+     * @throws RuntimeException 解析失败则抛出异常
+     */
+    public static SqlTranslateResult translate(String sql, SqlTranslateOptions options) throws RuntimeException {
+        return new SqlTranslateResult(SqlTranslateContext.parse(sql, options));
+    }
+
+    /**
+     * 在公共的 ForkJoinPool 中并行翻译多条sql，相同的sql只翻译一次
+     *
+     * @param sqls sql
+     * @return 翻译结果，与输入的顺序相同，一条sql失败不影响其他sql
+     */
+    public static List<SqlTranslateItem> translateAll(Collection<String> sqls) {
+        return translateAll(sqls, SqlTranslateOptions.DEFAULT, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 在指定的线程池中并行翻译多条sql，相同的sql只翻译一次
+     *
+     * @param sqls     sql
+     * @param options  翻译选项
+     * @param executor 执行翻译的线程池
+     * @return 翻译结果，与输入的顺序相同，一条sql失败不影响其他sql
+     */
+    public static List<SqlTranslateItem> translateAll(Collection<String> sqls, SqlTranslateOptions options, Executor executor) {
+        return SqlBatchTranslator.translateAll(sqls, sql -> translate(sql, options), executor);
+    }
+
+    /**
+     * 用当前线程复用的写入器序列化dsl
+     *
+     * @param body 查询体
+     * @return dsl的json字节数组
+     */
+    private static byte[] toJsonBytes(DslSearchBody body) {
+        DslJsonWriter writer = WRITER.get().reset();
+        body.writeTo(writer);
+        byte[] bytes = writer.toByteArray();
+        if (bytes.length > MAX_REUSED_WRITER_BYTES) {
+            WRITER.remove();
+        }
+        return bytes;
+    }
+
+    /**
+     * 获取dsl的json字节数组，有相对时间的规范化查询按当前时间重新生成
+     *
+     * @return dsl的json字节数组（不能修改）
+     */
+    private byte[] dsl() {
+        return timeDependent ? toJsonBytes(query.bindDsl()) : dsl;
+    }
+
+    /**
+     * 获取dsl的json字节数组的副本
+     *
+     * @return dsl的json字节数组
+     */
+    public byte[] getDslBytes() {
+        return timeDependent ? dsl() : dsl.clone();
+    }
+
+    /**
+     * dsl的json字节数长度
+     *
+     * @return 字节数
+     */
+    public int getDslLength() {
+        return dsl().length;
+    }
+
+    /**
+     * 获取dsl的json字符串
+     *
+     * @return dsl的json字符串
+     */
+    public String getDslString() {
+        return new String(dsl(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 将dsl的json直接写入到输出流中（不复制字节数组）
+     *
+     * @param outputStream 输出流
+     * @throws IOException 写入失败
+     */
+    public void writeDslTo(OutputStream outputStream) throws IOException {
+        outputStream.write(dsl());
+    }
+
+    /**
+     * 获取索引的副本，按时间分区的索引为裁剪后的分区的索引
+     *
+     * @return 索引
+     */
+    public String[] getIndices() {
+        return indices.clone();
+    }
+
+    /**
+     * 获取根据sql的结构及调用方对命中总数的需要决定的命中总数统计及提前结束的设置，已包含在 dsl 中
+     *
+     * @return {@link EsHitControl}
+     */
+    public EsHitControl getHitControl() {
+        return hitControl;
+    }
+
+    /**
+     * 由编译后的查询绑定生成一个新的 SearchSourceBuilder（不再解析及翻译sql），调用方可以随意修改
+     *
+     * @return {@link SearchSourceBuilder}
+     */
+    public SearchSourceBuilder toSearchSourceBuilder() throws RuntimeException {
+        return EsDslAdapter.toSearchSourceBuilder(query.bindDsl());
+    }
+
+    /**
+     * 生成一个新的 es 查询对象，调用方可以随意修改
+     *
+     * @return {@link SearchRequest}
+     */
+    public SearchRequest toSearchRequest() throws RuntimeException {
+        return EsDslAdapter.toSearchRequest(getIndices(), partitioned, requestCache, toSearchSourceBuilder());
+    }
+}
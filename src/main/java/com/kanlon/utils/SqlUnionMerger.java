@@ -0,0 +1,179 @@
+package com.kanlon.utils;
+
+import com.kanlon.utils.dsl.DslSortOrder;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.search.SearchHit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * union all 批量查询（_msearch）结果的合并：各个查询的结果已按 order by 排好序，按排序值多路归并后再按 limit 分页
+ * <p>
+ * 没有 order by 时按 union all 中查询的顺序拼接
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 21:10
+ **/
+public class SqlUnionMerger {
+
+    private SqlUnionMerger() {}
+
+    /**
+     * 合并批量查询的命中结果
+     *
+     * @param query    查询模板
+     * @param response 批量查询的结果（{@link EsDslAdapter#bindMultiSearchRequest(PreparedSqlQuery, Object...)} 的查询结果）
+     * @param params   绑定的参数，按照sql中 ? 出现的顺序
+     * @return 合并、分页后的命中结果
+     * @throws RuntimeException 其中一个查询失败
+     */
+    public static List<SearchHit> mergeHits(PreparedSqlQuery query, MultiSearchResponse response, Object... params) throws RuntimeException {
+        List<List<SearchHit>> hitsList = new ArrayList<>(response.getResponses().length);
+        for (MultiSearchResponse.Item item : response.getResponses()) {
+            if (item.isFailure()) {
+                throw new RuntimeException("查询失败！" + item.getFailureMessage(), item.getFailure());
+            }
+            hitsList.add(Arrays.asList(item.getResponse().getHits().getHits()));
+        }
+        return merge(query, hitsList, SearchHit::getSortValues, params);
+    }
+
+    /**
+     * 合并各个查询的结果，并按照 limit 分页
+     *
+     * @param query      查询模板
+     * @param sortedList 各个查询的结果（已按 order by 排序）
+     * @param sortValues 获取一条结果的排序值
+     * @param params     绑定的参数
+     * @param <T>        结果的类型
+     * @return 合并、分页后的结果
+     */
+    static <T> List<T> merge(PreparedSqlQuery query, List<List<T>> sortedList, Function<T, Object[]> sortValues, Object[] params) {
+        int from = 0;
+        int size = Integer.MAX_VALUE;
+        if (query.getFrom() != null) {
+            from = PreparedSqlQuery.toInt(query.getFrom().resolve(params));
+            size = PreparedSqlQuery.toInt(query.getSize().resolve(params));
+        }
+        List<T> merged = query.getSorts().isEmpty() ? concat(sortedList, from + (long) size) : mergeSorted(sortedList, query.getSorts(), sortValues, from + (long) size);
+        if (from >= merged.size()) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(merged.subList(from, (int) Math.min(merged.size(), from + (long) size)));
+    }
+
+    /**
+     * 按顺序拼接
+     *
+     * @param lists 各个查询的结果
+     * @param limit 最多需要的条数
+     * @param <T>   结果的类型
+     * @return 拼接后的结果
+     */
+    private static <T> List<T> concat(List<List<T>> lists, long limit) {
+        List<T> result = new ArrayList<>();
+        for (List<T> list : lists) {
+            for (T item : list) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 多路归并：每次取各个查询当前最小（按排序）的一条，相同时先取前面的查询的
+     *
+     * @param lists      各个查询的结果（已排序）
+     * @param sorts      排序字段及其顺序
+     * @param sortValues 获取一条结果的排序值
+     * @param limit      最多需要的条数
+     * @param <T>        结果的类型
+     * @return 归并后的结果
+     */
+    private static <T> List<T> mergeSorted(List<List<T>> lists, List<Map.Entry<String, DslSortOrder>> sorts, Function<T, Object[]> sortValues, long limit) {
+        Comparator<Object[]> sortComparator = sortValuesComparator(sorts);
+        // 数组中为：第几个查询、当前的位置
+        PriorityQueue<int[]> queue = new PriorityQueue<>(Math.max(1, lists.size()), (left, right) -> {
+            int cmp = sortComparator.compare(sortValues.apply(lists.get(left[0]).get(left[1])), sortValues.apply(lists.get(right[0]).get(right[1])));
+            return cmp != 0 ? cmp : Integer.compare(left[0], right[0]);
+        });
+        for (int i = 0; i < lists.size(); ++i) {
+            if (!lists.get(i).isEmpty()) {
+                queue.add(new int[]{i, 0});
+            }
+        }
+        List<T> result = new ArrayList<>();
+        while (!queue.isEmpty() && result.size() < limit) {
+            int[] cursor = queue.poll();
+            List<T> list = lists.get(cursor[0]);
+            result.add(list.get(cursor[1]));
+            if (++cursor[1] < list.size()) {
+                queue.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 排序值的比较器，值为空的排在最后（与 es 默认的 missing 为 _last 一致）
+     *
+     * @param sorts 排序字段及其顺序
+     * @return 比较器
+     */
+    static Comparator<Object[]> sortValuesComparator(List<Map.Entry<String, DslSortOrder>> sorts) {
+        return (left, right) -> {
+            for (int i = 0; i < sorts.size(); ++i) {
+                Object leftValue = left == null || i >= left.length ? null : left[i];
+                Object rightValue = right == null || i >= right.length ? null : right[i];
+                int cmp;
+                if (leftValue == null || rightValue == null) {
+                    cmp = leftValue == null ? (rightValue == null ? 0 : 1) : -1;
+                } else {
+                    cmp = compareValue(leftValue, rightValue);
+                    if (sorts.get(i).getValue() == DslSortOrder.DESC) {
+                        cmp = -cmp;
+                    }
+                }
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * 比较两个排序值：都为整数时按 long 比较，都为数字时按 double 比较，否则按字符串比较
+     *
+     * @param left  排序值
+     * @param right 排序值
+     * @return 比较结果
+     */
+    @SuppressWarnings("unchecked")
+    static int compareValue(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            if (isIntegral(left) && isIntegral(right)) {
+                return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+            }
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        if (left instanceof Comparable && left.getClass() == right.getClass()) {
+            return ((Comparable<Object>) left).compareTo(right);
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+}
@@ -0,0 +1,203 @@
+package com.kanlon.utils;
+
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBetweenExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOperator;
+import com.alibaba.druid.sql.ast.expr.SQLInListExpr;
+import com.alibaba.druid.sql.ast.expr.SQLLiteralExpr;
+import com.alibaba.druid.sql.ast.expr.SQLNullExpr;
+import com.alibaba.druid.sql.ast.expr.SQLNumericLiteralExpr;
+import com.alibaba.druid.sql.ast.expr.SQLVariantRefExpr;
+import com.kanlon.utils.predicate.EsBoolPredicate;
+import com.kanlon.utils.predicate.EsLikePredicate;
+import com.kanlon.utils.predicate.EsPredicate;
+import com.kanlon.utils.predicate.EsRangePredicate;
+import com.kanlon.utils.predicate.EsScript;
+import com.kanlon.utils.predicate.EsScriptPredicate;
+import com.kanlon.utils.predicate.EsTermPredicate;
+import com.kanlon.utils.predicate.EsTermsPredicate;
+import com.kanlon.utils.predicate.EsValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.kanlon.utils.SQLToEsDSLUtils.toEsQueryString;
+
+/**
+ * 将sql where 条件的语法树解析为es查询条件 {@link EsPredicate}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 13:40
+ **/
+public class SqlWherePredicateParser {
+
+    private SqlWherePredicateParser() {}
+
+    /**
+     * 解析 where 条件
+     *
+     * @param whereSqlExpr where 条件
+     * @return es查询条件（之间为 and 关系），按照sql中出现的顺序，or 条件为 {@link EsBoolPredicate}
+     */
+    public static List<EsPredicate> parse(SQLExpr whereSqlExpr) {
+        List<EsPredicate> predicates = new ArrayList<>();
+        parse(whereSqlExpr, predicates);
+        return predicates;
+    }
+
+    /**
+     * sql 中的值转为条件的值，? 转为参数占位符，其他的转为es查询字符串（没有引号的数字标记为数字常量）
+     *
+     * @param sqlExpr sql expr
+     * @return {@link EsValue}
+     */
+    public static EsValue toEsValue(SQLExpr sqlExpr) {
+        if (sqlExpr instanceof SQLVariantRefExpr && "?".equals(((SQLVariantRefExpr) sqlExpr).getName())) {
+            return EsValue.param(((SQLVariantRefExpr) sqlExpr).getIndex());
+        }
+        if (sqlExpr instanceof SQLNumericLiteralExpr) {
+            return EsValue.number(toEsQueryString(sqlExpr));
+        }
+        return EsValue.constant(toEsQueryString(sqlExpr));
+    }
+
+    /**
+     * 根据sql  where 条件SQLExpr解析es查询条件
+     *
+     * @param whereSqlExpr 在sql expr
+     * @param predicates   解析出来的条件
+     */
+    private static void parse(SQLExpr whereSqlExpr, List<EsPredicate> predicates) {
+        if (whereSqlExpr == null) {
+            return;
+        }
+        // 只有是属于这三个对象的才能获取到条件
+        if (!canGetCondition(whereSqlExpr)) {
+            return;
+        }
+        if (whereSqlExpr instanceof SQLBinaryOpExpr) {
+            SQLBinaryOpExpr sqlBinaryOpExpr = (SQLBinaryOpExpr) whereSqlExpr;
+            SQLExpr sqlExprLeft = sqlBinaryOpExpr.getLeft();
+            SQLExpr sqlExprRight = sqlBinaryOpExpr.getRight();
+            if (SQLBinaryOperator.BooleanOr == sqlBinaryOpExpr.getOperator()) {
+                // or 的两边各自作为一个子条件，解析不出条件的一边视为恒为真
+                List<EsPredicate> children = new ArrayList<>(2);
+                children.add(parseGroup(sqlExprLeft));
+                children.add(parseGroup(sqlExprRight));
+                predicates.add(EsBoolPredicate.or(children));
+                return;
+            }
+            // 计算表达式的比较（例如 price * qty > 100）编译为脚本查询
+            if (SqlScriptCompiler.isComparison(sqlBinaryOpExpr.getOperator())
+                    && (SqlScriptCompiler.isComputed(sqlExprLeft) || SqlScriptCompiler.isComputed(sqlExprRight))) {
+                EsScript script = SqlScriptCompiler.compileFilter(sqlBinaryOpExpr);
+                if (script != null) {
+                    predicates.add(new EsScriptPredicate(script));
+                    return;
+                }
+            }
+            boolean leftCanGetCondition = canGetCondition(sqlExprLeft);
+            boolean rightCanGetCondition = canGetCondition(sqlExprRight);
+            // 只有左右都不是能分解的才能加上条件
+            if (!leftCanGetCondition && !rightCanGetCondition) {
+                if (isTautology(sqlBinaryOpExpr)) {
+                    predicates.add(EsBoolPredicate.matchAll());
+                    return;
+                }
+                EsPredicate predicate = toComparePredicate(sqlBinaryOpExpr.getOperator(), toEsQueryString(sqlExprLeft), toEsValue(sqlExprRight));
+                if (predicate != null) {
+                    predicates.add(predicate);
+                }
+            }
+            if (leftCanGetCondition) {
+                parse(sqlExprLeft, predicates);
+            }
+            if (rightCanGetCondition) {
+                parse(sqlExprRight, predicates);
+            }
+        } else if (whereSqlExpr instanceof SQLInListExpr) {
+            SQLInListExpr sqlInListExpr = (SQLInListExpr) whereSqlExpr;
+            List<SQLExpr> sqlExprs = sqlInListExpr.getTargetList();
+            List<EsValue> inList = new ArrayList<>(sqlExprs.size());
+            for (SQLExpr sqlExpr : sqlExprs) {
+                inList.add(toEsValue(sqlExpr));
+            }
+            predicates.add(new EsTermsPredicate(toEsQueryString(sqlInListExpr.getExpr()), inList, sqlInListExpr.isNot()));
+        } else {
+            // 这里一定为 SQLBetweenExpr 的，不然不会到这里
+            SQLBetweenExpr sqlBetweenExpr = (SQLBetweenExpr) whereSqlExpr;
+            if (SqlScriptCompiler.isComputed(sqlBetweenExpr.getTestExpr())) {
+                EsScript script = SqlScriptCompiler.compileFilter(sqlBetweenExpr);
+                if (script != null) {
+                    predicates.add(new EsScriptPredicate(script));
+                    return;
+                }
+            }
+            predicates.add(new EsRangePredicate(toEsQueryString(sqlBetweenExpr.getTestExpr()), toEsValue(sqlBetweenExpr.getBeginExpr()), toEsValue(sqlBetweenExpr.getEndExpr()), true, true));
+        }
+    }
+
+    /**
+     * 解析 or 的一边，多个条件则组合为 and 条件
+     *
+     * @param sqlExpr sql expr
+     * @return es查询条件
+     */
+    private static EsPredicate parseGroup(SQLExpr sqlExpr) {
+        List<EsPredicate> predicates = new ArrayList<>();
+        parse(sqlExpr, predicates);
+        return predicates.size() == 1 ? predicates.get(0) : EsBoolPredicate.and(predicates);
+    }
+
+    /**
+     * 是否为恒为真的比较，例如：1 = 1，'a' = 'a'（null = null 不为真）
+     *
+     * @param sqlBinaryOpExpr 比较表达式
+     * @return boolean
+     */
+    private static boolean isTautology(SQLBinaryOpExpr sqlBinaryOpExpr) {
+        SQLExpr sqlExprLeft = sqlBinaryOpExpr.getLeft();
+        SQLExpr sqlExprRight = sqlBinaryOpExpr.getRight();
+        return SQLBinaryOperator.Equality == sqlBinaryOpExpr.getOperator()
+                && sqlExprLeft instanceof SQLLiteralExpr && sqlExprRight instanceof SQLLiteralExpr
+                && sqlExprLeft.getClass() == sqlExprRight.getClass() && !(sqlExprLeft instanceof SQLNullExpr)
+                && Objects.equals(toEsQueryString(sqlExprLeft), toEsQueryString(sqlExprRight));
+    }
+
+    /**
+     * 比较运算转为es查询条件
+     *
+     * @param operator 运算符
+     * @param field    字段
+     * @param value    值
+     * @return 不支持的运算符则返回 null
+     */
+    private static EsPredicate toComparePredicate(SQLBinaryOperator operator, String field, EsValue value) {
+        if (SQLBinaryOperator.Equality == operator) {
+            return new EsTermPredicate(field, value);
+        } else if (SQLBinaryOperator.GreaterThan == operator) {
+            return new EsRangePredicate(field, value, null, false, true);
+        } else if (SQLBinaryOperator.GreaterThanOrEqual == operator) {
+            return new EsRangePredicate(field, value, null, true, true);
+        } else if (SQLBinaryOperator.LessThanOrEqual == operator) {
+            return new EsRangePredicate(field, null, value, true, true);
+        } else if (SQLBinaryOperator.LessThan == operator) {
+            return new EsRangePredicate(field, null, value, true, false);
+        } else if (SQLBinaryOperator.Like == operator) {
+            return new EsLikePredicate(field, value);
+        }
+        return null;
+    }
+
+    /**
+     * 是否为可以分解出条件的表达式
+     *
+     * @param sqlExpr sql expr
+     * @return boolean
+     */
+    private static boolean canGetCondition(SQLExpr sqlExpr) {
+        return sqlExpr instanceof SQLBinaryOpExpr || sqlExpr instanceof SQLInListExpr || sqlExpr instanceof SQLBetweenExpr;
+    }
+}
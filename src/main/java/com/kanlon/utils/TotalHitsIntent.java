@@ -0,0 +1,23 @@
+package com.kanlon.utils;
+
+/**
+ * 调用方对命中总数的需要，与sql的结构一起决定查询的 track_total_hits 及提前结束的方式，见 {@link EsHitControl}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:00
+ **/
+public enum TotalHitsIntent {
+    /**
+     * 默认：不设置 track_total_hits（es 7 默认最多统计到 10000），计数sql及没有分组的 count(1) 统计准确的总数
+     */
+    DEFAULT,
+    /**
+     * 不需要命中总数（例如 limit 1 判断是否存在、不显示总数的前 N 条列表）：不统计总数，
+     * 没有 order by 的 limit n 每个分片收集到 偏移量+条数 个文档后提前结束，order by 与索引排序一致时 es 也可以提前结束
+     */
+    NONE,
+    /**
+     * 需要准确的命中总数：统计准确的总数
+     */
+    ACCURATE
+}
@@ -0,0 +1,103 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * es 聚合的 dsl 模型（不依赖 es）：{"名称":{"类型":{参数...},"aggregations":{子聚合...}}}，参数按添加的顺序输出，没有子聚合则不输出 aggregations
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+@Getter
+public class DslAggregation {
+
+    /**
+     * 聚合名称
+     */
+    private final String name;
+
+    /**
+     * 聚合类型，例如 terms、sum
+     */
+    private final String type;
+
+    /**
+     * 聚合的参数，值可以为 map、集合等，见 {@link DslJsonWriter#value(Object)}
+     */
+    private final Map<String, Object> params = new LinkedHashMap<>();
+
+    /**
+     * 子聚合（包括 pipeline 聚合）
+     */
+    private final List<DslAggregation> subAggregations = new ArrayList<>();
+
+    public DslAggregation(String name, String type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * 添加参数
+     *
+     * @param key   参数名
+     * @param value 参数值
+     * @return this
+     */
+    public DslAggregation param(String key, Object value) {
+        params.put(key, value);
+        return this;
+    }
+
+    /**
+     * 添加子聚合
+     *
+     * @param subAggregation 子聚合
+     * @return this
+     */
+    public DslAggregation subAggregation(DslAggregation subAggregation) {
+        subAggregations.add(subAggregation);
+        return this;
+    }
+
+    public Map<String, Object> getParams() {
+        return Collections.unmodifiableMap(params);
+    }
+
+    public List<DslAggregation> getSubAggregations() {
+        return Collections.unmodifiableList(subAggregations);
+    }
+
+    /**
+     * 写入聚合，当前位置为 aggregations 对象中
+     *
+     * @param writer json 写入器
+     */
+    public void writeTo(DslJsonWriter writer) {
+        writer.field(name).startObject().field(type, params);
+        writeAggregations(writer, subAggregations);
+        writer.endObject();
+    }
+
+    /**
+     * 写入 aggregations 字段，没有聚合则不写入
+     *
+     * @param writer       json 写入器
+     * @param aggregations 聚合
+     */
+    static void writeAggregations(DslJsonWriter writer, List<DslAggregation> aggregations) {
+        if (aggregations.isEmpty()) {
+            return;
+        }
+        writer.field("aggregations").startObject();
+        for (DslAggregation aggregation : aggregations) {
+            aggregation.writeTo(writer);
+        }
+        writer.endObject();
+    }
+}
@@ -0,0 +1,92 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * bool 查询：{"bool":{"must":[...],"filter":[...],"must_not":[...],"should":[...],"adjust_pure_negative":true,"minimum_should_match":"1","boost":1.0}}，
+ * 没有的子句不输出
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+@Getter
+public class DslBoolQuery extends DslQuery {
+
+    private final List<DslQuery> must = new ArrayList<>();
+
+    private final List<DslQuery> filter = new ArrayList<>();
+
+    private final List<DslQuery> mustNot = new ArrayList<>();
+
+    private final List<DslQuery> should = new ArrayList<>();
+
+    /**
+     * should 子句最少匹配的个数，没有则为 null
+     */
+    private String minimumShouldMatch;
+
+    public DslBoolQuery must(DslQuery query) {
+        must.add(query);
+        return this;
+    }
+
+    public DslBoolQuery filter(DslQuery query) {
+        filter.add(query);
+        return this;
+    }
+
+    public DslBoolQuery mustNot(DslQuery query) {
+        mustNot.add(query);
+        return this;
+    }
+
+    public DslBoolQuery should(DslQuery query) {
+        should.add(query);
+        return this;
+    }
+
+    public DslBoolQuery minimumShouldMatch(int minimumShouldMatch) {
+        this.minimumShouldMatch = Integer.toString(minimumShouldMatch);
+        return this;
+    }
+
+    /**
+     * 是否有子句
+     *
+     * @return boolean
+     */
+    public boolean hasClauses() {
+        return !(must.isEmpty() && filter.isEmpty() && mustNot.isEmpty() && should.isEmpty());
+    }
+
+    @Override
+    public String getName() {
+        return "bool";
+    }
+
+    @Override
+    protected void writeBody(DslJsonWriter writer) {
+        writeClauses(writer, "must", must);
+        writeClauses(writer, "filter", filter);
+        writeClauses(writer, "must_not", mustNot);
+        writeClauses(writer, "should", should);
+        writer.field("adjust_pure_negative", true);
+        if (minimumShouldMatch != null) {
+            writer.field("minimum_should_match", minimumShouldMatch);
+        }
+    }
+
+    private static void writeClauses(DslJsonWriter writer, String name, List<DslQuery> clauses) {
+        if (clauses.isEmpty()) {
+            return;
+        }
+        writer.field(name).startArray();
+        for (DslQuery clause : clauses) {
+            clause.writeTo(writer);
+        }
+        writer.endArray();
+    }
+}
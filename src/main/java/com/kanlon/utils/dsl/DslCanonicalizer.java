@@ -0,0 +1,252 @@
+package com.kanlon.utils.dsl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 查询的规范化（不依赖 es）：逻辑相同的查询生成字节完全相同的json，以便命中 es 分片的请求缓存（request cache 按请求体的字节缓存）
+ * <ul>
+ *     <li>bool 的各个子句按其json排序，terms 的值去重并排序</li>
+ *     <li>范围查询中的相对时间（es 的 date math，例如 now-1h、now/d）在客户端解析为毫秒时间戳，并设置 format 为 epoch_millis，
+ *     带 now 的查询 es 不会缓存</li>
+ *     <li>相对时间及 {@link Date} 类型的边界按粒度取整：下界向下取整，上界向上取整（范围只会变大），同一粒度内的多次查询生成相同的json</li>
+ * </ul>
+ * 不修改原查询，返回新的查询
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 03:00
+ **/
+public final class DslCanonicalizer {
+
+    /**
+     * 相对时间解析后的格式
+     */
+    public static final String EPOCH_MILLIS_FORMAT = "epoch_millis";
+
+    /**
+     * 相对时间的开头
+     */
+    private static final String NOW = "now";
+
+    /**
+     * date math 中的一个运算：加减时间或者取整到时间单位
+     */
+    private static final Pattern DATE_MATH_OPERATION = Pattern.compile("([+-])(\\d+)([yMwdhHms])|/([yMwdhHms])");
+
+    /**
+     * 子句的排序：按查询的json
+     */
+    private static final Comparator<DslQuery> CLAUSE_ORDER = Comparator.comparing(DslQuery::toString);
+
+    /**
+     * 时间取整的粒度（毫秒），小于等于 0 则不取整
+     */
+    private final long roundingMillis;
+
+    /**
+     * 解析相对时间使用的时钟
+     */
+    private final Clock clock;
+
+    /**
+     * 构造方法
+     *
+     * @param rounding 时间取整的粒度，为 null 或者不大于 0 则不取整
+     * @param clock    解析相对时间使用的时钟
+     */
+    public DslCanonicalizer(Duration rounding, Clock clock) {
+        this.roundingMillis = rounding == null ? 0 : rounding.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * 值是否为相对时间（以 now 开头），规范化时按当前时间解析，结果随时间变化
+     *
+     * @param value 值
+     * @return boolean
+     */
+    public static boolean isRelativeTime(Object value) {
+        return value instanceof String && ((String) value).trim().startsWith(NOW);
+    }
+
+    /**
+     * 规范化查询
+     *
+     * @param query 查询
+     * @return 规范化后的查询
+     */
+    public DslQuery canonicalize(DslQuery query) {
+        if (query instanceof DslBoolQuery) {
+            return canonicalizeBool((DslBoolQuery) query);
+        }
+        if (query instanceof DslConstantScoreQuery) {
+            return DslQueries.constantScoreQuery(canonicalize(((DslConstantScoreQuery) query).getFilter()));
+        }
+        if (query instanceof DslTermsQuery) {
+            DslTermsQuery termsQuery = (DslTermsQuery) query;
+            return DslQueries.termsQuery(termsQuery.getField(), termsQuery.getValues().stream().distinct()
+                    .sorted(Comparator.comparing(String::valueOf)).collect(Collectors.toList()));
+        }
+        if (query instanceof DslRangeQuery) {
+            return canonicalizeRange((DslRangeQuery) query);
+        }
+        return query;
+    }
+
+    /**
+     * 规范化 bool 查询：各个子句规范化后按json排序
+     *
+     * @param boolQuery bool 查询
+     * @return 规范化后的查询
+     */
+    private DslBoolQuery canonicalizeBool(DslBoolQuery boolQuery) {
+        DslBoolQuery canonical = DslQueries.boolQuery();
+        canonicalizeClauses(boolQuery.getMust()).forEach(canonical::must);
+        canonicalizeClauses(boolQuery.getFilter()).forEach(canonical::filter);
+        canonicalizeClauses(boolQuery.getMustNot()).forEach(canonical::mustNot);
+        canonicalizeClauses(boolQuery.getShould()).forEach(canonical::should);
+        if (boolQuery.getMinimumShouldMatch() != null) {
+            canonical.minimumShouldMatch(Integer.parseInt(boolQuery.getMinimumShouldMatch()));
+        }
+        return canonical;
+    }
+
+    private List<DslQuery> canonicalizeClauses(List<DslQuery> clauses) {
+        List<DslQuery> canonicalClauses = new ArrayList<>(clauses.size());
+        for (DslQuery clause : clauses) {
+            canonicalClauses.add(canonicalize(clause));
+        }
+        canonicalClauses.sort(CLAUSE_ORDER);
+        return canonicalClauses;
+    }
+
+    /**
+     * 规范化范围查询：解析相对时间，时间的边界按粒度取整
+     *
+     * @param rangeQuery 范围查询
+     * @return 规范化后的查询
+     */
+    private DslRangeQuery canonicalizeRange(DslRangeQuery rangeQuery) {
+        Object from = rangeQuery.getFrom();
+        Object to = rangeQuery.getTo();
+        String format = rangeQuery.getFormat();
+        Long fromMillis = resolveNow(from, false, rangeQuery.isIncludeLower());
+        Long toMillis = resolveNow(to, true, rangeQuery.isIncludeUpper());
+        // 其他边界不是时间戳时不能设置 epoch_millis 格式
+        if ((fromMillis != null || toMillis != null) && format == null && (fromMillis != null || from == null || from instanceof Date)
+                && (toMillis != null || to == null || to instanceof Date)) {
+            from = fromMillis != null ? fromMillis : toMillis(from, false);
+            to = toMillis != null ? toMillis : toMillis(to, true);
+            format = EPOCH_MILLIS_FORMAT;
+        } else {
+            from = from instanceof Date ? new Date(round(((Date) from).getTime(), false)) : from;
+            to = to instanceof Date ? new Date(round(((Date) to).getTime(), true)) : to;
+        }
+        return DslQueries.rangeQuery(rangeQuery.getField()).from(from, rangeQuery.isIncludeLower()).to(to, rangeQuery.isIncludeUpper()).format(format);
+    }
+
+    private Long toMillis(Object value, boolean upper) {
+        return value == null ? null : round(((Date) value).getTime(), upper);
+    }
+
+    /**
+     * 解析相对时间，例如 now-1h、now/d、now-1d/d，规则与 es 相同：/ 取整时，包含的上界及不包含的下界取到时间单位的最后一毫秒，其他取到时间单位的开始；
+     * 没有 / 取整时按粒度取整
+     *
+     * @param value     边界的值
+     * @param upper     是否为上界
+     * @param inclusive 是否包含边界
+     * @return 毫秒时间戳，不是相对时间则为 null
+     */
+    private Long resolveNow(Object value, boolean upper, boolean inclusive) {
+        if (!(value instanceof String)) {
+            return null;
+        }
+        String text = ((String) value).trim();
+        if (!text.startsWith(NOW)) {
+            return null;
+        }
+        ZonedDateTime time = ZonedDateTime.now(clock).withZoneSameInstant(ZoneOffset.UTC);
+        boolean roundUp = upper == inclusive;
+        boolean unitRounded = false;
+        Matcher matcher = DATE_MATH_OPERATION.matcher(text);
+        int position = NOW.length();
+        while (position < text.length()) {
+            if (!matcher.find(position) || matcher.start() != position) {
+                return null;
+            }
+            if (matcher.group(4) != null) {
+                time = truncate(time, matcher.group(4).charAt(0));
+                if (roundUp) {
+                    time = time.plus(1, unit(matcher.group(4).charAt(0))).minus(1, ChronoUnit.MILLIS);
+                }
+                unitRounded = true;
+            } else {
+                long amount = Long.parseLong(matcher.group(2));
+                time = time.plus("-".equals(matcher.group(1)) ? -amount : amount, unit(matcher.group(3).charAt(0)));
+                unitRounded = false;
+            }
+            position = matcher.end();
+        }
+        long millis = time.toInstant().toEpochMilli();
+        return unitRounded ? millis : round(millis, upper);
+    }
+
+    /**
+     * 时间按粒度取整
+     *
+     * @param millis 毫秒时间戳
+     * @param up     是否向上取整
+     * @return 取整后的毫秒时间戳
+     */
+    private long round(long millis, boolean up) {
+        if (roundingMillis <= 0) {
+            return millis;
+        }
+        long floor = Math.floorDiv(millis, roundingMillis) * roundingMillis;
+        return up && floor != millis ? floor + roundingMillis : floor;
+    }
+
+    private static ChronoUnit unit(char unit) {
+        switch (unit) {
+            case 'y':
+                return ChronoUnit.YEARS;
+            case 'M':
+                return ChronoUnit.MONTHS;
+            case 'w':
+                return ChronoUnit.WEEKS;
+            case 'd':
+                return ChronoUnit.DAYS;
+            case 'h':
+            case 'H':
+                return ChronoUnit.HOURS;
+            case 'm':
+                return ChronoUnit.MINUTES;
+            default:
+                return ChronoUnit.SECONDS;
+        }
+    }
+
+    private static ZonedDateTime truncate(ZonedDateTime time, char unit) {
+        switch (unit) {
+            case 'y':
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+            case 'M':
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            case 'w':
+                return time.truncatedTo(ChronoUnit.DAYS).minusDays(time.getDayOfWeek().getValue() - 1L);
+            default:
+                return time.truncatedTo(unit(unit));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+/**
+ * constant_score 查询：{"constant_score":{"filter":{...},"boost":1.0}}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+@Getter
+public class DslConstantScoreQuery extends DslQuery {
+
+    private final DslQuery filter;
+
+    public DslConstantScoreQuery(DslQuery filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public String getName() {
+        return "constant_score";
+    }
+
+    @Override
+    protected void writeBody(DslJsonWriter writer) {
+        writer.field("filter");
+        filter.writeTo(writer);
+    }
+}
@@ -0,0 +1,26 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+/**
+ * 参数写在字段对象中的查询（例如 term、range）：{"名称":{"字段":{...,"boost":1.0}}}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+@Getter
+public abstract class DslFieldQuery extends DslQuery {
+
+    private final String field;
+
+    protected DslFieldQuery(String field) {
+        this.field = field;
+    }
+
+    @Override
+    public void writeTo(DslJsonWriter writer) {
+        writer.startObject().field(getName()).startObject().field(field).startObject();
+        writeBody(writer);
+        writer.field("boost", DEFAULT_BOOST).endObject().endObject().endObject();
+    }
+}
@@ -0,0 +1,388 @@
+package com.kanlon.utils.dsl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * 轻量的 json 写入器（非线程安全，不依赖 es 及 jackson），直接写入 utf-8 字节，输出为紧凑的json（没有空白），
+ * 字符串的转义及数字的格式与 es 的 XContentBuilder 一致，生成的 dsl 与 SearchSourceBuilder#toString() 相同
+ * <p>
+ * 写入器可以通过 {@link #reset()} 复用，避免每次分配缓冲区
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+public final class DslJsonWriter {
+
+    /**
+     * 最大的嵌套层数
+     */
+    private static final int MAX_DEPTH = 256;
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 日期的格式，与 es 的 strict_date_optional_time 一致（utc）
+     */
+    private static final ThreadLocal<SimpleDateFormat> DATE_FORMAT = ThreadLocal.withInitial(() -> {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return dateFormat;
+    });
+
+    private byte[] buffer;
+
+    private int count;
+
+    /**
+     * 每一层是否已经有元素（决定是否需要写逗号），最多嵌套 {@link #MAX_DEPTH} 层
+     */
+    private final boolean[] hasElement = new boolean[MAX_DEPTH];
+
+    /**
+     * 当前的嵌套层数
+     */
+    private int depth;
+
+    /**
+     * 刚写完字段名，下一个值不需要逗号
+     */
+    private boolean afterField;
+
+    public DslJsonWriter() {
+        this(512);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param initialCapacity 初始的缓冲区大小
+     */
+    public DslJsonWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * 清空已写入的内容，复用缓冲区
+     *
+     * @return this
+     */
+    public DslJsonWriter reset() {
+        count = 0;
+        depth = 0;
+        afterField = false;
+        hasElement[0] = false;
+        return this;
+    }
+
+    public DslJsonWriter startObject() {
+        beforeValue();
+        writeByte('{');
+        push();
+        return this;
+    }
+
+    public DslJsonWriter endObject() {
+        pop();
+        writeByte('}');
+        return this;
+    }
+
+    public DslJsonWriter startArray() {
+        beforeValue();
+        writeByte('[');
+        push();
+        return this;
+    }
+
+    public DslJsonWriter endArray() {
+        pop();
+        writeByte(']');
+        return this;
+    }
+
+    /**
+     * 写入字段名，之后必须写入一个值
+     *
+     * @param name 字段名
+     * @return this
+     */
+    public DslJsonWriter field(String name) {
+        beforeValue();
+        writeString(name);
+        writeByte(':');
+        afterField = true;
+        return this;
+    }
+
+    /**
+     * 写入字段名及值
+     *
+     * @param name  字段名
+     * @param value 值，见 {@link #value(Object)}
+     * @return this
+     */
+    public DslJsonWriter field(String name, Object value) {
+        return field(name).value(value);
+    }
+
+    /**
+     * 写入值：字符串、数字、布尔、null、日期（utc 的 iso 格式）、map（对象）、集合及数组（数组），其他类型写入 toString() 的字符串
+     *
+     * @param value 值
+     * @return this
+     */
+    public DslJsonWriter value(Object value) {
+        if (value == null) {
+            beforeValue();
+            writeBytes(NULL);
+        } else if (value instanceof String) {
+            beforeValue();
+            writeString((String) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            beforeValue();
+            double doubleValue = ((Number) value).doubleValue();
+            // NaN 及无穷大不是合法的json数字，与 jackson 一样写为字符串
+            if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+                writeString(value.toString());
+            } else {
+                writeAscii(value.toString());
+            }
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger || value instanceof BigDecimal) {
+            beforeValue();
+            writeAscii(value.toString());
+        } else if (value instanceof Boolean) {
+            beforeValue();
+            writeBytes((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Date) {
+            beforeValue();
+            writeString(DATE_FORMAT.get().format((Date) value));
+        } else if (value instanceof Map) {
+            startObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                field(String.valueOf(entry.getKey())).value(entry.getValue());
+            }
+            endObject();
+        } else if (value instanceof Collection) {
+            startArray();
+            for (Object item : (Collection<?>) value) {
+                value(item);
+            }
+            endArray();
+        } else if (value instanceof Object[]) {
+            startArray();
+            for (Object item : (Object[]) value) {
+                value(item);
+            }
+            endArray();
+        } else if (value instanceof DslQuery) {
+            ((DslQuery) value).writeTo(this);
+        } else {
+            beforeValue();
+            writeString(value.toString());
+        }
+        return this;
+    }
+
+    /**
+     * 已写入的字节数
+     *
+     * @return 字节数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 复制已写入的内容
+     *
+     * @return utf-8 字节数组
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * 已写入的内容（不复制，直接包装内部的缓冲区，继续写入或 {@link #reset()} 后失效）
+     *
+     * @return {@link ByteBuffer}
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, count);
+    }
+
+    /**
+     * 把已写入的内容写到输出流中
+     *
+     * @param outputStream 输出流
+     * @throws IOException 写入失败
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(buffer, 0, count);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, count, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写入换行并开始下一个顶层的json（用于 ndjson，例如 _msearch 的请求体）
+     *
+     * @return this
+     * @throws IllegalStateException 还有没有结束的对象或数组
+     */
+    public DslJsonWriter newLine() {
+        if (depth != 0) {
+            throw new IllegalStateException("json 的对象或数组没有结束！");
+        }
+        writeByte('\n');
+        hasElement[0] = false;
+        return this;
+    }
+
+    private void push() {
+        if (++depth >= MAX_DEPTH) {
+            throw new IllegalStateException("json 嵌套的层数超过" + MAX_DEPTH + "！");
+        }
+        hasElement[depth] = false;
+    }
+
+    private void pop() {
+        if (depth == 0) {
+            throw new IllegalStateException("json 的对象或数组没有开始！");
+        }
+        --depth;
+        afterField = false;
+    }
+
+    /**
+     * 写入值或字段名之前：同一层的第二个元素起需要逗号
+     */
+    private void beforeValue() {
+        if (afterField) {
+            afterField = false;
+            return;
+        }
+        if (hasElement[depth]) {
+            writeByte(',');
+        } else {
+            hasElement[depth] = true;
+        }
+    }
+
+    private void writeString(String value) {
+        ensureCapacity(value.length() + 2);
+        buffer[count++] = '"';
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c < 0x20 || c == '"' || c == '\\') {
+                    writeEscaped(c);
+                } else {
+                    ensureCapacity(1);
+                    buffer[count++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buffer[count++] = (byte) (0xC0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 与 es 使用的 jackson 一致，代理字符逐个转义
+                writeUnicodeEscape(c);
+            } else {
+                ensureCapacity(3);
+                buffer[count++] = (byte) (0xE0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        ensureCapacity(1);
+        buffer[count++] = '"';
+    }
+
+    /**
+     * 转义字符，与 jackson 一致：常用的控制字符使用简写，其他控制字符使用 \\u00XX
+     */
+    private void writeEscaped(char c) {
+        char shortcut;
+        switch (c) {
+            case '"':
+            case '\\':
+                shortcut = c;
+                break;
+            case '\b':
+                shortcut = 'b';
+                break;
+            case '\t':
+                shortcut = 't';
+                break;
+            case '\n':
+                shortcut = 'n';
+                break;
+            case '\f':
+                shortcut = 'f';
+                break;
+            case '\r':
+                shortcut = 'r';
+                break;
+            default:
+                writeUnicodeEscape(c);
+                return;
+        }
+        ensureCapacity(2);
+        buffer[count++] = '\\';
+        buffer[count++] = (byte) shortcut;
+    }
+
+    private void writeUnicodeEscape(char c) {
+        ensureCapacity(6);
+        buffer[count++] = '\\';
+        buffer[count++] = 'u';
+        buffer[count++] = HEX[c >> 12];
+        buffer[count++] = HEX[(c >> 8) & 0xF];
+        buffer[count++] = HEX[(c >> 4) & 0xF];
+        buffer[count++] = HEX[c & 0xF];
+    }
+
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); ++i) {
+            buffer[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+    }
+
+    private void ensureCapacity(int length) {
+        if (count + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+        }
+    }
+}
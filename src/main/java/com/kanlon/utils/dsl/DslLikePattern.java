@@ -0,0 +1,155 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+/**
+ * 解析后的 sql like 表达式：% 匹配任意个字符，_ 匹配一个字符，\ 转义下一个字符
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 00:20
+ **/
+@Getter
+public final class DslLikePattern {
+
+    /**
+     * sql 的 like 表达式
+     */
+    private final String sqlPattern;
+
+    /**
+     * 类型
+     */
+    private final Kind kind;
+
+    /**
+     * 去掉通配符及转义后的文本，只有 {@link Kind#EXACT}、{@link Kind#PREFIX}、{@link Kind#SUFFIX}、{@link Kind#CONTAINS} 有值
+     */
+    private final String text;
+
+    /**
+     * es wildcard 查询的表达式（* 及 ? 为通配符，其他的 *、?、\ 已转义）
+     */
+    private final String wildcard;
+
+    /**
+     * 是否以通配符开头
+     */
+    private final boolean leadingWildcard;
+
+    private DslLikePattern(String sqlPattern, Kind kind, String text, String wildcard, boolean leadingWildcard) {
+        this.sqlPattern = sqlPattern;
+        this.kind = kind;
+        this.text = text;
+        this.wildcard = wildcard;
+        this.leadingWildcard = leadingWildcard;
+    }
+
+    /**
+     * 解析 sql 的 like 表达式
+     *
+     * @param sqlPattern like 表达式，例如：%张三%
+     * @return {@link DslLikePattern}
+     */
+    public static DslLikePattern parse(String sqlPattern) {
+        StringBuilder text = new StringBuilder(sqlPattern.length());
+        StringBuilder wildcard = new StringBuilder(sqlPattern.length() + 2);
+        // 开头、中间、结尾的 % 的个数，以及是否有 _ 或文本中间的 %
+        int leadingAny = 0;
+        int trailingAny = 0;
+        boolean complex = false;
+        boolean hasText = false;
+        for (int i = 0; i < sqlPattern.length(); ++i) {
+            char c = sqlPattern.charAt(i);
+            if (c == '%' || c == '_') {
+                if (c == '_') {
+                    complex = true;
+                    wildcard.append('?');
+                } else if (wildcard.length() == 0 || wildcard.charAt(wildcard.length() - 1) != '*' || isEscaped(wildcard, wildcard.length() - 1)) {
+                    // 连续的 % 只保留一个 *
+                    wildcard.append('*');
+                }
+                if (hasText) {
+                    ++trailingAny;
+                } else {
+                    ++leadingAny;
+                }
+                continue;
+            }
+            if (c == '\\' && i + 1 < sqlPattern.length()) {
+                c = sqlPattern.charAt(++i);
+            }
+            // 文本之后又出现了 %，即 % 在文本中间
+            if (trailingAny > 0) {
+                complex = true;
+            }
+            hasText = true;
+            text.append(c);
+            if (c == '*' || c == '?' || c == '\\') {
+                wildcard.append('\\');
+            }
+            wildcard.append(c);
+        }
+        boolean leadingWildcard = leadingAny > 0;
+        Kind kind;
+        if (!hasText && !complex && leadingAny > 0) {
+            kind = Kind.MATCH_ALL;
+        } else if (complex) {
+            kind = Kind.COMPLEX;
+        } else if (leadingAny == 0 && trailingAny == 0) {
+            kind = Kind.EXACT;
+        } else if (leadingAny == 0) {
+            kind = Kind.PREFIX;
+        } else if (trailingAny == 0) {
+            kind = Kind.SUFFIX;
+        } else {
+            kind = Kind.CONTAINS;
+        }
+        return new DslLikePattern(sqlPattern, kind, kind == Kind.COMPLEX || kind == Kind.MATCH_ALL ? null : text.toString(), wildcard.toString(), leadingWildcard);
+    }
+
+    /**
+     * wildcard 表达式中该位置的字符是否被转义
+     */
+    private static boolean isEscaped(CharSequence wildcard, int index) {
+        int backslashes = 0;
+        for (int i = index - 1; i >= 0 && wildcard.charAt(i) == '\\'; --i) {
+            ++backslashes;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    @Override
+    public String toString() {
+        return sqlPattern;
+    }
+
+    /**
+     * like 表达式的类型
+     */
+    public enum Kind {
+        /**
+         * 没有通配符，例如 abc
+         */
+        EXACT,
+        /**
+         * 前缀，例如 abc%
+         */
+        PREFIX,
+        /**
+         * 后缀，例如 %abc
+         */
+        SUFFIX,
+        /**
+         * 包含，例如 %abc%
+         */
+        CONTAINS,
+        /**
+         * 其他，例如 a%c、a_c
+         */
+        COMPLEX,
+        /**
+         * 匹配全部，例如 %、%%
+         */
+        MATCH_ALL
+    }
+}
@@ -0,0 +1,51 @@
+package com.kanlon.utils.dsl;
+
+/**
+ * 字段的 like 翻译策略，用于避免以通配符开头的 wildcard 查询（需要遍历字段的全部词项，非常慢）
+ * <p>
+ * 没有通配符的 like 总是翻译为 term 查询，只有结尾的 % 的 like 总是翻译为 prefix 查询，其他的 like 才使用字段配置的策略
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 00:20
+ **/
+@FunctionalInterface
+public interface DslLikeStrategy {
+
+    /**
+     * 生成 like 的查询
+     *
+     * @param field   字段
+     * @param pattern like 表达式
+     * @return 查询，该策略不支持这种 like 表达式则返回 null
+     */
+    DslQuery toQuery(String field, DslLikePattern pattern);
+
+    /**
+     * 包含（%abc%）使用 match_phrase 查询，用于分词的 text 字段
+     *
+     * @return {@link DslLikeStrategy}
+     */
+    static DslLikeStrategy matchPhrase() {
+        return (field, pattern) -> pattern.getKind() == DslLikePattern.Kind.CONTAINS ? DslQueries.matchPhraseQuery(field, pattern.getText()) : null;
+    }
+
+    /**
+     * 包含（%abc%）对 ngram 分词的子字段使用 match_phrase 查询
+     *
+     * @param subfield 子字段名，例如 ngram 表示 字段.ngram
+     * @return {@link DslLikeStrategy}
+     */
+    static DslLikeStrategy ngramSubfield(String subfield) {
+        return (field, pattern) -> pattern.getKind() == DslLikePattern.Kind.CONTAINS ? DslQueries.matchPhraseQuery(field + '.' + subfield, pattern.getText()) : null;
+    }
+
+    /**
+     * 全部带通配符的 like 对 wildcard 类型（es 7.9 及以上）的子字段使用 wildcard 查询
+     *
+     * @param subfield 子字段名，例如 wildcard 表示 字段.wildcard
+     * @return {@link DslLikeStrategy}
+     */
+    static DslLikeStrategy wildcardSubfield(String subfield) {
+        return (field, pattern) -> DslQueries.wildcardQuery(field + '.' + subfield, pattern.getWildcard());
+    }
+}
@@ -0,0 +1,115 @@
+package com.kanlon.utils.dsl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * sql 的 like 转为 dsl 查询（线程安全）：
+ * <ul>
+ *     <li>没有通配符（abc）为 term 查询，只有结尾的 %（abc%）为 prefix 查询，% 或 %% 恒为真</li>
+ *     <li>其他的使用字段配置的 {@link DslLikeStrategy}，没有配置或不支持时为 wildcard 查询</li>
+ *     <li>以通配符开头的 wildcard 查询（例如 %abc%）会遍历字段的全部词项，生成时调用警告的回调</li>
+ * </ul>
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 00:20
+ **/
+@Slf4j
+public class DslLikeTranslator {
+
+    /**
+     * 默认的警告回调最多记录的字段数
+     */
+    private static final int MAX_WARNED_FIELDS = 1024;
+
+    /**
+     * 默认的警告回调：每个字段只打印一次警告日志（最多记录 {@link #MAX_WARNED_FIELDS} 个字段）
+     */
+    public static final BiConsumer<String, String> LOG_LEADING_WILDCARD = new BiConsumer<String, String>() {
+
+        private final Set<String> warnedFields = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void accept(String field, String sqlPattern) {
+            if (warnedFields.size() < MAX_WARNED_FIELDS && warnedFields.add(field)) {
+                log.warn("字段【{}】的 like【{}】只能使用以通配符开头的 wildcard 查询，需要遍历全部词项，建议为该字段配置 like 的翻译策略！", field, sqlPattern);
+            }
+        }
+    };
+
+    /**
+     * 没有配置策略的翻译器
+     */
+    public static final DslLikeTranslator DEFAULT = new DslLikeTranslator(Collections.emptyMap(), LOG_LEADING_WILDCARD);
+
+    /**
+     * 字段及其 like 的翻译策略
+     */
+    private final Map<String, DslLikeStrategy> strategies;
+
+    /**
+     * 只能使用以通配符开头的 wildcard 查询时的回调，参数为字段及 like 表达式
+     */
+    private final BiConsumer<String, String> leadingWildcardHandler;
+
+    /**
+     * 构造方法
+     *
+     * @param strategies             字段及其 like 的翻译策略
+     * @param leadingWildcardHandler 只能使用以通配符开头的 wildcard 查询时的回调，参数为字段及 like 表达式，为 null 则不回调
+     */
+    public DslLikeTranslator(Map<String, DslLikeStrategy> strategies, BiConsumer<String, String> leadingWildcardHandler) {
+        this.strategies = strategies == null ? Collections.emptyMap() : strategies;
+        this.leadingWildcardHandler = leadingWildcardHandler;
+    }
+
+    /**
+     * like 转为 dsl 查询
+     *
+     * @param field      字段
+     * @param sqlPattern like 表达式，例如：%张三%
+     * @return 查询，恒为真（null、% 或 %%）则返回 null
+     */
+    public DslQuery toQuery(String field, String sqlPattern) {
+        return toQuery(field, field, sqlPattern);
+    }
+
+    /**
+     * like 转为 dsl 查询
+     *
+     * @param field      字段，用于获取字段配置的策略
+     * @param termField  term、prefix 及 wildcard 查询使用的字段（例如 text 字段的 keyword 子字段）
+     * @param sqlPattern like 表达式，例如：%张三%
+     * @return 查询，恒为真（null、% 或 %%）则返回 null
+     */
+    public DslQuery toQuery(String field, String termField, String sqlPattern) {
+        if (sqlPattern == null) {
+            return null;
+        }
+        DslLikePattern pattern = DslLikePattern.parse(sqlPattern);
+        switch (pattern.getKind()) {
+            case MATCH_ALL:
+                return null;
+            case EXACT:
+                return DslQueries.termQuery(termField, pattern.getText());
+            case PREFIX:
+                return DslQueries.prefixQuery(termField, pattern.getText());
+            default:
+                break;
+        }
+        DslLikeStrategy strategy = strategies.get(field);
+        DslQuery query = strategy == null ? null : strategy.toQuery(field, pattern);
+        if (query != null) {
+            return query;
+        }
+        if (pattern.isLeadingWildcard() && leadingWildcardHandler != null) {
+            leadingWildcardHandler.accept(field, sqlPattern);
+        }
+        return DslQueries.wildcardQuery(termField, pattern.getWildcard());
+    }
+}
@@ -0,0 +1,30 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+/**
+ * match_phrase 查询：{"match_phrase":{"字段":{"query":"短语","slop":0,"zero_terms_query":"NONE","boost":1.0}}}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 00:20
+ **/
+@Getter
+public class DslMatchPhraseQuery extends DslFieldQuery {
+
+    private final String query;
+
+    public DslMatchPhraseQuery(String field, String query) {
+        super(field);
+        this.query = query;
+    }
+
+    @Override
+    public String getName() {
+        return "match_phrase";
+    }
+
+    @Override
+    protected void writeBody(DslJsonWriter writer) {
+        writer.field("query", query).field("slop", 0).field("zero_terms_query", "NONE");
+    }
+}
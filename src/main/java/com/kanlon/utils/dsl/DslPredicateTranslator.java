@@ -0,0 +1,203 @@
+package com.kanlon.utils.dsl;
+
+import com.kanlon.utils.predicate.EsBoolPredicate;
+import com.kanlon.utils.predicate.EsLikePredicate;
+import com.kanlon.utils.predicate.EsPredicate;
+import com.kanlon.utils.predicate.EsRangePredicate;
+import com.kanlon.utils.predicate.EsScript;
+import com.kanlon.utils.predicate.EsScriptPredicate;
+import com.kanlon.utils.predicate.EsTermPredicate;
+import com.kanlon.utils.predicate.EsTermsPredicate;
+import com.kanlon.utils.schema.EsIndexSchema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * es 查询条件（{@link EsPredicate}）转为 dsl 查询，不依赖 es
+ * <p>
+ * 有索引的字段类型（{@link EsIndexSchema}）时，值转为字段类型的值，text 字段使用其 keyword 子字段，日期字段的非默认格式的字符串设置 format
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+public class DslPredicateTranslator {
+
+    private DslPredicateTranslator() {}
+
+    /**
+     * 根据es查询条件生成 bool 查询
+     *
+     * @param predicates    es查询条件
+     * @param params        绑定的参数
+     * @param filterContext 是否为过滤上下文，是则条件放入 filter 中，否则放入 must 中
+     * @return {@link DslBoolQuery}
+     */
+    public static DslBoolQuery toBoolQuery(List<EsPredicate> predicates, Object[] params, boolean filterContext) {
+        return toBoolQuery(predicates, params, filterContext, DslLikeTranslator.DEFAULT);
+    }
+
+    /**
+     * 根据es查询条件生成 bool 查询
+     *
+     * @param predicates     es查询条件
+     * @param params         绑定的参数
+     * @param filterContext  是否为过滤上下文，是则条件放入 filter 中，否则放入 must 中
+     * @param likeTranslator like 的翻译器
+     * @return {@link DslBoolQuery}
+     */
+    public static DslBoolQuery toBoolQuery(List<EsPredicate> predicates, Object[] params, boolean filterContext, DslLikeTranslator likeTranslator) {
+        return toBoolQuery(predicates, params, filterContext, likeTranslator, EsIndexSchema.EMPTY);
+    }
+
+    /**
+     * 根据es查询条件生成 bool 查询
+     *
+     * @param predicates     es查询条件
+     * @param params         绑定的参数
+     * @param filterContext  是否为过滤上下文，是则条件放入 filter 中，否则放入 must 中
+     * @param likeTranslator like 的翻译器
+     * @param schema         索引的字段类型
+     * @return {@link DslBoolQuery}
+     * @throws IllegalArgumentException 计算的条件中有不能从 doc_values 读取的字段
+     */
+    public static DslBoolQuery toBoolQuery(List<EsPredicate> predicates, Object[] params, boolean filterContext, DslLikeTranslator likeTranslator, EsIndexSchema schema) throws IllegalArgumentException {
+        DslBoolQuery boolQuery = DslQueries.boolQuery();
+        addPredicates(predicates, params, boolQuery, filterContext, likeTranslator, schema);
+        return boolQuery;
+    }
+
+    /**
+     * 根据es查询条件设置 bool 查询
+     *
+     * @param predicates     es查询条件
+     * @param params         绑定的参数
+     * @param boolQuery      bool查询
+     * @param filterContext  是否为过滤上下文，是则条件放入 filter 中，否则放入 must 中
+     * @param likeTranslator like 的翻译器
+     * @param schema         索引的字段类型
+     */
+    private static void addPredicates(List<EsPredicate> predicates, Object[] params, DslBoolQuery boolQuery, boolean filterContext, DslLikeTranslator likeTranslator, EsIndexSchema schema) {
+        for (EsPredicate predicate : predicates) {
+            // 如果是不在的 话，则not in
+            if (predicate instanceof EsTermsPredicate && ((EsTermsPredicate) predicate).isNot()) {
+                EsTermsPredicate termsPredicate = (EsTermsPredicate) predicate;
+                boolQuery.mustNot(toTermsQuery(termsPredicate, params, schema));
+                continue;
+            }
+            DslQuery query = toQuery(predicate, params, filterContext, likeTranslator, schema);
+            if (query == null) {
+                continue;
+            }
+            if (filterContext) {
+                boolQuery.filter(query);
+            } else {
+                boolQuery.must(query);
+            }
+        }
+    }
+
+    /**
+     * 单个es查询条件生成dsl查询
+     *
+     * @param predicate      es查询条件
+     * @param params         绑定的参数
+     * @param filterContext  是否为过滤上下文
+     * @param likeTranslator like 的翻译器
+     * @return dsl查询，条件恒为真（例如 like '%%'）则返回 null
+     */
+    public static DslQuery toQuery(EsPredicate predicate, Object[] params, boolean filterContext, DslLikeTranslator likeTranslator) {
+        return toQuery(predicate, params, filterContext, likeTranslator, EsIndexSchema.EMPTY);
+    }
+
+    /**
+     * 单个es查询条件生成dsl查询
+     *
+     * @param predicate      es查询条件
+     * @param params         绑定的参数
+     * @param filterContext  是否为过滤上下文
+     * @param likeTranslator like 的翻译器
+     * @param schema         索引的字段类型
+     * @return dsl查询，条件恒为真（例如 like '%%'）则返回 null
+     * @throws IllegalArgumentException 计算的条件中有不能从 doc_values 读取的字段
+     */
+    public static DslQuery toQuery(EsPredicate predicate, Object[] params, boolean filterContext, DslLikeTranslator likeTranslator, EsIndexSchema schema) throws IllegalArgumentException {
+        if (predicate instanceof EsTermPredicate) {
+            EsTermPredicate termPredicate = (EsTermPredicate) predicate;
+            String field = termPredicate.getField();
+            Object value = termPredicate.getValue().resolve(params);
+            String format = schema.dateFormat(field, value);
+            if (format != null) {
+                // term 查询不能设置日期的格式，使用上下界相同的范围查询
+                return DslQueries.rangeQuery(field).from(value, true).to(value, true).format(format);
+            }
+            return DslQueries.termQuery(schema.termField(field), schema.typedValue(field, value));
+        } else if (predicate instanceof EsRangePredicate) {
+            EsRangePredicate rangePredicate = (EsRangePredicate) predicate;
+            String field = rangePredicate.getField();
+            Object from = rangePredicate.getFrom() == null ? null : rangePredicate.getFrom().resolve(params);
+            Object to = rangePredicate.getTo() == null ? null : rangePredicate.getTo().resolve(params);
+            DslRangeQuery rangeQuery = DslQueries.rangeQuery(schema.termField(field)).format(schema.dateFormat(field, from, to));
+            if (rangePredicate.getFrom() != null) {
+                rangeQuery.from(schema.typedValue(field, from), rangePredicate.isIncludeLower());
+            }
+            if (rangePredicate.getTo() != null) {
+                rangeQuery.to(schema.typedValue(field, to), rangePredicate.isIncludeUpper());
+            }
+            return rangeQuery;
+        } else if (predicate instanceof EsLikePredicate) {
+            EsLikePredicate likePredicate = (EsLikePredicate) predicate;
+            Object likeValue = likePredicate.getPattern().resolve(params);
+            return likeTranslator.toQuery(likePredicate.getField(), schema.termField(likePredicate.getField()), likeValue == null ? null : String.valueOf(likeValue));
+        } else if (predicate instanceof EsTermsPredicate) {
+            EsTermsPredicate termsPredicate = (EsTermsPredicate) predicate;
+            DslTermsQuery termsQuery = toTermsQuery(termsPredicate, params, schema);
+            return termsPredicate.isNot() ? DslQueries.boolQuery().mustNot(termsQuery) : termsQuery;
+        } else if (predicate instanceof EsScriptPredicate) {
+            EsScript script = ((EsScriptPredicate) predicate).getScript();
+            if (!script.isDocValueReadable(schema)) {
+                // 忽略条件会返回不满足条件的文档
+                throw new IllegalArgumentException("计算的条件中有不能从 doc_values 读取的字段（text 字段或关闭了 doc_values），不能使用脚本查询：" + script.getFields());
+            }
+            return DslQueries.scriptQuery(new DslScript(script.resolveSource(schema), EsScript.LANG, script.resolveParams(params)));
+        } else if (predicate instanceof EsBoolPredicate) {
+            EsBoolPredicate boolPredicate = (EsBoolPredicate) predicate;
+            DslBoolQuery boolQuery = DslQueries.boolQuery();
+            if (!boolPredicate.isOr()) {
+                addPredicates(boolPredicate.getChildren(), params, boolQuery, filterContext, likeTranslator, schema);
+                return boolQuery.hasClauses() ? boolQuery : null;
+            }
+            for (EsPredicate child : boolPredicate.getChildren()) {
+                DslQuery childQuery = toQuery(child, params, filterContext, likeTranslator, schema);
+                // 有一个子条件恒为真，则整个 or 恒为真
+                if (childQuery == null) {
+                    return null;
+                }
+                boolQuery.should(childQuery);
+            }
+            return boolQuery.minimumShouldMatch(1);
+        }
+        return null;
+    }
+
+    /**
+     * in 条件生成 terms 查询，值转为字段类型的值
+     *
+     * @param termsPredicate in 条件
+     * @param params         绑定的参数
+     * @param schema         索引的字段类型
+     * @return {@link DslTermsQuery}
+     */
+    private static DslTermsQuery toTermsQuery(EsTermsPredicate termsPredicate, Object[] params, EsIndexSchema schema) {
+        String field = termsPredicate.getField();
+        List<Object> values = termsPredicate.resolveValues(params);
+        if (schema.getField(field) == null) {
+            return DslQueries.termsQuery(field, values);
+        }
+        List<Object> typedValues = new ArrayList<>(values.size());
+        for (Object value : values) {
+            typedValues.add(schema.typedValue(field, value));
+        }
+        return DslQueries.termsQuery(schema.termField(field), typedValues);
+    }
+}
@@ -0,0 +1,30 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+/**
+ * prefix 查询：{"prefix":{"字段":{"value":"前缀","boost":1.0}}}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 00:20
+ **/
+@Getter
+public class DslPrefixQuery extends DslFieldQuery {
+
+    private final String value;
+
+    public DslPrefixQuery(String field, String value) {
+        super(field);
+        this.value = value;
+    }
+
+    @Override
+    public String getName() {
+        return "prefix";
+    }
+
+    @Override
+    protected void writeBody(DslJsonWriter writer) {
+        writer.field("value", value);
+    }
+}
@@ -0,0 +1,50 @@
+package com.kanlon.utils.dsl;
+
+import java.util.Collection;
+
+/**
+ * 创建 dsl 查询的工具类，与 es 的 QueryBuilders 对应
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+public class DslQueries {
+
+    private DslQueries() {}
+
+    public static DslTermQuery termQuery(String field, Object value) {
+        return new DslTermQuery(field, value);
+    }
+
+    public static DslTermsQuery termsQuery(String field, Collection<?> values) {
+        return new DslTermsQuery(field, values);
+    }
+
+    public static DslRangeQuery rangeQuery(String field) {
+        return new DslRangeQuery(field);
+    }
+
+    public static DslWildcardQuery wildcardQuery(String field, String pattern) {
+        return new DslWildcardQuery(field, pattern);
+    }
+
+    public static DslPrefixQuery prefixQuery(String field, String value) {
+        return new DslPrefixQuery(field, value);
+    }
+
+    public static DslMatchPhraseQuery matchPhraseQuery(String field, String query) {
+        return new DslMatchPhraseQuery(field, query);
+    }
+
+    public static DslScriptQuery scriptQuery(DslScript script) {
+        return new DslScriptQuery(script);
+    }
+
+    public static DslBoolQuery boolQuery() {
+        return new DslBoolQuery();
+    }
+
+    public static DslConstantScoreQuery constantScoreQuery(DslQuery filter) {
+        return new DslConstantScoreQuery(filter);
+    }
+}
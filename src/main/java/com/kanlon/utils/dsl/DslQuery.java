@@ -0,0 +1,47 @@
+package com.kanlon.utils.dsl;
+
+/**
+ * es 查询的 dsl 模型（不依赖 es），由 {@link DslQueries} 创建，{@link #writeTo(DslJsonWriter)} 生成与 es 的 QueryBuilder 相同的json
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+public abstract class DslQuery {
+
+    /**
+     * 默认的权重，es 的查询都会输出该字段
+     */
+    static final double DEFAULT_BOOST = 1.0;
+
+    /**
+     * 查询的名称，例如 term
+     *
+     * @return 名称
+     */
+    public abstract String getName();
+
+    /**
+     * 写入查询的json：{"名称":{...}}
+     *
+     * @param writer json 写入器
+     */
+    public void writeTo(DslJsonWriter writer) {
+        writer.startObject().field(getName()).startObject();
+        writeBody(writer);
+        writer.field("boost", DEFAULT_BOOST).endObject().endObject();
+    }
+
+    /**
+     * 写入查询的内容（不包括 boost）
+     *
+     * @param writer json 写入器
+     */
+    protected abstract void writeBody(DslJsonWriter writer);
+
+    @Override
+    public String toString() {
+        DslJsonWriter writer = new DslJsonWriter();
+        writeTo(writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,80 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+/**
+ * range 查询：{"range":{"字段":{"from":值,"to":值,"include_lower":true,"include_upper":true,"format":格式,"boost":1.0}}}，没有的边界为 null，没有设置 format 则不输出
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+@Getter
+public class DslRangeQuery extends DslFieldQuery {
+
+    private Object from;
+
+    private Object to;
+
+    private boolean includeLower = true;
+
+    private boolean includeUpper = true;
+
+    /**
+     * 日期字段的边界的格式，为 null 则使用 mapping 中的格式
+     */
+    private String format;
+
+    public DslRangeQuery(String field) {
+        super(field);
+    }
+
+    /**
+     * 设置下界
+     *
+     * @param from         下界
+     * @param includeLower 是否包含下界
+     * @return this
+     */
+    public DslRangeQuery from(Object from, boolean includeLower) {
+        this.from = from;
+        this.includeLower = includeLower;
+        return this;
+    }
+
+    /**
+     * 设置上界
+     *
+     * @param to           上界
+     * @param includeUpper 是否包含上界
+     * @return this
+     */
+    public DslRangeQuery to(Object to, boolean includeUpper) {
+        this.to = to;
+        this.includeUpper = includeUpper;
+        return this;
+    }
+
+    /**
+     * 设置日期字段的边界的格式
+     *
+     * @param format 格式，例如 yyyyMMddHHmmZ
+     * @return this
+     */
+    public DslRangeQuery format(String format) {
+        this.format = format;
+        return this;
+    }
+
+    @Override
+    public String getName() {
+        return "range";
+    }
+
+    @Override
+    protected void writeBody(DslJsonWriter writer) {
+        writer.field("from", from).field("to", to).field("include_lower", includeLower).field("include_upper", includeUpper);
+        if (format != null) {
+            writer.field("format", format);
+        }
+    }
+}
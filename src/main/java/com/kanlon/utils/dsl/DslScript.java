@@ -0,0 +1,41 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 内联脚本：{"source":脚本,"lang":语言,"params":{...}}，没有参数时不输出 params（与 es 的 Script 相同）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:30
+ **/
+@Getter
+public class DslScript {
+
+    private final String source;
+
+    private final String lang;
+
+    private final Map<String, Object> params;
+
+    public DslScript(String source, String lang, Map<String, Object> params) {
+        this.source = source;
+        this.lang = lang;
+        this.params = params == null ? Collections.emptyMap() : params;
+    }
+
+    /**
+     * 写入脚本的json
+     *
+     * @param writer json 写入器
+     */
+    public void writeTo(DslJsonWriter writer) {
+        writer.startObject().field("source", source).field("lang", lang);
+        if (!params.isEmpty()) {
+            writer.field("params", params);
+        }
+        writer.endObject();
+    }
+}
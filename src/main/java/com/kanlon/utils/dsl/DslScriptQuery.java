@@ -0,0 +1,30 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+/**
+ * script 查询：{"script":{"script":{...},"boost":1.0}}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:30
+ **/
+@Getter
+public class DslScriptQuery extends DslQuery {
+
+    private final DslScript script;
+
+    public DslScriptQuery(DslScript script) {
+        this.script = script;
+    }
+
+    @Override
+    public String getName() {
+        return "script";
+    }
+
+    @Override
+    protected void writeBody(DslJsonWriter writer) {
+        writer.field("script");
+        script.writeTo(writer);
+    }
+}
@@ -0,0 +1,326 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * es 查询的请求体（_search 的 dsl）的模型，不依赖 es，与 SearchSourceBuilder 对应，生成的json与 SearchSourceBuilder#toString() 相同
+ * <p>
+ * 字段按 es 的顺序输出：from、size、terminate_after、query、_source、stored_fields、docvalue_fields、script_fields、sort、track_total_hits、search_after、aggregations，没有设置的不输出
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+@Getter
+public class DslSearchBody {
+
+    /**
+     * 升序
+     */
+    public static final String ASC = "asc";
+
+    /**
+     * 降序
+     */
+    public static final String DESC = "desc";
+
+    /**
+     * 统计准确的命中总数时 track_total_hits 的值（与 es 一致）
+     */
+    private static final int TRACK_TOTAL_HITS_ACCURATE = Integer.MAX_VALUE;
+
+    /**
+     * 不返回任何 stored 字段时 stored_fields 的值
+     */
+    public static final String STORED_FIELDS_NONE = "_none_";
+
+    private Integer from;
+
+    private Integer size;
+
+    /**
+     * 每个分片最多收集的文档数，为 null 表示没有设置
+     */
+    private Integer terminateAfter;
+
+    private DslQuery query;
+
+    /**
+     * 是否返回 _source，为 null 表示没有设置
+     */
+    private Boolean fetchSource;
+
+    /**
+     * 返回的字段，为 null 表示不过滤
+     */
+    private String[] includes;
+
+    /**
+     * 不返回的字段
+     */
+    private String[] excludes;
+
+    /**
+     * 返回的 stored 字段，{@link #STORED_FIELDS_NONE} 表示不返回任何 stored 字段（包括 _id 等元数据）
+     */
+    private final List<String> storedFields = new ArrayList<>();
+
+    /**
+     * 从 doc_values 中读取的字段，结果在命中的文档的 fields 中
+     */
+    private final List<String> docValueFields = new ArrayList<>();
+
+    /**
+     * 脚本计算的字段，key 为字段名，结果在命中的文档的 fields 中
+     */
+    private final Map<String, DslScript> scriptFields = new LinkedHashMap<>();
+
+    /**
+     * 排序字段及其顺序（{@link #ASC} 或 {@link #DESC}）
+     */
+    private final List<Map.Entry<String, String>> sorts = new ArrayList<>();
+
+    /**
+     * 是否统计准确的命中总数，为 null 表示没有设置
+     */
+    private Boolean trackTotalHits;
+
+    private Object[] searchAfter;
+
+    private final List<DslAggregation> aggregations = new ArrayList<>();
+
+    public DslSearchBody from(int from) {
+        this.from = from;
+        return this;
+    }
+
+    public DslSearchBody size(int size) {
+        this.size = size;
+        return this;
+    }
+
+    public DslSearchBody terminateAfter(int terminateAfter) {
+        this.terminateAfter = terminateAfter;
+        return this;
+    }
+
+    public DslSearchBody query(DslQuery query) {
+        this.query = query;
+        return this;
+    }
+
+    /**
+     * 是否返回 _source
+     *
+     * @param fetchSource 是否返回
+     * @return this
+     */
+    public DslSearchBody fetchSource(boolean fetchSource) {
+        this.fetchSource = fetchSource;
+        this.includes = null;
+        this.excludes = null;
+        return this;
+    }
+
+    /**
+     * 过滤返回的 _source 字段
+     *
+     * @param includes 返回的字段
+     * @param excludes 不返回的字段
+     * @return this
+     */
+    public DslSearchBody fetchSource(String[] includes, String[] excludes) {
+        this.fetchSource = true;
+        this.includes = includes;
+        this.excludes = excludes;
+        return this;
+    }
+
+    /**
+     * 添加返回的 stored 字段
+     *
+     * @param field 字段，{@link #STORED_FIELDS_NONE} 表示不返回任何 stored 字段
+     * @return this
+     */
+    public DslSearchBody storedField(String field) {
+        storedFields.add(field);
+        return this;
+    }
+
+    /**
+     * 添加从 doc_values 中读取的字段
+     *
+     * @param field 字段
+     * @return this
+     */
+    public DslSearchBody docValueField(String field) {
+        docValueFields.add(field);
+        return this;
+    }
+
+    /**
+     * 添加脚本计算的字段
+     *
+     * @param name   字段名
+     * @param script 脚本
+     * @return this
+     */
+    public DslSearchBody scriptField(String name, DslScript script) {
+        scriptFields.put(name, script);
+        return this;
+    }
+
+    /**
+     * 添加排序
+     *
+     * @param field 排序字段
+     * @param order 顺序，{@link #ASC} 或 {@link #DESC}
+     * @return this
+     */
+    public DslSearchBody sort(String field, String order) {
+        sorts.add(new AbstractMap.SimpleImmutableEntry<>(field, order));
+        return this;
+    }
+
+    public DslSearchBody trackTotalHits(boolean trackTotalHits) {
+        this.trackTotalHits = trackTotalHits;
+        return this;
+    }
+
+    public DslSearchBody searchAfter(Object[] searchAfter) {
+        this.searchAfter = searchAfter;
+        return this;
+    }
+
+    public DslSearchBody aggregation(DslAggregation aggregation) {
+        aggregations.add(aggregation);
+        return this;
+    }
+
+    public List<Map.Entry<String, String>> getSorts() {
+        return Collections.unmodifiableList(sorts);
+    }
+
+    public List<String> getStoredFields() {
+        return Collections.unmodifiableList(storedFields);
+    }
+
+    public List<String> getDocValueFields() {
+        return Collections.unmodifiableList(docValueFields);
+    }
+
+    public Map<String, DslScript> getScriptFields() {
+        return Collections.unmodifiableMap(scriptFields);
+    }
+
+    public List<DslAggregation> getAggregations() {
+        return Collections.unmodifiableList(aggregations);
+    }
+
+    /**
+     * 写入请求体的json
+     *
+     * @param writer json 写入器
+     */
+    public void writeTo(DslJsonWriter writer) {
+        writer.startObject();
+        if (from != null) {
+            writer.field("from", from);
+        }
+        if (size != null) {
+            writer.field("size", size);
+        }
+        if (terminateAfter != null) {
+            writer.field("terminate_after", terminateAfter);
+        }
+        if (query != null) {
+            writer.field("query", query);
+        }
+        if (fetchSource != null) {
+            writer.field("_source");
+            if (includes == null && excludes == null) {
+                writer.value(fetchSource);
+            } else {
+                writer.startObject()
+                        .field("includes", includes == null ? new String[0] : includes)
+                        .field("excludes", excludes == null ? new String[0] : excludes)
+                        .endObject();
+            }
+        }
+        if (!storedFields.isEmpty()) {
+            // 只有一个字段时 es 输出为字符串
+            if (storedFields.size() == 1) {
+                writer.field("stored_fields", storedFields.get(0));
+            } else {
+                writer.field("stored_fields", storedFields);
+            }
+        }
+        if (!docValueFields.isEmpty()) {
+            writer.field("docvalue_fields").startArray();
+            for (String docValueField : docValueFields) {
+                writer.startObject().field("field", docValueField).endObject();
+            }
+            writer.endArray();
+        }
+        if (!scriptFields.isEmpty()) {
+            writer.field("script_fields").startObject();
+            for (Map.Entry<String, DslScript> scriptField : scriptFields.entrySet()) {
+                writer.field(scriptField.getKey()).startObject().field("script");
+                scriptField.getValue().writeTo(writer);
+                writer.field("ignore_failure", false).endObject();
+            }
+            writer.endObject();
+        }
+        if (!sorts.isEmpty()) {
+            writer.field("sort").startArray();
+            for (Map.Entry<String, String> sort : sorts) {
+                writer.startObject().field(sort.getKey()).startObject().field("order", sort.getValue()).endObject().endObject();
+            }
+            writer.endArray();
+        }
+        if (trackTotalHits != null) {
+            writer.field("track_total_hits", trackTotalHits ? TRACK_TOTAL_HITS_ACCURATE : -1);
+        }
+        if (searchAfter != null) {
+            writer.field("search_after", searchAfter);
+        }
+        DslAggregation.writeAggregations(writer, aggregations);
+        writer.endObject();
+    }
+
+    /**
+     * 生成json字节数组（utf-8）
+     *
+     * @return json字节数组
+     */
+    public byte[] toJsonBytes() {
+        DslJsonWriter writer = new DslJsonWriter();
+        writeTo(writer);
+        return writer.toByteArray();
+    }
+
+    /**
+     * 生成json，返回的缓冲区直接包装写入器的字节数组，不复制
+     *
+     * @return {@link ByteBuffer}
+     */
+    public ByteBuffer toByteBuffer() {
+        DslJsonWriter writer = new DslJsonWriter();
+        writeTo(writer);
+        return writer.toByteBuffer();
+    }
+
+    @Override
+    public String toString() {
+        DslJsonWriter writer = new DslJsonWriter();
+        writeTo(writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.kanlon.utils.dsl;
+
+import java.util.Locale;
+
+/**
+ * 排序的顺序，输出为 es 的 asc、desc（与 es 的 SortOrder 对应，翻译时不依赖 es 的类）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 09:20
+ **/
+public enum DslSortOrder {
+
+    /**
+     * 升序
+     */
+    ASC,
+
+    /**
+     * 降序
+     */
+    DESC;
+
+    /**
+     * 根据 asc、desc（不区分大小写）获取排序的顺序
+     *
+     * @param order asc 或 desc
+     * @return {@link DslSortOrder}
+     * @throws IllegalArgumentException 不是 asc 或 desc
+     */
+    public static DslSortOrder fromString(String order) throws IllegalArgumentException {
+        if ("asc".equalsIgnoreCase(order)) {
+            return ASC;
+        }
+        if ("desc".equalsIgnoreCase(order)) {
+            return DESC;
+        }
+        throw new IllegalArgumentException("排序的顺序只能为 asc 或 desc！" + order);
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,30 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+/**
+ * term 查询：{"term":{"字段":{"value":值,"boost":1.0}}}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+@Getter
+public class DslTermQuery extends DslFieldQuery {
+
+    private final Object value;
+
+    public DslTermQuery(String field, Object value) {
+        super(field);
+        this.value = value;
+    }
+
+    @Override
+    public String getName() {
+        return "term";
+    }
+
+    @Override
+    protected void writeBody(DslJsonWriter writer) {
+        writer.field("value", value);
+    }
+}
@@ -0,0 +1,34 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * terms 查询：{"terms":{"字段":[值...],"boost":1.0}}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+@Getter
+public class DslTermsQuery extends DslQuery {
+
+    private final String field;
+
+    private final Collection<?> values;
+
+    public DslTermsQuery(String field, Collection<?> values) {
+        this.field = field;
+        this.values = values;
+    }
+
+    @Override
+    public String getName() {
+        return "terms";
+    }
+
+    @Override
+    protected void writeBody(DslJsonWriter writer) {
+        writer.field(field, values);
+    }
+}
@@ -0,0 +1,30 @@
+package com.kanlon.utils.dsl;
+
+import lombok.Getter;
+
+/**
+ * wildcard 查询：{"wildcard":{"字段":{"wildcard":"*值*","boost":1.0}}}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:30
+ **/
+@Getter
+public class DslWildcardQuery extends DslFieldQuery {
+
+    private final String pattern;
+
+    public DslWildcardQuery(String field, String pattern) {
+        super(field);
+        this.pattern = pattern;
+    }
+
+    @Override
+    public String getName() {
+        return "wildcard";
+    }
+
+    @Override
+    protected void writeBody(DslJsonWriter writer) {
+        writer.field("wildcard", pattern);
+    }
+}
@@ -0,0 +1,98 @@
+package com.kanlon.utils.predicate;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * and 或 or 组合条件，对应es的 bool 查询
+ * <p>
+ * 没有子条件的 and 表示恒为真的条件（例如：1 = 1），生成es查询时忽略
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 16:40
+ **/
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class EsBoolPredicate extends EsPredicate {
+
+    /**
+     * 是否为 or，否则为 and
+     */
+    private final boolean or;
+
+    /**
+     * 子条件
+     */
+    private final List<EsPredicate> children;
+
+    public EsBoolPredicate(boolean or, List<EsPredicate> children) {
+        super(null);
+        this.or = or;
+        this.children = Collections.unmodifiableList(children);
+    }
+
+    /**
+     * and 组合条件
+     *
+     * @param children 子条件
+     * @return {@link EsBoolPredicate}
+     */
+    public static EsBoolPredicate and(List<EsPredicate> children) {
+        return new EsBoolPredicate(false, children);
+    }
+
+    /**
+     * or 组合条件
+     *
+     * @param children 子条件
+     * @return {@link EsBoolPredicate}
+     */
+    public static EsBoolPredicate or(List<EsPredicate> children) {
+        return new EsBoolPredicate(true, children);
+    }
+
+    /**
+     * 恒为真的条件
+     *
+     * @return {@link EsBoolPredicate}
+     */
+    public static EsBoolPredicate matchAll() {
+        return new EsBoolPredicate(false, Collections.emptyList());
+    }
+
+    /**
+     * 是否为恒为真的条件
+     *
+     * @return boolean
+     */
+    public boolean isMatchAll() {
+        return !or && children.isEmpty();
+    }
+
+    @Override
+    public int maxParamIndex() {
+        int maxParamIndex = -1;
+        for (EsPredicate child : children) {
+            maxParamIndex = Math.max(maxParamIndex, child.maxParamIndex());
+        }
+        return maxParamIndex;
+    }
+
+    @Override
+    public String toString() {
+        if (isMatchAll()) {
+            return "true";
+        }
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < children.size(); ++i) {
+            if (i > 0) {
+                builder.append(or ? " or " : " and ");
+            }
+            builder.append(children.get(i));
+        }
+        return builder.append(')').toString();
+    }
+}
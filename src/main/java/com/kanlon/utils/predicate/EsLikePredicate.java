@@ -0,0 +1,35 @@
+package com.kanlon.utils.predicate;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * like 条件
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 13:10
+ **/
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class EsLikePredicate extends EsPredicate {
+
+    /**
+     * sql 的 like 表达式，例如：%张三%
+     */
+    private final EsValue pattern;
+
+    public EsLikePredicate(String field, EsValue pattern) {
+        super(field);
+        this.pattern = pattern;
+    }
+
+    @Override
+    public int maxParamIndex() {
+        return pattern.getParamIndex();
+    }
+
+    @Override
+    public String toString() {
+        return getField() + " like " + pattern;
+    }
+}
@@ -0,0 +1,31 @@
+package com.kanlon.utils.predicate;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * 从sql where 条件中解析出来的es查询条件（位于 druid 语法树和 es BoolQueryBuilder 之间的中间结构）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 13:10
+ **/
+@Getter
+@EqualsAndHashCode
+public abstract class EsPredicate {
+
+    /**
+     * 条件的字段
+     */
+    private final String field;
+
+    protected EsPredicate(String field) {
+        this.field = field;
+    }
+
+    /**
+     * 获取条件中最大的参数下标，没有参数则为 -1
+     *
+     * @return 最大的参数下标
+     */
+    public abstract int maxParamIndex();
+}
@@ -0,0 +1,53 @@
+package com.kanlon.utils.predicate;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * 范围条件，对应es的 range 查询
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 13:10
+ **/
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class EsRangePredicate extends EsPredicate {
+
+    /**
+     * 下限，没有则为 null
+     */
+    private final EsValue from;
+
+    /**
+     * 上限，没有则为 null
+     */
+    private final EsValue to;
+
+    /**
+     * 是否包含下限
+     */
+    private final boolean includeLower;
+
+    /**
+     * 是否包含上限
+     */
+    private final boolean includeUpper;
+
+    public EsRangePredicate(String field, EsValue from, EsValue to, boolean includeLower, boolean includeUpper) {
+        super(field);
+        this.from = from;
+        this.to = to;
+        this.includeLower = includeLower;
+        this.includeUpper = includeUpper;
+    }
+
+    @Override
+    public int maxParamIndex() {
+        return Math.max(from == null ? -1 : from.getParamIndex(), to == null ? -1 : to.getParamIndex());
+    }
+
+    @Override
+    public String toString() {
+        return getField() + " in " + (includeLower ? "[" : "(") + from + "," + to + (includeUpper ? "]" : ")");
+    }
+}
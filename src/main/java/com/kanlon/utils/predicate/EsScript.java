@@ -0,0 +1,158 @@
+package com.kanlon.utils.predicate;
+
+import com.kanlon.utils.schema.EsField;
+import com.kanlon.utils.schema.EsIndexSchema;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 由sql表达式编译的 painless 脚本（不可变）：sql 中的常量及参数占位符都作为脚本的参数（params.p0 ...），
+ * 常量不同的sql生成的脚本相同，es 只需要编译一次（es 按脚本的内容缓存编译结果）
+ * <p>
+ * 脚本中按sql中的字段名读取 doc_values（{@link #docField(String)}），绑定时按索引的字段类型替换为实际读取的字段（见 {@link #resolveSource(EsIndexSchema)}）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:30
+ **/
+@Getter
+@EqualsAndHashCode
+public final class EsScript {
+
+    /**
+     * 脚本语言
+     */
+    public static final String LANG = "painless";
+
+    /**
+     * 脚本
+     */
+    private final String source;
+
+    /**
+     * 脚本的参数，key 为参数名
+     */
+    private final Map<String, EsValue> params;
+
+    /**
+     * 在数值运算或比较中使用的参数，绑定的字符串（例如 SqlTemplateCache 提取的常量）转为数字
+     */
+    private final Set<String> numericParams;
+
+    /**
+     * 脚本中读取的字段（sql中的字段名）
+     */
+    private final Set<String> fields;
+
+    public EsScript(String source, Map<String, EsValue> params, Set<String> numericParams, Set<String> fields) {
+        this.source = source;
+        this.params = Collections.unmodifiableMap(new LinkedHashMap<>(params));
+        this.numericParams = Collections.unmodifiableSet(new HashSet<>(numericParams));
+        this.fields = Collections.unmodifiableSet(new LinkedHashSet<>(fields));
+    }
+
+    /**
+     * 按索引的字段类型生成脚本：text 字段读取其 keyword 子字段（与 term 查询、排序相同，见 {@link EsIndexSchema#termField(String)}）
+     *
+     * @param schema 索引的字段类型
+     * @return 脚本
+     */
+    public String resolveSource(EsIndexSchema schema) {
+        String resolved = source;
+        for (String field : fields) {
+            String termField = schema.termField(field);
+            if (!termField.equals(field)) {
+                resolved = resolved.replace(docField(field), docField(termField));
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * 脚本读取的字段是否都有 doc_values：text 字段（没有 keyword 子字段）、关闭了 doc_values 的字段不能在脚本中读取，schema 中没有的字段不检查
+     *
+     * @param schema 索引的字段类型
+     * @return boolean
+     */
+    public boolean isDocValueReadable(EsIndexSchema schema) {
+        for (String field : fields) {
+            EsField esField = schema.getField(schema.termField(field));
+            if (esField != null && !esField.isDocValueReadable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 脚本中读取字段的 doc_values 的表达式
+     *
+     * @param field 字段
+     * @return doc['字段']
+     */
+    public static String docField(String field) {
+        return "doc['" + field.replace("\\", "\\\\").replace("'", "\\'") + "']";
+    }
+
+    /**
+     * 获取绑定后的脚本参数
+     *
+     * @param boundParams 绑定的参数，按照sql中 ? 出现的顺序
+     * @return 脚本参数，key 为参数名
+     */
+    public Map<String, Object> resolveParams(Object[] boundParams) {
+        Map<String, Object> values = new LinkedHashMap<>(params.size() * 2);
+        for (Map.Entry<String, EsValue> entry : params.entrySet()) {
+            Object value = entry.getValue().resolve(boundParams);
+            values.put(entry.getKey(), numericParams.contains(entry.getKey()) ? toNumber(value) : value);
+        }
+        return values;
+    }
+
+    /**
+     * 获取脚本中最大的参数下标，没有参数则为 -1
+     *
+     * @return 最大的参数下标
+     */
+    public int maxParamIndex() {
+        int maxParamIndex = -1;
+        for (EsValue value : params.values()) {
+            maxParamIndex = Math.max(maxParamIndex, value.getParamIndex());
+        }
+        return maxParamIndex;
+    }
+
+    /**
+     * 字符串转为数字：整数为 long，小数为 double，不能转换则原样返回
+     *
+     * @param value 值
+     * @return 数字或原值
+     */
+    private static Object toNumber(Object value) {
+        if (!(value instanceof String)) {
+            return value;
+        }
+        String text = ((String) value).trim();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            try {
+                return new BigDecimal(text).doubleValue();
+            } catch (NumberFormatException ignored) {
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source + " " + params;
+    }
+}
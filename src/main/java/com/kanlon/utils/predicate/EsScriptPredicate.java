@@ -0,0 +1,35 @@
+package com.kanlon.utils.predicate;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * 不能直接用字段查询的条件（例如 price * qty > 100、substring(uid, 1, 3) = 'abc'），编译为 painless 脚本，对应es的 script 查询，在分片上过滤
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:30
+ **/
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class EsScriptPredicate extends EsPredicate {
+
+    /**
+     * 脚本
+     */
+    private final EsScript script;
+
+    public EsScriptPredicate(EsScript script) {
+        super(null);
+        this.script = script;
+    }
+
+    @Override
+    public int maxParamIndex() {
+        return script.maxParamIndex();
+    }
+
+    @Override
+    public String toString() {
+        return "script(" + script + ")";
+    }
+}
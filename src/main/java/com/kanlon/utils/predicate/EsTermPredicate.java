@@ -0,0 +1,35 @@
+package com.kanlon.utils.predicate;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * 等于条件，对应es的 term 查询
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 13:10
+ **/
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class EsTermPredicate extends EsPredicate {
+
+    /**
+     * 值
+     */
+    private final EsValue value;
+
+    public EsTermPredicate(String field, EsValue value) {
+        super(field);
+        this.value = value;
+    }
+
+    @Override
+    public int maxParamIndex() {
+        return value.getParamIndex();
+    }
+
+    @Override
+    public String toString() {
+        return getField() + " = " + value;
+    }
+}
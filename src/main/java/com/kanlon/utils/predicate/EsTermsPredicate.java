@@ -0,0 +1,72 @@
+package com.kanlon.utils.predicate;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * in 或 not in 条件，对应es的 terms 查询
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 13:10
+ **/
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class EsTermsPredicate extends EsPredicate {
+
+    /**
+     * 值列表，如果某个值为参数，绑定的参数可以为集合或数组，会展开为多个值
+     */
+    private final List<EsValue> values;
+
+    /**
+     * 是否为 not in
+     */
+    private final boolean not;
+
+    public EsTermsPredicate(String field, List<EsValue> values, boolean not) {
+        super(field);
+        this.values = values;
+        this.not = not;
+    }
+
+    /**
+     * 获取实际的值列表，参数为集合或数组的会展开
+     *
+     * @param params 绑定的参数
+     * @return 实际的值列表
+     */
+    public List<Object> resolveValues(Object[] params) {
+        List<Object> resolveValues = new ArrayList<>(values.size());
+        for (EsValue value : values) {
+            Object resolveValue = value.resolve(params);
+            if (resolveValue instanceof Collection) {
+                resolveValues.addAll((Collection<?>) resolveValue);
+            } else if (resolveValue instanceof Object[]) {
+                for (Object item : (Object[]) resolveValue) {
+                    resolveValues.add(item);
+                }
+            } else {
+                resolveValues.add(resolveValue);
+            }
+        }
+        return resolveValues;
+    }
+
+    @Override
+    public int maxParamIndex() {
+        int maxParamIndex = -1;
+        for (EsValue value : values) {
+            maxParamIndex = Math.max(maxParamIndex, value.getParamIndex());
+        }
+        return maxParamIndex;
+    }
+
+    @Override
+    public String toString() {
+        return getField() + (not ? " not in " : " in ") + values;
+    }
+}
@@ -0,0 +1,124 @@
+package com.kanlon.utils.predicate;
+
+import lombok.EqualsAndHashCode;
+
+/**
+ * 条件中的值，可以是常量，也可以是预编译sql中的参数占位符（?）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 13:10
+ **/
+@EqualsAndHashCode
+public final class EsValue {
+
+    /**
+     * 常量值
+     */
+    private final Object value;
+
+    /**
+     * 参数下标，从0开始，常量为 -1
+     */
+    private final int paramIndex;
+
+    /**
+     * 是否为sql中的数字常量（没有引号），加了引号的常量在 keyword 等字段上按字符串比较
+     */
+    private final boolean numeric;
+
+    private EsValue(Object value, int paramIndex, boolean numeric) {
+        this.value = value;
+        this.paramIndex = paramIndex;
+        this.numeric = numeric;
+    }
+
+    /**
+     * 常量
+     *
+     * @param value 值
+     * @return {@link EsValue}
+     */
+    public static EsValue constant(Object value) {
+        return new EsValue(value, -1, false);
+    }
+
+    /**
+     * sql中的数字常量（没有引号）
+     *
+     * @param value 值
+     * @return {@link EsValue}
+     */
+    public static EsValue number(Object value) {
+        return new EsValue(value, -1, true);
+    }
+
+    /**
+     * 参数占位符
+     *
+     * @param paramIndex 参数下标，从0开始
+     * @return {@link EsValue}
+     */
+    public static EsValue param(int paramIndex) {
+        if (paramIndex < 0) {
+            throw new IllegalArgumentException("参数下标不能小于0！");
+        }
+        return new EsValue(null, paramIndex, false);
+    }
+
+    /**
+     * 是否为参数占位符
+     *
+     * @return boolean
+     */
+    public boolean isParam() {
+        return paramIndex >= 0;
+    }
+
+    /**
+     * 是否为sql中的数字常量（没有引号）
+     *
+     * @return boolean
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * 参数下标，常量为 -1
+     *
+     * @return 参数下标
+     */
+    public int getParamIndex() {
+        return paramIndex;
+    }
+
+    /**
+     * 常量值，参数占位符为 null
+     *
+     * @return 常量值
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * 获取实际的值，如果是参数占位符，则从参数中获取
+     *
+     * @param params 绑定的参数
+     * @return 实际的值
+     */
+    public Object resolve(Object[] params) {
+        if (!isParam()) {
+            return value;
+        }
+        if (params == null || paramIndex >= params.length) {
+            throw new IllegalArgumentException("缺少第" + (paramIndex + 1) + "个参数的值！");
+        }
+        return params[paramIndex];
+    }
+
+    @Override
+    public String toString() {
+        return isParam() ? "?" + paramIndex : String.valueOf(value);
+    }
+}
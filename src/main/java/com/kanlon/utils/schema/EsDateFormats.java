@@ -0,0 +1,138 @@
+package com.kanlon.utils.schema;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * sql 中常用的日期字符串的格式识别及解析（不依赖 es），格式与 es 7 的 java 时间格式相同
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 02:10
+ **/
+public final class EsDateFormats {
+
+    /**
+     * 可以识别的日期字符串及其格式，按顺序匹配
+     */
+    private static final List<DateFormat> DATE_FORMATS;
+
+    /**
+     * 只有数字的字符串（不是可以识别的日期格式时为毫秒时间戳）
+     */
+    private static final Pattern DIGITS = Pattern.compile("-?\\d+");
+
+    static {
+        List<DateFormat> dateFormats = new ArrayList<>();
+        dateFormats.add(new DateFormat("\\d{8}", "yyyyMMdd"));
+        dateFormats.add(new DateFormat("\\d{12}", "yyyyMMddHHmm"));
+        dateFormats.add(new DateFormat("\\d{12}[+-]\\d{4}", "yyyyMMddHHmmZ"));
+        dateFormats.add(new DateFormat("\\d{14}", "yyyyMMddHHmmss"));
+        dateFormats.add(new DateFormat("\\d{14}[+-]\\d{4}", "yyyyMMddHHmmssZ"));
+        dateFormats.add(new DateFormat("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}", "yyyy-MM-dd HH:mm:ss"));
+        dateFormats.add(new DateFormat("\\d{4}/\\d{2}/\\d{2}", "yyyy/MM/dd"));
+        DATE_FORMATS = Collections.unmodifiableList(dateFormats);
+    }
+
+    private EsDateFormats() {}
+
+    /**
+     * 识别日期字符串的格式
+     *
+     * @param value 日期字符串
+     * @return 格式，不能识别（包括 es 默认格式可以解析的 yyyy-MM-dd 及 iso 格式）则为 null
+     */
+    public static String detect(String value) {
+        for (DateFormat dateFormat : DATE_FORMATS) {
+            if (dateFormat.regex.matcher(value).matches()) {
+                return dateFormat.pattern;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析时间：数字为毫秒时间戳，字符串为可以识别的格式、iso 格式或毫秒时间戳，没有时区的按指定的时区
+     *
+     * @param value 时间
+     * @param zone  没有时区的时间使用的时区
+     * @return {@link Instant}，不能解析则为 null
+     */
+    public static Instant parse(Object value, ZoneId zone) {
+        if (value instanceof Number) {
+            return Instant.ofEpochMilli(((Number) value).longValue());
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant();
+        }
+        if (value instanceof Instant) {
+            return (Instant) value;
+        }
+        if (value instanceof TemporalAccessor) {
+            return toInstant((TemporalAccessor) value, zone);
+        }
+        if (!(value instanceof String)) {
+            return null;
+        }
+        String text = ((String) value).trim();
+        try {
+            for (DateFormat dateFormat : DATE_FORMATS) {
+                if (dateFormat.regex.matcher(text).matches()) {
+                    return toInstant(dateFormat.formatter.parseBest(text, OffsetDateTime::from, LocalDateTime::from, LocalDate::from), zone);
+                }
+            }
+            if (DIGITS.matcher(text).matches()) {
+                return Instant.ofEpochMilli(Long.parseLong(text));
+            }
+            return toInstant(DateTimeFormatter.ISO_DATE_TIME.parseBest(text, OffsetDateTime::from, LocalDateTime::from), zone);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            try {
+                return LocalDate.parse(text).atStartOfDay(zone).toInstant();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static Instant toInstant(TemporalAccessor temporal, ZoneId zone) {
+        if (temporal instanceof OffsetDateTime) {
+            return ((OffsetDateTime) temporal).toInstant();
+        }
+        if (temporal instanceof ZonedDateTime) {
+            return ((ZonedDateTime) temporal).toInstant();
+        }
+        if (temporal instanceof LocalDateTime) {
+            return ((LocalDateTime) temporal).atZone(zone).toInstant();
+        }
+        if (temporal instanceof LocalDate) {
+            return ((LocalDate) temporal).atStartOfDay(zone).toInstant();
+        }
+        return null;
+    }
+
+    /**
+     * 日期字符串的格式
+     */
+    private static final class DateFormat {
+        private final Pattern regex;
+        private final String pattern;
+        private final DateTimeFormatter formatter;
+
+        private DateFormat(String regex, String pattern) {
+            this.regex = Pattern.compile(regex);
+            this.pattern = pattern;
+            this.formatter = DateTimeFormatter.ofPattern(pattern);
+        }
+    }
+}
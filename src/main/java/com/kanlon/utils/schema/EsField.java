@@ -0,0 +1,107 @@
+package com.kanlon.utils.schema;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * es 索引 mapping 中的一个字段（不可变）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 01:10
+ **/
+@Getter
+@EqualsAndHashCode
+public final class EsField {
+
+    /**
+     * 字段的完整路径，例如 user.name
+     */
+    private final String name;
+
+    /**
+     * mapping 中的 type，object 字段为 object
+     */
+    private final String mappingType;
+
+    /**
+     * 字段类型
+     */
+    private final EsFieldType type;
+
+    /**
+     * 日期字段的格式（mapping 中的 format，多个格式用 || 分隔），没有配置则为 null
+     */
+    private final String format;
+
+    /**
+     * keyword 类型的子字段的完整路径（例如 user.name.keyword），没有则为 null
+     */
+    private final String keywordSubfield;
+
+    /**
+     * mapping 中是否开启了 doc_values（默认开启）
+     */
+    private final boolean docValues;
+
+    /**
+     * 构造方法，doc_values 为默认的开启
+     *
+     * @param name            字段的完整路径
+     * @param mappingType     mapping 中的 type
+     * @param format          日期字段的格式，没有则为 null
+     * @param keywordSubfield keyword 类型的子字段的完整路径，没有则为 null
+     */
+    public EsField(String name, String mappingType, String format, String keywordSubfield) {
+        this(name, mappingType, format, keywordSubfield, true);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param name            字段的完整路径
+     * @param mappingType     mapping 中的 type
+     * @param format          日期字段的格式，没有则为 null
+     * @param keywordSubfield keyword 类型的子字段的完整路径，没有则为 null
+     * @param docValues       mapping 中是否开启了 doc_values
+     */
+    public EsField(String name, String mappingType, String format, String keywordSubfield, boolean docValues) {
+        this.name = name;
+        this.mappingType = mappingType;
+        this.type = EsFieldType.of(mappingType);
+        this.format = format;
+        this.keywordSubfield = keywordSubfield;
+        this.docValues = docValues;
+    }
+
+    /**
+     * term 查询、排序及聚合使用的字段：text 字段有 keyword 子字段时为子字段，否则为字段本身
+     *
+     * @return 字段的完整路径
+     */
+    public String getTermField() {
+        return type == EsFieldType.TEXT && keywordSubfield != null ? keywordSubfield : name;
+    }
+
+    /**
+     * 是否可以通过 docvalue_fields 读取值：keyword、数字、日期、布尔字段，并且没有关闭 doc_values
+     *
+     * @return boolean
+     */
+    public boolean isDocValueReadable() {
+        switch (type) {
+            case KEYWORD:
+            case INTEGER:
+            case FLOATING:
+            case DATE:
+            case BOOLEAN:
+                return docValues;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + ":" + mappingType + (format == null ? "" : "(" + format + ")");
+    }
+}
@@ -0,0 +1,142 @@
+package com.kanlon.utils.schema;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Locale;
+
+/**
+ * es 字段的类型（mapping 中的 type），用于把 sql 中的字符串常量转为字段类型的值
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 01:10
+ **/
+public enum EsFieldType {
+    /**
+     * 不分词的字符串
+     */
+    KEYWORD,
+    /**
+     * 分词的字符串，不能用于 term 查询、排序及聚合，有 keyword 子字段时使用子字段
+     */
+    TEXT,
+    /**
+     * 整数：long、integer、short、byte
+     */
+    INTEGER,
+    /**
+     * 浮点数：double、float、half_float、scaled_float
+     */
+    FLOATING,
+    /**
+     * 日期：date、date_nanos
+     */
+    DATE,
+    /**
+     * 布尔
+     */
+    BOOLEAN,
+    /**
+     * 其他类型（ip、object、nested、geo 等），值不转换
+     */
+    OTHER;
+
+    /**
+     * 根据 mapping 中的 type 获取字段类型
+     *
+     * @param mappingType mapping 中的 type
+     * @return {@link EsFieldType}，不认识的类型为 {@link #OTHER}
+     */
+    public static EsFieldType of(String mappingType) {
+        if (mappingType == null) {
+            return OTHER;
+        }
+        switch (mappingType.toLowerCase(Locale.ROOT)) {
+            case "keyword":
+            case "constant_keyword":
+                return KEYWORD;
+            case "text":
+                return TEXT;
+            case "long":
+            case "integer":
+            case "short":
+            case "byte":
+                return INTEGER;
+            case "double":
+            case "float":
+            case "half_float":
+            case "scaled_float":
+                return FLOATING;
+            case "date":
+            case "date_nanos":
+                return DATE;
+            case "boolean":
+                return BOOLEAN;
+            default:
+                return OTHER;
+        }
+    }
+
+    /**
+     * 把值转为该类型的值：数字字段的字符串转为数字，布尔字段的字符串及 0/1 转为布尔，转换失败或其他类型则原样返回（由 es 解析）
+     *
+     * @param value 值
+     * @return 转换后的值
+     */
+    public Object toValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        switch (this) {
+            case INTEGER:
+                if (value instanceof String) {
+                    String text = ((String) value).trim();
+                    try {
+                        return Long.parseLong(text);
+                    } catch (NumberFormatException e) {
+                        // 超过 long 的范围或者是小数，交给 es 解析
+                        return value;
+                    }
+                }
+                return value;
+            case FLOATING:
+                if (value instanceof String) {
+                    try {
+                        return new BigDecimal(((String) value).trim());
+                    } catch (NumberFormatException e) {
+                        return value;
+                    }
+                }
+                return value;
+            case BOOLEAN:
+                return toBoolean(value);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * 值转为布尔，不能转换则原样返回
+     *
+     * @param value 值
+     * @return 布尔或原值
+     */
+    private static Object toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof BigInteger) {
+            long longValue = ((Number) value).longValue();
+            return longValue == 0 ? Boolean.FALSE : longValue == 1 ? Boolean.TRUE : value;
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if ("true".equalsIgnoreCase(text) || "1".equals(text)) {
+                return Boolean.TRUE;
+            }
+            if ("false".equalsIgnoreCase(text) || "0".equals(text)) {
+                return Boolean.FALSE;
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,250 @@
+package com.kanlon.utils.schema;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * es 索引的字段类型（不可变，不依赖 es），由索引的 mapping 生成，翻译时用于：
+ * <ul>
+ *     <li>sql 中的字符串常量转为字段类型的值（数字、布尔），es 不需要在每个分片上转换</li>
+ *     <li>text 字段的 term 查询、排序及聚合使用其 keyword 子字段</li>
+ *     <li>日期字段的范围条件为 202105081313+0800 这类非默认格式的字符串时，设置范围查询的 format</li>
+ *     <li>select 的列都可以从 doc_values 读取时，使用 docvalue_fields 代替 _source</li>
+ * </ul>
+ * 不认识的字段原样翻译
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 01:10
+ **/
+public final class EsIndexSchema {
+
+    /**
+     * 没有字段的 schema，翻译结果与没有 schema 时相同
+     */
+    public static final EsIndexSchema EMPTY = new EsIndexSchema(Collections.emptyMap());
+
+    /**
+     * 字段，key 为字段的完整路径（包括子字段，例如 name.keyword）
+     */
+    private final Map<String, EsField> fields;
+
+    private EsIndexSchema(Map<String, EsField> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * 根据 mapping 中的 properties 生成
+     *
+     * @param properties mapping 中的 properties
+     * @return {@link EsIndexSchema}
+     */
+    public static EsIndexSchema fromProperties(Map<String, ?> properties) {
+        Map<String, EsField> fieldMap = new LinkedHashMap<>();
+        addProperties(null, properties, fieldMap);
+        return fieldMap.isEmpty() ? EMPTY : new EsIndexSchema(Collections.unmodifiableMap(fieldMap));
+    }
+
+    /**
+     * 根据 GET 索引/_mapping 的返回生成，多个索引的字段合并（同名字段以前面的索引为准），也支持只有一个索引的
+     * {"mappings":{"properties":...}} 及 {"properties":...}
+     *
+     * @param mappings _mapping 的返回
+     * @return {@link EsIndexSchema}
+     */
+    @SuppressWarnings("unchecked")
+    public static EsIndexSchema fromMappings(Map<String, ?> mappings) {
+        if (mappings == null || mappings.isEmpty()) {
+            return EMPTY;
+        }
+        if (mappings.containsKey("properties")) {
+            return fromProperties(asMap(mappings.get("properties")));
+        }
+        if (mappings.containsKey("mappings")) {
+            Map<String, Object> mapping = asMap(mappings.get("mappings"));
+            if (!mapping.containsKey("properties") && mapping.size() == 1) {
+                // es 6 的 mapping 中还有一层类型，例如 {"_doc":{"properties":...}}
+                mapping = asMap(mapping.values().iterator().next());
+            }
+            return fromProperties(asMap(mapping.get("properties")));
+        }
+        EsIndexSchema schema = EMPTY;
+        for (Object indexMapping : mappings.values()) {
+            if (indexMapping instanceof Map) {
+                schema = schema.merge(fromMappings((Map<String, ?>) indexMapping));
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * 合并另一个 schema 的字段，同名字段以当前的为准
+     *
+     * @param other 另一个 schema
+     * @return 合并后的 schema
+     */
+    public EsIndexSchema merge(EsIndexSchema other) {
+        if (other == null || other.fields.isEmpty()) {
+            return this;
+        }
+        if (fields.isEmpty()) {
+            return other;
+        }
+        Map<String, EsField> fieldMap = new LinkedHashMap<>(other.fields);
+        fieldMap.putAll(fields);
+        return new EsIndexSchema(Collections.unmodifiableMap(fieldMap));
+    }
+
+    /**
+     * 获取字段
+     *
+     * @param field 字段的完整路径
+     * @return {@link EsField}，没有则为 null
+     */
+    public EsField getField(String field) {
+        return fields.get(field);
+    }
+
+    /**
+     * 全部字段（不可修改）
+     *
+     * @return 字段，key 为字段的完整路径
+     */
+    public Map<String, EsField> getFields() {
+        return fields;
+    }
+
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    /**
+     * term 查询、排序及聚合使用的字段：text 字段有 keyword 子字段时为子字段，否则为字段本身
+     *
+     * @param field 字段
+     * @return 实际使用的字段
+     */
+    public String termField(String field) {
+        EsField esField = fields.get(field);
+        return esField == null ? field : esField.getTermField();
+    }
+
+    /**
+     * 值转为字段类型的值，见 {@link EsFieldType#toValue(Object)}
+     *
+     * @param field 字段
+     * @param value 值
+     * @return 转换后的值，不认识的字段原样返回
+     */
+    public Object typedValue(String field, Object value) {
+        EsField esField = fields.get(field);
+        return esField == null ? value : esField.getType().toValue(value);
+    }
+
+    /**
+     * 字段是否都可以通过 docvalue_fields 读取值，见 {@link EsField#isDocValueReadable()}
+     *
+     * @param fieldNames 字段
+     * @return boolean，有不认识的字段则为 false
+     */
+    public boolean isDocValueReadable(String... fieldNames) {
+        if (fieldNames == null || fieldNames.length == 0) {
+            return false;
+        }
+        for (String fieldName : fieldNames) {
+            EsField esField = fields.get(fieldName);
+            if (esField == null || !esField.isDocValueReadable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 日期字段的范围条件需要设置的 format：全部边界都是同一种可以识别的日期字符串，并且 mapping 的 format 中没有该格式
+     *
+     * @param field  字段
+     * @param values 范围的边界，没有的边界为 null
+     * @return format，不需要设置则为 null
+     */
+    public String dateFormat(String field, Object... values) {
+        EsField esField = fields.get(field);
+        if (esField == null || esField.getType() != EsFieldType.DATE) {
+            return null;
+        }
+        String format = null;
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (!(value instanceof String)) {
+                // 数字为时间戳，由 mapping 的格式解析
+                return null;
+            }
+            String valueFormat = EsDateFormats.detect((String) value);
+            if (valueFormat == null || (format != null && !format.equals(valueFormat))) {
+                return null;
+            }
+            format = valueFormat;
+        }
+        if (format == null || (esField.getFormat() != null && Arrays.asList(esField.getFormat().split("\\|\\|")).contains(format))) {
+            return null;
+        }
+        return format;
+    }
+
+    @Override
+    public String toString() {
+        return fields.values().toString();
+    }
+
+    /**
+     * 添加 properties 中的字段，object 字段递归添加，多字段（fields）作为子字段添加
+     *
+     * @param prefix     上一层的路径，顶层为 null
+     * @param properties properties
+     * @param fieldMap   字段
+     */
+    private static void addProperties(String prefix, Map<String, ?> properties, Map<String, EsField> fieldMap) {
+        for (Map.Entry<String, ?> entry : properties.entrySet()) {
+            String name = prefix == null ? entry.getKey() : prefix + '.' + entry.getKey();
+            Map<String, Object> definition = asMap(entry.getValue());
+            Object childProperties = definition.get("properties");
+            if (childProperties instanceof Map) {
+                fieldMap.put(name, new EsField(name, String.valueOf(definition.getOrDefault("type", "object")), null, null));
+                addProperties(name, asMap(childProperties), fieldMap);
+                continue;
+            }
+            String type = (String) definition.get("type");
+            String keywordSubfield = null;
+            Map<String, Object> subfields = asMap(definition.get("fields"));
+            for (Map.Entry<String, Object> subfield : subfields.entrySet()) {
+                Map<String, Object> subDefinition = asMap(subfield.getValue());
+                String subName = name + '.' + subfield.getKey();
+                fieldMap.put(subName, new EsField(subName, (String) subDefinition.get("type"), (String) subDefinition.get("format"), null, isDocValues(subDefinition)));
+                // 有多个 keyword 子字段时优先使用名为 keyword 的
+                if (EsFieldType.of((String) subDefinition.get("type")) == EsFieldType.KEYWORD && (keywordSubfield == null || "keyword".equals(subfield.getKey()))) {
+                    keywordSubfield = subName;
+                }
+            }
+            fieldMap.put(name, new EsField(name, type, (String) definition.get("format"), keywordSubfield, isDocValues(definition)));
+        }
+    }
+
+    /**
+     * 字段的定义中是否开启了 doc_values（没有配置则为默认的开启）
+     *
+     * @param definition 字段的定义
+     * @return boolean
+     */
+    private static boolean isDocValues(Map<String, Object> definition) {
+        Object docValues = definition.get("doc_values");
+        return docValues == null || !"false".equalsIgnoreCase(String.valueOf(docValues));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Collections.emptyMap();
+    }
+}
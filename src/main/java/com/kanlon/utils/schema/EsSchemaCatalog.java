@@ -0,0 +1,166 @@
+package com.kanlon.utils.schema;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 索引字段类型的目录（线程安全），按索引缓存 {@link EsSchemaLoader} 加载的 {@link EsIndexSchema}，过期后重新加载
+ * <p>
+ * 过期后只有一个线程重新加载，其他线程继续使用旧的；加载失败时打印警告日志并继续使用旧的（第一次加载失败则为 {@link EsIndexSchema#EMPTY}，即不按类型翻译），
+ * 过期时间之后再重试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 01:10
+ **/
+@Slf4j
+public class EsSchemaCatalog {
+
+    /**
+     * 默认的过期时间（毫秒）：5分钟
+     */
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000L;
+
+    /**
+     * 加载器
+     */
+    private final EsSchemaLoader loader;
+
+    /**
+     * 过期时间（毫秒），小于等于0表示不过期
+     */
+    private final long ttlMillis;
+
+    /**
+     * 缓存，key 为索引（多个索引用逗号分隔）
+     */
+    private final ConcurrentMap<String, CacheEntry> cacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * 构造方法，过期时间为 {@link #DEFAULT_TTL_MILLIS}
+     *
+     * @param loader 加载器
+     */
+    public EsSchemaCatalog(EsSchemaLoader loader) {
+        this(loader, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param loader    加载器
+     * @param ttlMillis 过期时间（毫秒），小于等于0表示不过期
+     */
+    public EsSchemaCatalog(EsSchemaLoader loader, long ttlMillis) {
+        if (loader == null) {
+            throw new IllegalArgumentException("加载器不能为空！");
+        }
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 获取多个索引合并后的字段类型
+     *
+     * @param indices 索引
+     * @return {@link EsIndexSchema}
+     */
+    public EsIndexSchema getSchema(String... indices) {
+        return getSchema(String.join(",", indices));
+    }
+
+    /**
+     * 获取索引的字段类型，没有缓存则加载，已过期则由一个线程重新加载
+     *
+     * @param index 索引，多个索引用逗号分隔
+     * @return {@link EsIndexSchema}
+     */
+    public EsIndexSchema getSchema(String index) {
+        CacheEntry entry = cacheMap.computeIfAbsent(index, key -> new CacheEntry());
+        EsIndexSchema schema = entry.schema;
+        if (schema != null) {
+            if (!entry.isExpired(System.currentTimeMillis()) || !entry.loading.compareAndSet(false, true)) {
+                return schema;
+            }
+            try {
+                return load(index, entry);
+            } finally {
+                entry.loading.set(false);
+            }
+        }
+        synchronized (entry) {
+            if (entry.schema == null) {
+                load(index, entry);
+            }
+            return entry.schema;
+        }
+    }
+
+    /**
+     * 立即重新加载索引的字段类型（例如 mapping 修改之后）
+     *
+     * @param index 索引，多个索引用逗号分隔
+     * @return 重新加载的 {@link EsIndexSchema}，加载失败则为旧的
+     */
+    public EsIndexSchema refresh(String index) {
+        CacheEntry entry = cacheMap.computeIfAbsent(index, key -> new CacheEntry());
+        synchronized (entry) {
+            return load(index, entry);
+        }
+    }
+
+    /**
+     * 删除索引的缓存，下次获取时重新加载
+     *
+     * @param index 索引，多个索引用逗号分隔
+     */
+    public void invalidate(String index) {
+        cacheMap.remove(index);
+    }
+
+    /**
+     * 删除全部缓存
+     */
+    public void invalidateAll() {
+        cacheMap.clear();
+    }
+
+    /**
+     * 加载并更新缓存，失败则保留旧的
+     *
+     * @param index 索引
+     * @param entry 缓存
+     * @return 加载后的 {@link EsIndexSchema}
+     */
+    private EsIndexSchema load(String index, CacheEntry entry) {
+        EsIndexSchema schema;
+        try {
+            schema = loader.load(index);
+            schema = schema == null ? EsIndexSchema.EMPTY : schema;
+        } catch (Exception e) {
+            schema = entry.schema == null ? EsIndexSchema.EMPTY : entry.schema;
+            log.warn("加载索引【{}】的字段类型失败！继续使用{}的字段类型", index, entry.schema == null ? "空" : "旧", e);
+        }
+        entry.loadTime = System.currentTimeMillis();
+        entry.schema = schema;
+        return schema;
+    }
+
+    /**
+     * 缓存的字段类型
+     */
+    private final class CacheEntry {
+        private volatile EsIndexSchema schema;
+        private volatile long loadTime;
+        /**
+         * 是否有线程正在重新加载
+         */
+        private final AtomicBoolean loading = new AtomicBoolean();
+
+        private boolean isExpired(long now) {
+            return ttlMillis > 0 && now - loadTime >= ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.kanlon.utils.schema;
+
+import java.io.IOException;
+
+/**
+ * 加载索引的字段类型，例如从 json 文件或 es 集群的 _mapping 接口加载，见 {@link com.kanlon.utils.EsSchemaLoaders}
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 01:10
+ **/
+@FunctionalInterface
+public interface EsSchemaLoader {
+
+    /**
+     * 加载索引的字段类型
+     *
+     * @param index 索引，多个索引用逗号分隔（与 es 接口路径中的索引相同），多个索引的字段合并
+     * @return {@link EsIndexSchema}，没有该索引则返回 {@link EsIndexSchema#EMPTY}
+     * @throws IOException 加载失败
+     */
+    EsIndexSchema load(String index) throws IOException;
+}
@@ -0,0 +1,191 @@
+package com.kanlon.utils.trace;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在内存中统计直方图的监听器（线程安全）：翻译及执行的总耗时、各阶段的耗时、条件数及 dsl 的字节数的分布，
+ * 以及各个缓存的命中、未命中次数和按阶段及异常类型统计的失败次数
+ * <p>
+ * 耗时的单位为纳秒，直方图使用 HdrHistogram（3 位有效数字），获取的直方图为副本，可以用于计算分位数或者输出
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 03:30
+ **/
+public class HistogramSqlTraceListener implements SqlTraceListener {
+
+    /**
+     * 直方图的有效数字位数
+     */
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Histogram translateNanos = newHistogram();
+
+    private final Histogram executeNanos = newHistogram();
+
+    private final Map<SqlStage, Histogram> stageNanos = new EnumMap<>(SqlStage.class);
+
+    private final Histogram predicateCounts = newHistogram();
+
+    private final Histogram dslBytes = newHistogram();
+
+    /**
+     * 缓存的命中次数，key 为缓存的名称
+     */
+    private final Map<String, LongAdder> cacheHits = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存的未命中次数，key 为缓存的名称
+     */
+    private final Map<String, LongAdder> cacheMisses = new ConcurrentHashMap<>();
+
+    /**
+     * 失败次数，key 为 阶段:异常类名
+     */
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    public HistogramSqlTraceListener() {
+        for (SqlStage stage : SqlStage.values()) {
+            stageNanos.put(stage, newHistogram());
+        }
+    }
+
+    @Override
+    public void onTranslate(SqlTraceEvent event) {
+        record(event, translateNanos);
+    }
+
+    @Override
+    public void onExecute(SqlTraceEvent event) {
+        record(event, executeNanos);
+    }
+
+    @Override
+    public void onCacheAccess(String cacheName, boolean hit) {
+        (hit ? cacheHits : cacheMisses).computeIfAbsent(cacheName, key -> new LongAdder()).increment();
+    }
+
+    private void record(SqlTraceEvent event, Histogram totalNanos) {
+        if (event.isFailed()) {
+            failures.computeIfAbsent(event.getFailedStage() + ":" + event.getFailure().getClass().getName(), key -> new LongAdder()).increment();
+            return;
+        }
+        totalNanos.recordValue(event.getTotalNanos());
+        for (SqlStage stage : SqlStage.values()) {
+            long nanos = event.getStageNanos(stage);
+            if (nanos > 0) {
+                stageNanos.get(stage).recordValue(nanos);
+            }
+        }
+        if (event.getPredicateCount() >= 0) {
+            predicateCounts.recordValue(event.getPredicateCount());
+        }
+        if (event.getDslBytes() >= 0) {
+            dslBytes.recordValue(event.getDslBytes());
+        }
+    }
+
+    /**
+     * 翻译的总耗时（纳秒）的直方图，只包括成功的翻译
+     *
+     * @return 直方图的副本
+     */
+    public Histogram getTranslateNanos() {
+        return translateNanos.copy();
+    }
+
+    /**
+     * 执行的总耗时（纳秒）的直方图，只包括成功的执行
+     *
+     * @return 直方图的副本
+     */
+    public Histogram getExecuteNanos() {
+        return executeNanos.copy();
+    }
+
+    /**
+     * 阶段的耗时（纳秒）的直方图
+     *
+     * @param stage 阶段
+     * @return 直方图的副本
+     */
+    public Histogram getStageNanos(SqlStage stage) {
+        return stageNanos.get(stage).copy();
+    }
+
+    /**
+     * where 条件最外层的条件数的直方图
+     *
+     * @return 直方图的副本
+     */
+    public Histogram getPredicateCounts() {
+        return predicateCounts.copy();
+    }
+
+    /**
+     * dsl 的字节数的直方图
+     *
+     * @return 直方图的副本
+     */
+    public Histogram getDslBytes() {
+        return dslBytes.copy();
+    }
+
+    /**
+     * 缓存的命中次数
+     *
+     * @param cacheName 缓存的名称
+     * @return 次数
+     */
+    public long getCacheHits(String cacheName) {
+        LongAdder count = cacheHits.get(cacheName);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * 缓存的未命中次数
+     *
+     * @param cacheName 缓存的名称
+     * @return 次数
+     */
+    public long getCacheMisses(String cacheName) {
+        LongAdder count = cacheMisses.get(cacheName);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * 失败次数
+     *
+     * @return key 为 阶段:异常类名（例如 PARSE:java.lang.RuntimeException），value 为次数
+     */
+    public Map<String, Long> getFailures() {
+        Map<String, Long> counts = new HashMap<>(failures.size() * 2);
+        failures.forEach((key, count) -> counts.put(key, count.sum()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        translateNanos.reset();
+        executeNanos.reset();
+        stageNanos.values().forEach(Histogram::reset);
+        predicateCounts.reset();
+        dslBytes.reset();
+        cacheHits.clear();
+        cacheMisses.clear();
+        failures.clear();
+    }
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    }
+}
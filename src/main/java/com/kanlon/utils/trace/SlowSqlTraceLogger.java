@@ -0,0 +1,51 @@
+package com.kanlon.utils.trace;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢翻译及慢执行的日志：耗时超过阈值时打印警告日志，包括各阶段的耗时、条件数及 dsl 的字节数；
+ * 日志中只有sql的指纹，不打印原始sql（可能包含敏感的常量），可以用 {@link com.kanlon.utils.SqlNormalizeUtils#fingerprint(String)} 计算sql的指纹后对照
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 03:30
+ **/
+@Slf4j
+public class SlowSqlTraceLogger implements SqlTraceListener {
+
+    /**
+     * 慢翻译的阈值（纳秒）
+     */
+    private final long translateThresholdNanos;
+
+    /**
+     * 慢执行的阈值（纳秒）
+     */
+    private final long executeThresholdNanos;
+
+    /**
+     * 构造方法
+     *
+     * @param translateThresholdMillis 慢翻译的阈值（毫秒）
+     * @param executeThresholdMillis   慢执行的阈值（毫秒），小于等于 0 则不打印慢执行的日志
+     */
+    public SlowSqlTraceLogger(long translateThresholdMillis, long executeThresholdMillis) {
+        this.translateThresholdNanos = TimeUnit.MILLISECONDS.toNanos(translateThresholdMillis);
+        this.executeThresholdNanos = executeThresholdMillis <= 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(executeThresholdMillis);
+    }
+
+    @Override
+    public void onTranslate(SqlTraceEvent event) {
+        if (event.getTotalNanos() >= translateThresholdNanos) {
+            log.warn("sql翻译耗时{}毫秒，超过阈值！{}", TimeUnit.NANOSECONDS.toMillis(event.getTotalNanos()), event);
+        }
+    }
+
+    @Override
+    public void onExecute(SqlTraceEvent event) {
+        if (event.getTotalNanos() >= executeThresholdNanos) {
+            log.warn("sql执行耗时{}毫秒，超过阈值！{}", TimeUnit.NANOSECONDS.toMillis(event.getTotalNanos()), event);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.kanlon.utils.trace;
+
+/**
+ * sql 翻译及执行的阶段
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 03:30
+ **/
+public enum SqlStage {
+    /**
+     * druid 解析sql生成语法树
+     */
+    PARSE,
+    /**
+     * 从语法树中获取列映射
+     */
+    COLUMN_MAP,
+    /**
+     * 遍历 where 条件生成条件模型（包括优化）
+     */
+    WHERE,
+    /**
+     * 编译查询及绑定参数生成 dsl
+     */
+    BUILD,
+    /**
+     * dsl 序列化为json
+     */
+    SERIALIZE,
+    /**
+     * 发送请求并等待 es 的响应
+     */
+    EXECUTE,
+    /**
+     * 解码 es 的响应
+     */
+    DECODE
+}
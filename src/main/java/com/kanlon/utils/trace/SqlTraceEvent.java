@@ -0,0 +1,101 @@
+package com.kanlon.utils.trace;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次sql翻译或执行的统计（不可变）：各阶段的耗时、条件数、dsl 的字节数及失败原因，sql 只记录其指纹（不包括常量）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 03:30
+ **/
+@Getter
+public final class SqlTraceEvent {
+
+    /**
+     * sql 的指纹，见 {@link com.kanlon.utils.SqlNormalizeUtils#fingerprint(String)}
+     */
+    private final String fingerprint;
+
+    /**
+     * 总耗时（纳秒）
+     */
+    private final long totalNanos;
+
+    /**
+     * where 条件最外层的条件数，没有解析条件（例如执行预编译的sql）则为 -1
+     */
+    private final int predicateCount;
+
+    /**
+     * dsl 的json的字节数，没有序列化则为 -1
+     */
+    private final int dslBytes;
+
+    /**
+     * 失败的原因，成功则为 null
+     */
+    private final Throwable failure;
+
+    /**
+     * 失败的阶段，成功则为 null
+     */
+    private final SqlStage failedStage;
+
+    /**
+     * 各阶段的耗时（纳秒），下标为 {@link SqlStage#ordinal()}
+     */
+    @Getter(lombok.AccessLevel.NONE)
+    private final long[] stageNanos;
+
+    public SqlTraceEvent(String fingerprint, long totalNanos, long[] stageNanos, int predicateCount, int dslBytes, Throwable failure, SqlStage failedStage) {
+        this.fingerprint = fingerprint;
+        this.totalNanos = totalNanos;
+        this.stageNanos = stageNanos.clone();
+        this.predicateCount = predicateCount;
+        this.dslBytes = dslBytes;
+        this.failure = failure;
+        this.failedStage = failedStage;
+    }
+
+    /**
+     * 阶段的耗时
+     *
+     * @param stage 阶段
+     * @return 耗时（纳秒），没有经过该阶段则为 0
+     */
+    public long getStageNanos(SqlStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * 是否失败
+     *
+     * @return boolean
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(128);
+        builder.append("fingerprint=").append(fingerprint).append(", total=").append(TimeUnit.NANOSECONDS.toMicros(totalNanos)).append("us");
+        for (SqlStage stage : SqlStage.values()) {
+            if (stageNanos[stage.ordinal()] > 0) {
+                builder.append(", ").append(stage.name().toLowerCase()).append('=').append(TimeUnit.NANOSECONDS.toMicros(stageNanos[stage.ordinal()])).append("us");
+            }
+        }
+        if (predicateCount >= 0) {
+            builder.append(", predicates=").append(predicateCount);
+        }
+        if (dslBytes >= 0) {
+            builder.append(", dslBytes=").append(dslBytes);
+        }
+        if (failure != null) {
+            builder.append(", failedStage=").append(failedStage).append(", failure=").append(failure.getClass().getName());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.kanlon.utils.trace;
+
+/**
+ * sql 翻译及执行的统计的监听器（指标、链路追踪等的扩展点），通过 {@link com.kanlon.utils.SqlTranslateOptions} 配置，默认为 {@link #NOOP}
+ * <p>
+ * 回调在翻译或执行的线程中同步调用，实现需要线程安全并且尽量轻量，抛出的异常只打印日志；只有配置了监听器时才计算sql的指纹及各阶段的耗时
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 03:30
+ **/
+public interface SqlTraceListener {
+
+    /**
+     * 不做任何处理的监听器
+     */
+    SqlTraceListener NOOP = new SqlTraceListener() {};
+
+    /**
+     * 翻译结果的缓存（{@link com.kanlon.utils.SqlTranslateCache}）的名称
+     */
+    String TRANSLATE_CACHE = "translate";
+
+    /**
+     * 查询模板的缓存（{@link com.kanlon.utils.SqlTemplateCache} 及 {@link com.kanlon.utils.EsSqlExecutor} 中的缓存）的名称
+     */
+    String TEMPLATE_CACHE = "template";
+
+    /**
+     * 一次翻译结束（成功或失败）：解析、列映射、where 条件、生成 dsl 及序列化
+     *
+     * @param event 统计
+     */
+    default void onTranslate(SqlTraceEvent event) {}
+
+    /**
+     * 一次执行结束（成功或失败）：生成请求、执行及解码
+     *
+     * @param event 统计
+     */
+    default void onExecute(SqlTraceEvent event) {}
+
+    /**
+     * 访问缓存
+     *
+     * @param cacheName 缓存的名称，例如 {@link #TRANSLATE_CACHE}
+     * @param hit       是否命中
+     */
+    default void onCacheAccess(String cacheName, boolean hit) {}
+
+    /**
+     * 组合多个监听器，按顺序回调
+     *
+     * @param listeners 监听器
+     * @return {@link SqlTraceListener}
+     */
+    static SqlTraceListener composite(SqlTraceListener... listeners) {
+        SqlTraceListener[] copies = listeners.clone();
+        return new SqlTraceListener() {
+            @Override
+            public void onTranslate(SqlTraceEvent event) {
+                for (SqlTraceListener listener : copies) {
+                    listener.onTranslate(event);
+                }
+            }
+
+            @Override
+            public void onExecute(SqlTraceEvent event) {
+                for (SqlTraceListener listener : copies) {
+                    listener.onExecute(event);
+                }
+            }
+
+            @Override
+            public void onCacheAccess(String cacheName, boolean hit) {
+                for (SqlTraceListener listener : copies) {
+                    listener.onCacheAccess(cacheName, hit);
+                }
+            }
+        };
+    }
+}
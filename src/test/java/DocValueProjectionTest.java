@@ -0,0 +1,94 @@
+import com.kanlon.utils.ProjectionMode;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlRowDecoder;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.schema.EsIndexSchema;
+import com.kanlon.utils.schema.EsSchemaCatalog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 从 doc_values 中读取 select 的列的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 04:30
+ **/
+public class DocValueProjectionTest {
+
+    private static final EsSchemaCatalog CATALOG = new EsSchemaCatalog(index -> {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("uid", field("keyword"));
+        properties.put("age", field("long"));
+        properties.put("dt_time", field("date"));
+        properties.put("title", field("text"));
+        Map<String, Object> blob = field("keyword");
+        blob.put("doc_values", false);
+        properties.put("blob", blob);
+        Map<String, Object> user = new HashMap<>();
+        user.put("properties", Collections.singletonMap("name", field("keyword")));
+        properties.put("user", user);
+        return EsIndexSchema.fromProperties(properties);
+    }, 0);
+
+    private static final SqlTranslateOptions OPTIONS = SqlTranslateOptions.builder().schemaCatalog(CATALOG).projectionMode(ProjectionMode.DOC_VALUES).build();
+
+    /**
+     * 测试生成的dsl：列都有 doc_values 时使用 docvalue_fields，否则仍使用 _source
+     */
+    @Test
+    public void testDsl() {
+        String sql = "select uid as user_id, age, user.name as user_name from default.test_t1 where dt_time > '2022-10-10' order by age desc limit 0,10";
+        String dsl = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql, OPTIONS).toString();
+        Assert.assertEquals(dsl, SQLToEsDSLUtils.sqlToDslSearchBody(sql, OPTIONS).toString());
+        Assert.assertTrue(dsl.contains("\"_source\":false,\"stored_fields\":\"_none_\",\"docvalue_fields\":[{\"field\":\"uid\"},{\"field\":\"age\"},{\"field\":\"user.name\"}],\"sort\""));
+
+        // text 字段、关闭了 doc_values 的字段、不认识的字段及没有配置字段类型时从 _source 中读取
+        for (String column : Arrays.asList("title", "blob", "unknown")) {
+            String sourceDsl = SQLToEsDSLUtils.sqlToDslSearchBody("select uid, " + column + " from default.test_t1", OPTIONS).toString();
+            Assert.assertTrue(sourceDsl.contains("\"includes\":[\"uid\",\"" + column + "\"]"));
+            Assert.assertFalse(sourceDsl.contains("docvalue_fields"));
+        }
+        String withoutCatalog = SQLToEsDSLUtils.sqlToDslSearchBody("select uid from default.test_t1",
+                SqlTranslateOptions.builder().projectionMode(ProjectionMode.DOC_VALUES).build()).toString();
+        Assert.assertTrue(withoutCatalog.contains("\"includes\":[\"uid\"]"));
+        // 默认从 _source 中读取，计数sql不返回文档
+        Assert.assertFalse(SQLToEsDSLUtils.sqlToDslSearchBody("select uid from default.test_t1",
+                SqlTranslateOptions.builder().schemaCatalog(CATALOG).build()).toString().contains("docvalue_fields"));
+        Assert.assertFalse(SQLToEsDSLUtils.sqlToDslSearchBody("select count(1) from default.test_t1", OPTIONS).toString().contains("docvalue_fields"));
+    }
+
+    /**
+     * 测试从 fields 中解码：单个值取该值，多个值为列表，没有的字段为 null
+     */
+    @Test
+    public void testDecodeFields() {
+        String response = "{\"took\":1,\"hits\":{\"total\":{\"value\":2,\"relation\":\"eq\"},\"hits\":["
+                + "{\"_index\":\"t\",\"_score\":null,\"fields\":{\"uid\":[\"u1\"],\"age\":[18],\"user.name\":[\"a\",\"b\"]},\"sort\":[18]},"
+                + "{\"_index\":\"t\",\"_score\":null,\"fields\":{\"uid\":[\"u2\"],\"other\":[1]},\"sort\":[3]}]}}";
+        SqlRowDecoder decoder = SqlRowDecoder.of("select uid as user_id, age, user.name as user_name from default.test_t1");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        long count = decoder.decode(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)), row -> rows.add(row.toMap()));
+        Assert.assertEquals(2, count);
+        Assert.assertEquals("u1", rows.get(0).get("user_id"));
+        Assert.assertEquals(18, rows.get(0).get("age"));
+        Assert.assertEquals(Arrays.asList("a", "b"), rows.get(0).get("user_name"));
+        Assert.assertEquals("u2", rows.get(1).get("user_id"));
+        Assert.assertNull(rows.get(1).get("age"));
+        Assert.assertFalse(rows.get(1).containsKey("other"));
+    }
+
+    private static Map<String, Object> field(String type) {
+        Map<String, Object> definition = new HashMap<>();
+        definition.put("type", type);
+        return definition;
+    }
+}
@@ -0,0 +1,136 @@
+import com.kanlon.utils.EsDslAdapter;
+import com.kanlon.utils.PreparedSqlQuery;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.SqlTranslateCache;
+import com.kanlon.utils.SqlTranslateResult;
+import com.kanlon.utils.dsl.DslCanonicalizer;
+import com.kanlon.utils.dsl.DslQueries;
+import com.kanlon.utils.dsl.DslQuery;
+import com.kanlon.utils.dsl.DslRangeQuery;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * 规范化查询（命中 es 分片的请求缓存）的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 03:00
+ **/
+public class DslCanonicalizerTest {
+
+    private static final SqlTranslateOptions CANONICAL = SqlTranslateOptions.builder().canonical(true).build();
+
+    /**
+     * 测试逻辑相同的sql生成相同的json，并且与 SearchSourceBuilder 一致
+     */
+    @Test
+    public void testCanonicalOrder() {
+        String sql1 = "select uid, appid from default.test_t1 where appid = '1' and dt in ('b', 'a', 'b') and (age > 1 or name = 'x') limit 0,10";
+        String sql2 = "select appid, uid from default.test_t1 where (name = 'x' or age > 1) and dt in ('a', 'b') and appid = '1' limit 0,10";
+        String dsl1 = SQLToEsDSLUtils.sqlToDslSearchBody(sql1, CANONICAL).toString();
+        Assert.assertEquals(dsl1, SQLToEsDSLUtils.sqlToDslSearchBody(sql2, CANONICAL).toString());
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql1, CANONICAL).toString(), dsl1);
+        Assert.assertTrue(dsl1, dsl1.contains("\"includes\":[\"appid\",\"uid\"]"));
+        Assert.assertTrue(dsl1, dsl1.contains("{\"terms\":{\"dt\":[\"a\",\"b\"]"));
+        // 默认不规范化：_source 的字段为 select 的顺序
+        Assert.assertTrue(SQLToEsDSLUtils.sqlToDslSearchBody(sql1).toString().contains("\"includes\":[\"uid\",\"appid\"]"));
+    }
+
+    /**
+     * 测试相对时间的解析及时间的边界按粒度取整
+     */
+    @Test
+    public void testTimeRounding() {
+        Instant now = Instant.parse("2021-05-08T13:13:25.123Z");
+        DslCanonicalizer canonicalizer = new DslCanonicalizer(Duration.ofMinutes(1), Clock.fixed(now, ZoneOffset.UTC));
+        DslQuery query = canonicalizer.canonicalize(DslQueries.rangeQuery("dt_time").from("now-1h", true).to("now", true));
+        Assert.assertEquals("{\"range\":{\"dt_time\":{\"from\":" + Instant.parse("2021-05-08T12:13:00Z").toEpochMilli() + ",\"to\":"
+                + Instant.parse("2021-05-08T13:14:00Z").toEpochMilli() + ",\"include_lower\":true,\"include_upper\":true,\"format\":\"epoch_millis\",\"boost\":1.0}}}", query.toString());
+        // 按 / 取整时与 es 的规则相同
+        query = canonicalizer.canonicalize(DslQueries.rangeQuery("dt_time").from("now-1d/d", true).to("now/d", true));
+        Assert.assertTrue(query.toString(), query.toString().contains("\"from\":" + Instant.parse("2021-05-07T00:00:00Z").toEpochMilli()
+                + ",\"to\":" + (Instant.parse("2021-05-09T00:00:00Z").toEpochMilli() - 1) + ","));
+        query = canonicalizer.canonicalize(DslQueries.rangeQuery("dt_time").from(Date.from(now), false).to(null, true));
+        Assert.assertEquals(Date.from(Instant.parse("2021-05-08T13:13:00Z")), ((DslRangeQuery) query).getFrom());
+        // 不是相对时间的字符串不变
+        query = canonicalizer.canonicalize(DslQueries.rangeQuery("dt").from("nowhere", true).to("20210508", true));
+        Assert.assertEquals(DslQueries.rangeQuery("dt").from("nowhere", true).to("20210508", true).toString(), query.toString());
+    }
+
+    /**
+     * 测试不返回文档的查询使用请求缓存
+     */
+    @Test
+    public void testRequestCache() {
+        Assert.assertEquals(Boolean.TRUE, SQLToEsDSLUtils.sqlToEsSearchRequest("select count(1) from default.test_t1 where dt = '1'", CANONICAL).requestCache());
+        Assert.assertEquals(Boolean.TRUE, SqlTranslateResult.translate("select dt, count(1) from default.test_t1 group by dt", CANONICAL).toSearchRequest().requestCache());
+        Assert.assertNull(SQLToEsDSLUtils.sqlToEsSearchRequest("select count(1) from default.test_t1 where dt = '1'").requestCache());
+        PreparedSqlQuery query = SQLToEsDSLUtils.prepare("select uid from default.test_t1 where dt = ? limit ?", CANONICAL);
+        Assert.assertTrue(query.isRequestCache("1", 0));
+        Assert.assertFalse(query.isRequestCache("1", 10));
+        Assert.assertNull(EsDslAdapter.bindSearchRequest(query, "1", 10).requestCache());
+    }
+
+    /**
+     * 测试缓存的翻译结果中的相对时间随时钟变化，并且与 SearchSourceBuilder 一致
+     */
+    @Test
+    public void testRelativeTimeNotCached() {
+        MovingClock clock = new MovingClock(Instant.parse("2021-05-08T13:13:25Z"));
+        SqlTranslateOptions options = CANONICAL.toBuilder().clock(clock).build();
+        SqlTranslateCache cache = new SqlTranslateCache(16, 0, options);
+        String sql = "select count(1) from default.test_t1 where dt_time >= 'now-1h'";
+        String first = new String(cache.getDslBytes(sql), StandardCharsets.UTF_8);
+        Assert.assertTrue(first, first.contains("\"from\":" + Instant.parse("2021-05-08T12:13:00Z").toEpochMilli()));
+        clock.advance(Duration.ofHours(1));
+        SqlTranslateResult result = cache.get(sql);
+        Assert.assertEquals(1, cache.getHitCount());
+        String second = result.getDslString();
+        Assert.assertTrue(second, second.contains("\"from\":" + Instant.parse("2021-05-08T13:13:00Z").toEpochMilli()));
+        Assert.assertEquals(second, result.toSearchRequest().source().toString());
+        // 没有相对时间的结果不变
+        SqlTranslateResult fixed = cache.get("select count(1) from default.test_t1 where dt = '1'");
+        clock.advance(Duration.ofHours(1));
+        Assert.assertEquals(fixed.getDslString(), fixed.toSearchSourceBuilder().toString());
+    }
+
+    /**
+     * 可以调整时间的时钟
+     */
+    private static class MovingClock extends Clock {
+
+        private Instant instant;
+
+        MovingClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.dsl.DslLikeStrategy;
+import com.kanlon.utils.dsl.DslLikeTranslator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * like 的翻译策略的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 00:40
+ **/
+public class DslLikeTranslatorTest {
+
+    /**
+     * 测试没有配置策略时：term、prefix、wildcard，以通配符开头时回调警告
+     */
+    @Test
+    public void testDefault() {
+        List<String> warnings = new ArrayList<>();
+        DslLikeTranslator translator = new DslLikeTranslator(Collections.emptyMap(), (field, pattern) -> warnings.add(field + ":" + pattern));
+        Assert.assertEquals("{\"term\":{\"f\":{\"value\":\"abc\",\"boost\":1.0}}}", translator.toQuery("f", "abc").toString());
+        Assert.assertEquals("{\"term\":{\"f\":{\"value\":\"\",\"boost\":1.0}}}", translator.toQuery("f", "").toString());
+        Assert.assertEquals("{\"prefix\":{\"f\":{\"value\":\"abc\",\"boost\":1.0}}}", translator.toQuery("f", "abc%").toString());
+        // 转义的通配符为普通字符
+        Assert.assertEquals("{\"prefix\":{\"f\":{\"value\":\"a%b_*\",\"boost\":1.0}}}", translator.toQuery("f", "a\\%b\\_*%%").toString());
+        Assert.assertNull(translator.toQuery("f", "%"));
+        Assert.assertNull(translator.toQuery("f", "%%"));
+        Assert.assertNull(translator.toQuery("f", null));
+        Assert.assertTrue(warnings.isEmpty());
+
+        Assert.assertEquals("{\"wildcard\":{\"f\":{\"wildcard\":\"a*c?\",\"boost\":1.0}}}", translator.toQuery("f", "a%c_").toString());
+        Assert.assertTrue(warnings.isEmpty());
+        Assert.assertEquals("{\"wildcard\":{\"f\":{\"wildcard\":\"*张三*\",\"boost\":1.0}}}", translator.toQuery("f", "%张三%").toString());
+        Assert.assertEquals("{\"wildcard\":{\"f\":{\"wildcard\":\"*a\\\\*b\",\"boost\":1.0}}}", translator.toQuery("f", "%a*b").toString());
+        Assert.assertEquals(2, warnings.size());
+        Assert.assertEquals("f:%张三%", warnings.get(0));
+    }
+
+    /**
+     * 测试按字段配置的策略，及生成的json与 SearchSourceBuilder 一致
+     */
+    @Test
+    public void testStrategies() {
+        List<String> warnings = new ArrayList<>();
+        Map<String, DslLikeStrategy> strategies = new HashMap<>(4);
+        strategies.put("country", DslLikeStrategy.ngramSubfield("ngram"));
+        strategies.put("title", DslLikeStrategy.matchPhrase());
+        strategies.put("url", DslLikeStrategy.wildcardSubfield("wildcard"));
+        SqlTranslateOptions options = SqlTranslateOptions.builder().likeStrategies(strategies).leadingWildcardHandler((field, pattern) -> warnings.add(field)).build();
+        String sql = "select uid from t where country like '%中国黑龙江绥化%' and title like '%a b%' and url like '%/a_b' and country like '%省'";
+        String dsl = SQLToEsDSLUtils.sqlToDslSearchBody(sql, options).toString();
+        Assert.assertTrue(dsl.contains("{\"match_phrase\":{\"country.ngram\":{\"query\":\"中国黑龙江绥化\",\"slop\":0,\"zero_terms_query\":\"NONE\",\"boost\":1.0}}}"));
+        Assert.assertTrue(dsl.contains("{\"match_phrase\":{\"title\":{\"query\":\"a b\""));
+        Assert.assertTrue(dsl.contains("{\"wildcard\":{\"url.wildcard\":{\"wildcard\":\"*/a?b\",\"boost\":1.0}}}"));
+        // ngram 的策略不支持后缀，使用 wildcard 查询
+        Assert.assertTrue(dsl.contains("{\"wildcard\":{\"country\":{\"wildcard\":\"*省\",\"boost\":1.0}}}"));
+        Assert.assertEquals(Collections.singletonList("country"), warnings);
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql, options).toString(), dsl);
+    }
+}
@@ -0,0 +1,97 @@
+import com.kanlon.utils.EsDslAdapter;
+import com.kanlon.utils.PreparedSqlQuery;
+import com.kanlon.utils.QueryContextMode;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlAggregation;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.dsl.DslJsonWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * 不依赖 es 的 dsl 模型的测试：生成的json与 SearchSourceBuilder 完全一致
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 23:50
+ **/
+public class DslSearchBodyTest {
+
+    private static final String[] SQLS = {
+            "select * from default.test_t1",
+            "select uid from default.test_t1 limit 1,1",
+            "select uid as user_id, user.name as user_name, dt from default.test_t1 where dt='20221010'",
+            "select appid,uid,`dt`,dt_time,time from    default.test_t1 where dt_time>='202105081313+0800' and dt_time <='202105081413+0800' and appid = '15013' and uid in ('2524712316','2706555022')  order by dt_time desc,time desc limit 0,5",
+            "select appid,uid from default.test_t1 where dt_time between '202105081313+0800' and '202105081413+0800' and appid = '15013' and uid in ('2524712316','2706555022') and country like '%张三%' limit 0,5",
+            "select * from default.test_t3 where 1 = 1 and dt >= 10 and dt > 5 and dt < 20 and dt <= 20 and (appid = '1' or appid = '2' or (appid in ('3', '1'))) and uid = 'a' and uid = 'a' limit 10",
+            "select * from default.test_t3 where (dt = '1' or (appid = '2' and uid = '3')) and (dt = '2' or 1 = 1)",
+            "select * from default.test_t3 where dt='asdf' and uid not in ('1') and (appid not in ('2') or uid = 'x') limit 10",
+            "select * from default.test_t3 where dt='asdf' and name like '%%' and (name like '%a%' or name like '%%') order by _score desc limit 10",
+            "select * from default.test_t3 where dt > '1' and (dt < '5' or uid = 'a\"b\\\\c')",
+            "select count(1) from    default.test_t2 where dt='12' and country like '%张三%'",
+            "select appid, sum(amount) as total, count(1) as cnt from default.test_t1 where dt='1' group by appid having sum(amount) > 100 and count(1) >= 2 order by total desc limit 0,10",
+            "select appid, sum(amount) as total from default.test_t1 group by appid having sum(amount) > min(amount) order by total desc",
+            "select appid, uid, max(amount) from default.test_t1 group by appid, uid order by appid desc",
+            "select appid, count(uid) c from default.test_t1 group by appid order by appid asc limit 5",
+            "select avg(amount) a, count(distinct uid) u, count(1) c from default.test_t1 where dt='1'",
+            "select uid from default.test_t5 where dt='1' union all select uid from default.test_t6 where dt='1' order by ts desc limit 1,3",
+    };
+
+    /**
+     * 测试各种sql生成的json与 SearchSourceBuilder 的完全一致
+     */
+    @Test
+    public void testSameAsSearchSourceBuilder() {
+        SqlTranslateOptions[] optionsList = {SqlTranslateOptions.DEFAULT,
+                SqlTranslateOptions.builder().queryContextMode(QueryContextMode.SCORE).optimizePredicates(false).compositeAggregation(true).build()};
+        for (SqlTranslateOptions options : optionsList) {
+            for (String sql : SQLS) {
+                SqlAggregation aggregation = SQLToEsDSLUtils.prepare(sql, options).getAggregation();
+                if (aggregation != null && aggregation.isMergeRequired()) {
+                    // 需要合并全部的桶后再排序及分页的 composite 聚合不能生成一个查询
+                    continue;
+                }
+                String expRet = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql, options).toString();
+                Assert.assertEquals(sql, expRet, SQLToEsDSLUtils.sqlToDslSearchBody(sql, options).toString());
+            }
+        }
+    }
+
+    /**
+     * 测试绑定各种类型的参数
+     */
+    @Test
+    public void testBindParams() {
+        PreparedSqlQuery query = SQLToEsDSLUtils.prepare("select uid from default.test_t1 where a = ? and b = ? and c = ? and d >= ? and e in (?) and f = ? and g = ? and h < ? limit ?,?");
+        Object[] params = {1L, 1.5d, new BigDecimal("2.50"), new Date(1600000000123L), Arrays.asList(1, "x", 2.5f), true, "中文\u0001😀", Long.MAX_VALUE, 0, 10};
+        byte[] expRet = EsDslAdapter.bind(query, params).toString().getBytes(StandardCharsets.UTF_8);
+        Assert.assertArrayEquals(expRet, query.bindDslBytes(params));
+        Assert.assertArrayEquals(expRet, query.bindDsl(params).toJsonBytes());
+    }
+
+    /**
+     * 测试写入器的转义、输出及复用
+     */
+    @Test
+    public void testWriter() throws IOException {
+        DslJsonWriter writer = new DslJsonWriter(16);
+        writer.startObject().field("a\"\\\n\t", "x\u001f/\u007f").field("b").startArray().value(null).value(Double.NaN).value(new String[]{"c"}).endArray().endObject();
+        String expRet = "{\"a\\\"\\\\\\n\\t\":\"x\\u001F/\u007f\",\"b\":[null,\"NaN\",[\"c\"]]}";
+        Assert.assertEquals(expRet, writer.toString());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writer.writeTo(outputStream);
+        Assert.assertArrayEquals(expRet.getBytes(StandardCharsets.UTF_8), outputStream.toByteArray());
+        ByteBuffer buffer = writer.toByteBuffer();
+        Assert.assertEquals(writer.size(), buffer.remaining());
+
+        writer.reset().startArray().value(1).value(2).endArray();
+        Assert.assertEquals("[1,2]", writer.toString());
+    }
+}
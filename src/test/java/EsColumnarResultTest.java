@@ -0,0 +1,62 @@
+import com.kanlon.utils.EsColumnarResult;
+import com.kanlon.utils.SqlRowDecoder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 按列存储的查询结果的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 22:30
+ **/
+public class EsColumnarResultTest {
+
+    /**
+     * 测试按类型存储、跨块增长、空值及类型转换
+     */
+    @Test
+    public void testAppend() {
+        SqlRowDecoder decoder = SqlRowDecoder.of("select appid, uid as user_id, amount, flag from default.test_t1");
+        StringBuilder hits = new StringBuilder();
+        int rows = 100;
+        for (int i = 0; i < rows; ++i) {
+            hits.append(i == 0 ? "" : ",").append("{\"_source\":{\"appid\":\"app").append(i % 3).append("\",\"uid\":").append(i)
+                    .append(",\"amount\":").append(i == 70 ? "1.5" : String.valueOf(i)).append(i % 10 == 0 ? "" : ",\"flag\":" + (i == 91 ? "\"x\"" : "true")).append("}}");
+        }
+        String response = "{\"took\":1,\"hits\":{\"total\":{\"value\":" + rows + ",\"relation\":\"eq\"},\"hits\":[" + hits + "]}}";
+
+        for (boolean offHeap : new boolean[]{false, true}) {
+            EsColumnarResult result = new EsColumnarResult(decoder.getColumns(), 64, offHeap);
+            decoder.decode(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)), result);
+            Assert.assertEquals(rows, result.rowCount());
+
+            int appid = result.indexOf("appid");
+            Assert.assertEquals(EsColumnarResult.ColumnType.STRING, result.getColumnType(appid));
+            Assert.assertEquals(Arrays.asList("app0", "app1", "app2"), result.getDictionary(appid));
+            Assert.assertEquals(2, result.getStringCode(98, appid));
+            Assert.assertEquals("app2", result.getString(98, appid));
+
+            int userId = result.indexOf("user_id");
+            Assert.assertEquals(EsColumnarResult.ColumnType.LONG, result.getColumnType(userId));
+            Assert.assertEquals(99, result.getLong(99, userId));
+
+            // 整数列出现小数后转为小数列
+            int amount = result.indexOf("amount");
+            Assert.assertEquals(EsColumnarResult.ColumnType.DOUBLE, result.getColumnType(amount));
+            Assert.assertEquals(1.5, result.getDouble(70, amount), 0);
+            Assert.assertEquals(65.0, result.getDouble(65, amount), 0);
+
+            // 出现不兼容的值后转为对象列，空值保留
+            int flag = result.indexOf("flag");
+            Assert.assertEquals(EsColumnarResult.ColumnType.OBJECT, result.getColumnType(flag));
+            Assert.assertTrue(result.isNull(0, flag));
+            Assert.assertTrue(result.isNull(80, flag));
+            Assert.assertEquals(Boolean.TRUE, result.getObject(81, flag));
+            Assert.assertEquals("x", result.getObject(91, flag));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import com.kanlon.utils.EsHitControl;
+import com.kanlon.utils.EsIndexSort;
+import com.kanlon.utils.PreparedSqlQuery;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.SqlTranslateResult;
+import com.kanlon.utils.TotalHitsIntent;
+import org.elasticsearch.action.search.SearchRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 根据sql的结构决定命中总数统计及提前结束的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:00
+ **/
+public class EsHitControlTest {
+
+    private static final SqlTranslateOptions NONE = SqlTranslateOptions.builder().totalHitsIntent(TotalHitsIntent.NONE)
+            .indexSorts(Collections.singletonMap("default.test_t1", EsIndexSort.of("dt_time desc", "uid"))).build();
+
+    /**
+     * 测试不需要总数时：没有排序的 limit 提前结束，排序与索引排序一致时由 es 提前结束，dsl 与 SearchSourceBuilder 的相同
+     */
+    @Test
+    public void testNoTotalHits() {
+        String sql = "select uid from default.test_t1 where appid = '1' limit 10,5";
+        SqlTranslateResult result = SqlTranslateResult.translate(sql, NONE);
+        EsHitControl hitControl = result.getHitControl();
+        Assert.assertEquals(Boolean.FALSE, hitControl.getTrackTotalHits());
+        Assert.assertEquals(15, hitControl.getTerminateAfter());
+        Assert.assertFalse(hitControl.isIndexSortEarlyTermination());
+        Assert.assertTrue(result.getDslString().startsWith("{\"from\":10,\"size\":5,\"terminate_after\":15,\"query\""));
+        Assert.assertTrue(result.getDslString().contains("\"track_total_hits\":-1"));
+        Assert.assertEquals(result.getDslString(), result.toSearchSourceBuilder().toString());
+
+        // 排序为索引排序的前缀
+        SqlTranslateResult sorted = SqlTranslateResult.translate("select uid from default.test_t1 order by dt_time desc limit 0,10", NONE);
+        Assert.assertEquals(0, sorted.getHitControl().getTerminateAfter());
+        Assert.assertTrue(sorted.getHitControl().isIndexSortEarlyTermination());
+        Assert.assertFalse(sorted.getDslString().contains("terminate_after"));
+        Assert.assertFalse(SqlTranslateResult.translate("select uid from default.test_t1 order by dt_time asc limit 0,10", NONE).getHitControl().isIndexSortEarlyTermination());
+        Assert.assertFalse(SqlTranslateResult.translate("select uid from default.test_t2 order by dt_time desc limit 0,10", NONE).getHitControl().isIndexSortEarlyTermination());
+
+        // 绑定的参数
+        PreparedSqlQuery query = SQLToEsDSLUtils.prepare("select uid from default.test_t1 where appid = ? limit ?,?", NONE);
+        Assert.assertEquals(3, query.hitControl("1", 2, 1).getTerminateAfter());
+        Assert.assertTrue(query.bindDsl("1", 0, 1).toString().contains("\"terminate_after\":1,"));
+
+        // 偏移量+条数超过 int 的范围时不提前结束，不能溢出为负数
+        SqlTranslateResult large = SqlTranslateResult.translate("select uid from default.test_t1 where appid = '1' limit 2147483000, 1000", NONE);
+        Assert.assertEquals(0, large.getHitControl().getTerminateAfter());
+        Assert.assertFalse(large.getDslString().contains("terminate_after"));
+        Assert.assertEquals(0, query.hitControl("1", Integer.MAX_VALUE, 1).getTerminateAfter());
+        List<SearchRequest> branches = SQLToEsDSLUtils.sqlToEsMultiSearchRequest("select uid from default.test_t1 where appid = '1' union all "
+                + "select uid from default.test_t2 where appid = '2' limit 2147483000, 1000", NONE).requests();
+        Assert.assertEquals(Integer.MAX_VALUE, branches.get(0).source().size());
+        Assert.assertEquals(0, branches.get(0).source().terminateAfter());
+    }
+
+    /**
+     * 测试计数sql、没有分组的 count(1) 总是统计准确的总数，默认不设置
+     */
+    @Test
+    public void testTotalHitsRequired() {
+        Assert.assertEquals(Boolean.TRUE, SqlTranslateResult.translate("select count(1) from default.test_t1", NONE).getHitControl().getTrackTotalHits());
+        Assert.assertEquals(Boolean.TRUE, SqlTranslateResult.translate("select count(1), max(age) from default.test_t1", NONE).getHitControl().getTrackTotalHits());
+        EsHitControl groupBy = SqlTranslateResult.translate("select appid, count(1) from default.test_t1 group by appid", NONE).getHitControl();
+        Assert.assertEquals(Boolean.FALSE, groupBy.getTrackTotalHits());
+        Assert.assertEquals(0, groupBy.getTerminateAfter());
+
+        SqlTranslateResult defaultResult = SqlTranslateResult.translate("select uid from default.test_t1 limit 0,10");
+        Assert.assertSame(EsHitControl.DEFAULT, defaultResult.getHitControl());
+        Assert.assertFalse(defaultResult.getDslString().contains("track_total_hits"));
+        SqlTranslateResult accurate = SqlTranslateResult.translate("select uid from default.test_t1 limit 0,10",
+                SqlTranslateOptions.builder().totalHitsIntent(TotalHitsIntent.ACCURATE).build());
+        Assert.assertTrue(accurate.getDslString().contains("\"track_total_hits\":2147483647"));
+    }
+}
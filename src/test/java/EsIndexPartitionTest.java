@@ -0,0 +1,79 @@
+import com.kanlon.utils.EsIndexPartition;
+import com.kanlon.utils.PreparedSqlQuery;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.SqlTranslateResult;
+import org.elasticsearch.action.search.SearchRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按时间分区的索引的裁剪的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 02:30
+ **/
+public class EsIndexPartitionTest {
+
+    private static final ZoneId ZONE = ZoneId.of("+08:00");
+
+    private static SqlTranslateOptions options(int maxIndices) {
+        Map<String, EsIndexPartition> partitions = new HashMap<>(4);
+        partitions.put("default.test_t", new EsIndexPartition("dt_time", "default.test_t_", "yyyyMMdd", ChronoUnit.DAYS, ZONE, maxIndices));
+        partitions.put("default.test_m", new EsIndexPartition("dt", "default.test_m_", "yyyyMM", ChronoUnit.MONTHS, ZONE, maxIndices));
+        return SqlTranslateOptions.builder().indexPartitions(partitions).build();
+    }
+
+    /**
+     * 测试根据时间条件裁剪索引
+     */
+    @Test
+    public void testResolve() {
+        SqlTranslateOptions options = options(EsIndexPartition.DEFAULT_MAX_INDICES);
+        SearchRequest rq = SQLToEsDSLUtils.sqlToEsSearchRequest("select * from default.test_t where dt_time >= '202105081313+0800' and dt_time <= '202105101413+0800' and appid = '1'", options);
+        Assert.assertArrayEquals(new String[]{"default.test_t_20210508", "default.test_t_20210509", "default.test_t_20210510"}, rq.indices());
+        Assert.assertTrue(rq.indicesOptions().ignoreUnavailable());
+        // 按分区的时区：东九区的1点为东八区的0点
+        rq = SQLToEsDSLUtils.sqlToEsSearchRequest("select * from default.test_t where dt_time between '202105080059+0900' and '202105080100+0900'", options);
+        Assert.assertArrayEquals(new String[]{"default.test_t_20210507", "default.test_t_20210508"}, rq.indices());
+        // 没有时区的时间与 es 一致按 UTC 解析：UTC 的 23 点为东八区的第二天 7 点
+        rq = SQLToEsDSLUtils.sqlToEsSearchRequest("select * from default.test_t where dt_time >= '2021-05-08 00:00:00' and dt_time <= '2021-05-08 23:00:00'", options);
+        Assert.assertArrayEquals(new String[]{"default.test_t_20210508", "default.test_t_20210509"}, rq.indices());
+        // 多个条件取交集
+        rq = SQLToEsDSLUtils.sqlToEsSearchRequest("select count(1) from default.test_m where dt > '2021-01-15' and dt < '2021-03-01 00:00:00' and dt <= '20210201'", options);
+        Assert.assertArrayEquals(new String[]{"default.test_m_202101", "default.test_m_202102"}, rq.indices());
+        Assert.assertArrayEquals(new String[]{"default.test_m_202101", "default.test_m_202102"}, SqlTranslateResult.translate("select * from default.test_m where dt >= '20210101' and dt <= '20210201'", options).getIndices());
+
+        // 没有上限或者不能解析则不裁剪
+        rq = SQLToEsDSLUtils.sqlToEsSearchRequest("select * from default.test_t where dt_time >= '202105081313+0800'", options);
+        Assert.assertArrayEquals(new String[]{"default.test_t"}, rq.indices());
+        rq = SQLToEsDSLUtils.sqlToEsSearchRequest("select * from default.test_t where dt_time >= 'abc' and dt_time <= '202105081313+0800'", options);
+        Assert.assertArrayEquals(new String[]{"default.test_t"}, rq.indices());
+        // 没有配置分区的表与原来相同
+        rq = SQLToEsDSLUtils.sqlToEsSearchRequest("select * from default.test_x where dt_time >= '202105081313+0800' and dt_time <= '202105101413+0800'", options);
+        Assert.assertArrayEquals(new String[]{"default.test_x"}, rq.indices());
+        Assert.assertFalse(rq.indicesOptions().ignoreUnavailable());
+        // 分区数超过上限则不裁剪
+        rq = SQLToEsDSLUtils.sqlToEsSearchRequest("select * from default.test_t where dt_time >= '20210501' and dt_time <= '20210510'", options(5));
+        Assert.assertArrayEquals(new String[]{"default.test_t"}, rq.indices());
+    }
+
+    /**
+     * 测试预编译sql绑定不同类型的时间参数
+     */
+    @Test
+    public void testResolveParams() {
+        PreparedSqlQuery query = SQLToEsDSLUtils.prepare("select * from default.test_t where dt_time >= ? and dt_time < ? and appid = ?", options(EsIndexPartition.DEFAULT_MAX_INDICES));
+        ZonedDateTime from = ZonedDateTime.of(2021, 5, 8, 23, 0, 0, 0, ZONE);
+        Assert.assertArrayEquals(new String[]{"default.test_t_20210508", "default.test_t_20210509"},
+                query.resolveIndices(new Date(from.toInstant().toEpochMilli()), from.plusHours(2).toInstant().toEpochMilli(), "1"));
+        Assert.assertArrayEquals(new String[]{"default.test_t_20210509"}, query.resolveIndices("2021-05-09T00:00:00+08:00", from.plusHours(10).toLocalDateTime(), "1"));
+    }
+}
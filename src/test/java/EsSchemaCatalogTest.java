@@ -0,0 +1,118 @@
+import com.kanlon.utils.EsSchemaLoaders;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.schema.EsIndexSchema;
+import com.kanlon.utils.schema.EsSchemaCatalog;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 索引字段类型的目录及按字段类型翻译的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 01:40
+ **/
+public class EsSchemaCatalogTest {
+
+    private static final String MAPPINGS = "{\"default.test_t1\":{\"mappings\":{\"properties\":{"
+            + "\"age\":{\"type\":\"integer\"},\"score\":{\"type\":\"double\"},\"active\":{\"type\":\"boolean\"},"
+            + "\"name\":{\"type\":\"text\",\"fields\":{\"raw\":{\"type\":\"keyword\"}}},\"uid\":{\"type\":\"keyword\"},"
+            + "\"dt_time\":{\"type\":\"date\"},\"dt\":{\"type\":\"date\",\"format\":\"yyyyMMdd\"},"
+            + "\"user\":{\"properties\":{\"name\":{\"type\":\"text\",\"fields\":{\"keyword\":{\"type\":\"keyword\"}}}}}}}},"
+            + "\"default.test_t2\":{\"mappings\":{\"properties\":{\"age\":{\"type\":\"keyword\"},\"city\":{\"type\":\"keyword\"}}}}}";
+
+    /**
+     * 测试从文件加载及解析 mapping
+     */
+    @Test
+    public void testLoadFromFile() throws IOException {
+        Path path = Files.createTempFile("mappings", ".json");
+        try {
+            Files.write(path, MAPPINGS.getBytes(StandardCharsets.UTF_8));
+            EsIndexSchema schema = EsSchemaLoaders.fromFile(path).load("default.test_t1");
+            Assert.assertEquals("name.raw", schema.termField("name"));
+            Assert.assertEquals("user.name.keyword", schema.termField("user.name"));
+            Assert.assertEquals("uid", schema.termField("uid"));
+            Assert.assertEquals("unknown", schema.termField("unknown"));
+            Assert.assertEquals(18L, schema.typedValue("age", "18"));
+            Assert.assertEquals(Boolean.TRUE, schema.typedValue("active", "1"));
+            Assert.assertEquals("yyyyMMddHHmmZ", schema.dateFormat("dt_time", "202105081313+0800", null));
+            Assert.assertNull(schema.dateFormat("dt_time", "2021-05-08", null));
+            Assert.assertNull(schema.dateFormat("dt", "20221010", null));
+            // 多个索引合并，同名字段以前面的索引为准
+            EsIndexSchema merged = EsSchemaLoaders.fromFile(path).load("default.test_t2,default.test_t*");
+            Assert.assertEquals("18", merged.typedValue("age", "18"));
+            Assert.assertNotNull(merged.getField("city"));
+            Assert.assertNotNull(merged.getField("score"));
+            Assert.assertTrue(EsSchemaLoaders.fromFile(path).load("other").isEmpty());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * 测试按字段类型翻译：值的类型、keyword 子字段及日期的格式，生成的json与 SearchSourceBuilder 一致
+     */
+    @Test
+    public void testTypedTranslation() throws IOException {
+        Path path = Files.createTempFile("mappings", ".json");
+        try {
+            Files.write(path, MAPPINGS.getBytes(StandardCharsets.UTF_8));
+            SqlTranslateOptions options = SqlTranslateOptions.builder().schemaCatalog(new EsSchemaCatalog(EsSchemaLoaders.fromFile(path))).build();
+            String sql = "select uid from default.test_t1 where age = '18' and score >= '1.50' and active = 1 and name = 'x' and uid in ('1', '2') "
+                    + "and dt_time between '202105081313+0800' and '202105081413+0800' and dt = '20221010' and name like 'a%' order by name desc";
+            String dsl = SQLToEsDSLUtils.sqlToDslSearchBody(sql, options).toString();
+            Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql, options).toString(), dsl);
+            Assert.assertTrue(dsl, dsl.contains("{\"term\":{\"age\":{\"value\":18,"));
+            Assert.assertTrue(dsl, dsl.contains("{\"range\":{\"score\":{\"from\":1.50,"));
+            Assert.assertTrue(dsl, dsl.contains("{\"term\":{\"active\":{\"value\":true,"));
+            Assert.assertTrue(dsl, dsl.contains("{\"term\":{\"name.raw\":{\"value\":\"x\","));
+            Assert.assertTrue(dsl, dsl.contains("{\"terms\":{\"uid\":[\"1\",\"2\"]"));
+            Assert.assertTrue(dsl, dsl.contains("{\"range\":{\"dt_time\":{\"from\":\"202105081313+0800\",\"to\":\"202105081413+0800\",\"include_lower\":true,\"include_upper\":true,\"format\":\"yyyyMMddHHmmZ\","));
+            Assert.assertTrue(dsl, dsl.contains("{\"term\":{\"dt\":{\"value\":\"20221010\","));
+            Assert.assertTrue(dsl, dsl.contains("{\"prefix\":{\"name.raw\":{\"value\":\"a\","));
+            Assert.assertTrue(dsl, dsl.contains("\"sort\":[{\"name.raw\":{\"order\":\"desc\"}}]"));
+
+            String aggregationSql = "select name, count(distinct user.name) from default.test_t1 group by name";
+            String aggregationDsl = SQLToEsDSLUtils.sqlToDslSearchBody(aggregationSql, options).toString();
+            Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(aggregationSql, options).toString(), aggregationDsl);
+            Assert.assertTrue(aggregationDsl, aggregationDsl.contains("\"terms\":{\"field\":\"name.raw\""));
+            Assert.assertTrue(aggregationDsl, aggregationDsl.contains("\"cardinality\":{\"field\":\"user.name.keyword\""));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * 测试缓存、刷新及加载失败时使用旧的字段类型
+     */
+    @Test
+    public void testCacheAndRefresh() {
+        AtomicInteger loadCount = new AtomicInteger();
+        EsIndexSchema schema = EsIndexSchema.fromMappings(Collections.singletonMap("properties",
+                Collections.singletonMap("age", Collections.singletonMap("type", "long"))));
+        EsSchemaCatalog catalog = new EsSchemaCatalog(index -> {
+            if (loadCount.incrementAndGet() > 2) {
+                throw new IOException("mock");
+            }
+            return schema;
+        }, 0);
+        Assert.assertSame(schema, catalog.getSchema("t"));
+        Assert.assertSame(schema, catalog.getSchema("t"));
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertSame(schema, catalog.refresh("t"));
+        Assert.assertEquals(2, loadCount.get());
+        // 加载失败则继续使用旧的
+        Assert.assertSame(schema, catalog.refresh("t"));
+        catalog.invalidate("t");
+        Assert.assertSame(EsIndexSchema.EMPTY, catalog.getSchema("t"));
+        Assert.assertEquals(4, loadCount.get());
+    }
+}
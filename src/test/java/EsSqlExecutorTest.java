@@ -0,0 +1,274 @@
+import com.kanlon.utils.EsRow;
+import com.kanlon.utils.EsSqlExecutor;
+import com.kanlon.utils.EsSqlResult;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行sql的测试（使用本地的 http 服务模拟 es）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 20:50
+ **/
+public class EsSqlExecutorTest {
+
+    private HttpServer server;
+
+    private RestClient restClient;
+
+    private EsSqlExecutor executor;
+
+    /**
+     * 收到的请求：路径 请求体
+     */
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    /**
+     * 慢查询（索引 default.test_slow）等待该信号后才返回
+     */
+    private final CountDownLatch slowLatch = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = readAll(exchange.getRequestBody());
+            requests.add(exchange.getRequestURI().getPath() + " " + body);
+            String response;
+            if (exchange.getRequestURI().getPath().startsWith("/default.test_slow/")) {
+                try {
+                    slowLatch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (exchange.getRequestURI().getPath().equals("/_msearch")) {
+                response = "{\"took\":4,\"responses\":["
+                        + "{\"took\":4,\"hits\":{\"total\":{\"value\":3,\"relation\":\"eq\"},\"hits\":[{\"_source\":{\"uid\":\"a9\"},\"sort\":[9]},{\"_source\":{\"uid\":\"a5\"},\"sort\":[5]},{\"_source\":{\"uid\":\"a1\"},\"sort\":[1]}]}},"
+                        + "{\"took\":2,\"hits\":{\"total\":{\"value\":2,\"relation\":\"eq\"},\"hits\":[{\"_source\":{\"uid\":\"b7\"},\"sort\":[7]},{\"_source\":{\"uid\":\"b3\"},\"sort\":[3]}]}}]}";
+            } else if (body.contains("\"composite\"")) {
+                // composite 聚合按 after_key 分页：第二页之后没有桶
+                String buckets;
+                if (!body.contains("\"after\"")) {
+                    buckets = "\"buckets\":[{\"key\":{\"appid\":\"x\",\"uid\":\"1\"},\"doc_count\":1,\"total\":{\"value\":1.0}},"
+                            + "{\"key\":{\"appid\":\"x\",\"uid\":\"2\"},\"doc_count\":5,\"total\":{\"value\":9.0}}],\"after_key\":{\"appid\":\"x\",\"uid\":\"2\"}";
+                } else if (body.contains("\"after\":{\"appid\":\"x\"")) {
+                    buckets = "\"buckets\":[{\"key\":{\"appid\":\"y\",\"uid\":\"1\"},\"doc_count\":3,\"total\":{\"value\":4.0}}],\"after_key\":{\"appid\":\"y\",\"uid\":\"1\"}";
+                } else {
+                    buckets = "\"buckets\":[]";
+                }
+                response = "{\"took\":1,\"hits\":{\"total\":{\"value\":9,\"relation\":\"eq\"},\"hits\":[]},\"aggregations\":{\"group_by\":{" + buckets + "}}}";
+            } else if (exchange.getRequestURI().getPath().startsWith("/default.test_big/")) {
+                // 分组数超过了 terms 聚合的桶数
+                response = "{\"took\":1,\"hits\":{\"total\":{\"value\":9,\"relation\":\"eq\"},\"hits\":[]},\"aggregations\":{\"group_by\":"
+                        + "{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":7,\"buckets\":[{\"key\":\"a\",\"doc_count\":2}]}}}";
+            } else if (body.contains("\"aggregations\"")) {
+                response = "{\"took\":3,\"hits\":{\"total\":{\"value\":5,\"relation\":\"eq\"},\"hits\":[]},\"aggregations\":{\"group_by\":{\"buckets\":["
+                        + "{\"key\":\"a\",\"doc_count\":3,\"total\":{\"value\":6.0}},{\"key\":\"b\",\"doc_count\":2,\"total\":{\"value\":1.5}}]}}}";
+            } else if (body.contains("\"track_total_hits\"")) {
+                response = "{\"took\":1,\"hits\":{\"total\":{\"value\":12345,\"relation\":\"eq\"},\"hits\":[]}}";
+            } else {
+                response = "{\"took\":2,\"hits\":{\"total\":{\"value\":2,\"relation\":\"eq\"},\"hits\":["
+                        + "{\"_id\":\"1\",\"_source\":{\"uid\":\"1\",\"age\":18,\"user\":{\"name\":\"n1\"}}},{\"_id\":\"2\",\"_source\":{\"uid\":\"2\",\"age\":\"20\"}}]}}";
+            }
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        });
+        server.start();
+        restClient = RestClient.builder(new HttpHost("127.0.0.1", server.getAddress().getPort())).build();
+        executor = new EsSqlExecutor(restClient);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.close();
+        restClient.close();
+        server.stop(0);
+    }
+
+    /**
+     * 测试同步执行普通查询及计数sql
+     */
+    @Test
+    public void testQuery() {
+        EsSqlResult result = executor.query("select uid,age from default.test_t1 where dt = ? limit 10", "20221010");
+        Assert.assertEquals(2, result.getRows().size());
+        Assert.assertEquals(2, result.getTotalHits());
+        Assert.assertEquals(2, result.getTook());
+        EsRow row = result.getRows().get(1);
+        Assert.assertEquals("2", row.getString("uid"));
+        Assert.assertEquals(Integer.valueOf(20), row.getInteger("age"));
+        Assert.assertEquals(Long.valueOf(18), result.getRows().get(0).getLong("age"));
+        Assert.assertTrue(requests.get(0).startsWith("/default.test_t1/_search {\"from\":0,\"size\":10,"));
+        Assert.assertTrue(requests.get(0).contains("\"20221010\""));
+
+        EsSqlResult countResult = executor.query("select count(1) as cnt from default.test_t1 where dt = '20221010'");
+        Assert.assertEquals(1, countResult.getRows().size());
+        Assert.assertEquals(Long.valueOf(12345), countResult.getRows().get(0).getLong("cnt"));
+    }
+
+    /**
+     * 测试逐行回调：按别名返回列，行对象复用
+     */
+    @Test
+    public void testQueryForEach() {
+        List<String> values = new ArrayList<>();
+        EsSqlResult result = executor.queryForEach("select uid as user_id,age from default.test_t1 where dt = ?",
+                row -> values.add(row.getString("user_id") + ":" + row.getLong("age")), "20221010");
+        Assert.assertEquals(Arrays.asList("1:18", "2:20"), values);
+        Assert.assertTrue(result.getRows().isEmpty());
+        Assert.assertEquals(2, result.getTotalHits());
+        Assert.assertTrue(requests.get(0).contains("\"includes\":[\"uid\",\"age\"]"));
+
+        // 作为标识符使用的关键字（user、default）大小写不变
+        List<String> names = new ArrayList<>();
+        executor.queryForEach("select  user.name as user_name from default.test_t1", row -> names.add(row.getString("user_name")));
+        Assert.assertEquals(Arrays.asList("n1", null), names);
+        Assert.assertTrue(requests.get(1), requests.get(1).startsWith("/default.test_t1/_search "));
+        Assert.assertTrue(requests.get(1), requests.get(1).contains("\"includes\":[\"user.name\"]"));
+    }
+
+    /**
+     * 测试异步执行聚合sql，每个分组一行
+     */
+    @Test
+    public void testQueryAsync() throws Exception {
+        List<CompletableFuture<EsSqlResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            futures.add(executor.queryAsync("select dt,sum(money) as total,count(1) as cnt from default.test_t1 group by dt"));
+        }
+        for (CompletableFuture<EsSqlResult> future : futures) {
+            List<EsRow> rows = future.get().getRows();
+            Assert.assertEquals(2, rows.size());
+            Assert.assertEquals("a", rows.get(0).getString("dt"));
+            Assert.assertEquals(Double.valueOf(6.0), rows.get(0).getDouble("total"));
+            Assert.assertEquals(Long.valueOf(2), rows.get(1).getLong("cnt"));
+        }
+        Assert.assertEquals(8, requests.size());
+        Assert.assertEquals(0, executor.inFlightCount());
+    }
+
+    /**
+     * 测试异步执行时同时执行的请求数已达上限则立即异常结束，不等待许可
+     */
+    @Test
+    public void testQueryAsyncRejected() throws Exception {
+        EsSqlExecutor limited = new EsSqlExecutor(restClient, 1, TimeUnit.MINUTES.toMillis(1), ForkJoinPool.commonPool(), SqlTranslateOptions.DEFAULT);
+        try {
+            CompletableFuture<EsSqlResult> first = limited.queryAsync("select uid from default.test_slow limit 10");
+            long start = System.nanoTime();
+            CompletableFuture<EsSqlResult> second = limited.queryAsync("select uid from default.test_slow limit 10");
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            Assert.assertTrue(second.isCompletedExceptionally());
+            try {
+                second.get();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            slowLatch.countDown();
+            Assert.assertEquals(2, first.get().getRows().size());
+            Assert.assertEquals(0, limited.inFlightCount());
+        } finally {
+            slowLatch.countDown();
+        }
+    }
+
+    /**
+     * 测试 composite 聚合按 after_key 获取全部的桶，合并后按聚合函数排序并分页
+     */
+    @Test
+    public void testCompositeAggregationPages() throws Exception {
+        String sql = "select appid, uid, sum(money) as total from default.test_t1 group by appid, uid order by total desc limit 1,2";
+        List<String> expRet = Arrays.asList("y:1:4.0", "x:1:1.0");
+        EsSqlResult result = executor.query(sql);
+        Assert.assertEquals(3, requests.size());
+        Assert.assertTrue(requests.get(1).contains("\"after\":{\"appid\":\"x\",\"uid\":\"2\"}"));
+        Assert.assertEquals(expRet, toGroupRows(result));
+        Assert.assertEquals(9, result.getTotalHits());
+
+        Assert.assertEquals(expRet, toGroupRows(executor.queryAsync(sql).get()));
+        Assert.assertEquals(6, requests.size());
+        Assert.assertEquals(0, executor.inFlightCount());
+    }
+
+    /**
+     * 测试 terms 聚合的分组数超过最大桶数时失败，只取前 n 个桶时不检查
+     */
+    @Test
+    public void testTermsAggregationTruncated() {
+        try {
+            executor.query("select dt, count(1) as cnt from default.test_big group by dt");
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage().contains("结果不完整"));
+        }
+        EsSqlResult result = executor.query("select dt, count(1) as cnt from default.test_big group by dt order by cnt desc limit 1");
+        Assert.assertEquals(1, result.getRows().size());
+        Assert.assertEquals(Long.valueOf(2), result.getRows().get(0).getLong("cnt"));
+    }
+
+    private static List<String> toGroupRows(EsSqlResult result) {
+        List<String> rows = new ArrayList<>();
+        for (EsRow row : result.getRows()) {
+            rows.add(row.getString("appid") + ":" + row.getString("uid") + ":" + row.getDouble("total"));
+        }
+        return rows;
+    }
+
+    /**
+     * 测试 union all 的条件不同时一次批量查询，结果按排序归并后分页
+     */
+    @Test
+    public void testUnionAll() {
+        EsSqlResult result = executor.query("select uid from default.test_t5 where dt='1' union all select uid from default.test_t6 where dt='2' order by ts desc limit 1,3");
+        Assert.assertEquals(1, requests.size());
+        String[] lines = requests.get(0).substring("/_msearch ".length()).split("\n");
+        Assert.assertEquals(4, lines.length);
+        Assert.assertEquals("{\"index\":[\"default.test_t5\"]}", lines[0]);
+        Assert.assertTrue(lines[1].startsWith("{\"size\":4,"));
+        List<String> uids = new ArrayList<>();
+        for (EsRow row : result.getRows()) {
+            uids.add(row.getString("uid"));
+        }
+        Assert.assertEquals(Arrays.asList("b7", "a5", "b3"), uids);
+        Assert.assertEquals(5, result.getTotalHits());
+    }
+
+    private static String readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int len;
+        while ((len = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, len);
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+import com.kanlon.utils.EsDslAdapter;
+import com.kanlon.utils.PreparedSqlQuery;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlNormalizeUtils;
+import com.kanlon.utils.SqlTemplateCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * 预编译sql测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 15:30
+ **/
+public class PreparedSqlQueryTest {
+
+    /**
+     * 测试绑定参数生成的dsl与直接翻译sql的一致
+     */
+    @Test
+    public void testBind() {
+        PreparedSqlQuery preparedSqlQuery = SQLToEsDSLUtils.prepare("select appid,uid,`dt`,dt_time,time from    default.test_t1 where dt_time>=? and dt_time <=? and appid = ? and uid in (?)  order by dt_time desc,time desc limit ?,?");
+        Assert.assertEquals(6, preparedSqlQuery.getParamCount());
+        Assert.assertArrayEquals(new String[]{"default.test_t1"}, preparedSqlQuery.getIndices());
+        String sql1 = "select appid,uid,`dt`,dt_time,time from    default.test_t1 where dt_time>='202105081313+0800' and dt_time <='202105081413+0800' and appid = '15013' and uid in ('2524712316','2706555022')  order by dt_time desc,time desc limit 0,5";
+        String actRet1 = EsDslAdapter.bind(preparedSqlQuery, "202105081313+0800", "202105081413+0800", "15013", Arrays.asList("2524712316", "2706555022"), 0, 5).toString();
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql1).toString(), actRet1);
+        // in 列表的长度可变
+        String sql2 = "select appid,uid,`dt`,dt_time,time from    default.test_t1 where dt_time>='202105081313+0800' and dt_time <='202105081413+0800' and appid = '15013' and uid in ('1','2','3')  order by dt_time desc,time desc limit 10,20";
+        String actRet2 = EsDslAdapter.bind(preparedSqlQuery, "202105081313+0800", "202105081413+0800", "15013", new String[]{"1", "2", "3"}, 10, 20).toString();
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql2).toString(), actRet2);
+    }
+
+    /**
+     * 测试参数个数不足
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindMissingParam() {
+        EsDslAdapter.bind(SQLToEsDSLUtils.prepare("select * from t where a = ? and b = ?"), "1");
+    }
+
+    /**
+     * 测试自动提取常量，结构相同的sql共用一个模板
+     */
+    @Test
+    public void testTemplateCache() {
+        String sql1 = "select appid,uid from default.test_t1 where dt_time between '202105081313+0800' and '202105081413+0800' and appid = '15013' and uid in ('2524712316','2706555022') and country like '%张三%' limit 0,5";
+        String sql2 = "select appid, uid from default.test_t1  where dt_time between '202105091313+0800' and '202105091413+0800' and appid = '15014' and uid in ('1','2','3') and country like '%李四%' limit 10,5";
+        Assert.assertEquals(SqlNormalizeUtils.parameterize(sql1).getSql(), SqlNormalizeUtils.parameterize(sql2).getSql());
+        SqlTemplateCache templateCache = new SqlTemplateCache();
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql1).toString(), templateCache.sqlToEsDslQueryBody(sql1).toString());
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql2).toString(), templateCache.sqlToEsDslQueryBody(sql2).toString());
+        Assert.assertEquals(1, templateCache.size());
+        Assert.assertEquals(1, templateCache.getHitCount());
+
+        String sql3 = "select count(1) from ( select * from    default.test_t4 where dt='asdf' limit 10 union all  select * from    default.test_t3 where dt='asdf' limit 10 )t ";
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsSearchRequest(sql3).toString(), templateCache.sqlToEsSearchRequest(sql3).toString());
+    }
+}
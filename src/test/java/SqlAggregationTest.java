@@ -0,0 +1,110 @@
+import com.kanlon.utils.EsDslAdapter;
+import com.kanlon.utils.PreparedSqlQuery;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlTemplateCache;
+import com.kanlon.utils.SqlTranslateResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * group by 及聚合函数转为es聚合的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 17:50
+ **/
+public class SqlAggregationTest {
+
+    /**
+     * 测试一个 group by 字段：terms 聚合，having 为 bucket_selector，按聚合函数排序及 limit 为 bucket_sort
+     */
+    @Test
+    public void testTermsAggregation() {
+        String sql = "select appid, sum(amount) as total, count(1) as cnt from default.test_t1 where dt='1' group by appid having sum(amount) > 100 and count(1) >= 2 order by total desc limit 0,10";
+        String expRet = "{\"size\":0,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"term\":{\"dt\":{\"value\":\"1\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"aggregations\":{\"group_by\":{\"terms\":{\"field\":\"appid\",\"size\":10000,\"min_doc_count\":1,\"shard_min_doc_count\":0,\"show_term_doc_count_error\":false,\"order\":[{\"_count\":\"desc\"},{\"_key\":\"asc\"}]},\"aggregations\":{\"total\":{\"sum\":{\"field\":\"amount\"}},\"having\":{\"bucket_selector\":{\"buckets_path\":{\"v0\":\"total\",\"v1\":\"_count\"},\"script\":{\"source\":\"((params.v0 > params.p0) && (params.v1 >= params.p1))\",\"lang\":\"painless\",\"params\":{\"p0\":100,\"p1\":2}},\"gap_policy\":\"skip\"}},\"bucket_sort\":{\"bucket_sort\":{\"sort\":[{\"total\":{\"order\":\"desc\"}}],\"from\":0,\"size\":10,\"gap_policy\":\"SKIP\"}}}}}}";
+        Assert.assertEquals(expRet, SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString());
+        // limit 的值提取为参数后，模板生成的聚合一致
+        String sql2 = "select appid, sum(amount) as total, count(1) as cnt from default.test_t1 where dt='2' group by appid having sum(amount) > 100 and count(1) >= 2 order by total desc limit 10,20";
+        SqlTemplateCache templateCache = new SqlTemplateCache();
+        Assert.assertEquals(expRet, templateCache.sqlToEsDslQueryBody(sql).toString());
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql2).toString(), templateCache.sqlToEsDslQueryBody(sql2).toString());
+
+        // 没有指定顺序的 order by 为升序
+        String ascDsl = SQLToEsDSLUtils.sqlToDslSearchBody("select appid, sum(amount) as x from default.test_t1 group by appid having x > 3 order by x limit 5").toString();
+        Assert.assertTrue(ascDsl, ascDsl.contains("\"bucket_sort\":{\"bucket_sort\":{\"sort\":[{\"x\":{\"order\":\"asc\"}}],\"from\":0,\"size\":5,"));
+        String keyDsl = SQLToEsDSLUtils.sqlToDslSearchBody("select appid, count(1) as cnt from default.test_t1 group by appid order by appid limit 10").toString();
+        Assert.assertTrue(keyDsl, keyDsl.contains("\"order\":{\"_key\":\"asc\"}"));
+    }
+
+    /**
+     * 测试一个 group by 字段有 limit 并且没有 having：terms 聚合按 order by 排序，只取前 偏移量+条数 个桶
+     */
+    @Test
+    public void testTermsTopN() {
+        String sql = "select appid, sum(amount) as total from default.test_t1 group by appid order by total desc limit 5,10";
+        String dsl = SQLToEsDSLUtils.sqlToDslSearchBody(sql).toString();
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString(), dsl);
+        Assert.assertTrue(dsl.contains("\"terms\":{\"field\":\"appid\",\"size\":15,\"min_doc_count\":1,\"shard_min_doc_count\":0,\"show_term_doc_count_error\":false,"
+                + "\"order\":[{\"total\":\"desc\"},{\"_key\":\"asc\"}]}"));
+        Assert.assertTrue(dsl.contains("\"bucket_sort\":{\"bucket_sort\":{\"sort\":[],\"from\":5,\"size\":10,\"gap_policy\":\"SKIP\"}}"));
+        Assert.assertTrue(SQLToEsDSLUtils.prepare(sql).getAggregation().isTermsTopN());
+
+        // 没有偏移量时不需要 bucket_sort，按分组字段排序
+        String keyDsl = SQLToEsDSLUtils.sqlToDslSearchBody("select appid, count(1) as cnt from default.test_t1 group by appid order by appid desc limit 10").toString();
+        Assert.assertTrue(keyDsl.contains("\"size\":10,\"min_doc_count\":1,\"shard_min_doc_count\":0,\"show_term_doc_count_error\":false,\"order\":{\"_key\":\"desc\"}}"));
+        Assert.assertFalse(keyDsl.contains("bucket_sort"));
+
+        // composite 聚合由执行方合并全部的桶后排序及分页，不生成 bucket_sort，生成一个查询的方法抛出异常
+        String compositeSql = "select appid, uid, sum(amount) as total from default.test_t1 group by appid, uid order by total desc limit 5,10";
+        PreparedSqlQuery compositeQuery = SQLToEsDSLUtils.prepare(compositeSql);
+        String compositeDsl = compositeQuery.bindCompositePageDsl().toString();
+        Assert.assertTrue(compositeDsl.contains("\"composite\":{\"size\":10000,"));
+        Assert.assertFalse(compositeDsl.contains("bucket_sort"));
+        Assert.assertFalse(compositeQuery.getAggregation().isTermsTopN());
+        Assert.assertTrue(compositeQuery.getAggregation().isMergeRequired());
+        for (Runnable single : Arrays.<Runnable>asList(() -> SQLToEsDSLUtils.sqlToDslSearchBody(compositeSql), () -> SQLToEsDSLUtils.sqlToEsDslQueryBody(compositeSql),
+                () -> SQLToEsDSLUtils.sqlToEsSearchRequest(compositeSql), () -> SqlTranslateResult.translate(compositeSql), () -> EsDslAdapter.bind(compositeQuery))) {
+            try {
+                single.run();
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("EsSqlExecutor"));
+            }
+        }
+        // 只按分组字段排序并且没有 limit 时与 composite 聚合的含义相同
+        Assert.assertFalse(SQLToEsDSLUtils.prepare("select appid, uid, sum(amount) as total from default.test_t1 group by appid, uid order by appid desc").getAggregation().isMergeRequired());
+    }
+
+    /**
+     * 测试多个 group by 字段：composite 聚合，按分组字段排序
+     */
+    @Test
+    public void testCompositeAggregation() {
+        String sql = "select appid, uid, max(amount) from default.test_t1 group by appid, uid order by appid desc";
+        String expRet = "{\"size\":0,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"aggregations\":{\"group_by\":{\"composite\":{\"size\":10000,\"sources\":[{\"appid\":{\"terms\":{\"field\":\"appid\",\"missing_bucket\":false,\"order\":\"desc\"}}},{\"uid\":{\"terms\":{\"field\":\"uid\",\"missing_bucket\":false,\"order\":\"asc\"}}}]},\"aggregations\":{\"max_amount\":{\"max\":{\"field\":\"amount\"}}}}}}";
+        Assert.assertEquals(expRet, SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString());
+    }
+
+    /**
+     * 测试没有 group by 的聚合函数，只有 count(1) 的仍然为计数sql，聚合函数参与计算的不支持
+     */
+    @Test
+    public void testMetricAggregation() {
+        String sql = "select avg(amount) a, count(distinct uid) u, count(1) c from default.test_t1 where dt='1'";
+        String expRet = "{\"size\":0,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"term\":{\"dt\":{\"value\":\"1\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"track_total_hits\":2147483647,\"aggregations\":{\"a\":{\"avg\":{\"field\":\"amount\"}},\"u\":{\"cardinality\":{\"field\":\"uid\"}}}}";
+        Assert.assertEquals(expRet, SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString());
+        Assert.assertNull(SQLToEsDSLUtils.prepare("select count(1) from default.test_t1").getAggregation());
+
+        // 聚合函数参与计算不能下推，不能当作计数sql返回命中的总数
+        for (String nested : new String[]{"select sum(b)/count(1) from default.test_t1", "select dt, max(a) - min(a) as r from default.test_t1 group by dt",
+                "select count(1) + 1 from default.test_t1"}) {
+            try {
+                SQLToEsDSLUtils.sqlToDslSearchBody(nested);
+                Assert.fail(nested);
+            } catch (RuntimeException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("聚合函数参与计算"));
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import com.kanlon.utils.SqlTranslateCache;
+import com.kanlon.utils.SqlTranslateItem;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.SqlTranslateResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量并行翻译sql的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 04:00
+ **/
+public class SqlBatchTranslateTest {
+
+    /**
+     * 测试结果的顺序、相同sql只翻译一次及单条失败不影响其他sql
+     */
+    @Test
+    public void testTranslateAll() {
+        String sql1 = "select uid from default.test_t1 where appid = '1' limit 0,10";
+        String sql2 = "select count(1) from default.test_t1 where dt > '2'";
+        String bad = "delete from default.test_t1";
+        List<String> sqls = Arrays.asList(sql1, sql2, bad, sql1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<SqlTranslateItem> items = SqlTranslateResult.translateAll(sqls, SqlTranslateOptions.DEFAULT, executor);
+            Assert.assertEquals(4, items.size());
+            for (int i = 0; i < sqls.size(); ++i) {
+                Assert.assertEquals(sqls.get(i), items.get(i).getSql());
+            }
+            Assert.assertTrue(items.get(0).isSuccess());
+            Assert.assertArrayEquals(SqlTranslateResult.translate(sql1).getDslBytes(), items.get(0).get().getDslBytes());
+            Assert.assertArrayEquals(SqlTranslateResult.translate(sql2).getDslBytes(), items.get(1).get().getDslBytes());
+            Assert.assertFalse(items.get(2).isSuccess());
+            Assert.assertNull(items.get(2).getResult());
+            Assert.assertNotNull(items.get(2).getError());
+            // 相同的sql只翻译一次
+            Assert.assertSame(items.get(0).getResult(), items.get(3).getResult());
+            try {
+                items.get(2).get();
+                Assert.fail();
+            } catch (RuntimeException e) {
+                Assert.assertSame(items.get(2).getError(), e);
+            }
+
+            SqlTranslateCache cache = new SqlTranslateCache();
+            List<SqlTranslateItem> cached = cache.getAll(sqls, executor);
+            Assert.assertFalse(cached.get(2).isSuccess());
+            Assert.assertEquals(2, cache.size());
+            Assert.assertEquals(3, cache.getMissCount());
+            Assert.assertSame(cache.get(sql1), cached.get(0).getResult());
+        } finally {
+            executor.shutdown();
+        }
+        // 单条sql直接在当前线程翻译
+        List<SqlTranslateItem> single = SqlTranslateResult.translateAll(Collections.singletonList(sql1));
+        Assert.assertTrue(single.get(0).isSuccess());
+    }
+
+    /**
+     * 测试线程池拒绝执行时在当前线程翻译，不抛出异常
+     */
+    @Test
+    public void testExecutorRejected() {
+        String sql1 = "select uid from default.test_t1 where appid = '1' limit 0,10";
+        String sql2 = "select count(1) from default.test_t1 where dt > '2'";
+        // 一个线程并且没有队列，第一个任务阻塞时其余的都被拒绝
+        CountDownLatch latch = new CountDownLatch(1);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        try {
+            executor.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            List<SqlTranslateItem> items = SqlTranslateResult.translateAll(Arrays.asList(sql1, sql2), SqlTranslateOptions.DEFAULT, executor);
+            Assert.assertTrue(items.get(0).isSuccess());
+            Assert.assertTrue(items.get(1).isSuccess());
+            Assert.assertArrayEquals(SqlTranslateResult.translate(sql2).getDslBytes(), items.get(1).get().getDslBytes());
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+        ExecutorService shutdown = Executors.newSingleThreadExecutor();
+        shutdown.shutdown();
+        Assert.assertTrue(SqlTranslateResult.translateAll(Arrays.asList(sql1, sql2), SqlTranslateOptions.DEFAULT, shutdown).get(0).isSuccess());
+    }
+}
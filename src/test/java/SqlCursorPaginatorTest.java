@@ -0,0 +1,64 @@
+import com.kanlon.utils.SqlCursorPaginator;
+import com.kanlon.utils.SqlTranslateOptions;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 游标分页测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 19:10
+ **/
+public class SqlCursorPaginatorTest {
+
+    /**
+     * 测试第一页、下一页及跳页使用缓存的游标
+     */
+    @Test
+    public void testCursorPage() {
+        SqlCursorPaginator paginator = new SqlCursorPaginator();
+        String sql = "select appid,uid from default.test_t1 where dt='1' order by dt_time desc limit 0,20";
+        SqlCursorPaginator.SqlCursorPage firstPage = paginator.page(sql, null);
+        Assert.assertFalse(firstPage.isSearchAfter());
+        String expFirst = "{\"size\":20,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"term\":{\"dt\":{\"value\":\"1\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"_source\":{\"includes\":[\"appid\",\"uid\"],\"excludes\":[]},\"sort\":[{\"dt_time\":{\"order\":\"desc\"}},{\"_id\":{\"order\":\"asc\"}}]}";
+        Assert.assertEquals(expFirst, firstPage.getSearchSourceBuilder().toString());
+
+        String cursor = paginator.nextCursor(firstPage, new Object[]{1620454380000L, "doc-20"});
+        SqlCursorPaginator.SqlCursorPage secondPage = paginator.page(sql, cursor);
+        Assert.assertTrue(secondPage.isSearchAfter());
+        Assert.assertEquals(20, secondPage.getOffset());
+        Assert.assertEquals(-1, secondPage.getSearchSourceBuilder().from());
+        Assert.assertArrayEquals(new Object[]{1620454380000L, "doc-20"}, secondPage.getSearchSourceBuilder().searchAfter());
+
+        // 跳页：缓存中有该偏移量的游标则使用 search_after，否则使用 from/size
+        SqlCursorPaginator.SqlCursorPage jumpPage = paginator.page("select appid,uid from default.test_t1 where dt='1' order by dt_time desc limit 20,20", null);
+        Assert.assertTrue(jumpPage.isSearchAfter());
+        SqlCursorPaginator.SqlCursorPage deepPage = paginator.page("select appid,uid from default.test_t1 where dt='1' order by dt_time desc limit 100000,20", null);
+        Assert.assertFalse(deepPage.isSearchAfter());
+        Assert.assertEquals(100000, deepPage.getSearchSourceBuilder().from());
+    }
+
+    /**
+     * 测试指定有 doc_values 的唯一字段作为排序的最后一个字段，sql 中已有该字段的排序则不再添加
+     */
+    @Test
+    public void testCursorTiebreaker() {
+        SqlCursorPaginator paginator = new SqlCursorPaginator(SqlCursorPaginator.DEFAULT_MAX_CURSORS, SqlCursorPaginator.DEFAULT_TTL_MILLIS,
+                SqlTranslateOptions.builder().cursorTiebreaker("order_id").build());
+        String dsl = paginator.page("select uid from default.test_t1 where dt='1' order by dt_time desc limit 0,20", null).getSearchSourceBuilder().toString();
+        Assert.assertTrue(dsl.endsWith("\"sort\":[{\"dt_time\":{\"order\":\"desc\"}},{\"order_id\":{\"order\":\"asc\"}}]}"));
+        String ordered = paginator.page("select uid from default.test_t1 where dt='1' order by order_id desc limit 0,20", null).getSearchSourceBuilder().toString();
+        Assert.assertTrue(ordered.endsWith("\"sort\":[{\"order_id\":{\"order\":\"desc\"}}]}"));
+    }
+
+    /**
+     * 测试游标与sql不匹配
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCursorMismatch() {
+        SqlCursorPaginator paginator = new SqlCursorPaginator();
+        SqlCursorPaginator.SqlCursorPage page = paginator.page("select * from default.test_t1 where dt='1' limit 10", null);
+        String cursor = paginator.nextCursor(page, new Object[]{"a"});
+        paginator.page("select * from default.test_t1 where dt='2' limit 10", cursor);
+    }
+}
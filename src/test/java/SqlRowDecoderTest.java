@@ -0,0 +1,97 @@
+import com.kanlon.utils.ProjectedRow;
+import com.kanlon.utils.SqlRowDecoder;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 查询结果的流式解码的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 21:50
+ **/
+public class SqlRowDecoderTest {
+
+    private static final String RESPONSE = "{\"took\":3,\"timed_out\":false,\"hits\":{\"total\":{\"value\":2,\"relation\":\"eq\"},\"max_score\":null,\"hits\":["
+            + "{\"_index\":\"t\",\"_id\":\"1\",\"_source\":{\"uid\":\"u1\",\"ignored\":{\"a\":[1,2]},\"user\":{\"name\":\"n1\",\"age\":18},\"dt\":\"20221010\"},\"sort\":[5]},"
+            + "{\"_index\":\"t\",\"_id\":\"2\",\"_source\":{\"uid\":\"u2\",\"user\":{\"age\":20}},\"sort\":[3]}]}}";
+
+    /**
+     * 测试按别名读取字段、读取对象中的字段、跳过其他字段，行对象复用
+     */
+    @Test
+    public void testDecode() {
+        SqlRowDecoder decoder = SqlRowDecoder.of("select uid as user_id, user.name as user_name, dt from default.test_t1 where dt='20221010'");
+        Assert.assertEquals(new HashSet<>(Arrays.asList("uid", "user.name", "dt")), new HashSet<>(decoder.getFields()));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        List<ProjectedRow> rowObjects = new ArrayList<>();
+        long count = decoder.decode(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)), row -> {
+            rows.add(row.toMap());
+            rowObjects.add(row);
+            Assert.assertEquals(3, row.columnCount());
+        });
+        Assert.assertEquals(2, count);
+        Assert.assertSame(rowObjects.get(0), rowObjects.get(1));
+        Assert.assertEquals("u1", rows.get(0).get("user_id"));
+        Assert.assertEquals("n1", rows.get(0).get("user_name"));
+        Assert.assertEquals("20221010", rows.get(0).get("dt"));
+        Assert.assertFalse(rows.get(0).containsKey("uid"));
+        Assert.assertEquals("u2", rows.get(1).get("user_id"));
+        Assert.assertNull(rows.get(1).get("user_name"));
+        Assert.assertNull(rows.get(1).get("dt"));
+        Assert.assertArrayEquals(new Object[]{3}, rowObjects.get(1).getSortValues());
+
+        // 过滤的是字段而不是别名
+        String dsl = SQLToEsDSLUtils.sqlToEsDslQueryBody("select uid as user_id from default.test_t1").toString();
+        Assert.assertTrue(dsl.contains("\"includes\":[\"uid\"]"));
+    }
+
+    /**
+     * 测试只有 from 中的表别名、表名的前缀才去掉，其他的前缀为对象字段的路径
+     */
+    @Test
+    public void testTableQualifier() {
+        String response = "{\"hits\":{\"total\":{\"value\":1,\"relation\":\"eq\"},\"hits\":["
+                + "{\"_id\":\"1\",\"_source\":{\"name\":\"TOP\",\"uid\":\"u1\",\"user\":{\"name\":\"NESTED\"}}}]}}";
+        String[][] cases = {
+                {"select user.name as name from t", "name", "NESTED", "user.name"},
+                {"select user.name from t", "name", "NESTED", "user.name"},
+                {"select t.name as n from default.test_t1 t", "n", "TOP", "name"},
+                {"select test_t1.name from default.test_t1", "name", "TOP", "name"},
+                {"select `default`.`test_t1`.name from default.test_t1", "name", "TOP", "name"},
+                {"select t.user.name as n from default.test_t1 t", "n", "NESTED", "user.name"},
+        };
+        for (String[] testCase : cases) {
+            SqlRowDecoder decoder = SqlRowDecoder.of(testCase[0]);
+            Assert.assertEquals(testCase[0], Collections.singletonList(testCase[3]), decoder.getFields());
+            List<Map<String, Object>> rows = new ArrayList<>();
+            decoder.decode(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)), row -> rows.add(row.toMap()));
+            Assert.assertEquals(testCase[0], testCase[2], rows.get(0).get(testCase[1]));
+            String dsl = SQLToEsDSLUtils.sqlToEsDslQueryBody(testCase[0]).toString();
+            Assert.assertTrue(dsl, dsl.contains("\"includes\":[\"" + testCase[3] + "\"]"));
+        }
+    }
+
+    /**
+     * 测试 select * 时读取全部字段
+     */
+    @Test
+    public void testDecodeAllFields() {
+        SqlRowDecoder decoder = SqlRowDecoder.of("select * from default.test_t1");
+        Assert.assertTrue(decoder.isAllFields());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        decoder.decode(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)), row -> rows.add(row.toMap()));
+        Assert.assertEquals(Arrays.asList("uid", "ignored", "user", "dt"), new ArrayList<>(rows.get(0).keySet()));
+        Assert.assertEquals(Collections.singletonMap("age", 20), rows.get(1).get("user"));
+        Assert.assertEquals(Arrays.asList("uid", "user"), new ArrayList<>(rows.get(1).keySet()));
+    }
+}
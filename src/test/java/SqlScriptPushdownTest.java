@@ -0,0 +1,132 @@
+import com.kanlon.utils.EsDslAdapter;
+import com.kanlon.utils.PreparedSqlQuery;
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlRowDecoder;
+import com.kanlon.utils.SqlTemplateCache;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.schema.EsIndexSchema;
+import com.kanlon.utils.schema.EsSchemaCatalog;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 计算表达式编译为 painless 脚本（script 查询及 script_fields）的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 05:30
+ **/
+public class SqlScriptPushdownTest {
+
+    /**
+     * 测试计算表达式的条件生成 script 查询，常量作为脚本的参数
+     */
+    @Test
+    public void testScriptQuery() {
+        String sql = "select uid from default.test_t1 where price * qty > 100 and substring(uid, 1, 3) = 'abc' and dt > '2' limit 0,10";
+        String dsl = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString();
+        Assert.assertEquals(dsl, SQLToEsDSLUtils.sqlToDslSearchBody(sql).toString());
+        Assert.assertTrue(dsl.contains("{\"script\":{\"script\":{\"source\":\"if (doc['price'].size() == 0 || doc['qty'].size() == 0) { return false; } "
+                + "return (doc['price'].value * doc['qty'].value) > params.p0;\",\"lang\":\"painless\",\"params\":{\"p0\":100}},\"boost\":1.0}}"));
+        Assert.assertTrue(dsl.contains("return sqlSubstring(doc['uid'].value, params.p0, params.p1) == params.p2;\",\"lang\":\"painless\",\"params\":{\"p0\":1,\"p1\":3,\"p2\":\"abc\"}}"));
+        Assert.assertTrue(dsl.contains("{\"range\":{\"dt\":"));
+        // 常量不同的sql脚本相同
+        String other = SQLToEsDSLUtils.sqlToDslSearchBody("select uid from default.test_t1 where price * qty > 200").toString();
+        Assert.assertTrue(other.contains("return (doc['price'].value * doc['qty'].value) > params.p0;\",\"lang\":\"painless\",\"params\":{\"p0\":200}}"));
+
+        // between、除法及取负
+        String between = SQLToEsDSLUtils.sqlToDslSearchBody("select uid from default.test_t1 where (a + b) between 1 and 5 and -a / b < 0.5").toString();
+        Assert.assertTrue(between.contains("return ((doc['a'].value + doc['b'].value) >= params.p0 && (doc['a'].value + doc['b'].value) <= params.p1);"));
+        Assert.assertTrue(between.contains("return ((double) (-doc['a'].value) / doc['b'].value) < params.p0;\",\"lang\":\"painless\",\"params\":{\"p0\":0.5}}"));
+
+        // 不支持的函数及字段的比较不变
+        Assert.assertFalse(SQLToEsDSLUtils.sqlToDslSearchBody("select uid from default.test_t1 where md5(uid) = 'a'").toString().contains("\"script\""));
+        Assert.assertTrue(SQLToEsDSLUtils.sqlToDslSearchBody("select uid from default.test_t1 where uid = 'a'").toString().contains("{\"term\":{\"uid\""));
+    }
+
+    /**
+     * 测试参数占位符：与数字比较或参与运算的参数转为数字
+     */
+    @Test
+    public void testParams() {
+        PreparedSqlQuery query = SQLToEsDSLUtils.prepare("select price / ? as rate from default.test_t1 where abs(x - ?) <= ? and upper(name) = ? limit 0,10");
+        Assert.assertEquals(4, query.getParamCount());
+        String dsl = query.bindDsl(2, "1", "3.5", "10").toString();
+        Assert.assertEquals(dsl, EsDslAdapter.bind(query, 2, "1", "3.5", "10").toString());
+        Assert.assertTrue(dsl.contains("\"params\":{\"p0\":1,\"p1\":3.5}"));
+        Assert.assertTrue(dsl.contains("\"params\":{\"p0\":\"10\"}"));
+        Assert.assertTrue(dsl.contains("\"_source\":false,\"script_fields\":{\"rate\":{\"script\":{\"source\":\"if (doc['price'].size() == 0) { return null; } "
+                + "return ((double) doc['price'].value / params.p0);\",\"lang\":\"painless\",\"params\":{\"p0\":2}},\"ignore_failure\":false}}"));
+
+        // 查询模板缓存提取的常量为字符串，与数字比较时转为数字，常量不同的sql使用同一个模板
+        SqlTemplateCache cache = new SqlTemplateCache(16);
+        String first = cache.sqlToEsDslQueryBody("select uid from default.test_t1 where price * qty > 100").toString();
+        cache.sqlToEsDslQueryBody("select uid from default.test_t1 where price * qty > 200");
+        Assert.assertTrue(first.contains("\"params\":{\"p0\":100}"));
+        Assert.assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * 测试 select 中计算的列生成 script_fields，并从 fields 中解码
+     */
+    @Test
+    public void testScriptFields() {
+        String sql = "select uid, price * qty as total, upper(name), md5(uid) as hash from default.test_t1 limit 0,10";
+        String dsl = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString();
+        Assert.assertEquals(dsl, SQLToEsDSLUtils.sqlToDslSearchBody(sql).toString());
+        Assert.assertTrue(dsl.contains("\"_source\":{\"includes\":[\"uid\"],\"excludes\":[]},\"script_fields\":{\"total\":"));
+        Assert.assertTrue(dsl.contains("\"upper(name)\":{\"script\":{\"source\":\"if (doc['name'].size() == 0) { return null; } return doc['name'].value.toString().toUpperCase();\""));
+        Assert.assertFalse(dsl.contains("\"hash\""));
+        // 聚合及计数sql不计算
+        Assert.assertFalse(SQLToEsDSLUtils.sqlToDslSearchBody("select count(1) from default.test_t1").toString().contains("script_fields"));
+
+        String response = "{\"took\":1,\"hits\":{\"total\":{\"value\":1,\"relation\":\"eq\"},\"hits\":["
+                + "{\"_index\":\"t\",\"_score\":1.0,\"_source\":{\"uid\":\"u1\"},\"fields\":{\"total\":[12.5],\"upper(name)\":[\"AB\"]}}]}}";
+        List<Map<String, Object>> rows = new ArrayList<>();
+        SqlRowDecoder.of(sql).decode(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)), row -> rows.add(row.toMap()));
+        Assert.assertEquals(1, rows.size());
+        Assert.assertEquals("u1", rows.get(0).get("uid"));
+        Assert.assertEquals(12.5, rows.get(0).get("total"));
+        Assert.assertEquals("AB", rows.get(0).get("upper(name)"));
+        Assert.assertNull(rows.get(0).get("hash"));
+    }
+
+    /**
+     * 测试按索引的字段类型读取字段：text 字段读取其 keyword 子字段，不能从 doc_values 读取的字段不使用脚本
+     */
+    @Test
+    public void testSchemaFields() throws IOException {
+        String mappings = "{\"properties\":{\"name\":{\"type\":\"text\",\"fields\":{\"raw\":{\"type\":\"keyword\"}}},"
+                + "\"content\":{\"type\":\"text\"},\"price\":{\"type\":\"double\"},\"qty\":{\"type\":\"long\",\"doc_values\":false}}}";
+        EsIndexSchema schema = EsIndexSchema.fromMappings(JsonXContent.jsonXContent.createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, mappings).map());
+        SqlTranslateOptions options = SqlTranslateOptions.builder().schemaCatalog(new EsSchemaCatalog(index -> schema)).build();
+
+        String sql = "select upper(name) as n, length(content) as len, price * 2 as p from default.test_t1 where substring(name, 1, 2) = 'ab' limit 0,10";
+        String dsl = SQLToEsDSLUtils.sqlToDslSearchBody(sql, options).toString();
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql, options).toString(), dsl);
+        Assert.assertTrue(dsl.contains("return sqlSubstring(doc['name.raw'].value, params.p0, params.p1) == params.p2;"));
+        Assert.assertTrue(dsl.contains("\"n\":{\"script\":{\"source\":\"if (doc['name.raw'].size() == 0) { return null; } return doc['name.raw'].value.toString().toUpperCase();\""));
+        Assert.assertTrue(dsl.contains("\"p\":{\"script\":{\"source\":\"if (doc['price'].size() == 0) { return null; }"));
+        // text 字段没有 doc_values，不计算该列
+        Assert.assertFalse(dsl.contains("\"len\""));
+        Assert.assertFalse(dsl.contains("content"));
+
+        // 不能读取的字段的计算条件不能忽略
+        try {
+            SQLToEsDSLUtils.sqlToDslSearchBody("select uid from default.test_t1 where price * qty > 100", options);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("qty"));
+        }
+    }
+}
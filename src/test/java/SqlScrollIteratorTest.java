@@ -0,0 +1,121 @@
+import com.kanlon.utils.SqlScrollIterator;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 通过 scroll 逐批获取全部结果的测试（使用本地的 http 服务模拟 es）
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 19:50
+ **/
+public class SqlScrollIteratorTest {
+
+    private HttpServer server;
+
+    private RestClient restClient;
+
+    /**
+     * 收到的请求：方法 路径 请求体
+     */
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = readAll(exchange.getRequestBody());
+            String path = exchange.getRequestURI().getPath();
+            requests.add(exchange.getRequestMethod() + " " + path + " " + body);
+            String response;
+            if ("DELETE".equals(exchange.getRequestMethod())) {
+                response = "{\"succeeded\":true,\"num_freed\":1}";
+            } else if (path.endsWith("/_search")) {
+                response = page("s1", "{\"uid\":\"1\"}", "{\"uid\":\"2\"}");
+            } else if (body.contains("\"s1\"")) {
+                response = page("s2", "{\"uid\":\"3\"}");
+            } else {
+                response = page("s2");
+            }
+            byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        });
+        server.start();
+        restClient = RestClient.builder(new HttpHost("127.0.0.1", server.getAddress().getPort())).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        restClient.close();
+        server.stop(0);
+    }
+
+    /**
+     * 测试逐批获取全部结果，获取完后清除 scroll 上下文
+     */
+    @Test
+    public void testScroll() {
+        try (SqlScrollIterator iterator = SqlScrollIterator.open(restClient, "select uid from default.test_t1 where dt='1'", 2)) {
+            List<Object> uids = iterator.stream().map(row -> row.get("uid")).collect(Collectors.toList());
+            Assert.assertEquals(3, uids.size());
+            Assert.assertEquals("3", uids.get(2));
+        }
+        Assert.assertTrue(requests.get(0).startsWith("POST /default.test_t1/_search {\"size\":2,"));
+        Assert.assertTrue(requests.get(0).contains("\"sort\":[{\"_doc\":{\"order\":\"asc\"}}]"));
+        Assert.assertEquals(4, requests.size());
+        Assert.assertEquals("DELETE /_search/scroll {\"scroll_id\":[\"s2\"]}", requests.get(3));
+    }
+
+    /**
+     * 测试提前关闭流时清除 scroll 上下文，limit 限制返回的行数
+     */
+    @Test
+    public void testCloseEarly() {
+        try (Stream<Map<String, Object>> stream = SqlScrollIterator.open(restClient, "select uid from default.test_t1 limit 1,1", 2).stream()) {
+            Assert.assertEquals("2", stream.findFirst().orElseThrow(IllegalStateException::new).get("uid"));
+        }
+        Assert.assertEquals(2, requests.size());
+        Assert.assertEquals("DELETE /_search/scroll {\"scroll_id\":[\"s1\"]}", requests.get(1));
+    }
+
+    private static String page(String scrollId, String... sources) {
+        StringBuilder hits = new StringBuilder();
+        for (String source : sources) {
+            if (hits.length() > 0) {
+                hits.append(',');
+            }
+            hits.append("{\"_index\":\"default.test_t1\",\"_id\":\"x\",\"_score\":null,\"_source\":").append(source).append(",\"sort\":[0]}");
+        }
+        return "{\"_scroll_id\":\"" + scrollId + "\",\"took\":1,\"timed_out\":false,\"hits\":{\"total\":{\"value\":3,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[" + hits + "]}}";
+    }
+
+    private static String readAll(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int len;
+        while ((len = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, len);
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -1,7 +1,19 @@
+import com.kanlon.utils.EsDslAdapter;
+import com.kanlon.utils.EsResponseUtils;
+import com.kanlon.utils.QueryContextMode;
 import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlTranslateContext;
+import com.kanlon.utils.SqlTranslateOptions;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.SearchRequest;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * sql 转为es的dsl语法测试
  *
@@ -32,35 +44,34 @@ public class SqlToEsDslUtilsTest {
         String sql8 = "SELECT * FROM `default.test_t8` WHERE dt_time >= '202105092057+0800'  AND dt_time <= '202105112057+0800'  AND act = '7609' UNION ALL SELECT * FROM `default.test_t11` WHERE dt_time >= '202105092057+0800'  AND dt_time <= '202105112057+0800'  AND act = '7609' UNION ALL SELECT * FROM `default.test_t13` WHERE dt_time >= '202105092057+0800'  AND dt_time <= '202105112057+0800'  AND act = '7609' LIMIT 10";
         try {
             // 下面得到的实例信息，toString 之后，是原生es的 DSL 语法，将该json 作为body可以直接通过ES 的RESTful API查询es
-            String expRet1 = "{\"from\":0,\"size\":5,\"query\":{\"bool\":{\"must\":[{\"range\":{\"dt_time\":{\"from\":\"202105081313+0800\",\"to\":null,\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"range\":{\"dt_time\":{\"from\":null,\"to\":\"202105081413+0800\",\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"term\":{\"appid\":{\"value\":\"15013\",\"boost\":1.0}}},{\"terms\":{\"uid\":[\"2524712316\",\"2706555022\"],\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"_source\":{\"includes\":[\"dt\",\"uid\",\"appid\",\"time\",\"dt_time\"],\"excludes\":[]},\"sort\":[{\"dt_time\":{\"order\":\"desc\"}},{\"time\":{\"order\":\"desc\"}}]}";
+            String expRet1 = "{\"from\":0,\"size\":5,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"range\":{\"dt_time\":{\"from\":\"202105081313+0800\",\"to\":\"202105081413+0800\",\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"term\":{\"appid\":{\"value\":\"15013\",\"boost\":1.0}}},{\"terms\":{\"uid\":[\"2524712316\",\"2706555022\"],\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"_source\":{\"includes\":[\"appid\",\"uid\",\"dt\",\"dt_time\",\"time\"],\"excludes\":[]},\"sort\":[{\"dt_time\":{\"order\":\"desc\"}},{\"time\":{\"order\":\"desc\"}}]}";
             String actRet1 = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql1).toString();
             Assert.assertEquals(expRet1, actRet1);
 
-            String expRet2 = "{\"query\":{\"bool\":{\"must\":[{\"term\":{\"dt\":{\"value\":\"12\",\"boost\":1.0}}},{\"wildcard\":{\"country\":{\"wildcard\":\"*张三*\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}}";
+            String expRet2 = "{\"size\":0,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"term\":{\"dt\":{\"value\":\"12\",\"boost\":1.0}}},{\"wildcard\":{\"country\":{\"wildcard\":\"*张三*\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"_source\":false,\"track_total_hits\":2147483647}";
             String actRet2 = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql2).toString();
             Assert.assertEquals(expRet2, actRet2);
 
-            String expRet3 = "{\"from\":0,\"size\":10,\"query\":{\"bool\":{\"must\":[{\"term\":{\"dt\":{\"value\":\"asdf\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}}";
+            String expRet3 = "{\"from\":0,\"size\":10,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"term\":{\"dt\":{\"value\":\"asdf\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}}}";
             String actRet3 = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql3).toString();
             Assert.assertEquals(expRet3, actRet3);
 
-            String expRet4 = "{\"query\":{\"bool\":{\"must\":[{\"term\":{\"dt\":{\"value\":\"asdf\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}}";
+            String expRet4 = "{\"size\":0,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"term\":{\"dt\":{\"value\":\"asdf\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"_source\":false,\"track_total_hits\":2147483647}";
             String actRet4 = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql4).toString();
             Assert.assertEquals(expRet4, actRet4);
 
-            String expRet5 = "{\"from\":0,\"size\":10,\"query\":{\"bool\":{\"must\":[{\"term\":{\"dt\":{\"value\":\"adsf\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"sort\":[{\"desc\":{\"order\":\"desc\"}}]}";
-            String actRet5 = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql5).toString();
-            Assert.assertEquals(expRet5, actRet5);
+            // 条件不同的 union all 不能生成一个查询，需要每种条件一个查询
+            Assert.assertEquals(2, SQLToEsDSLUtils.sqlToEsMultiSearchRequest(sql5).requests().size());
 
-            String expRet6 = "{\"from\":0,\"size\":10,\"query\":{\"bool\":{\"must\":[{\"range\":{\"dt_time\":{\"from\":\"202105091817+0800\",\"to\":null,\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"range\":{\"dt_time\":{\"from\":null,\"to\":\"202105111817+0800\",\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"wildcard\":{\"country\":{\"wildcard\":\"*中国黑龙江绥化*\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}}";
+            String expRet6 = "{\"from\":0,\"size\":10,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"range\":{\"dt_time\":{\"from\":\"202105091817+0800\",\"to\":\"202105111817+0800\",\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"wildcard\":{\"country\":{\"wildcard\":\"*中国黑龙江绥化*\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}}}";
             String actRet6 = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql6).toString();
             Assert.assertEquals(expRet6, actRet6);
 
-            String expRet7 = "{\"query\":{\"bool\":{\"must\":[{\"range\":{\"dt_time\":{\"from\":\"202105092057+0800\",\"to\":null,\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"range\":{\"dt_time\":{\"from\":null,\"to\":\"202105112057+0800\",\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"term\":{\"act\":{\"value\":\"7609\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}}";
+            String expRet7 = "{\"size\":0,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"range\":{\"dt_time\":{\"from\":\"202105092057+0800\",\"to\":\"202105112057+0800\",\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"term\":{\"act\":{\"value\":\"7609\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"_source\":false,\"track_total_hits\":2147483647}";
             String actRet7 = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql7).toString();
             Assert.assertEquals(expRet7, actRet7);
 
-            String expRet8 = "{\"from\":0,\"size\":10,\"query\":{\"bool\":{\"must\":[{\"range\":{\"dt_time\":{\"from\":\"202105092057+0800\",\"to\":null,\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"range\":{\"dt_time\":{\"from\":null,\"to\":\"202105112057+0800\",\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"term\":{\"act\":{\"value\":\"7609\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}}";
+            String expRet8 = "{\"from\":0,\"size\":10,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"range\":{\"dt_time\":{\"from\":\"202105092057+0800\",\"to\":\"202105112057+0800\",\"include_lower\":true,\"include_upper\":true,\"boost\":1.0}}},{\"term\":{\"act\":{\"value\":\"7609\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}}}";
             String actRet8 = SQLToEsDSLUtils.sqlToEsDslQueryBody(sql8).toString();
             Assert.assertEquals(expRet8, actRet8);
             // 下面的包含 index信息，通过得到的这个 SearchRequest 这个实例 ，可以由该实例传到RestHighLevelClient#search 中去es查询获取结果
@@ -68,7 +79,6 @@ public class SqlToEsDslUtilsTest {
             System.out.println("转化sql2的请求参数结果：" + SQLToEsDSLUtils.sqlToEsSearchRequest(sql2));
             System.out.println("转化sql3的请求参数结果：" + SQLToEsDSLUtils.sqlToEsSearchRequest(sql3));
             System.out.println("转化sql4的请求参数结果：" + SQLToEsDSLUtils.sqlToEsSearchRequest(sql4));
-            System.out.println("转化sql5的请求参数结果：" + SQLToEsDSLUtils.sqlToEsSearchRequest(sql5));
             System.out.println("转化sql6的请求参数结果：" + SQLToEsDSLUtils.sqlToEsSearchRequest(sql6));
             System.out.println("转化sql7的请求参数结果：" + SQLToEsDSLUtils.sqlToEsSearchRequest(sql7));
             System.out.println("转化sql8的请求参数结果：" + SQLToEsDSLUtils.sqlToEsSearchRequest(sql8));
@@ -96,4 +106,112 @@ public class SqlToEsDslUtilsTest {
         }
     }
 
+    /**
+     * 测试同一个翻译上下文只解析一次sql，得到的结果与直接转换一致
+     */
+    @Test
+    public void testSqlTranslateContext() {
+        String sql = "SELECT count(1) AS num FROM (  SELECT *  FROM `default.test_t7`  WHERE act = '7609'  UNION ALL  SELECT *  FROM `default.test_t8`  WHERE act = '7609' ) temp_t ";
+        SqlTranslateContext context = SqlTranslateContext.parse(sql);
+        Assert.assertTrue(context.isCountSql());
+        Assert.assertEquals(SQLToEsDSLUtils.isCountSql(sql), context.isCountSql());
+        Assert.assertEquals(Arrays.asList("default.test_t7", "default.test_t8"), context.getTableNames());
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString(), SQLToEsDSLUtils.sqlToEsDslQueryBody(context).toString());
+        Assert.assertArrayEquals(new String[]{"default.test_t7", "default.test_t8"}, SQLToEsDSLUtils.sqlToEsSearchRequest(context).indices());
+    }
+
+    /**
+     * 测试计数sql只统计命中的总数，及从查询结果中获取总数
+     */
+    @Test
+    public void testCountSql() {
+        String sql = "select count(1) from default.test_t2 where dt='12' limit 0,10";
+        String expRet = "{\"size\":0,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"term\":{\"dt\":{\"value\":\"12\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"_source\":false,\"track_total_hits\":2147483647}";
+        Assert.assertEquals(expRet, SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString());
+
+        String es7Response = "{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},\"hits\":{\"max_score\":null,\"total\":{\"value\":123456,\"relation\":\"eq\"},\"hits\":[]}}";
+        Assert.assertEquals(123456L, EsResponseUtils.getCount(new ByteArrayInputStream(es7Response.getBytes(StandardCharsets.UTF_8))));
+        String es6Response = "{\"took\":1,\"hits\":{\"total\":42,\"max_score\":0.0,\"hits\":[]}}";
+        Assert.assertEquals(42L, EsResponseUtils.getCount(new ByteArrayInputStream(es6Response.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * 测试where条件的优化：合并范围条件、合并等于条件的 or、去掉重复及恒为真的条件、展开嵌套的 and/or
+     */
+    @Test
+    public void testOptimizePredicates() {
+        String sql = "select * from default.test_t3 where 1 = 1 and dt >= 10 and dt > 5 and dt < 20 and dt <= 20 and (appid = '1' or appid = '2' or (appid in ('3', '1'))) and uid = 'a' and uid = 'a' limit 10";
+        String expRet = "{\"from\":0,\"size\":10,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"range\":{\"dt\":{\"from\":\"10\",\"to\":\"20\",\"include_lower\":true,\"include_upper\":false,\"boost\":1.0}}},{\"terms\":{\"appid\":[\"1\",\"2\",\"3\"],\"boost\":1.0}},{\"term\":{\"uid\":{\"value\":\"a\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}}}";
+        Assert.assertEquals(expRet, SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString());
+
+        // 不同字段的 or 生成 should，恒为真的 or 被去掉
+        String orSql = "select * from default.test_t3 where (dt = '1' or (appid = '2' and uid = '3')) and (dt = '2' or 1 = 1)";
+        String expOrRet = "{\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"bool\":{\"should\":[{\"term\":{\"dt\":{\"value\":\"1\",\"boost\":1.0}}},{\"bool\":{\"filter\":[{\"term\":{\"appid\":{\"value\":\"2\",\"boost\":1.0}}},{\"term\":{\"uid\":{\"value\":\"3\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}}],\"adjust_pure_negative\":true,\"minimum_should_match\":\"1\",\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}}}";
+        Assert.assertEquals(expOrRet, SQLToEsDSLUtils.sqlToEsDslQueryBody(orSql).toString());
+
+        // 加了引号的常量按字符串比较（'9' > '10'），不按数字合并
+        Assert.assertEquals(2, SQLToEsDSLUtils.prepare("select * from default.test_t3 where dt >= '10' and dt > '9'").getPredicates().size());
+        Assert.assertEquals(1, SQLToEsDSLUtils.prepare("select * from default.test_t3 where dt >= '10' and dt < '9'").getPredicates().size());
+
+        // 关闭优化则保持原样
+        SqlTranslateOptions options = SqlTranslateOptions.builder().optimizePredicates(false).build();
+        String rangeSql = "select * from default.test_t3 where dt >= 10 and dt < 20";
+        Assert.assertEquals(2, SQLToEsDSLUtils.prepare(rangeSql, options).getPredicates().size());
+        Assert.assertEquals(1, SQLToEsDSLUtils.prepare(rangeSql).getPredicates().size());
+    }
+
+    /**
+     * 测试条件的上下文：默认不计算评分（filter），按 _score 排序或指定评分模式时使用 must
+     */
+    @Test
+    public void testQueryContextMode() {
+        String sql = "select * from default.test_t3 where dt='asdf' and uid not in ('1') limit 10";
+        String expFilter = "{\"from\":0,\"size\":10,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"term\":{\"dt\":{\"value\":\"asdf\",\"boost\":1.0}}}],\"must_not\":[{\"terms\":{\"uid\":[\"1\"],\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}}}";
+        Assert.assertEquals(expFilter, SQLToEsDSLUtils.sqlToEsDslQueryBody(sql).toString());
+
+        String expScore = "{\"from\":0,\"size\":10,\"query\":{\"bool\":{\"must\":[{\"term\":{\"dt\":{\"value\":\"asdf\",\"boost\":1.0}}}],\"must_not\":[{\"terms\":{\"uid\":[\"1\"],\"boost\":1.0}}],\"adjust_pure_negative\":true,\"boost\":1.0}}}";
+        SqlTranslateOptions scoreOptions = SqlTranslateOptions.builder().queryContextMode(QueryContextMode.SCORE).build();
+        Assert.assertEquals(expScore, SQLToEsDSLUtils.sqlToEsDslQueryBody(sql, scoreOptions).toString());
+
+        // 按相关度排序时自动使用评分上下文
+        String scoreSortSql = "select * from default.test_t3 where dt='asdf' order by _score desc limit 10";
+        Assert.assertTrue(SQLToEsDSLUtils.sqlToEsDslQueryBody(scoreSortSql).toString().contains("\"bool\":{\"must\":["));
+        SqlTranslateOptions filterOptions = SqlTranslateOptions.builder().queryContextMode(QueryContextMode.FILTER).build();
+        Assert.assertTrue(SQLToEsDSLUtils.sqlToEsDslQueryBody(scoreSortSql, filterOptions).toString().contains("\"constant_score\""));
+    }
+
+    /**
+     * 测试 union all：条件相同的查询合并为一个多索引的查询，条件不同时每种条件一个查询，并且只查询前 偏移量+条数 条
+     */
+    @Test
+    public void testUnionAllMultiSearch() {
+        String sameWhereSql = "SELECT * FROM `default.test_t8` WHERE act = '7609' UNION ALL SELECT * FROM `default.test_t11` WHERE act = '7609' LIMIT 10";
+        MultiSearchRequest sameWhereRequest = SQLToEsDSLUtils.sqlToEsMultiSearchRequest(sameWhereSql);
+        Assert.assertEquals(1, sameWhereRequest.requests().size());
+        Assert.assertArrayEquals(new String[]{"default.test_t8", "default.test_t11"}, sameWhereRequest.requests().get(0).indices());
+
+        String sql = "select uid from default.test_t5 where dt='1' union all select uid from default.test_t6 where dt='2' union all select uid from default.test_t7 where dt='1' order by ts desc limit 5,10";
+        Assert.assertTrue(SQLToEsDSLUtils.prepare(sql).isMultiSearch());
+        List<SearchRequest> requests = SQLToEsDSLUtils.sqlToEsMultiSearchRequest(sql).requests();
+        Assert.assertEquals(2, requests.size());
+        Assert.assertArrayEquals(new String[]{"default.test_t5", "default.test_t7"}, requests.get(0).indices());
+        Assert.assertArrayEquals(new String[]{"default.test_t6"}, requests.get(1).indices());
+        String expRet = "{\"size\":15,\"query\":{\"constant_score\":{\"filter\":{\"bool\":{\"filter\":[{\"term\":{\"dt\":{\"value\":\"2\",\"boost\":1.0}}}],\"adjust_pure_negative\":true,\"boost\":1.0}},\"boost\":1.0}},\"_source\":{\"includes\":[\"uid\"],\"excludes\":[]},\"sort\":[{\"ts\":{\"order\":\"desc\"}}]}";
+        Assert.assertEquals(expRet, requests.get(1).source().toString());
+
+        // 条件不同时生成一个查询的方法抛出异常，而不是只使用第一个查询的条件
+        for (Runnable single : Arrays.<Runnable>asList(() -> SQLToEsDSLUtils.sqlToEsSearchRequest(sql), () -> SQLToEsDSLUtils.sqlToEsDslQueryBody(sql),
+                () -> SQLToEsDSLUtils.sqlToDslSearchBody(sql), () -> EsDslAdapter.bindSearchRequest(SQLToEsDSLUtils.prepare(sql)))) {
+            try {
+                single.run();
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("sqlToEsMultiSearchRequest"));
+            }
+        }
+        Assert.assertEquals(sameWhereRequest.requests().get(0).source().toString(), SQLToEsDSLUtils.sqlToEsDslQueryBody(sameWhereSql).toString());
+
+        // 有 union（去重）时不拆分
+        Assert.assertFalse(SQLToEsDSLUtils.prepare("select uid from t5 where dt='1' union select uid from t6 where dt='2'").isMultiSearch());
+    }
 }
@@ -0,0 +1,96 @@
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlNormalizeUtils;
+import com.kanlon.utils.SqlTemplateCache;
+import com.kanlon.utils.SqlTranslateCache;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.trace.HistogramSqlTraceListener;
+import com.kanlon.utils.trace.SlowSqlTraceLogger;
+import com.kanlon.utils.trace.SqlStage;
+import com.kanlon.utils.trace.SqlTraceEvent;
+import com.kanlon.utils.trace.SqlTraceListener;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 翻译及执行的统计的监听器的测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/19 03:30
+ **/
+public class SqlTraceListenerTest {
+
+    /**
+     * 测试各阶段的耗时、条件数、dsl 的字节数及失败原因
+     */
+    @Test
+    public void testTranslateEvents() {
+        List<SqlTraceEvent> events = new ArrayList<>();
+        HistogramSqlTraceListener histogram = new HistogramSqlTraceListener();
+        SqlTraceListener collector = new SqlTraceListener() {
+            @Override
+            public void onTranslate(SqlTraceEvent event) {
+                events.add(event);
+            }
+        };
+        SqlTranslateOptions options = SqlTranslateOptions.builder()
+                .traceListener(SqlTraceListener.composite(collector, histogram, new SlowSqlTraceLogger(0, 0))).build();
+        SQLToEsDSLUtils.sqlToEsSearchRequest("select uid from default.test_t1 where appid = '1' and dt > '2' limit 0,10", options);
+        Assert.assertEquals(1, events.size());
+        SqlTraceEvent event = events.get(0);
+        Assert.assertFalse(event.isFailed());
+        Assert.assertEquals(2, event.getPredicateCount());
+        Assert.assertEquals(-1, event.getDslBytes());
+        Assert.assertTrue(event.getStageNanos(SqlStage.PARSE) > 0);
+        Assert.assertTrue(event.getStageNanos(SqlStage.WHERE) > 0);
+        Assert.assertTrue(event.getStageNanos(SqlStage.BUILD) > 0);
+        Assert.assertTrue(event.getTotalNanos() >= event.getStageNanos(SqlStage.PARSE) + event.getStageNanos(SqlStage.WHERE) + event.getStageNanos(SqlStage.BUILD));
+        // 指纹不包含常量，常量不同的sql指纹相同
+        Assert.assertEquals(16, event.getFingerprint().length());
+        Assert.assertEquals(SqlNormalizeUtils.fingerprint("SELECT uid FROM default.test_t1 WHERE appid = ? AND dt > ? LIMIT ?, ?"), event.getFingerprint());
+        Assert.assertFalse(event.toString().contains("appid"));
+
+        SqlTranslateCache cache = new SqlTranslateCache(16, 0, options);
+        byte[] dsl = cache.getDslBytes("select count(1) from default.test_t1 where appid = '1'");
+        cache.getDslBytes("select count(1) from default.test_t1 where appid = '1'");
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals(dsl.length, events.get(1).getDslBytes());
+        Assert.assertTrue(events.get(1).getStageNanos(SqlStage.SERIALIZE) > 0);
+        Assert.assertEquals(1, histogram.getCacheHits(SqlTraceListener.TRANSLATE_CACHE));
+        Assert.assertEquals(1, histogram.getCacheMisses(SqlTraceListener.TRANSLATE_CACHE));
+        Assert.assertEquals(2, histogram.getTranslateNanos().getTotalCount());
+        Assert.assertEquals(dsl.length, histogram.getDslBytes().getMaxValue());
+
+        // 失败的阶段及原因
+        try {
+            SQLToEsDSLUtils.sqlToEsSearchRequest("delete from default.test_t1", options);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertEquals(3, events.size());
+            Assert.assertSame(e, events.get(2).getFailure());
+            Assert.assertEquals(SqlStage.PARSE, events.get(2).getFailedStage());
+        }
+        Assert.assertEquals(Long.valueOf(1), histogram.getFailures().get("PARSE:java.lang.RuntimeException"));
+        Assert.assertEquals(2, histogram.getTranslateNanos().getTotalCount());
+    }
+
+    /**
+     * 测试查询模板缓存的命中统计，以及默认不统计
+     */
+    @Test
+    public void testTemplateCache() {
+        HistogramSqlTraceListener histogram = new HistogramSqlTraceListener();
+        SqlTemplateCache cache = new SqlTemplateCache(16, SqlTranslateOptions.builder().traceListener(histogram).build());
+        cache.sqlToEsSearchRequest("select uid from default.test_t1 where appid = '1'");
+        cache.sqlToEsSearchRequest("select uid from default.test_t1 where appid = '2'");
+        Assert.assertEquals(1, histogram.getCacheHits(SqlTraceListener.TEMPLATE_CACHE));
+        Assert.assertEquals(1, histogram.getCacheMisses(SqlTraceListener.TEMPLATE_CACHE));
+        Assert.assertEquals(1, histogram.getTranslateNanos().getTotalCount());
+        Assert.assertEquals(1, histogram.getPredicateCounts().getMaxValue());
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getTranslateNanos().getTotalCount());
+        Assert.assertNull(SQLToEsDSLUtils.prepare("select uid from default.test_t1").getFingerprint());
+    }
+}
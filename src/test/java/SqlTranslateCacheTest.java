@@ -0,0 +1,103 @@
+import com.kanlon.utils.SQLToEsDSLUtils;
+import com.kanlon.utils.SqlNormalizeUtils;
+import com.kanlon.utils.SqlTranslateCache;
+import com.kanlon.utils.SqlTranslateOptions;
+import com.kanlon.utils.SqlTranslateResult;
+import com.kanlon.utils.trace.SqlTraceEvent;
+import com.kanlon.utils.trace.SqlTraceListener;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * sql 转 es dsl 翻译缓存测试
+ *
+ * @author zhangcanlong
+ * @since 2026/10/18 11:50
+ **/
+public class SqlTranslateCacheTest {
+
+    /**
+     * 测试sql规范化，空白和关键字大小写不影响结果
+     */
+    @Test
+    public void testNormalize() {
+        String sql1 = "select appid,count(1) from    default.test_t1 where dt_time>='202105081313+0800' and appid = '15013'  limit 0,5";
+        String sql2 = "SELECT appid , count( 1 ) FROM default.test_t1\n WHERE dt_time >= '202105081313+0800' AND appid='15013' LIMIT 0, 5";
+        Assert.assertEquals(SqlNormalizeUtils.normalize(sql1), SqlNormalizeUtils.normalize(sql2));
+        // 字符串常量及标识符的大小写需要保留
+        Assert.assertNotEquals(SqlNormalizeUtils.normalize("select a from t where b = 'X'"), SqlNormalizeUtils.normalize("select a from t where b = 'x'"));
+        Assert.assertNotEquals(SqlNormalizeUtils.normalize("select A from t"), SqlNormalizeUtils.normalize("select a from t"));
+    }
+
+    /**
+     * 测试缓存命中，淘汰，及返回的对象不会修改缓存
+     */
+    @Test
+    public void testCache() {
+        SqlTranslateCache cache = new SqlTranslateCache(2, 0);
+        String sql1 = "select * from    default.test_t3 where dt='asdf' limit 10 ";
+        String sql2 = "SELECT * FROM default.test_t3 WHERE dt = 'asdf' LIMIT 10";
+        String sql3 = "select count(1) from    default.test_t2 where dt='12'";
+        String sql4 = "select * from    default.test_t4 where dt='asdf' limit 10 ";
+
+        SqlTranslateResult result = cache.get(sql1);
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql1).toString(), result.getDslString());
+        Assert.assertArrayEquals(new String[]{"default.test_t3"}, result.getIndices());
+        Assert.assertSame(result, cache.get(sql2));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        // 修改返回的对象不影响缓存
+        SearchSourceBuilder searchSourceBuilder = cache.getSearchSourceBuilder(sql1);
+        searchSourceBuilder.size(1000);
+        result.getDslBytes()[0] = 'x';
+        Assert.assertEquals(SQLToEsDSLUtils.sqlToEsDslQueryBody(sql1).toString(), cache.get(sql1).getDslString());
+
+        cache.get(sql3);
+        cache.get(sql4);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * 测试缓存命中时（多线程）生成 SearchSourceBuilder 及 SearchRequest 只绑定编译后的查询，不再翻译sql
+     */
+    @Test
+    public void testSearchSourceBuilderWithoutTranslate() {
+        AtomicInteger translateCount = new AtomicInteger();
+        SqlTraceListener listener = new SqlTraceListener() {
+            @Override
+            public void onTranslate(SqlTraceEvent event) {
+                translateCount.incrementAndGet();
+            }
+        };
+        SqlTranslateCache cache = new SqlTranslateCache(10, 0, SqlTranslateOptions.builder().traceListener(listener).build());
+        String sql = "select uid from default.test_t3 where dt='asdf' order by ts desc limit 10";
+        String dsl = cache.get(sql).getDslString();
+        // 多个线程同时获取
+        IntStream.range(0, 64).parallel().forEach(i -> {
+            Assert.assertEquals(dsl, cache.getSearchSourceBuilder(sql).toString());
+            Assert.assertEquals(dsl, cache.getSearchRequest(sql).source().toString());
+        });
+        Assert.assertEquals(1, translateCount.get());
+    }
+
+    /**
+     * 测试缓存过期
+     */
+    @Test
+    public void testCacheExpire() throws InterruptedException {
+        SqlTranslateCache cache = new SqlTranslateCache(10, 1);
+        String sql = "select * from    default.test_t3 where dt='asdf' limit 10 ";
+        cache.get(sql);
+        Thread.sleep(5);
+        cache.get(sql);
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(1, cache.getEvictionCount());
+    }
+}